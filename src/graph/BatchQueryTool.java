@@ -0,0 +1,230 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.BatchQueryTool.java
+ *  Execution:    java graph.BatchQueryTool graph-file [query-file]
+ *  Dependencies: graph.Graph.java graph.BinaryGraphFormat.java
+ *                graph.GraphQueryExecutor.java lib.FastOut.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyG.txt
+ *
+ *  Answers a stream of text queries on one graph, in parallel batches,
+ *  writing the answers in the order of the queries.
+ *
+ *  % printf "bfs 0\npath 0 3\nreach 0 9\npath 9 12\nwalk 1\n" | java graph.BatchQueryTool tinyG.txt
+ *  bfs 0: 7 vertices, depth 2
+ *  path 0 3: 0-5-3
+ *  reach 0 9: false
+ *  path 9 12: 9-12
+ *  error: line 5: unknown query "walk 1"
+ *  5 queries in 59 ms: 85 queries/s
+ *
+ ******************************************************************************/
+
+import lib.FastOut;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  The {@code graph.BatchQueryTool} class reads queries, one per line, and
+ *  writes one answer line per query:
+ *  <ul>
+ *  <li>{@code bfs s} searches from <em>s</em>, and answers
+ *      {@code bfs s: n vertices, depth d}, the size of the component of
+ *      <em>s</em> and the largest distance from <em>s</em> in it;
+ *  <li>{@code path s t} answers {@code path s t: } followed by a shortest
+ *      path such as {@code 0-5-3}, or {@code none};
+ *  <li>{@code reach s t} answers {@code reach s t: true} or {@code false}.
+ *  </ul>
+ *  Blank lines are skipped. A line that is not a valid query is answered
+ *  with {@code error: } and a description, so that answers stay aligned
+ *  with queries.
+ *  <p>
+ *  Queries are read in batches of {@link #BATCH} lines and submitted to a
+ *  {@link GraphQueryExecutor}. While one batch runs, the next one is read
+ *  and parsed, and the answers of the previous one are written, as digits
+ *  straight into a {@link FastOut} buffer that is flushed once at the end.
+ */
+public class BatchQueryTool {
+
+    /**
+     * The number of queries read and submitted together.
+     */
+    public static final int BATCH = 8192;
+
+    private final GraphQueryExecutor executor;
+
+    /**
+     * Initializes a tool that answers queries with {@code executor}.
+     *
+     * @param executor the executor; it should allow at least
+     *        2 * {@link #BATCH} queries in flight, so that a batch can be
+     *        submitted while the previous one is running
+     * @throws IllegalArgumentException if {@code executor} is {@code null}
+     */
+    public BatchQueryTool(GraphQueryExecutor executor) {
+        if (executor == null) throw new IllegalArgumentException("executor is null");
+        this.executor = executor;
+    }
+
+    /**
+     * Answers every query read from {@code in}, writing the answers to
+     * {@code out} in the order of the queries. Does not close either stream.
+     *
+     * @param in the queries
+     * @param out the answers
+     * @return the number of queries answered, including invalid ones
+     * @throws IOException if reading fails
+     * @throws java.io.UncheckedIOException if writing fails
+     */
+    public long run(BufferedReader in, FastOut out) throws IOException {
+        long count = 0;
+        long lineNumber = 0;
+        Batch running = null;
+        while (true) {
+            Batch next = new Batch();
+            lineNumber = next.read(in, lineNumber);
+            if (running != null) running.write(out);
+            if (next.size() == 0) break;
+            count += next.size();
+            running = next;
+        }
+        out.flush();
+        return count;
+    }
+
+    // the queries read together, submitted as soon as they are parsed
+    private final class Batch {
+        private final List<CompletableFuture<GraphQueryExecutor.Answer>> answers = new ArrayList<>(BATCH);
+        private final List<String> errors = new ArrayList<>(BATCH);    // null for a valid query
+
+        int size() {
+            return answers.size();
+        }
+
+        // reads up to BATCH queries and returns the number of the last line read
+        long read(BufferedReader in, long lineNumber) throws IOException {
+            String line;
+            while (answers.size() < BATCH && (line = in.readLine()) != null) {
+                lineNumber++;
+                try {
+                    GraphQueryExecutor.Query query = parse(line);
+                    if (query == null) continue;
+                    answers.add(executor.submit(query));
+                    errors.add(null);
+                }
+                catch (IllegalArgumentException e) {
+                    answers.add(null);
+                    errors.add("line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+            return lineNumber;
+        }
+
+        void write(FastOut out) {
+            for (int i = 0; i < answers.size(); i++) {
+                if (errors.get(i) != null) {
+                    out.print("error: ");
+                    out.print(errors.get(i));
+                    out.print('\n');
+                    continue;
+                }
+                format(answers.get(i).join(), out);
+            }
+        }
+    }
+
+    // the query on line, or null for a blank line
+    private static GraphQueryExecutor.Query parse(String line) {
+        String[] words = line.trim().split("\\s+");
+        if (words.length == 1 && words[0].isEmpty()) return null;
+        GraphQueryExecutor.Type type;
+        int arguments;
+        switch (words[0]) {
+            case "bfs":   type = GraphQueryExecutor.Type.SEARCH; arguments = 1; break;
+            case "path":  type = GraphQueryExecutor.Type.PATH;   arguments = 2; break;
+            case "reach": type = GraphQueryExecutor.Type.REACH;  arguments = 2; break;
+            default: throw new IllegalArgumentException("unknown query \"" + line.trim() + "\"");
+        }
+        if (words.length != arguments + 1)
+            throw new IllegalArgumentException(words[0] + " takes " + arguments + " vertices: \"" + line.trim() + "\"");
+        try {
+            int s = Integer.parseInt(words[1]);
+            int t = arguments == 2 ? Integer.parseInt(words[2]) : s;
+            return GraphQueryExecutor.Query.of(type, s, t);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("vertex is not an integer: \"" + line.trim() + "\"");
+        }
+    }
+
+    private static void format(GraphQueryExecutor.Answer answer, FastOut out) {
+        GraphQueryExecutor.Query query = answer.query();
+        switch (query.type()) {
+            case SEARCH:
+                out.print("bfs ");
+                out.print(query.source());
+                out.print(": ");
+                out.print(answer.reached());
+                out.print(" vertices, depth ");
+                out.print(answer.distance());
+                break;
+            case PATH:
+                out.print("path ");
+                out.print(query.source());
+                out.print(' ');
+                out.print(query.target());
+                out.print(": ");
+                if (answer.path() == null) out.print("none");
+                else answer.path().print(out);
+                break;
+            default:
+                out.print("reach ");
+                out.print(query.source());
+                out.print(' ');
+                out.print(query.target());
+                out.print(": ");
+                out.print(answer.reachable());
+        }
+        out.print('\n');
+    }
+
+    /**
+     * Loads a graph in text or binary format, answers the queries of the
+     * query file, or of standard input, on standard output, and reports
+     * the throughput on standard error.
+     *
+     * @param args the command-line arguments: the graph file and,
+     *        optionally, the query file
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("usage: java graph.BatchQueryTool graph-file [query-file]");
+            System.exit(2);
+        }
+        Graph G = BinaryGraphFormat.load(new File(args[0]));
+        try (GraphQueryExecutor executor = new GraphQueryExecutor(G, 2 * BATCH);
+             InputStream input = args.length == 2 ? new FileInputStream(args[1]) : new FileInputStream(FileDescriptor.in)) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+            FastOut out = new FastOut(new FileOutputStream(FileDescriptor.out), 1 << 20);
+            long start = System.nanoTime();
+            long count = new BatchQueryTool(executor).run(in, out);
+            long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            System.err.printf("%d queries in %d ms: %.0f queries/s%n", count, ms, count * 1000.0 / Math.max(ms, 1));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.BfsResultCache.java
+ *  Execution:    java graph.BfsResultCache
+ *  Dependencies: graph.Graph.java lib.In.java lib.StdRandom.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/mediumG.txt
+ *
+ *  A size-bounded LRU cache of breadth-first search results, keyed by
+ *  graph version and source vertex.
+ *
+ *  % java graph.BfsResultCache
+ *  hits = 8010  misses = 1990  evictions = 1970  bytes = 25000
+ *
+ ******************************************************************************/
+
+import lib.In;
+import lib.StdRandom;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Stack;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  The {@code graph.BfsResultCache} class caches the shortest-path trees
+ *  computed by breadth-first search from individual sources of a graph,
+ *  so that repeated queries from popular sources do not redo the
+ *  O(<em>V</em> + <em>E</em>) search.
+ *  <p>
+ *  Entries are keyed by ({@link Graph#version()}, source): once an edge is
+ *  added to the graph, the next lookup drops every older entry, so a stale
+ *  result is never returned. Eviction is least-recently-used and the
+ *  bound is in bytes of stored results rather than in entries.
+ *  Each {@link Result} keeps only the parent array and the distances, the
+ *  latter in a {@code byte[]} or {@code short[]} when the largest distance
+ *  allows it.
+ *  <p>
+ *  The cache is safe for use by multiple threads. Concurrent misses for
+ *  the same key are coalesced: one thread runs the search while the others
+ *  wait for its result. Hit, miss and eviction counters are kept for
+ *  monitoring.
+ */
+public class BfsResultCache {
+    private final Graph G;
+    private final long maxBytes;
+    private final LinkedHashMap<Long, Result> lru = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, CompletableFuture<Result>> inFlight = new LinkedHashMap<>();
+    private long bytes;
+    private long cachedVersion;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Initializes an empty cache of search results on graph {@code G}.
+     *
+     * @param G the graph
+     * @param maxBytes the maximum total size of the cached results, in bytes
+     * @throws IllegalArgumentException if {@code G} is {@code null}
+     * @throws IllegalArgumentException if {@code maxBytes < 0}
+     */
+    public BfsResultCache(Graph G, long maxBytes) {
+        if (G == null) throw new IllegalArgumentException("graph is null");
+        if (maxBytes < 0) throw new IllegalArgumentException("maximum size must be nonnegative");
+        this.G = G;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the breadth-first search result from source {@code s},
+     * computing it if it is not cached for the current version of the graph.
+     *
+     * @param s the source vertex
+     * @return the shortest paths from {@code s}
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     */
+    public Result get(int s) {
+        return get(s, null);
+    }
+
+    /**
+     * Returns the breadth-first search result from source {@code s}, as
+     * {@link #get(int)} does. A search run by this call polls {@code token}
+     * once every {@link CancellationToken#CHECK_INTERVAL} vertices; a
+     * cancelled search caches nothing, and the calls that were waiting for
+     * its result run the search again.
+     *
+     * @param s the source vertex
+     * @param token the cancellation token, or {@code null} for a search that
+     *        cannot be cancelled
+     * @return the shortest paths from {@code s}
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     * @throws CancellationException if {@code token} is cancelled before the search ends
+     */
+    public Result get(int s, CancellationToken token) {
+        if (s < 0 || s >= G.V())
+            throw new IllegalArgumentException("vertex " + s + " is not between 0 and " + (G.V()-1));
+        // a lookup counts once, as a hit or a miss, however often it retries
+        for (boolean counted = false; ; counted = true) {
+            long version = G.version();
+            Long key = key(version, s);
+            CompletableFuture<Result> future;
+            boolean owner = false;
+            synchronized (this) {
+                if (version != cachedVersion) invalidate(version);
+                Result cached = lru.get(key);
+                if (cached != null) {
+                    if (!counted) hits.incrementAndGet();
+                    return cached;
+                }
+                if (!counted) misses.incrementAndGet();
+                future = inFlight.get(key);
+                if (future == null) {
+                    future = new CompletableFuture<>();
+                    inFlight.put(key, future);
+                    owner = true;
+                }
+            }
+
+            if (!owner) {
+                try {
+                    return join(future);
+                }
+                catch (CancellationException e) {
+                    // the search was cancelled by the token of the call that ran it, not ours
+                    if (token != null && token.isCancelled()) throw e;
+                    continue;
+                }
+            }
+
+            try {
+                Result result = new Result(G, s, token);
+                synchronized (this) {
+                    inFlight.remove(key);
+                    if (G.version() == version && version == cachedVersion && result.bytes() <= maxBytes) {
+                        lru.put(key, result);
+                        bytes += result.bytes();
+                        evict();
+                    }
+                }
+                future.complete(result);
+                return result;
+            }
+            catch (RuntimeException e) {
+                synchronized (this) {
+                    inFlight.remove(key);
+                }
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    private static Result join(CompletableFuture<Result> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for a search result", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // the graph has changed: every cached result is stale
+    private void invalidate(long version) {
+        evictions.addAndGet(lru.size());
+        lru.clear();
+        bytes = 0;
+        cachedVersion = version;
+    }
+
+    private void evict() {
+        Iterator<Result> it = lru.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().bytes();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static Long key(long version, int s) {
+        return (version << 32) ^ (s & 0xffffffffL);
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups not answered from the cache, including
+     * those that waited for a concurrent search of the same source.
+     *
+     * @return the number of misses
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of results removed to respect the size bound or
+     * because the graph changed.
+     *
+     * @return the number of evictions
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the number of cached results
+     */
+    public synchronized int size() {
+        return lru.size();
+    }
+
+    /**
+     * Returns the total size of the cached results, in bytes.
+     *
+     * @return the size of the cached results
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * The {@code Result} class represents the shortest paths from one source
+     * vertex, stored compactly.
+     */
+    public static final class Result {
+        private static final int INFINITY = Integer.MAX_VALUE;
+
+        private final int s;
+        private final int[] edgeTo;     // edgeTo[v] = previous vertex on shortest s-v path, -1 if none
+        private final byte[] distByte;  // exactly one of the three distance arrays is non-null,
+        private final short[] distShort; // the narrowest one that holds the largest distance;
+        private final int[] distInt;    // -1 means unreachable
+
+        private Result(Graph G, int s, CancellationToken token) {
+            this.s = s;
+            int check = token == null ? INFINITY : 1;
+            int V = G.V();
+            edgeTo = new int[V];
+            Arrays.fill(edgeTo, -1);
+            int[] dist = new int[V];
+            Arrays.fill(dist, -1);
+            int[] queue = new int[V];
+            int head = 0;
+            int tail = 0;
+            dist[s] = 0;
+            queue[tail++] = s;
+            while (head < tail) {
+                int v = queue[head++];
+                if (--check == 0) {
+                    if (token.isCancelled())
+                        throw new CancellationException("search from " + s + " was cancelled");
+                    check = CancellationToken.CHECK_INTERVAL;
+                }
+                for (int w : G.adj(v)) {
+                    if (dist[w] == -1) {
+                        dist[w] = dist[v] + 1;
+                        edgeTo[w] = v;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+            int max = tail == 0 ? 0 : dist[queue[tail - 1]];
+            if (max <= Byte.MAX_VALUE) {
+                distByte = new byte[V];
+                for (int v = 0; v < V; v++) distByte[v] = (byte) dist[v];
+                distShort = null;
+                distInt = null;
+            }
+            else if (max <= Short.MAX_VALUE) {
+                distByte = null;
+                distShort = new short[V];
+                for (int v = 0; v < V; v++) distShort[v] = (short) dist[v];
+                distInt = null;
+            }
+            else {
+                distByte = null;
+                distShort = null;
+                distInt = dist;
+            }
+        }
+
+        /**
+         * Returns the source vertex of these paths.
+         *
+         * @return the source vertex
+         */
+        public int source() {
+            return s;
+        }
+
+        /**
+         * Is there a path between the source vertex and vertex {@code v}?
+         *
+         * @param v the vertex
+         * @return {@code true} if there is a path, and {@code false} otherwise
+         * @throws IllegalArgumentException unless {@code 0 <= v < V}
+         */
+        public boolean hasPathTo(int v) {
+            return rawDist(v) != -1;
+        }
+
+        /**
+         * Returns the number of edges in a shortest path between the source
+         * vertex and vertex {@code v}.
+         *
+         * @param v the vertex
+         * @return the number of edges in a shortest path, or {@code Integer.MAX_VALUE}
+         *         if there is none
+         * @throws IllegalArgumentException unless {@code 0 <= v < V}
+         */
+        public int distTo(int v) {
+            int d = rawDist(v);
+            return d == -1 ? INFINITY : d;
+        }
+
+        /**
+         * Returns a shortest path between the source vertex and {@code v},
+         * or {@code null} if no such path.
+         *
+         * @param v the vertex
+         * @return the sequence of vertices on a shortest path, as an Iterable
+         * @throws IllegalArgumentException unless {@code 0 <= v < V}
+         */
+        public Iterable<Integer> pathTo(int v) {
+            if (!hasPathTo(v)) return null;
+            Stack<Integer> path = new Stack<>();
+            int x;
+            for (x = v; x != s; x = edgeTo[x])
+                path.push(x);
+            path.push(x);
+            return path;
+        }
+
+        /**
+         * Returns a shortest path between the source vertex and {@code v} as
+         * an array of primitive vertex ids, or {@code null} if no such path.
+         *
+         * @param v the vertex
+         * @return the path, from the source to {@code v}
+         * @throws IllegalArgumentException unless {@code 0 <= v < V}
+         */
+        public IntPath path(int v) {
+            if (!hasPathTo(v)) return null;
+            int[] vertices = new int[rawDist(v) + 1];
+            fill(v, vertices);
+            return new IntPath(vertices);
+        }
+
+        /**
+         * Writes a shortest path between the source vertex and {@code v} into
+         * {@code buffer}, from the source, without allocating.
+         *
+         * @param v the vertex
+         * @param buffer the array to write the path into
+         * @return the number of vertices written, or 0 if there is no path
+         * @throws IllegalArgumentException unless {@code 0 <= v < V}
+         * @throws IllegalArgumentException if {@code buffer} is too short for the path
+         */
+        public int pathTo(int v, int[] buffer) {
+            if (!hasPathTo(v)) return 0;
+            int n = rawDist(v) + 1;
+            if (buffer.length < n)
+                throw new IllegalArgumentException("buffer of length " + buffer.length + " cannot hold " + n + " vertices");
+            fill(v, buffer);
+            return n;
+        }
+
+        // writes the path to v into buffer[0 .. dist(v)]
+        private void fill(int v, int[] buffer) {
+            for (int x = v, i = rawDist(v); i >= 0; x = edgeTo[x], i--)
+                buffer[i] = x;
+        }
+
+        /**
+         * Returns the number of bytes used by this result's arrays.
+         *
+         * @return the size of this result in bytes
+         */
+        public long bytes() {
+            int V = edgeTo.length;
+            long distBytes = distByte != null ? V : distShort != null ? 2L * V : 4L * V;
+            return 4L * V + distBytes;
+        }
+
+        private int rawDist(int v) {
+            int V = edgeTo.length;
+            if (v < 0 || v >= V)
+                throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+            if (distByte != null) return distByte[v];
+            if (distShort != null) return distShort[v];
+            return distInt[v];
+        }
+    }
+
+    /**
+     * Unit tests the {@code graph.BfsResultCache} data type with a skewed
+     * stream of source queries on {@code mediumG.txt}.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        In in = new In("mediumG.txt");
+        Graph G = new Graph(in);
+        BfsResultCache cache = new BfsResultCache(G, 20 * 5L * G.V());
+        StdRandom.setSeed(0);
+        for (int i = 0; i < 10000; i++) {
+            // a few popular sources, and a long tail
+            int s = StdRandom.bernoulli(0.8) ? StdRandom.uniform(10) : StdRandom.uniform(G.V());
+            cache.get(s);
+        }
+        System.out.println("hits = " + cache.hits() + "  misses = " + cache.misses()
+                + "  evictions = " + cache.evictions() + "  bytes = " + cache.bytes());
+    }
+}
@@ -0,0 +1,190 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.BinaryGraphFormat.java
+ *  Execution:    java graph.BinaryGraphFormat input.txt output.bin
+ *  Dependencies: graph.Graph.java graph.GraphBuilder.java graph.GraphExporter.java
+ *                graph.PipelinedGraphLoader.java lib.In.java
+ *
+ *  Reads and writes undirected graphs in a compact binary
+ *  compressed-sparse-row format that can be memory-mapped.
+ *
+ *  % java graph.BinaryGraphFormat mediumG.txt mediumG.bin
+ *  250 vertices, 1273 edges written to mediumG.bin (12216 bytes)
+ *
+ ******************************************************************************/
+
+import lib.In;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ *  The {@code graph.BinaryGraphFormat} class provides static methods for
+ *  saving a {@link Graph} to a binary file and loading it back.
+ *  <p>
+ *  The file is big-endian and consists of a 24-byte header
+ *  (the magic number {@link #MAGIC}, the format {@link #VERSION},
+ *  <em>V</em>, the number <em>E</em> of distinct edges, and the number
+ *  <em>N</em> of adjacency entries
+ *  as a {@code long}), followed by <em>V</em> + 1 {@code long} offsets
+ *  and <em>N</em> {@code int} neighbours: the neighbours of vertex
+ *  <em>v</em>, in increasing order, are entries {@code offset[v]} to
+ *  {@code offset[v+1] - 1}.
+ *  Every section is aligned to its element size, so that it can be read
+ *  through a memory-mapped {@link LongBuffer} or {@link IntBuffer} without
+ *  copying. Index files built from a graph, such as the labels of
+ *  {@link PrunedLandmarkLabeling}, are stored next to it in a sibling file
+ *  (see {@link #sibling(File, String)}).
+ *  <p>
+ *  Since {@link Graph} stores each adjacency list as a set, parallel edges
+ *  are saved once, and both the <em>E</em> of the header and the <em>E</em>
+ *  of a loaded graph count distinct edges.
+ */
+public class BinaryGraphFormat {
+
+    /**
+     * The magic number at the start of every binary graph file ("GRBF").
+     */
+    public static final int MAGIC = 0x47524246;
+
+    /**
+     * The version of the format written by this class.
+     */
+    public static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 24;
+
+    // this class cannot be instantiated
+    private BinaryGraphFormat() { }
+
+    /**
+     * Writes graph {@code G} to {@code file}.
+     *
+     * @param  G the graph
+     * @param  file the file to write
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public static void write(Graph G, File file) {
+        GraphExporter.export(G, GraphExporter.Format.BINARY, file, 1);
+    }
+
+    /**
+     * Reads a graph from {@code file}.
+     *
+     * @param  file the file to read
+     * @return the graph
+     * @throws IllegalArgumentException if the file is not in this format
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public static Graph read(File file) {
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            ByteBuffer header = map(channel, 0, HEADER_BYTES);
+            int V = checkHeader(header, file);
+            long entries = header.getLong(16);
+            LongBuffer offsets = map(channel, HEADER_BYTES, 8L * (V + 1)).asLongBuffer();
+            IntBuffer targets = map(channel, HEADER_BYTES + 8L * (V + 1), 4L * entries).asIntBuffer();
+            GraphBuilder builder = new GraphBuilder(V, (int) Math.min(entries / 2, Integer.MAX_VALUE));
+            for (int v = 0; v < V; v++) {
+                for (int i = (int) offsets.get(v), end = (int) offsets.get(v + 1); i < end; i++) {
+                    int w = targets.get(i);
+                    if (v <= w) builder.addEdge(v, w);
+                }
+            }
+            Graph G = builder.assemble(1);
+            event.end();
+            if (event.shouldCommit()) {
+                event.representation = "BinaryGraphFormat";
+                event.V = G.V();
+                event.E = G.E();
+                event.commit();
+            }
+            return G;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not read " + file, e);
+        }
+    }
+
+    /**
+     * Reads a graph from {@code file}, in this format if the file starts
+     * with {@link #MAGIC}, and otherwise in the text format of
+     * {@link Graph#Graph(In)}, with a {@link PipelinedGraphLoader}.
+     *
+     * @param  file the file to read
+     * @return the graph
+     * @throws IllegalArgumentException if the file cannot be opened or parsed
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public static Graph load(File file) {
+        if (isBinary(file)) return read(file);
+        return PipelinedGraphLoader.load(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    // does file start with the magic number of this format?
+    private static boolean isBinary(File file) {
+        if (!file.isFile() || file.length() < HEADER_BYTES) return false;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not read " + file, e);
+        }
+    }
+
+    // validates the header and returns V
+    static int checkHeader(ByteBuffer header, File file) {
+        if (header.getInt(0) != MAGIC)
+            throw new IllegalArgumentException(file + " is not a binary graph file");
+        if (header.getInt(4) != VERSION)
+            throw new IllegalArgumentException(file + " has unsupported format version " + header.getInt(4));
+        int V = header.getInt(8);
+        if (V < 0) throw new IllegalArgumentException("number of vertices in " + file + " is negative");
+        return V;
+    }
+
+    // maps a read-only section of the file; a section may not exceed 2 GB
+    static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("section of " + size + " bytes is too large to map");
+        if (position + size > channel.size())
+            throw new IllegalArgumentException("file is truncated");
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    /**
+     * Returns the file that holds an index of the given kind built from the
+     * graph stored in {@code file}: the same name, followed by {@code suffix}.
+     *
+     * @param  file the binary graph file
+     * @param  suffix the suffix identifying the kind of index, such as {@code ".pll"}
+     * @return the sibling file
+     */
+    public static File sibling(File file, String suffix) {
+        return new File(file.getPath() + suffix);
+    }
+
+    /**
+     * Converts a text graph file to the binary format.
+     *
+     * @param args the command-line arguments: the input and output file names
+     */
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        Graph G = new Graph(in);
+        File file = new File(args[1]);
+        write(G, file);
+        System.out.println(G.V() + " vertices, " + G.E() + " edges written to " + file
+                + " (" + file.length() + " bytes)");
+    }
+}
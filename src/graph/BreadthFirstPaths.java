@@ -2,7 +2,7 @@ package graph;
 /******************************************************************************
  *  Compilation:  javac graph.BreadthFirstPaths.java
  *  Execution:    java graph.BreadthFirstPaths G s
- *  Dependencies: graph.Graph.java Queue.java Stack.java
+ *  Dependencies: graph.Graph.java Queue.java Stack.java lib.FastOut.java
  *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyCG.txt
  *                https://algs4.cs.princeton.edu/41graph/tinyG.txt
  *                https://algs4.cs.princeton.edu/41graph/mediumG.txt
@@ -40,11 +40,13 @@ package graph;
  ******************************************************************************/
 
 
+import lib.FastOut;
 import lib.In;
 
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.Stack;
+import java.util.function.IntPredicate;
 
 /**
  * The {@code graph.BreadthFirstPaths} class represents a data type for finding
@@ -72,6 +74,8 @@ public class BreadthFirstPaths {
     private boolean[] visited;  // marked[v] = is there an s-v path
     private int[] edgeTo;      // edgeTo[v] = previous edge on shortest s-v path
     private int[] distTo;      // distTo[v] = number of edges shortest s-v path
+    private int foundTarget = -1;  // the target that stopped the search, or -1
+    private boolean complete = true;  // false if the search was cancelled
 
     /**
      * Computes the shortest path between the source vertex {@code s}
@@ -102,7 +106,37 @@ public class BreadthFirstPaths {
         for (int v = 0; v < G.V(); v++)
             distTo[v] = INFINITY;
         validateVertices(sources);
+        GraphQueryEvent event = new GraphQueryEvent();
+        event.begin();
         bfs(G, sources);
+        event.commit("BreadthFirstPaths", -1, G, visited);
+    }
+
+    /**
+     * Computes the shortest paths between the source vertices in {@code sources}
+     * and the vertices of graph {@code G} that the search reaches within the
+     * limits of {@code options}. Vertices the search does not reach have no path.
+     * The steps of the search are reported to the listener of {@code options}, if any.
+     *
+     * @param G       the graph
+     * @param sources the source vertices
+     * @param options the limits and listener of the search
+     * @throws IllegalArgumentException unless {@code 0 <= s < V} for each vertex
+     *                                  {@code s} in {@code sources} and each target
+     * @throws IllegalArgumentException if {@code options} is {@code null}
+     */
+    public BreadthFirstPaths(Graph G, Iterable<Integer> sources, TraversalOptions options) {
+        if (options == null) throw new IllegalArgumentException("options is null");
+        visited = new boolean[G.V()];
+        distTo = new int[G.V()];
+        edgeTo = new int[G.V()];
+        for (int v = 0; v < G.V(); v++)
+            distTo[v] = INFINITY;
+        validateVertices(sources);
+        GraphQueryEvent event = new GraphQueryEvent();
+        event.begin();
+        bfs(G, sources, options);
+        event.commit("BreadthFirstPaths", -1, G, visited);
     }
 
 
@@ -132,6 +166,115 @@ public class BreadthFirstPaths {
         }
     }
 
+    // breadth-first search from multiple sources, stopping at the limits of options
+    private void bfs(Graph G, Iterable<Integer> sources, TraversalOptions options) {
+        int maxDepth = options.maxDepth();
+        int budget = options.maxVisited();
+        boolean[] isTarget = options.targetMarks(G.V());
+        IntPredicate filter = options.filter();
+        CancellationToken token = options.cancellation();
+        int check = options.firstCheck();
+        TraversalListener listener = options.listener();
+        TraversalStatistics statistics = options.statistics();
+        TraversalStatistics.Probe probe = statistics == null ? null : statistics.start("BreadthFirstPaths", -1);
+
+        int[] queue = new int[G.V()];
+        int head = 0;
+        int tail = 0;
+        int levelStart = 0;     // queue[levelStart .. levelEnd-1] is the current level
+        int levelEnd = 0;
+        long edges = 0;
+        int peak = 0;
+        try {
+            for (int s : sources) {
+                if (visited[s]) continue;
+                visited[s] = true;
+                distTo[s] = 0;
+                queue[tail++] = s;
+                if (listener != null) listener.discover(s);
+                if (isTarget != null && isTarget[s]) {
+                    foundTarget = s;
+                    return;
+                }
+                if (tail == budget) return;
+            }
+            levelEnd = tail;
+            peak = tail;
+            while (head < tail) {
+                if (head == levelEnd) {
+                    if (probe != null) probe.level(levelEnd - levelStart);
+                    levelStart = levelEnd;
+                    levelEnd = tail;
+                }
+                int v = queue[head++];
+                if (--check == 0) {
+                    if (token.isCancelled()) {
+                        complete = false;
+                        return;
+                    }
+                    check = CancellationToken.CHECK_INTERVAL;
+                }
+                if (distTo[v] == maxDepth) {
+                    if (listener != null) listener.finish(v);
+                    continue;
+                }
+                for (int w : G.adj(v)) {
+                    edges++;
+                    if (visited[w]) {
+                        if (listener != null) listener.nonTreeEdge(v, w);
+                        continue;
+                    }
+                    if (filter != null && !filter.test(w)) continue;
+                    if (listener != null) {
+                        listener.treeEdge(v, w);
+                        listener.discover(w);
+                    }
+                    edgeTo[w] = v;
+                    distTo[w] = distTo[v] + 1;
+                    visited[w] = true;
+                    queue[tail++] = w;
+                    if (tail - head > peak) peak = tail - head;
+                    if (isTarget != null && isTarget[w]) {
+                        foundTarget = w;
+                        return;
+                    }
+                    if (tail == budget) return;
+                }
+                if (listener != null) listener.finish(v);
+            }
+        }
+        finally {
+            if (probe != null) {
+                if (head > levelStart) probe.level(levelEnd - levelStart);
+                probe.finish(tail, edges, peak);
+            }
+            if (listener != null) listener.end();
+        }
+    }
+
+    /**
+     * Returns the target vertex that stopped a search with
+     * {@link TraversalOptions#target(int) targets}: the first one it reached,
+     * which is one of the targets nearest to the sources.
+     *
+     * @return the target vertex found, or -1 if the search found none
+     */
+    public int foundTarget() {
+        return foundTarget;
+    }
+
+    /**
+     * Did the search run to the end, or to one of the limits of its options,
+     * rather than being stopped by its {@link CancellationToken}? If not,
+     * the paths found so far are shortest paths, but some vertices connected
+     * to the sources may have no path.
+     *
+     * @return {@code true} if the search was not cancelled, and {@code false} otherwise
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
     /**
      * Is there a path between the source vertex {@code s} (or sources) and vertex {@code v}?
      *
@@ -170,6 +313,36 @@ public class BreadthFirstPaths {
         return null;
     }
 
+    /**
+     * Returns a shortest path between the source vertex {@code s} (or sources)
+     * and {@code v} as an array of primitive vertex ids, or {@code null} if no such path.
+     *
+     * @param v the vertex
+     * @return the path, from the source to {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public IntPath path(int v) {
+        validateVertex(v);
+        if (!hasPathTo(v)) return null;
+        return IntPath.of(edgeTo, distTo, v);
+    }
+
+    /**
+     * Writes a shortest path between the source vertex {@code s} (or sources)
+     * and {@code v} into {@code buffer}, from the source, without allocating.
+     *
+     * @param v the vertex
+     * @param buffer the array to write the path into
+     * @return the number of vertices written, or 0 if there is no path
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     * @throws IllegalArgumentException if {@code buffer} is too short for the path
+     */
+    public int pathTo(int v, int[] buffer) {
+        validateVertex(v);
+        if (!hasPathTo(v)) return 0;
+        return IntPath.fill(edgeTo, distTo, v, buffer);
+    }
+
 
     // check optimality conditions for single source
     private boolean check(Graph G, int s) {
@@ -248,19 +421,21 @@ public class BreadthFirstPaths {
         int s = 0;
         BreadthFirstPaths bfs = new BreadthFirstPaths(G, s);
 
+        FastOut out = new FastOut();
         for (int v = 0; v < G.V(); v++) {
+            out.print(s);
+            out.print(" to ");
+            out.print(v);
             if (bfs.hasPathTo(v)) {
-                System.out.print(s + " to " + v + " (" + bfs.distTo(v) + "): ");
-                Stack<Integer> path = (Stack<Integer>) bfs.pathTo(v);
-                while (!path.isEmpty()) {
-                    int x = path.pop();
-                    if (x == s) System.out.print(x);
-                    else System.out.print("-" + x);
-                }
-                System.out.println();
+                out.print(" (");
+                out.print(bfs.distTo(v));
+                out.print("): ");
+                bfs.path(v).print(out);
+                out.println();
             } else {
-                System.out.println(s + " to " + v + " (-): not connected");
+                out.println(" (-): not connected");
             }
         }
+        out.flush();
     }
 }
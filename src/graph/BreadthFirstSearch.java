@@ -2,7 +2,7 @@ package graph;
 /******************************************************************************
  *  Compilation:  javac graph.BreadthFirstSearch.java
  *  Execution:    java graph.BreadthFirstSearch graph.txt s
- *  Dependencies: graph.Graph.java Queue.java Stack.java
+ *  Dependencies: graph.Graph.java Queue.java Stack.java lib.FastOut.java
  *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyCG.txt
  *                https://algs4.cs.princeton.edu/41graph/tinyG.txt
  *                https://algs4.cs.princeton.edu/41graph/mediumG.txt
@@ -36,10 +36,10 @@ package graph;
  *
  ******************************************************************************/
 
+import lib.FastOut;
 import lib.In;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.function.IntPredicate;
 
 /**
  *  The {@code graph.BreadthFirstSearch} class represents a data type for finding
@@ -62,33 +62,136 @@ import java.util.Queue;
  */
 public class BreadthFirstSearch {
     private boolean[] visited;  // marked[v] = is there an s-v path?
+    private int foundTarget = -1;  // the target that stopped the search, or -1
+    private boolean complete = true;  // false if the search was cancelled
+
     /**
-     * Computes the vertices connected to the source vertex {@code s} in the graph {@code G}.
+     * Computes the vertices connected to the source vertex {@code s} in the graph {@code G},
+     * printing {@code visit w from v} to standard output for every vertex {@code w}
+     * discovered from a vertex {@code v}.
      * @param G the graph
      * @param s the source vertex
      * @throws IllegalArgumentException unless {@code 0 <= s < V}
      */
     public BreadthFirstSearch(Graph G, int s) {
+        this(G, s, new TraversalOptions().listener(new ConsoleTraversalListener()));
+    }
+
+    /**
+     * Computes the vertices connected to the source vertex {@code s} in the graph {@code G}
+     * that the search reaches within the limits of {@code options}. The search prints
+     * nothing; its steps are reported to the listener of {@code options}, if any.
+     * @param G the graph
+     * @param s the source vertex
+     * @param options the limits and listener of the search
+     * @throws IllegalArgumentException unless {@code 0 <= s < V} and {@code 0 <= t < V}
+     *    for each target {@code t}
+     * @throws IllegalArgumentException if {@code options} is {@code null}
+     */
+    public BreadthFirstSearch(Graph G, int s, TraversalOptions options) {
+        if (options == null) throw new IllegalArgumentException("options is null");
         visited = new boolean[G.V()];
         validateVertex(s);
+        int maxDepth = options.maxDepth();
+        int budget = options.maxVisited();
+        boolean[] isTarget = options.targetMarks(G.V());
+        IntPredicate filter = options.filter();
+        CancellationToken token = options.cancellation();
+        int check = options.firstCheck();
+        TraversalListener listener = options.listener();
+        TraversalStatistics statistics = options.statistics();
+        TraversalStatistics.Probe probe = statistics == null ? null : statistics.start("BreadthFirstSearch", s);
 
-        // breadth-first search using queue
-        Queue<Integer> queue = new LinkedList<>();
-        visited[s] = true;
-        queue.add(s);
-        while (!queue.isEmpty()) {
-            int curr = queue.remove();
-            for(int w : G.adj(curr)){
-                if (!visited[w]) {
-                    // discovered vertex w for the first time
-                    System.out.println("visit " + w + " from " + curr);
-                    visited[w] = true;
-                    queue.add(w); //add w to the queue
+        // breadth-first search using queue, one level at a time
+        int[] queue = new int[G.V()];
+        int head = 0;
+        int tail = 0;
+        int depth = 0;
+        int levelStart = 0;     // queue[levelStart .. levelEnd-1] is the current level
+        int levelEnd = 1;
+        long edges = 0;
+        int peak = 1;
+        GraphQueryEvent event = new GraphQueryEvent();
+        event.begin();
+        try {
+            visited[s] = true;
+            queue[tail++] = s;
+            if (listener != null) listener.discover(s);
+            if (isTarget != null && isTarget[s]) {
+                foundTarget = s;
+                return;
+            }
+            while (head < tail && depth < maxDepth && tail < budget) {
+                int curr = queue[head++];
+                if (--check == 0) {
+                    if (token.isCancelled()) {
+                        complete = false;
+                        return;
+                    }
+                    check = CancellationToken.CHECK_INTERVAL;
+                }
+                for(int w : G.adj(curr)){
+                    edges++;
+                    if (visited[w]) {
+                        if (listener != null) listener.nonTreeEdge(curr, w);
+                    }
+                    else if (filter == null || filter.test(w)) {
+                        // discovered vertex w for the first time
+                        if (listener != null) {
+                            listener.treeEdge(curr, w);
+                            listener.discover(w);
+                        }
+                        visited[w] = true;
+                        queue[tail++] = w; //add w to the queue
+                        if (tail - head > peak) peak = tail - head;
+                        if (isTarget != null && isTarget[w]) {
+                            foundTarget = w;
+                            return;
+                        }
+                        if (tail == budget) return;
+                    }
                 }
+                if (listener != null) listener.finish(curr);
+                if (head == levelEnd) {
+                    if (probe != null) probe.level(levelEnd - levelStart);
+                    depth++;
+                    levelStart = levelEnd;
+                    levelEnd = tail;
+                }
+            }
+            // the vertices left in the queue lie at the maximum depth
+            if (listener != null)
+                for (int i = head; i < tail; i++)
+                    listener.finish(queue[i]);
+        }
+        finally {
+            if (probe != null) {
+                if (head > levelStart) probe.level(levelEnd - levelStart);
+                probe.finish(tail, edges, peak);
             }
+            if (listener != null) listener.end();
+            event.commit("BreadthFirstSearch", s, G, visited);
         }
     }
 
+    /**
+     * Returns the target vertex that stopped a search with
+     * {@link TraversalOptions#target(int) targets}.
+     * @return the target vertex found, or -1 if the search found none
+     */
+    public int foundTarget() {
+        return foundTarget;
+    }
+
+    /**
+     * Did the search run to the end, or to one of the limits of its options,
+     * rather than being stopped by its {@link CancellationToken}?
+     * @return {@code true} if the search was not cancelled, and {@code false} otherwise
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
     /**
      * Is vertex {@code v} connected to the source vertex {@code s}?
      * @param v the vertex
@@ -118,9 +221,14 @@ public class BreadthFirstSearch {
         Graph G = new Graph(in);
         int s = 0; //BFS from vertex 0
         BreadthFirstSearch bfs = new BreadthFirstSearch(G, s);
-        for (int v = 0; v < G.V(); v++)
-            if (bfs.visited(v))
-                System.out.print(v + ",");
-        System.out.println();
+        FastOut out = new FastOut();
+        for (int v = 0; v < G.V(); v++) {
+            if (bfs.visited(v)) {
+                out.print(v);
+                out.print(',');
+            }
+        }
+        out.println();
+        out.flush();
     }
 }
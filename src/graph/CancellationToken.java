@@ -0,0 +1,137 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.CancellationToken.java
+ *  Execution:    java graph.CancellationToken
+ *  Dependencies: graph.Graph.java graph.GraphGenerator.java
+ *                graph.BreadthFirstPaths.java graph.TraversalOptions.java
+ *
+ *  A flag, optionally with a deadline, that long-running traversals poll
+ *  so that they can be stopped from another thread.
+ *
+ *  % java graph.CancellationToken
+ *  unlimited:  complete = true   reached = 199991
+ *  0 ms:       complete = false  reached = 1
+ *
+ ******************************************************************************/
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  The {@code graph.CancellationToken} class lets a caller stop a traversal
+ *  that is running in some thread, either explicitly with {@link #cancel()}
+ *  or by giving it a deadline.
+ *  <p>
+ *  Traversals given a token through {@link TraversalOptions#cancellation}
+ *  poll {@link #isCancelled()} once every {@link #CHECK_INTERVAL} vertices
+ *  they remove from their queue or stack. When it returns {@code true}
+ *  they stop and keep what they have found so far, and their
+ *  {@code isComplete()} method returns {@code false}. A traversal without
+ *  a token only decrements a counter per vertex, so it pays nothing
+ *  measurable for the check. Searches that build a single value from the
+ *  whole search, such as {@link DenseGraph#bfs(int, CancellationToken)},
+ *  {@link BfsResultCache#get(int, CancellationToken)} and the
+ *  {@link LandmarkDistanceOracle} constructor, poll the token in the same
+ *  way but throw a {@link java.util.concurrent.CancellationException}
+ *  instead, as a partial value would be wrong rather than incomplete.
+ *  <p>
+ *  A token is also considered cancelled in a thread that has been
+ *  interrupted, so that interrupting a worker stops the traversal it runs.
+ *  Tokens are safe for use by multiple threads, and may be shared by any
+ *  number of traversals.
+ */
+public class CancellationToken {
+
+    /**
+     * The number of vertices a traversal processes between two polls of its token.
+     */
+    public static final int CHECK_INTERVAL = 1024;
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final long deadline;            // System.nanoTime() at which the token expires
+    private volatile boolean cancelled;
+
+    /**
+     * Initializes a token without a deadline, cancelled only by {@link #cancel()}.
+     */
+    public CancellationToken() {
+        this.deadline = NO_DEADLINE;
+    }
+
+    private CancellationToken(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns a token that is cancelled once {@code timeout} has elapsed from now.
+     *
+     * @param  timeout the time budget
+     * @param  unit the unit of {@code timeout}
+     * @return a token with a deadline
+     * @throws IllegalArgumentException if {@code timeout < 0}
+     */
+    public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) throw new IllegalArgumentException("timeout must be nonnegative");
+        long nanos = unit.toNanos(timeout);
+        long now = System.nanoTime();
+        // saturate rather than overflow for very long timeouts
+        long deadline = nanos >= NO_DEADLINE - now ? NO_DEADLINE - 1 : now + nanos;
+        return new CancellationToken(deadline);
+    }
+
+    /**
+     * Cancels every traversal that polls this token.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Has this token been cancelled, has its deadline passed, or has the
+     * calling thread been interrupted?
+     *
+     * @return {@code true} if the traversal polling this token should stop,
+     *         and {@code false} otherwise
+     */
+    public boolean isCancelled() {
+        if (cancelled) return true;
+        if (deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0) {
+            cancelled = true;
+            return true;
+        }
+        return Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Returns the time left before the deadline of this token.
+     *
+     * @param  unit the unit of the result
+     * @return the remaining time, 0 if it has passed, or {@code Long.MAX_VALUE}
+     *         if this token has no deadline
+     */
+    public long remaining(TimeUnit unit) {
+        if (deadline == NO_DEADLINE) return Long.MAX_VALUE;
+        return unit.convert(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Unit tests the {@code graph.CancellationToken} data type on a large
+     * random graph, without a deadline and with one that has already passed.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        Graph G = GraphGenerator.simple(200000, 1000000);
+        CancellationToken[] tokens = { null, withTimeout(0, TimeUnit.MILLISECONDS) };
+        String[] names = { "unlimited: ", "0 ms:      " };
+        for (int i = 0; i < tokens.length; i++) {
+            TraversalOptions options = new TraversalOptions().cancellation(tokens[i]);
+            BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(0), options);
+            int reached = 0;
+            for (int v = 0; v < G.V(); v++)
+                if (bfs.hasPathTo(v)) reached++;
+            System.out.printf("%s complete = %-5b  reached = %d%n", names[i], bfs.isComplete(), reached);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.CompressedGraph.java
+ *  Execution:    java graph.CompressedGraph
+ *  Dependencies: graph.Graph.java graph.GraphReorderer.java lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/mediumG.txt
+ *
+ *  A read-only undirected graph whose sorted adjacency lists are stored
+ *  as gaps encoded with a variable-length (varint) byte code.
+ *
+ *  % java graph.CompressedGraph
+ *  IDENTITY Graph           ~  501.4 bits/edge  ... BFS/s
+ *  IDENTITY CompressedGraph     12.5 bits/edge  ... BFS/s
+ *  BFS      Graph           ~  501.4 bits/edge  ... BFS/s
+ *  BFS      CompressedGraph     11.9 bits/edge  ... BFS/s
+ *
+ ******************************************************************************/
+
+import lib.In;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ *  The {@code graph.CompressedGraph} class represents a read-only undirected
+ *  graph of vertices named 0 through <em>V</em> – 1, built from a
+ *  {@link Graph}.
+ *  <p>
+ *  Each adjacency list is kept in increasing order (the order in which
+ *  {@link Graph} already stores it) and encoded in one shared byte array as
+ *  its degree, followed by the signed gap from the vertex to its first
+ *  neighbour, followed by the gaps between consecutive neighbours.
+ *  Every number uses a 7-bits-per-byte varint code, so a list of close
+ *  neighbours (see {@link GraphReorderer}) costs about one byte per entry.
+ *  <p>
+ *  {@link #degree(int)} takes constant time. Iterating over the vertices
+ *  adjacent to a vertex, with {@link #adj(int)} or the allocation-free
+ *  {@link #adj(int, int[])}, takes time proportional to the number of such
+ *  vertices.
+ */
+public class CompressedGraph {
+    // estimated heap cost of a Graph: per vertex an array slot, a TreeSet and its TreeMap,
+    // and per adjacency entry a TreeMap node plus a boxed Integer
+    private static final int TREESET_VERTEX_BYTES = 4 + 16 + 48;
+    private static final int TREESET_ENTRY_BYTES = 40 + 16;
+
+    private final int V;
+    private final int E;
+    private final int[] offset;   // offset[v] = start of the encoded adjacency list of v
+    private final byte[] data;    // encoded adjacency lists, one after another
+
+    /**
+     * Initializes a compressed copy of graph {@code G}.
+     *
+     * @param G the graph to compress
+     * @throws IllegalArgumentException if {@code G} is {@code null} or too
+     *         large to encode in a single array
+     */
+    public CompressedGraph(Graph G) {
+        if (G == null) throw new IllegalArgumentException("argument is null");
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
+        this.V = G.V();
+        this.E = G.E();
+        this.offset = new int[V + 1];
+
+        // first pass: size of each encoded list
+        long size = 0;
+        for (int v = 0; v < V; v++) {
+            offset[v] = (int) size;
+            size += varintLength(G.degree(v));
+            int prev = v;
+            boolean first = true;
+            for (int w : G.adj(v)) {
+                size += varintLength(first ? zigzag(w - prev) : w - prev);
+                prev = w;
+                first = false;
+            }
+            if (size > Integer.MAX_VALUE - 8)
+                throw new IllegalArgumentException("graph too large to compress into one array");
+        }
+        offset[V] = (int) size;
+
+        // second pass: encode
+        data = new byte[(int) size];
+        for (int v = 0; v < V; v++) {
+            int pos = writeVarint(data, offset[v], G.degree(v));
+            int prev = v;
+            boolean first = true;
+            for (int w : G.adj(v)) {
+                pos = writeVarint(data, pos, first ? zigzag(w - prev) : w - prev);
+                prev = w;
+                first = false;
+            }
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.representation = "CompressedGraph";
+            event.V = V;
+            event.E = E;
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the number of vertices in this graph.
+     *
+     * @return the number of vertices in this graph
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges in this graph.
+     *
+     * @return the number of edges in this graph
+     */
+    public int E() {
+        return E;
+    }
+
+    /**
+     * Returns the degree of vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return the degree of vertex {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int degree(int v) {
+        validateVertex(v);
+        return readVarint(data, offset[v]);
+    }
+
+    /**
+     * Decodes the vertices adjacent to vertex {@code v}, in increasing order,
+     * into {@code buffer}. No objects are allocated.
+     *
+     * @param  v the vertex
+     * @param  buffer the array to fill; must have room for {@code degree(v)} entries
+     * @return the number of vertices written, that is, the degree of {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     * @throws IllegalArgumentException if {@code buffer} is too small
+     */
+    public int adj(int v, int[] buffer) {
+        validateVertex(v);
+        int pos = offset[v];
+        // varint decoding is inlined here, this is the traversal hot path
+        int degree = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[pos++];
+            degree |= (b & 0x7f) << shift;
+            if (b >= 0) break;
+        }
+        if (buffer == null || buffer.length < degree)
+            throw new IllegalArgumentException("buffer must have room for " + degree + " vertices");
+        int prev = v;
+        for (int i = 0; i < degree; i++) {
+            int gap = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[pos++];
+                gap |= (b & 0x7f) << shift;
+                if (b >= 0) break;
+            }
+            prev += (i == 0) ? unzigzag(gap) : gap;
+            buffer[i] = prev;
+        }
+        return degree;
+    }
+
+    /**
+     * Returns the vertices adjacent to vertex {@code v}, in increasing order.
+     *
+     * @param  v the vertex
+     * @return the vertices adjacent to vertex {@code v}, as an iterable
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public Iterable<Integer> adj(int v) {
+        validateVertex(v);
+        return () -> new AdjIterator(v);
+    }
+
+    // decodes one adjacency list lazily
+    private class AdjIterator implements Iterator<Integer> {
+        private int pos;
+        private int remaining;
+        private int prev;
+        private boolean first = true;
+
+        AdjIterator(int v) {
+            pos = offset[v];
+            remaining = readVarint(data, pos);
+            pos += varintLength(remaining);
+            prev = v;
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        public Integer next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int gap = readVarint(data, pos);
+            pos += varintLength(gap);
+            prev += first ? unzigzag(gap) : gap;
+            first = false;
+            remaining--;
+            return prev;
+        }
+    }
+
+    /**
+     * Returns the maximum degree of any vertex, so that a single buffer for
+     * {@link #adj(int, int[])} can be allocated once per traversal.
+     *
+     * @return the maximum degree
+     */
+    public int maxDegree() {
+        int max = 0;
+        for (int v = 0; v < V; v++)
+            max = Math.max(max, readVarint(data, offset[v]));
+        return max;
+    }
+
+    /**
+     * Returns the number of bytes used by the encoded adjacency lists and
+     * their offsets.
+     *
+     * @return the size of this graph in bytes, not including object headers
+     */
+    public long sizeInBytes() {
+        return data.length + 4L * offset.length;
+    }
+
+    /**
+     * Returns the average number of bits used per adjacency entry
+     * (each edge appears in two adjacency lists).
+     *
+     * @return the number of bits per adjacency entry, or 0 if there are none
+     */
+    public double bitsPerEdge() {
+        long entries = 0;
+        for (int v = 0; v < V; v++)
+            entries += readVarint(data, offset[v]);
+        return entries == 0 ? 0.0 : 8.0 * sizeInBytes() / entries;
+    }
+
+    /**
+     * Returns a string representation of this graph, in the same format as
+     * {@link Graph#toString()}.
+     *
+     * @return the number of vertices <em>V</em>, followed by the number of edges <em>E</em>,
+     *         followed by the <em>V</em> adjacency lists
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(V + " vertices, " + E + " edges " + System.lineSeparator());
+        for (int v = 0; v < V; v++) {
+            s.append(v + ": ");
+            for (int w : adj(v)) {
+                s.append(w + " ");
+            }
+            s.append(System.lineSeparator());
+        }
+        return s.toString();
+    }
+
+    // map signed to unsigned so that small negative gaps stay short
+    private static int zigzag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    private static int unzigzag(int n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static int varintLength(int n) {
+        int length = 1;
+        while ((n & ~0x7f) != 0) {
+            n >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeVarint(byte[] a, int pos, int n) {
+        while ((n & ~0x7f) != 0) {
+            a[pos++] = (byte) ((n & 0x7f) | 0x80);
+            n >>>= 7;
+        }
+        a[pos++] = (byte) n;
+        return pos;
+    }
+
+    private static int readVarint(byte[] a, int pos) {
+        int n = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = a[pos++];
+            n |= (b & 0x7f) << shift;
+            if (b >= 0) return n;
+        }
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    // estimated size of G in bytes, from its number of vertices and edges: a bit matrix of V rows,
+    // or V adjacency sets holding 2E entries
+    private static long graphBytes(Graph G) {
+        long V = G.V();
+        if (G.isDense()) return 8 * V * ((V + 63) >>> 6);
+        return V * TREESET_VERTEX_BYTES + 2L * G.E() * TREESET_ENTRY_BYTES;
+    }
+
+    // breadth-first search from s over the adjacency sets, with the same loop as the one below
+    private static int bfs(Graph G, int s, int[] queue, boolean[] visited) {
+        Arrays.fill(visited, false);
+        int head = 0;
+        int tail = 0;
+        visited[s] = true;
+        queue[tail++] = s;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int w : G.adj(v)) {
+                if (!visited[w]) {
+                    visited[w] = true;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return tail;
+    }
+
+    // breadth-first search from s over the compressed lists; returns the number of vertices reached
+    private static int bfs(CompressedGraph G, int s, int[] queue, boolean[] visited, int[] buffer) {
+        Arrays.fill(visited, false);
+        int head = 0;
+        int tail = 0;
+        visited[s] = true;
+        queue[tail++] = s;
+        while (head < tail) {
+            int v = queue[head++];
+            int degree = G.adj(v, buffer);
+            for (int i = 0; i < degree; i++) {
+                int w = buffer[i];
+                if (!visited[w]) {
+                    visited[w] = true;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Unit tests the {@code graph.CompressedGraph} data type: compares the
+     * bits per edge and breadth-first search throughput of {@code mediumG.txt}
+     * against the uncompressed {@link Graph}, with and without
+     * {@link GraphReorderer.Strategy#BFS} relabelling. Both searches run the
+     * same loop over an {@code int[]} queue; the size of the {@link Graph}
+     * is estimated from its number of vertices and edges.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        In in = new In("mediumG.txt");
+        Graph G = new Graph(in);
+        int rounds = 20;
+
+        for (GraphReorderer.Strategy strategy : new GraphReorderer.Strategy[] {
+                GraphReorderer.Strategy.IDENTITY, GraphReorderer.Strategy.BFS }) {
+            Graph H = new GraphReorderer(G, strategy).graph();
+            int[] queue = new int[H.V()];
+            boolean[] visited = new boolean[H.V()];
+
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++)
+                for (int s = 0; s < H.V(); s++)
+                    bfs(H, s, queue, visited);
+            double uncompressed = rounds * H.V() / ((System.nanoTime() - start) / 1e9);
+
+            CompressedGraph C = new CompressedGraph(H);
+            int[] buffer = new int[C.maxDegree()];
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++)
+                for (int s = 0; s < C.V(); s++)
+                    bfs(C, s, queue, visited, buffer);
+            double compressed = rounds * C.V() / ((System.nanoTime() - start) / 1e9);
+
+            System.out.printf("%-8s Graph           ~%7.1f bits/edge  %10.0f BFS/s%n",
+                    strategy, H.E() == 0 ? 0.0 : 8.0 * graphBytes(H) / (2L * H.E()), uncompressed);
+            System.out.printf("%-8s CompressedGraph  %7.1f bits/edge  %10.0f BFS/s%n",
+                    strategy, C.bitsPerEdge(), compressed);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.ConsoleTraversalListener.java
+ *  Execution:    java graph.ConsoleTraversalListener
+ *  Dependencies: graph.Graph.java graph.BreadthFirstSearch.java lib.FastOut.java
+ *                lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyG.txt
+ *
+ *  Prints every tree edge of a traversal as "visit w from v".
+ *
+ *  % java graph.ConsoleTraversalListener
+ *  visit 1 from 0
+ *  visit 2 from 0
+ *  visit 5 from 0
+ *  visit 6 from 0
+ *  visit 3 from 5
+ *  visit 4 from 5
+ *
+ ******************************************************************************/
+
+import lib.FastOut;
+import lib.In;
+
+import java.io.PrintStream;
+
+/**
+ *  The {@code graph.ConsoleTraversalListener} class is a {@link TraversalListener}
+ *  that prints the line {@code visit w from v} for every tree edge
+ *  <em>v</em>-<em>w</em> of a search, the trace that
+ *  {@link BreadthFirstSearch#BreadthFirstSearch(Graph, int)} writes to
+ *  standard output.
+ *  <p>
+ *  The lines are collected in a {@link FastOut} buffer and written when it
+ *  fills up and when the search ends, rather than one line at a time, so
+ *  a listener must not be shared by searches running at the same time.
+ */
+public class ConsoleTraversalListener implements TraversalListener {
+    private final FastOut out;
+
+    /**
+     * Initializes a listener that prints to standard output, as it is
+     * whenever the listener writes out its buffer.
+     */
+    public ConsoleTraversalListener() {
+        this.out = new FastOut();
+    }
+
+    /**
+     * Initializes a listener that prints to {@code out}.
+     *
+     * @param out the output stream
+     * @throws IllegalArgumentException if {@code out} is {@code null}
+     */
+    public ConsoleTraversalListener(PrintStream out) {
+        if (out == null) throw new IllegalArgumentException("output stream is null");
+        this.out = new FastOut(out);
+    }
+
+    @Override
+    public void treeEdge(int v, int w) {
+        out.print("visit ");
+        out.print(w);
+        out.print(" from ");
+        out.print(v);
+        out.println();
+    }
+
+    @Override
+    public void end() {
+        out.flush();
+    }
+
+    /**
+     * Unit tests the {@code graph.ConsoleTraversalListener} data type.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        In in = new In("tinyG.txt");
+        Graph G = new Graph(in);
+        new BreadthFirstSearch(G, 0, new TraversalOptions().listener(new ConsoleTraversalListener()));
+    }
+}
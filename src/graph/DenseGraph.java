@@ -0,0 +1,367 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.DenseGraph.java
+ *  Execution:    java graph.DenseGraph V
+ *  Dependencies: graph.Graph.java graph.GraphGenerator.java
+ *
+ *  An undirected graph, implemented using a bit adjacency matrix.
+ *  Self-loops allowed, parallel edges stored once.
+ *
+ *  % java graph.DenseGraph 3000
+ *  complete graph on 3000 vertices
+ *  Graph       BFS from 0:   394.43 ms
+ *  DenseGraph  BFS from 0:     4.05 ms
+ *
+ ******************************************************************************/
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+
+/**
+ *  The {@code graph.DenseGraph} class represents an undirected graph of
+ *  vertices named 0 through <em>V</em> – 1, stored as a <em>V</em>-by-<em>V</em>
+ *  bit matrix packed into a {@code long[]} with one row of
+ *  ⌈<em>V</em>/64⌉ words per vertex.
+ *  It supports the same operations as {@link Graph}, plus a constant-time
+ *  {@link #hasEdge(int, int)}.
+ *  Adding an edge that is already present has no effect, so <em>E</em>
+ *  counts distinct edges.
+ *  <p>
+ *  The matrix takes <em>V</em><sup>2</sup> bits no matter how many edges
+ *  there are, which beats the adjacency lists of {@link Graph} once
+ *  <em>E</em> / <em>V</em><sup>2</sup> exceeds {@link #DENSITY_THRESHOLD};
+ *  {@link #isDense(int, long)} tells whether a graph is that dense, and
+ *  {@link Graph} uses it to choose its representation: a dense graph read
+ *  from input, built by a {@link GraphBuilder} or made by
+ *  {@link GraphGenerator} is a {@code Graph} backed by a {@code DenseGraph}.
+ *  Iterating over the vertices adjacent to a vertex takes time proportional
+ *  to <em>V</em>/64 plus the number of such vertices, and
+ *  {@link #bfs(int)} expands each level of the search with word-wide
+ *  OR and AND-NOT operations over whole rows.
+ */
+public class DenseGraph {
+
+    /**
+     * The edge density <em>E</em> / <em>V</em><sup>2</sup> above which a
+     * bit matrix is preferred to adjacency lists.
+     */
+    public static final double DENSITY_THRESHOLD = 1.0 / 64;
+
+    // below this, a row is less than a word and adjacency sets are tiny either way
+    private static final int MIN_DENSE_VERTICES = 64;
+
+    private final int V;
+    private final int words;     // number of longs per row
+    private final long[] bits;   // bit w of row v is set iff v-w is an edge
+
+    // the most longs in one array
+    private static final long MAX_WORDS = Integer.MAX_VALUE - 8;
+    private int E;
+
+    /**
+     * Initializes an empty graph with {@code V} vertices and 0 edges.
+     *
+     * @param  V number of vertices
+     * @throws IllegalArgumentException if {@code V < 0}
+     * @throws IllegalArgumentException if the matrix does not fit in one array
+     */
+    public DenseGraph(int V) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be nonnegative");
+        this.V = V;
+        this.words = (V + 63) >>> 6;
+        long size = (long) V * words;
+        if (size > MAX_WORDS)
+            throw new IllegalArgumentException("too many vertices for a bit matrix: " + V);
+        this.bits = new long[(int) size];
+    }
+
+    /**
+     * Initializes a bit-matrix copy of graph {@code G}.
+     *
+     * @param  G the graph to copy
+     */
+    public DenseGraph(Graph G) {
+        this(G.V());
+        for (int v = 0; v < G.V(); v++)
+            for (int w : G.adj(v))
+                if (v <= w) addEdge(v, w);
+    }
+
+    /**
+     * Is a graph with {@code V} vertices and {@code E} edges dense enough
+     * that a {@code DenseGraph} is the better representation?
+     *
+     * @param  V the number of vertices
+     * @param  E the number of edges
+     * @return {@code true} if <em>E</em> / <em>V</em><sup>2</sup> exceeds
+     *         {@link #DENSITY_THRESHOLD}, there are at least 64 vertices, and
+     *         the matrix fits in one array; {@code false} otherwise
+     */
+    public static boolean isDense(int V, long E) {
+        return V >= MIN_DENSE_VERTICES && E > DENSITY_THRESHOLD * V * V
+            && (long) V * ((V + 63) >>> 6) <= MAX_WORDS;
+    }
+
+    /**
+     * Returns the number of vertices in this graph.
+     *
+     * @return the number of vertices in this graph
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges in this graph.
+     *
+     * @return the number of edges in this graph
+     */
+    public int E() {
+        return E;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Adds the undirected edge v-w to this graph, if it is not already present.
+     *
+     * @param  v one vertex in the edge
+     * @param  w the other vertex in the edge
+     * @throws IllegalArgumentException unless both {@code 0 <= v < V} and {@code 0 <= w < V}
+     */
+    public void addEdge(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        if (hasBit(v, w)) return;
+        E++;
+        bits[v * words + (w >>> 6)] |= 1L << w;
+        bits[w * words + (v >>> 6)] |= 1L << v;
+    }
+
+    /**
+     * Is v-w an edge of this graph?
+     *
+     * @param  v one vertex
+     * @param  w the other vertex
+     * @return {@code true} if v-w is an edge, and {@code false} otherwise
+     * @throws IllegalArgumentException unless both {@code 0 <= v < V} and {@code 0 <= w < V}
+     */
+    public boolean hasEdge(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        return hasBit(v, w);
+    }
+
+    private boolean hasBit(int v, int w) {
+        return (bits[v * words + (w >>> 6)] & (1L << w)) != 0;
+    }
+
+    /**
+     * Returns the degree of vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return the degree of vertex {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int degree(int v) {
+        validateVertex(v);
+        int degree = 0;
+        for (int i = v * words, end = i + words; i < end; i++)
+            degree += Long.bitCount(bits[i]);
+        return degree;
+    }
+
+    /**
+     * Returns the vertices adjacent to vertex {@code v}, in increasing order.
+     *
+     * @param  v the vertex
+     * @return the vertices adjacent to vertex {@code v}, as an iterable
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public Iterable<Integer> adj(int v) {
+        validateVertex(v);
+        return new Row(v);
+    }
+
+    // the vertices adjacent to v, printed as a collection is
+    private class Row extends AbstractCollection<Integer> {
+        private final int v;
+
+        Row(int v) {
+            this.v = v;
+        }
+
+        public Iterator<Integer> iterator() {
+            return new RowIterator(v * words);
+        }
+
+        public int size() {
+            return degree(v);
+        }
+    }
+
+    // iterates over the set bits of one row, a word at a time
+    private class RowIterator implements Iterator<Integer> {
+        private final int start;
+        private int i;         // index of the current word within the row
+        private long word;     // bits of the current word not yet returned
+
+        RowIterator(int start) {
+            this.start = start;
+            this.word = words == 0 ? 0 : bits[start];
+            advance();
+        }
+
+        private void advance() {
+            while (word == 0 && ++i < words)
+                word = bits[start + i];
+        }
+
+        public boolean hasNext() {
+            return i < words;
+        }
+
+        public Integer next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int w = (i << 6) + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            advance();
+            return w;
+        }
+    }
+
+    /**
+     * Computes the number of edges on a shortest path from {@code s} to every
+     * vertex, expanding one BFS level at a time: the next frontier is the OR
+     * of the rows of the current frontier, AND-NOT the visited set.
+     *
+     * @param  s the source vertex
+     * @return an array {@code dist} with {@code dist[v]} the distance from
+     *         {@code s} to {@code v}, or {@code Integer.MAX_VALUE} if
+     *         {@code v} is not reachable
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     */
+    public int[] bfs(int s) {
+        return bfs(s, null);
+    }
+
+    /**
+     * Computes the number of edges on a shortest path from {@code s} to every
+     * vertex, as {@link #bfs(int)} does, polling {@code token} once every
+     * {@link CancellationToken#CHECK_INTERVAL} frontier vertices it expands.
+     *
+     * @param  s the source vertex
+     * @param  token the cancellation token, or {@code null} for a search that
+     *         cannot be cancelled
+     * @return an array {@code dist} with {@code dist[v]} the distance from
+     *         {@code s} to {@code v}, or {@code Integer.MAX_VALUE} if
+     *         {@code v} is not reachable
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     * @throws CancellationException if {@code token} is cancelled before the search ends
+     */
+    public int[] bfs(int s, CancellationToken token) {
+        validateVertex(s);
+        int check = token == null ? Integer.MAX_VALUE : 1;
+        int[] dist = new int[V];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        long[] visited = new long[words];
+        long[] frontier = new long[words];
+        long[] next = new long[words];
+        visited[s >>> 6] |= 1L << s;
+        frontier[s >>> 6] |= 1L << s;
+        dist[s] = 0;
+
+        for (int level = 1; ; level++) {
+            Arrays.fill(next, 0L);
+            for (int i = 0; i < words; i++) {
+                for (long f = frontier[i]; f != 0; f &= f - 1) {
+                    if (--check == 0) {
+                        if (token.isCancelled())
+                            throw new CancellationException("search from " + s + " was cancelled");
+                        check = CancellationToken.CHECK_INTERVAL;
+                    }
+                    int row = ((i << 6) + Long.numberOfTrailingZeros(f)) * words;
+                    for (int j = 0; j < words; j++)
+                        next[j] |= bits[row + j];
+                }
+            }
+            boolean empty = true;
+            for (int j = 0; j < words; j++) {
+                long fresh = next[j] & ~visited[j];
+                visited[j] |= fresh;
+                next[j] = fresh;
+                if (fresh != 0) empty = false;
+                for (; fresh != 0; fresh &= fresh - 1)
+                    dist[(j << 6) + Long.numberOfTrailingZeros(fresh)] = level;
+            }
+            if (empty) return dist;
+            long[] temp = frontier;
+            frontier = next;
+            next = temp;
+        }
+    }
+
+    /**
+     * Returns a copy of this graph as adjacency lists, however dense it is.
+     *
+     * @return a {@link Graph} with the same vertices and edges, stored as
+     *         adjacency sets
+     */
+    public Graph toGraph() {
+        Graph G = new Graph(V);
+        for (int v = 0; v < V; v++)
+            for (int w : adj(v))
+                if (v <= w) G.addEdge(v, w);
+        return G;
+    }
+
+    /**
+     * Returns a string representation of this graph, in the same format as
+     * {@link Graph#toString()}.
+     *
+     * @return the number of vertices <em>V</em>, followed by the number of edges <em>E</em>,
+     *         followed by the <em>V</em> adjacency lists
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(V + " vertices, " + E + " edges " + System.lineSeparator());
+        for (int v = 0; v < V; v++) {
+            s.append(v + ": ");
+            for (int w : adj(v)) {
+                s.append(w + " ");
+            }
+            s.append(System.lineSeparator());
+        }
+        return s.toString();
+    }
+
+    /**
+     * Unit tests the {@code graph.DenseGraph} data type: times breadth-first
+     * search on a complete graph stored as adjacency lists and as a bit matrix.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        System.out.println("complete graph on " + V + " vertices");
+
+        DenseGraph D = GraphGenerator.denseComplete(V);
+        Graph G = D.toGraph();
+
+        long start = System.nanoTime();
+        new BreadthFirstPaths(G, Collections.singletonList(0));
+        System.out.printf("Graph       BFS from 0: %8.2f ms%n", (System.nanoTime() - start) / 1e6);
+
+        start = System.nanoTime();
+        D.bfs(0);
+        System.out.printf("DenseGraph  BFS from 0: %8.2f ms%n", (System.nanoTime() - start) / 1e6);
+    }
+}
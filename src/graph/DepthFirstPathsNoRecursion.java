@@ -2,7 +2,7 @@ package graph;
 /******************************************************************************
  *  Compilation:  javac graph.NonrecursiveDFS.java
  *  Execution:    java graph.NonrecursiveDFS graph.txt s
- *  Dependencies: graph.Graph.java Queue.java Stack.java
+ *  Dependencies: graph.Graph.java Queue.java Stack.java lib.FastOut.java
  *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyCG.txt
  *                https://algs4.cs.princeton.edu/41graph/tinyG.txt
  *                https://algs4.cs.princeton.edu/41graph/mediumG.txt
@@ -36,11 +36,13 @@ package graph;
  *
  ******************************************************************************/
 
+import lib.FastOut;
 import lib.In;
 
 import java.util.AbstractMap;
 import java.util.Map;
 import java.util.Stack;
+import java.util.function.IntPredicate;
 
 /**
  *  The {@code graph.NonrecursiveDFS} class represents a data type for finding
@@ -66,6 +68,8 @@ public class DepthFirstPathsNoRecursion {
     private boolean[] visited;  // marked[v] = is there an s-v path
     private int[] edgeTo;      // edgeTo[v] = previous edge on shortest s-v path
     private int[] distTo;      // distTo[v] = number of edges shortest s-v path
+    private int foundTarget = -1;  // the target that stopped the search, or -1
+    private boolean complete = true;  // false if the search was cancelled
     /**
      * Computes the vertices connected to the source vertex {@code s} in the graph {@code G}.
      * @param G the graph
@@ -73,34 +77,125 @@ public class DepthFirstPathsNoRecursion {
      * @throws IllegalArgumentException unless {@code 0 <= s < V}
      */
     public DepthFirstPathsNoRecursion(Graph G, int s) {
+        this(G, s, new TraversalOptions());
+    }
+
+    /**
+     * Computes the vertices connected to the source vertex {@code s} in the graph {@code G}
+     * that the search reaches within the limits of {@code options}.
+     * The steps of the search are reported to the listener of {@code options}, if any;
+     * an edge that shortens the path to an already visited vertex is reported
+     * as a tree edge again.
+     * @param G the graph
+     * @param s the source vertex
+     * @param options the limits and listener of the search
+     * @throws IllegalArgumentException unless {@code 0 <= s < V} and {@code 0 <= t < V}
+     *    for each target {@code t}
+     * @throws IllegalArgumentException if {@code options} is {@code null}
+     */
+    public DepthFirstPathsNoRecursion(Graph G, int s, TraversalOptions options) {
+        if (options == null) throw new IllegalArgumentException("options is null");
         visited = new boolean[G.V()];
         distTo = new int[G.V()];
         edgeTo = new int[G.V()];
         validateVertex(s);
+        int maxDepth = options.maxDepth();
+        int budget = options.maxVisited();
+        boolean[] isTarget = options.targetMarks(G.V());
+        IntPredicate filter = options.filter();
+        CancellationToken token = options.cancellation();
+        int check = options.firstCheck();
+        TraversalListener listener = options.listener();
         for (int v = 0; v < G.V(); v++)
             distTo[v] = INFINITY;
         distTo[s] = 0;
 
+        TraversalStatistics statistics = options.statistics();
+        TraversalStatistics.Probe probe = statistics == null ? null : statistics.start("DepthFirstPathsNoRecursion", s);
+
         // depth-first search using an explicit stack
         Stack<Map.Entry<Integer, Integer>> stack = new Stack<>();
-        visited[s] = true;
-        stack.push(Pair.of(s, 0));
-        while (!stack.isEmpty()) {
-            Map.Entry<Integer, Integer> entry = stack.pop();
-            int curr = Pair.first(entry);
-            int level = Pair.second(entry);
-            for(int w : G.adj(curr)){
-                //if w was never visited
-                //or even if it was visited, if dist to w is unnecessarily greater
-                if (!visited[w] || distTo[w] > level + 1 ) {
-                    //System.out.println("visit " + w + " from " + curr);
-                    visited[w] = true;
-                    edgeTo[w] = curr; //visited w from curr
-                    distTo[w] = distTo[curr] + 1;
-                    stack.push(Pair.of(w, level + 1));
+        int count = 1;
+        long edges = 0;
+        int peak = 1;
+        GraphQueryEvent event = new GraphQueryEvent();
+        event.begin();
+        try {
+            visited[s] = true;
+            if (listener != null) listener.discover(s);
+            if (isTarget != null && isTarget[s]) {
+                foundTarget = s;
+                return;
+            }
+            if (count == budget) return;
+            stack.push(Pair.of(s, 0));
+            while (!stack.isEmpty()) {
+                Map.Entry<Integer, Integer> entry = stack.pop();
+                int curr = Pair.first(entry);
+                int level = Pair.second(entry);
+                if (--check == 0) {
+                    if (token.isCancelled()) {
+                        complete = false;
+                        return;
+                    }
+                    check = CancellationToken.CHECK_INTERVAL;
+                }
+                if (level == maxDepth) {
+                    if (listener != null) listener.finish(curr);
+                    continue;
+                }
+                for(int w : G.adj(curr)){
+                    edges++;
+                    //if w was never visited
+                    //or even if it was visited, if dist to w is unnecessarily greater
+                    if (!visited[w] || distTo[w] > level + 1 ) {
+                        if (filter != null && !filter.test(w)) continue;
+                        //System.out.println("visit " + w + " from " + curr);
+                        if (listener != null) listener.treeEdge(curr, w);
+                        if (!visited[w]) {
+                            count++;
+                            if (listener != null) listener.discover(w);
+                        }
+                        visited[w] = true;
+                        edgeTo[w] = curr; //visited w from curr
+                        distTo[w] = distTo[curr] + 1;
+                        if (isTarget != null && isTarget[w]) {
+                            foundTarget = w;
+                            return;
+                        }
+                        if (count == budget) return;
+                        stack.push(Pair.of(w, level + 1));
+                        if (stack.size() > peak) peak = stack.size();
+                    }
+                    else if (listener != null) listener.nonTreeEdge(curr, w);
                 }
+                if (listener != null) listener.finish(curr);
             }
         }
+        finally {
+            if (probe != null) probe.finish(count, edges, peak);
+            if (listener != null) listener.end();
+            event.commit("DepthFirstPathsNoRecursion", s, G, visited);
+        }
+    }
+
+    /**
+     * Returns the target vertex that stopped a search with
+     * {@link TraversalOptions#target(int) targets}: the first one it reached,
+     * which need not be the nearest one.
+     * @return the target vertex found, or -1 if the search found none
+     */
+    public int foundTarget() {
+        return foundTarget;
+    }
+
+    /**
+     * Did the search run to the end, or to one of the limits of its options,
+     * rather than being stopped by its {@link CancellationToken}?
+     * @return {@code true} if the search was not cancelled, and {@code false} otherwise
+     */
+    public boolean isComplete() {
+        return complete;
     }
 
     /**
@@ -159,6 +254,36 @@ public class DepthFirstPathsNoRecursion {
         return path;
     }
 
+    /**
+     * Returns a shortest path between the source vertex {@code s} (or sources)
+     * and {@code v} as an array of primitive vertex ids, or {@code null} if no such path.
+     *
+     * @param v the vertex
+     * @return the path, from the source to {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public IntPath path(int v) {
+        validateVertex(v);
+        if (!hasPathTo(v)) return null;
+        return IntPath.of(edgeTo, distTo, v);
+    }
+
+    /**
+     * Writes a shortest path between the source vertex {@code s} (or sources)
+     * and {@code v} into {@code buffer}, from the source, without allocating.
+     *
+     * @param v the vertex
+     * @param buffer the array to write the path into
+     * @return the number of vertices written, or 0 if there is no path
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     * @throws IllegalArgumentException if {@code buffer} is too short for the path
+     */
+    public int pathTo(int v, int[] buffer) {
+        validateVertex(v);
+        if (!hasPathTo(v)) return 0;
+        return IntPath.fill(edgeTo, distTo, v, buffer);
+    }
+
     // throw an IllegalArgumentException unless {@code 0 <= v < V}
     private void validateVertex(int v) {
         int V = visited.length;
@@ -176,20 +301,22 @@ public class DepthFirstPathsNoRecursion {
         Graph G = new Graph(in);
         int s = 0;
         DepthFirstPathsNoRecursion dfs = new DepthFirstPathsNoRecursion(G, s);
+        FastOut out = new FastOut();
         for (int v = 0; v < G.V(); v++) {
+            out.print(s);
+            out.print(" to ");
+            out.print(v);
             if (dfs.hasPathTo(v)) {
-                System.out.print(s + " to " + v + " (" + dfs.distTo(v) + "): ");
-                Stack<Integer> path = (Stack<Integer>) dfs.pathTo(v);
-                while (!path.isEmpty()) {
-                    int x = path.pop();
-                    if (x == s) System.out.print(x);
-                    else System.out.print("-" + x);
-                }
-                System.out.println();
+                out.print(" (");
+                out.print(dfs.distTo(v));
+                out.print("): ");
+                dfs.path(v).print(out);
+                out.println();
             } else {
-                System.out.println(s + " to " + v + " (-): not connected");
+                out.println(" (-): not connected");
             }
         }
+        out.flush();
     }
 
     private static class Pair<T, U>
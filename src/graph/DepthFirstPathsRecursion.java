@@ -2,7 +2,7 @@ package graph;
 /******************************************************************************
  *  Compilation:  javac graph.DepthFirstPaths.java
  *  Execution:    java graph.DepthFirstPaths G s
- *  Dependencies: graph.Graph.java
+ *  Dependencies: graph.Graph.java lib.FastOut.java
  *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyCG.txt
  *                https://algs4.cs.princeton.edu/41graph/tinyG.txt
  *                https://algs4.cs.princeton.edu/41graph/mediumG.txt
@@ -30,6 +30,7 @@ package graph;
  *
  ******************************************************************************/
 
+import lib.FastOut;
 import lib.In;
 
 import java.util.Stack;
@@ -132,20 +133,27 @@ public class DepthFirstPathsRecursion {
         int s = 0;
         DepthFirstPathsRecursion dfs = new DepthFirstPathsRecursion(G, s);
 
+        FastOut out = new FastOut();
         for (int v = 0; v < G.V(); v++) {
+            out.print(s);
+            out.print(" to ");
+            out.print(v);
             if (dfs.hasPathTo(v)) {
-                System.out.print(s + " to " + v + " (" + dfs.distTo(v) + "): ");
+                out.print(" (");
+                out.print(dfs.distTo(v));
+                out.print("): ");
                 Stack<Integer> path = (Stack<Integer>) dfs.pathTo(v);
                 while (!path.isEmpty()) {
                     int x = path.pop();
-                    if (x == s) System.out.print(x);
-                    else System.out.print("-" + x);
+                    if (x != s) out.print('-');
+                    out.print(x);
                 }
-                System.out.println();
+                out.println();
             }
             else {
-                System.out.println(s + " to " + v + ": not connected");
+                out.println(": not connected");
             }
         }
+        out.flush();
     }
 }
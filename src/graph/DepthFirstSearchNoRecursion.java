@@ -2,7 +2,7 @@ package graph;
 /******************************************************************************
  *  Compilation:  javac graph.NonrecursiveDFS.java
  *  Execution:    java graph.NonrecursiveDFS graph.txt s
- *  Dependencies: graph.Graph.java Queue.java Stack.java
+ *  Dependencies: graph.Graph.java Queue.java Stack.java lib.FastOut.java
  *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyCG.txt
  *                https://algs4.cs.princeton.edu/41graph/tinyG.txt
  *                https://algs4.cs.princeton.edu/41graph/mediumG.txt
@@ -36,6 +36,7 @@ package graph;
  *
  ******************************************************************************/
 
+import lib.FastOut;
 import lib.In;
 
 import java.util.Stack;
@@ -100,9 +101,14 @@ public class DepthFirstSearchNoRecursion {
         Graph G = new Graph(in);
         int s = 0;
         DepthFirstSearchNoRecursion dfs = new DepthFirstSearchNoRecursion(G, s);
-        for (int v = 0; v < G.V(); v++)
-            if (dfs.marked(v))
-                System.out.print(v + " ");
-        System.out.println();
+        FastOut out = new FastOut();
+        for (int v = 0; v < G.V(); v++) {
+            if (dfs.marked(v)) {
+                out.print(v);
+                out.print(' ');
+            }
+        }
+        out.println();
+        out.flush();
     }
 }
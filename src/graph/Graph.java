@@ -1,12 +1,13 @@
 package graph; /******************************************************************************
  *  Compilation:  javac graph.Graph.java
  *  Execution:    java graph.Graph input.txt
- *  Dependencies: ds.Bag.java Stack.java lib.In.java
+ *  Dependencies: ds.Bag.java Stack.java lib.In.java lib.FastOut.java
+ *                graph.DenseGraph.java
  *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyG.txt
  *                https://algs4.cs.princeton.edu/41graph/mediumG.txt
  *                https://algs4.cs.princeton.edu/41graph/largeG.txt
  *
- *  A graph, implemented using an array of sets.
+ *  A graph, implemented using an array of sets, or a bit matrix when dense.
  *  Parallel edges and self-loops allowed.
  *
  *  % java graph.Graph tinyG.txt
@@ -34,6 +35,7 @@ package graph; /****************************************************************
  *  
  ******************************************************************************/
 
+import lib.FastOut;
 import lib.In;
 
 import java.util.NoSuchElementException;
@@ -57,6 +59,16 @@ import java.util.TreeSet;
  *  iterating over the vertices adjacent to a given vertex, which takes
  *  time proportional to the number of such vertices.
  *  <p>
+ *  A graph read from an input stream, built by a {@link GraphBuilder},
+ *  copied, or generated by {@link GraphGenerator} whose density <em>E</em> / <em>V</em><sup>2</sup>
+ *  exceeds {@link DenseGraph#DENSITY_THRESHOLD}, as decided by
+ *  {@link DenseGraph#isDense(int, long)}, is instead stored as a
+ *  {@link DenseGraph} bit matrix, which takes <em>V</em><sup>2</sup> bits
+ *  rather than a boxed {@code Integer} per endpoint; see {@link #isDense()}.
+ *  Its adjacency lists, degrees and string representation are the same,
+ *  and iterating over the vertices adjacent to a vertex takes time
+ *  proportional to <em>V</em>/64 plus the number of such vertices.
+ *  <p>
  *  For additional documentation, see <a href="https://algs4.cs.princeton.edu/41graph">Section 4.1</a>
  *  of <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  *
@@ -66,7 +78,9 @@ import java.util.TreeSet;
 public class Graph {
     private final int V;
     private int E;
-    private Set<Integer>[] adj;
+    private long version;   // number of calls to addEdge, for caches of query results
+    private Set<Integer>[] adj;     // null if the graph is stored as a bit matrix
+    private DenseGraph matrix;      // null if the graph is stored as adjacency sets
     
     /**
      * Initializes an empty graph with {@code V} vertices and 0 edges.
@@ -79,10 +93,17 @@ public class Graph {
         if (V < 0) throw new IllegalArgumentException("Number of vertices must be nonnegative");
         this.V = V;
         this.E = 0;
-        adj = (Set<Integer>[]) new Set[V];
+        adj = emptySets(V);
+    }
+
+    // V empty adjacency sets
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Set<Integer>[] emptySets(int V) {
+        Set<Integer>[] adj = (Set<Integer>[]) new Set[V];
         for (int v = 0; v < V; v++) {
             adj[v] = new TreeSet<>();
         }
+        return adj;
     }
 
     /**  
@@ -97,15 +118,19 @@ public class Graph {
      * @throws IllegalArgumentException if the input stream is in the wrong format
      */
     public Graph(In in) {
+        GraphLoadEvent event = new GraphLoadEvent();
+        event.begin();
         try {
             this.V = in.readInt();
             if (V < 0) throw new IllegalArgumentException("number of vertices in a graph.Graph must be nonnegative");
-            adj = (Set<Integer>[]) new Set[V];
-            for (int v = 0; v < V; v++) {
-                adj[v] = new TreeSet<>();
-            }
             int E = in.readInt();
             if (E < 0) throw new IllegalArgumentException("number of edges in a graph.Graph must be nonnegative");
+            if (DenseGraph.isDense(V, E)) {
+                matrix = new DenseGraph(V);
+            }
+            else {
+                adj = emptySets(V);
+            }
             for (int i = 0; i < E; i++) {
                 int v = in.readInt();
                 int w = in.readInt();
@@ -117,22 +142,60 @@ public class Graph {
         catch (NoSuchElementException e) {
             throw new IllegalArgumentException("invalid input format in graph.Graph constructor", e);
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.V = V;
+            event.E = E;
+            event.commit();
+        }
+    }
+
+
+    // a graph over adjacency sets built elsewhere, as if by E calls to addEdge; see GraphBuilder
+    Graph(Set<Integer>[] adj, int E) {
+        this.V = adj.length;
+        this.E = E;
+        this.version = E;
+        this.adj = adj;
     }
 
+    // a graph over a bit matrix built elsewhere, as if by E calls to addEdge
+    Graph(DenseGraph matrix, int E) {
+        this.V = matrix.V();
+        this.E = E;
+        this.version = E;
+        this.matrix = matrix;
+    }
 
     /**
-     * Initializes a new graph that is a deep copy of {@code G}.
+     * Initializes a new graph that is a deep copy of {@code G}, with the same
+     * version. The copy is a bit matrix if {@code G} is dense enough, even if
+     * {@code G} itself is stored as adjacency sets.
      *
      * @param  G the graph to copy
      */
     public Graph(Graph G) {
-        this(G.V());
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
+        this.V = G.V();
         this.E = G.E();
-        for (int v = 0; v < G.V(); v++) {
-            for (int w : G.adj[v]) {
-                adj[v].add(w);
+        this.version = G.version;
+        if (G.matrix != null || DenseGraph.isDense(V, E)) {
+            matrix = new DenseGraph(G);
+        }
+        else {
+            adj = emptySets(V);
+            for (int v = 0; v < V; v++) {
+                adj[v].addAll(G.adj[v]);
             }
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.representation = matrix != null ? "DenseGraph" : "Graph";
+            event.V = V;
+            event.E = E;
+            event.commit();
+        }
     }
 
     /**
@@ -153,6 +216,28 @@ public class Graph {
         return E;
     }
 
+    /**
+     * Returns the version of this graph: a number that changes every time
+     * an edge is added, so that results computed on an earlier version can
+     * be recognized as stale.
+     *
+     * @return the version of this graph
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Is this graph stored as a {@link DenseGraph} bit matrix rather than
+     * as adjacency sets?
+     *
+     * @return {@code true} if this graph is stored as a bit matrix, and
+     *         {@code false} otherwise
+     */
+    public boolean isDense() {
+        return matrix != null;
+    }
+
     // throw an IllegalArgumentException unless {@code 0 <= v < V}
     private void validateVertex(int v) {
         if (v < 0 || v >= V)
@@ -170,6 +255,11 @@ public class Graph {
         validateVertex(v);
         validateVertex(w);
         E++;
+        version++;
+        if (matrix != null) {
+            matrix.addEdge(v, w);
+            return;
+        }
         adj[v].add(w);
         adj[w].add(v);
     }
@@ -184,7 +274,11 @@ public class Graph {
      */
     public Iterable<Integer> adj(int v) {
         validateVertex(v);
-        return adj[v];
+        return neighbors(v);
+    }
+
+    private Iterable<Integer> neighbors(int v) {
+        return matrix != null ? matrix.adj(v) : adj[v];
     }
 
     /**
@@ -196,12 +290,15 @@ public class Graph {
      */
     public int degree(int v) {
         validateVertex(v);
-        return adj[v].size();
+        return matrix != null ? matrix.degree(v) : adj[v].size();
     }
 
 
     /**
      * Returns a string representation of this graph.
+     * <p>
+     * To write a large graph without holding it in a string, use
+     * {@link #print(FastOut)} or {@link GraphExporter}.
      *
      * @return the number of vertices <em>V</em>, followed by the number of edges <em>E</em>,
      *         followed by the <em>V</em> adjacency lists
@@ -211,7 +308,7 @@ public class Graph {
         s.append(V + " vertices, " + E + " edges " + System.lineSeparator());
         for (int v = 0; v < V; v++) {
             s.append(v + ": ");
-            for (int w : adj[v]) {
+            for (int w : neighbors(v)) {
                 s.append(w + " ");
             }
             s.append(System.lineSeparator());
@@ -219,6 +316,31 @@ public class Graph {
         return s.toString();
     }
 
+    /**
+     * Prints this graph, in the format of {@link #toString()}, without
+     * building it as a string first.
+     *
+     * @param out the output to print to; it is not flushed
+     * @throws IllegalArgumentException if {@code out} is {@code null}
+     */
+    public void print(FastOut out) {
+        if (out == null) throw new IllegalArgumentException("output is null");
+        out.print(V);
+        out.print(" vertices, ");
+        out.print(E);
+        out.print(" edges ");
+        out.println();
+        for (int v = 0; v < V; v++) {
+            out.print(v);
+            out.print(": ");
+            for (int w : neighbors(v)) {
+                out.print(w);
+                out.print(' ');
+            }
+            out.println();
+        }
+    }
+
 
     /**
      * Unit tests the {@code graph.Graph} data type.
@@ -228,6 +350,9 @@ public class Graph {
     public static void main(String[] args) {
         In in = new In("tinyG.txt");
         Graph G = new Graph(in);
-        System.out.println(G);
+        FastOut out = new FastOut();
+        G.print(out);
+        out.println();
+        out.flush();
     }
 }
@@ -0,0 +1,26 @@
+package graph;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ *  JDK Flight Recorder event for building a graph representation from
+ *  another one, such as copying a {@link Graph}, compressing it, or
+ *  reading it back from a binary file.
+ */
+@Name("graph.Build")
+@Label("Graph Build")
+@Category("Graph")
+@Description("Building a graph representation")
+final class GraphBuildEvent extends jdk.jfr.Event {
+    @Label("Representation")
+    String representation;
+
+    @Label("Vertices")
+    int V;
+
+    @Label("Edges")
+    int E;
+}
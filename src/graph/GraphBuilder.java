@@ -0,0 +1,381 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.GraphBuilder.java
+ *  Execution:    java graph.GraphBuilder V E [threads]
+ *  Dependencies: graph.Graph.java graph.DenseGraph.java
+ *
+ *  Collects the edges of a graph as pairs of ints, counting degrees,
+ *  and builds its adjacency lists all at once, optionally in parallel.
+ *
+ *  % java graph.GraphBuilder 200000 2000000 4
+ *  addEdge:      200000 vertices, 2000000 edges in 5519 ms
+ *  GraphBuilder: 200000 vertices, 2000000 edges in 2769 ms
+ *
+ ******************************************************************************/
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ *  The {@code graph.GraphBuilder} class builds a {@link Graph} from a
+ *  stream of edges, as the loaders and importers of this package read them.
+ *  <p>
+ *  {@link Graph#addEdge(int, int)} inserts every endpoint into a
+ *  {@link TreeSet} as it comes, in an order that jumps all over the graph.
+ *  A builder instead appends the endpoints to one {@code int} array and
+ *  counts the degree of each vertex; {@link #build(int)} then groups the
+ *  endpoints by vertex, sorts each group, and fills each adjacency set in
+ *  increasing order, a range of vertices per thread.
+ *  The graph built has the same adjacency lists and number of edges as
+ *  the one built by calling {@code addEdge} for each edge.
+ *  A graph dense enough for {@link DenseGraph#isDense(int, long)} is
+ *  stored as a bit matrix instead, filled straight from the endpoints.
+ *  <p>
+ *  A {@code GraphBuilder} is not safe for use by multiple threads.
+ */
+public final class GraphBuilder {
+    // the largest number of endpoints an int array holds
+    private static final int MAX_ENDPOINTS = Integer.MAX_VALUE - 8;
+
+    private final int V;
+    private final int[] degree;
+    private int[] endpoints = new int[16];    // v0, w0, v1, w1, ...
+    private int size;                         // number of endpoints
+
+    /**
+     * Initializes a builder of a graph with {@code V} vertices and no edges.
+     *
+     * @param  V the number of vertices
+     * @throws IllegalArgumentException if {@code V < 0}
+     */
+    public GraphBuilder(int V) {
+        if (V < 0) throw new IllegalArgumentException("number of vertices must be nonnegative");
+        this.V = V;
+        this.degree = new int[V];
+    }
+
+    /**
+     * Initializes a builder of a graph with {@code V} vertices and no edges,
+     * with room for {@code expectedEdges} edges.
+     *
+     * @param  V the number of vertices
+     * @param  expectedEdges the number of edges expected; more may be added
+     * @throws IllegalArgumentException if {@code V < 0} or {@code expectedEdges < 0}
+     */
+    public GraphBuilder(int V, int expectedEdges) {
+        this(V);
+        if (expectedEdges < 0) throw new IllegalArgumentException("number of edges must be nonnegative");
+        // an edge count read from a file is only a hint, so a wrong one cannot exhaust memory
+        endpoints = new int[(int) Math.min(2L * expectedEdges, 1 << 24) + 2];
+    }
+
+    /**
+     * Returns the number of vertices of the graph.
+     *
+     * @return the number of vertices of the graph
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges added so far.
+     *
+     * @return the number of edges added so far
+     */
+    public int E() {
+        return size / 2;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    private void ensure(int n) {
+        if (n > MAX_ENDPOINTS - size) throw new IllegalArgumentException("too many edges for a graph.Graph");
+        if (size + n <= endpoints.length) return;
+        long capacity = Math.max(2L * endpoints.length, (long) size + n);
+        endpoints = Arrays.copyOf(endpoints, (int) Math.min(capacity, MAX_ENDPOINTS));
+    }
+
+    /**
+     * Adds the undirected edge v-w.
+     *
+     * @param  v one vertex in the edge
+     * @param  w the other vertex in the edge
+     * @throws IllegalArgumentException unless both {@code 0 <= v < V} and {@code 0 <= w < V}
+     */
+    public void addEdge(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        ensure(2);
+        endpoints[size++] = v;
+        endpoints[size++] = w;
+        degree[v]++;
+        degree[w]++;
+    }
+
+    /**
+     * Adds the edges {@code a[from]-a[from+1]}, {@code a[from+2]-a[from+3]},
+     * and so on up to {@code a[to-1]}.
+     *
+     * @param  a the endpoints
+     * @param  from the index of the first endpoint
+     * @param  to the index after the last endpoint
+     * @throws IllegalArgumentException if {@code to - from} is odd, or a vertex
+     *         is not between 0 and <em>V</em> – 1; no edge is added then
+     * @throws IndexOutOfBoundsException unless {@code 0 <= from <= to <= a.length}
+     */
+    public void addEdges(int[] a, int from, int to) {
+        if (from < 0 || from > to || to > a.length) throw new IndexOutOfBoundsException();
+        if ((to - from) % 2 != 0) throw new IllegalArgumentException("odd number of endpoints");
+        for (int i = from; i < to; i++)
+            validateVertex(a[i]);
+        append(a, from, to);
+    }
+
+    // addEdges, for endpoints already validated
+    void append(int[] a, int from, int to) {
+        ensure(to - from);
+        System.arraycopy(a, from, endpoints, size, to - from);
+        size += to - from;
+        for (int i = from; i < to; i++)
+            degree[a[i]]++;
+    }
+
+    /**
+     * Builds the graph in the calling thread.
+     *
+     * @return the graph of the edges added so far
+     */
+    public Graph build() {
+        return build(1);
+    }
+
+    /**
+     * Builds the graph, filling its adjacency sets with {@code threads}
+     * threads. The builder can still be used afterwards.
+     *
+     * @param  threads the number of threads; 1 builds in the calling thread
+     * @return the graph of the edges added so far
+     * @throws IllegalArgumentException if {@code threads < 1}
+     */
+    public Graph build(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("number of threads must be positive");
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
+        Graph G = assemble(threads);
+        event.end();
+        if (event.shouldCommit()) {
+            event.representation = G.isDense() ? "DenseGraph" : "GraphBuilder";
+            event.V = V;
+            event.E = G.E();
+            event.commit();
+        }
+        return G;
+    }
+
+    // build(threads) without a build event, for a caller that records its own
+    Graph assemble(int threads) {
+        // a dense graph is stored as a bit matrix instead of adjacency sets
+        if (DenseGraph.isDense(V, size / 2)) {
+            DenseGraph matrix = new DenseGraph(V);
+            for (int i = 0; i < size; i += 2)
+                matrix.addEdge(endpoints[i], endpoints[i + 1]);
+            return new Graph(matrix, size / 2);
+        }
+
+        // group the endpoints by vertex (compressed sparse rows)
+        int[] offset = new int[V + 1];
+        for (int v = 0; v < V; v++)
+            offset[v + 1] = offset[v] + degree[v];
+        int[] next = Arrays.copyOf(offset, V);
+        int[] targets = new int[size];
+        for (int i = 0; i < size; i += 2) {
+            int v = endpoints[i], w = endpoints[i + 1];
+            targets[next[v]++] = w;
+            targets[next[w]++] = v;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Set<Integer>[] adj = (Set<Integer>[]) new Set[V];
+        if (threads == 1 || V < 2) fill(adj, offset, targets, 0, V);
+        else fillInParallel(adj, offset, targets, threads);
+        return new Graph(adj, size / 2);
+    }
+
+    // the adjacency sets of vertices lo to hi - 1, from their sorted endpoints;
+    // each run is deduplicated in place and handed to TreeSet as a sorted set,
+    // which it builds from in linear time rather than by one insertion per edge
+    private static void fill(Set<Integer>[] adj, int[] offset, int[] targets, int lo, int hi) {
+        for (int v = lo; v < hi; v++) {
+            int from = offset[v];
+            int end = from;
+            Arrays.sort(targets, from, offset[v + 1]);
+            for (int i = from; i < offset[v + 1]; i++)
+                if (end == from || targets[i] != targets[end - 1]) targets[end++] = targets[i];
+            adj[v] = new TreeSet<>(new SortedRun(targets, from, end));
+        }
+    }
+
+    // the distinct, sorted vertices a[lo .. hi-1], as a read-only sorted set
+    private static final class SortedRun extends AbstractSet<Integer> implements SortedSet<Integer> {
+        private final int[] a;
+        private final int lo, hi;
+
+        SortedRun(int[] a, int lo, int hi) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        // the index of the first vertex of the run that is at least w
+        private int rank(int w) {
+            int i = Arrays.binarySearch(a, lo, hi, w);
+            return i >= 0 ? i : -i - 1;
+        }
+
+        @Override
+        public int size() {
+            return hi - lo;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<Integer>() {
+                private int i = lo;
+
+                @Override
+                public boolean hasNext() {
+                    return i < hi;
+                }
+
+                @Override
+                public Integer next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return a[i++];
+                }
+            };
+        }
+
+        @Override
+        public Comparator<? super Integer> comparator() {
+            return null;
+        }
+
+        @Override
+        public SortedSet<Integer> subSet(Integer from, Integer to) {
+            if (from > to) throw new IllegalArgumentException("fromElement > toElement");
+            return new SortedRun(a, rank(from), rank(to));
+        }
+
+        @Override
+        public SortedSet<Integer> headSet(Integer to) {
+            return new SortedRun(a, lo, rank(to));
+        }
+
+        @Override
+        public SortedSet<Integer> tailSet(Integer from) {
+            return new SortedRun(a, rank(from), hi);
+        }
+
+        @Override
+        public Integer first() {
+            if (lo == hi) throw new NoSuchElementException();
+            return a[lo];
+        }
+
+        @Override
+        public Integer last() {
+            if (lo == hi) throw new NoSuchElementException();
+            return a[hi - 1];
+        }
+    }
+
+    // splits the vertices into ranges of about the same number of endpoints
+    private static void fillInParallel(Set<Integer>[] adj, int[] offset, int[] targets, int threads) {
+        int V = adj.length;
+        int ranges = 4 * threads;
+        long perRange = Math.max(1, ((long) offset[V] + V) / ranges);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "graph-build");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            int lo = 0;
+            long work = 0;
+            for (int v = 0; v < V; v++) {
+                work += offset[v + 1] - offset[v] + 1;
+                if (work >= perRange || v == V - 1) {
+                    int from = lo, to = v + 1;
+                    tasks.add(pool.submit(() -> fill(adj, offset, targets, from, to)));
+                    lo = v + 1;
+                    work = 0;
+                }
+            }
+            for (Future<?> task : tasks)
+                task.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while building a graph", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Builds a random graph edge by edge with {@link Graph#addEdge(int, int)}
+     * and with a builder, and reports the time of each.
+     *
+     * @param args the command-line arguments: <em>V</em>, <em>E</em>, and
+     *        optionally the number of threads
+     */
+    public static void main(String[] args) {
+        int V = Integer.parseInt(args[0]);
+        int E = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int[] edges = new int[2 * E];
+        Random random = new Random(42);
+        for (int i = 0; i < edges.length; i++)
+            edges[i] = random.nextInt(V);
+
+        long start = System.nanoTime();
+        Graph G = new Graph(V);
+        for (int i = 0; i < edges.length; i += 2)
+            G.addEdge(edges[i], edges[i + 1]);
+        long ms = (System.nanoTime() - start) / 1000000;
+        System.out.println("addEdge:      " + G.V() + " vertices, " + G.E() + " edges in " + ms + " ms");
+        G = null;
+
+        start = System.nanoTime();
+        GraphBuilder builder = new GraphBuilder(V, E);
+        builder.addEdges(edges, 0, edges.length);
+        Graph H = builder.build(threads);
+        ms = (System.nanoTime() - start) / 1000000;
+        System.out.println("GraphBuilder: " + H.V() + " vertices, " + H.E() + " edges in " + ms + " ms");
+    }
+}
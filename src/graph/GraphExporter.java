@@ -0,0 +1,355 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.GraphExporter.java
+ *  Execution:    java graph.GraphExporter input.txt output format [threads]
+ *  Dependencies: graph.Graph.java graph.BinaryGraphFormat.java lib.FastOut.java
+ *                lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/mediumG.txt
+ *
+ *  Writes a graph as adjacency lists, as an edge list, or in binary,
+ *  streaming it in bounded memory, optionally encoding chunks in parallel.
+ *
+ *  % java graph.GraphExporter mediumG.txt mediumG.edges edge_list 4
+ *  250 vertices, 1273 edges written to mediumG.edges in EDGE_LIST format (9107 bytes)
+ *
+ ******************************************************************************/
+
+import lib.FastOut;
+import lib.In;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ *  The {@code graph.GraphExporter} class provides static methods for
+ *  writing a {@link Graph} to a channel, stream or file without building
+ *  its whole representation in memory, in one of three {@link Format}s.
+ *  <p>
+ *  The vertices are split into ranges of about {@link #CHUNK_ENTRIES}
+ *  adjacency entries, and the bytes of each range are encoded, written,
+ *  and dropped before the next ones are encoded, so that an export takes
+ *  memory proportional to a chunk rather than to the graph.
+ *  With more than one thread, up to twice as many chunks as threads are
+ *  encoded at the same time and written in order as they complete; the
+ *  output is the same byte for byte.
+ *  <p>
+ *  The graph must not be modified during an export.
+ */
+public final class GraphExporter {
+
+    /**
+     * The formats a graph can be exported in.
+     */
+    public enum Format {
+        /** the format of {@link Graph#toString()}: a header line and one line of neighbours per vertex */
+        ADJACENCY,
+        /** the format read by {@link Graph#Graph(In)}: <em>V</em>, <em>E</em>, and one line per edge */
+        EDGE_LIST,
+        /** the format of {@link BinaryGraphFormat} */
+        BINARY
+    }
+
+    /**
+     * The number of adjacency entries after which a chunk of vertices ends.
+     */
+    public static final int CHUNK_ENTRIES = 1 << 16;
+
+    // this class cannot be instantiated
+    private GraphExporter() { }
+
+    /**
+     * Writes graph {@code G} to {@code out} in the given format, in the calling thread.
+     * The channel is not closed.
+     *
+     * @param  G the graph
+     * @param  format the format
+     * @param  out the channel to write to
+     * @throws IllegalArgumentException if any argument is {@code null}
+     * @throws UncheckedIOException if the channel cannot be written
+     */
+    public static void export(Graph G, Format format, WritableByteChannel out) {
+        export(G, format, out, 1);
+    }
+
+    /**
+     * Writes graph {@code G} to {@code out} in the given format, in the calling thread.
+     * The stream is neither flushed nor closed.
+     *
+     * @param  G the graph
+     * @param  format the format
+     * @param  out the stream to write to
+     * @throws IllegalArgumentException if any argument is {@code null}
+     * @throws UncheckedIOException if the stream cannot be written
+     */
+    public static void export(Graph G, Format format, OutputStream out) {
+        if (out == null) throw new IllegalArgumentException("output stream is null");
+        export(G, format, Channels.newChannel(out), 1);
+    }
+
+    /**
+     * Writes graph {@code G} to {@code file} in the given format, encoding
+     * chunks with {@code threads} threads.
+     *
+     * @param  G the graph
+     * @param  format the format
+     * @param  file the file to write
+     * @param  threads the number of threads that encode chunks
+     * @throws IllegalArgumentException if any argument is {@code null}, or {@code threads < 1}
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public static void export(Graph G, Format format, File file, int threads) {
+        if (file == null) throw new IllegalArgumentException("file is null");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            export(G, format, channel, threads);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not write " + file, e);
+        }
+    }
+
+    /**
+     * Writes graph {@code G} to {@code out} in the given format, encoding
+     * chunks with {@code threads} threads. The channel is not closed.
+     *
+     * @param  G the graph
+     * @param  format the format
+     * @param  out the channel to write to
+     * @param  threads the number of threads that encode chunks; 1 encodes
+     *         them in the calling thread
+     * @throws IllegalArgumentException if any argument is {@code null}, or {@code threads < 1}
+     * @throws UncheckedIOException if the channel cannot be written
+     */
+    public static void export(Graph G, Format format, WritableByteChannel out, int threads) {
+        if (G == null) throw new IllegalArgumentException("graph is null");
+        if (format == null) throw new IllegalArgumentException("format is null");
+        if (out == null) throw new IllegalArgumentException("channel is null");
+        if (threads < 1) throw new IllegalArgumentException("number of threads must be positive");
+        List<Supplier<ByteBuffer>> parts = parts(G, format);
+        try {
+            if (threads == 1) {
+                for (Supplier<ByteBuffer> part : parts)
+                    writeFully(out, part.get());
+            }
+            else write(parts, out, threads);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // encodes up to 2 * threads parts at a time and writes them in order
+    private static void write(List<Supplier<ByteBuffer>> parts, WritableByteChannel out, int threads) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "graph-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            ArrayDeque<CompletableFuture<ByteBuffer>> window = new ArrayDeque<>();
+            int next = 0;
+            while (next < parts.size() || !window.isEmpty()) {
+                while (next < parts.size() && window.size() < 2 * threads)
+                    window.add(CompletableFuture.supplyAsync(parts.get(next++), pool));
+                ByteBuffer bytes;
+                try {
+                    bytes = window.poll().join();
+                }
+                catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                    throw e;
+                }
+                writeFully(out, bytes);
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining())
+            out.write(bytes);
+    }
+
+    // the header and chunks of the export, in order, each encoded on demand
+    private static List<Supplier<ByteBuffer>> parts(Graph G, Format format) {
+        int V = G.V();
+        List<int[]> ranges = new ArrayList<>();
+        List<Long> firstEntry = new ArrayList<>();
+        long entries = 0;
+        long edges = 0;             // each distinct edge once, as the edge list writes them
+        int lo = 0;
+        long rangeEntries = 0;
+        for (int v = 0; v < V; v++) {
+            int degree = G.degree(v);
+            if (format != Format.ADJACENCY) {
+                for (int w : G.adj(v))
+                    if (v <= w) edges++;
+            }
+            rangeEntries += degree;
+            if (rangeEntries >= CHUNK_ENTRIES || v - lo + 1 >= CHUNK_ENTRIES || v == V - 1) {
+                ranges.add(new int[] { lo, v + 1 });
+                firstEntry.add(entries);
+                entries += rangeEntries;
+                lo = v + 1;
+                rangeEntries = 0;
+            }
+        }
+
+        List<Supplier<ByteBuffer>> parts = new ArrayList<>();
+        switch (format) {
+            case ADJACENCY: {
+                parts.add(() -> text(out -> {
+                    out.print(V);
+                    out.print(" vertices, ");
+                    out.print(G.E());
+                    out.print(" edges ");
+                    out.println();
+                }));
+                for (int[] range : ranges)
+                    parts.add(() -> text(out -> adjacency(G, range[0], range[1], out)));
+                break;
+            }
+            case EDGE_LIST: {
+                long E = edges;
+                parts.add(() -> text(out -> {
+                    out.println(V);
+                    out.println(E);
+                }));
+                for (int[] range : ranges)
+                    parts.add(() -> text(out -> edgeList(G, range[0], range[1], out)));
+                break;
+            }
+            default: {
+                long N = entries;
+                long distinct = edges;
+                parts.add(() -> {
+                    ByteBuffer header = ByteBuffer.allocate(BinaryGraphFormat.HEADER_BYTES);
+                    header.putInt(BinaryGraphFormat.MAGIC);
+                    header.putInt(BinaryGraphFormat.VERSION);
+                    header.putInt(V);
+                    header.putInt((int) distinct);
+                    header.putLong(N);
+                    header.flip();
+                    return header;
+                });
+                for (int i = 0; i < ranges.size(); i++) {
+                    int[] range = ranges.get(i);
+                    long first = firstEntry.get(i);
+                    boolean last = i == ranges.size() - 1;
+                    parts.add(() -> offsets(G, range[0], range[1], first, last));
+                }
+                if (ranges.isEmpty()) {
+                    parts.add(() -> {
+                        ByteBuffer end = ByteBuffer.allocate(8);
+                        end.putLong(0);
+                        end.flip();
+                        return end;
+                    });
+                }
+                for (int[] range : ranges)
+                    parts.add(() -> targets(G, range[0], range[1]));
+            }
+        }
+        return parts;
+    }
+
+    private interface TextPart {
+        void print(FastOut out);
+    }
+
+    private static ByteBuffer text(TextPart part) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        FastOut out = new FastOut(bytes, 1 << 13);
+        part.print(out);
+        out.flush();
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    // the lines of vertices lo to hi - 1, as Graph.toString() writes them
+    private static void adjacency(Graph G, int lo, int hi, FastOut out) {
+        for (int v = lo; v < hi; v++) {
+            out.print(v);
+            out.print(": ");
+            for (int w : G.adj(v)) {
+                out.print(w);
+                out.print(' ');
+            }
+            out.println();
+        }
+    }
+
+    // the edges v-w with lo <= v < hi and v <= w
+    private static void edgeList(Graph G, int lo, int hi, FastOut out) {
+        for (int v = lo; v < hi; v++) {
+            for (int w : G.adj(v)) {
+                if (w < v) continue;
+                out.print(v);
+                out.print(' ');
+                out.print(w);
+                out.println();
+            }
+        }
+    }
+
+    // offset[lo .. hi-1], followed by offset[V] if this is the last range
+    private static ByteBuffer offsets(Graph G, int lo, int hi, long first, boolean last) {
+        ByteBuffer bytes = ByteBuffer.allocate(8 * (hi - lo + (last ? 1 : 0)));
+        long offset = first;
+        for (int v = lo; v < hi; v++) {
+            bytes.putLong(offset);
+            offset += G.degree(v);
+        }
+        if (last) bytes.putLong(offset);
+        bytes.flip();
+        return bytes;
+    }
+
+    // the neighbours of vertices lo to hi - 1
+    private static ByteBuffer targets(Graph G, int lo, int hi) {
+        int entries = 0;
+        for (int v = lo; v < hi; v++)
+            entries += G.degree(v);
+        ByteBuffer bytes = ByteBuffer.allocate(4 * entries);
+        for (int v = lo; v < hi; v++)
+            for (int w : G.adj(v))
+                bytes.putInt(w);
+        bytes.flip();
+        return bytes;
+    }
+
+    /**
+     * Exports a text graph file in the given format.
+     *
+     * @param args the command-line arguments: the input file, the output file,
+     *        the format ({@code adjacency}, {@code edge_list} or {@code binary}),
+     *        and optionally the number of threads
+     */
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        Graph G = new Graph(in);
+        File file = new File(args[1]);
+        Format format = Format.valueOf(args[2].toUpperCase());
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        export(G, format, file, threads);
+        System.out.println(G.V() + " vertices, " + G.E() + " edges written to " + file
+                + " in " + format + " format (" + file.length() + " bytes)");
+    }
+}
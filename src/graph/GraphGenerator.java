@@ -2,7 +2,7 @@ package graph;
 /******************************************************************************
  *  Compilation:  javac graph.GraphGenerator.java
  *  Execution:    java graph.GraphGenerator V E
- *  Dependencies: graph.Graph.java
+ *  Dependencies: graph.Graph.java graph.DenseGraph.java
  *
  *  A graph generator.
  *
@@ -57,6 +57,8 @@ public class GraphGenerator {
 
     /**
      * Returns a random simple graph containing {@code V} vertices and {@code E} edges.
+     * A graph dense enough for {@link DenseGraph#isDense(int, long)} is
+     * stored as a bit matrix; see {@link Graph#isDense()}.
      * @param V the number of vertices
      * @param E the number of vertices
      * @return a random simple graph on {@code V} vertices, containing a total
@@ -66,6 +68,18 @@ public class GraphGenerator {
     public static Graph simple(int V, int E) {
         if (E > (long) V*(V-1)/2) throw new IllegalArgumentException("Too many edges");
         if (E < 0)                throw new IllegalArgumentException("Too few edges");
+
+        // a dense graph is stored as a bit matrix, which is also its duplicate filter
+        if (DenseGraph.isDense(V, E)) {
+            DenseGraph matrix = new DenseGraph(V);
+            while (matrix.E() < E) {
+                int v = StdRandom.uniform(V);
+                int w = StdRandom.uniform(V);
+                if (v != w) matrix.addEdge(v, w);
+            }
+            return new Graph(matrix, E);
+        }
+
         Graph G = new Graph(V);
         TreeSet<Edge> set = new TreeSet<Edge>();
         while (G.E() < E) {
@@ -84,6 +98,8 @@ public class GraphGenerator {
      * Returns a random simple graph on {@code V} vertices, with an 
      * edge between any two vertices with probability {@code p}. This is sometimes
      * referred to as the Erdos-Renyi random graph model.
+     * If the expected number of edges is dense enough for
+     * {@link DenseGraph#isDense(int, long)}, the graph is stored as a bit matrix.
      * @param V the number of vertices
      * @param p the probability of choosing an edge
      * @return a random simple graph on {@code V} vertices, with an edge between
@@ -93,6 +109,10 @@ public class GraphGenerator {
     public static Graph simple(int V, double p) {
         if (p < 0.0 || p > 1.0)
             throw new IllegalArgumentException("Probability must be between 0 and 1");
+        if (DenseGraph.isDense(V, (long) (p * V * (V-1) / 2))) {
+            DenseGraph matrix = denseSimple(V, p);
+            return new Graph(matrix, matrix.E());
+        }
         Graph G = new Graph(V);
         for (int v = 0; v < V; v++)
             for (int w = v+1; w < V; w++)
@@ -102,7 +122,8 @@ public class GraphGenerator {
     }
 
     /**
-     * Returns the complete graph on {@code V} vertices.
+     * Returns the complete graph on {@code V} vertices, stored as a bit
+     * matrix if {@code V >= 64}.
      * @param V the number of vertices
      * @return the complete graph on {@code V} vertices
      */
@@ -110,6 +131,38 @@ public class GraphGenerator {
         return simple(V, 1.0);
     }
 
+    /**
+     * Returns a random simple graph on {@code V} vertices, with an
+     * edge between any two vertices with probability {@code p}, stored as a
+     * bit matrix. Use this instead of {@link #simple(int, double)} to use the
+     * matrix itself, as with {@link DenseGraph#hasEdge(int, int)} or
+     * {@link DenseGraph#bfs(int)}.
+     * @param V the number of vertices
+     * @param p the probability of choosing an edge
+     * @return a random simple graph on {@code V} vertices, with an edge between
+     *     any two vertices with probability {@code p}
+     * @throws IllegalArgumentException if probability is not between 0 and 1
+     */
+    public static DenseGraph denseSimple(int V, double p) {
+        if (p < 0.0 || p > 1.0)
+            throw new IllegalArgumentException("Probability must be between 0 and 1");
+        DenseGraph G = new DenseGraph(V);
+        for (int v = 0; v < V; v++)
+            for (int w = v+1; w < V; w++)
+                if (StdRandom.bernoulli(p))
+                    G.addEdge(v, w);
+        return G;
+    }
+
+    /**
+     * Returns the complete graph on {@code V} vertices, stored as a bit matrix.
+     * @param V the number of vertices
+     * @return the complete graph on {@code V} vertices
+     */
+    public static DenseGraph denseComplete(int V) {
+        return denseSimple(V, 1.0);
+    }
+
     /**
      * Returns a complete bipartite graph on {@code V1} and {@code V2} vertices.
      * @param V1 the number of vertices in one partition
@@ -0,0 +1,453 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.GraphImporter.java
+ *  Execution:    java graph.GraphImporter input [format]
+ *  Dependencies: graph.Graph.java graph.GraphBuilder.java lib.CompressedInput.java
+ *  Data files:   https://snap.stanford.edu/data/facebook_combined.txt.gz
+ *                https://sparse.tamu.edu/  (Matrix Market)
+ *
+ *  Reads a graph in one of the standard formats of public benchmark
+ *  datasets: SNAP edge lists, Matrix Market, METIS and DIMACS.
+ *
+ *  % java graph.GraphImporter random-2m.txt.gz
+ *  random-2m.txt.gz: SNAP, 200000 vertices, 2000000 edges in 2579 ms
+ *
+ ******************************************************************************/
+
+import lib.CompressedInput;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ *  The {@code graph.GraphImporter} class provides static methods for reading
+ *  a {@link Graph} from a file in a standard {@link Format}. The vertices
+ *  of the formats that number them from 1 are renumbered to start at 0;
+ *  SNAP vertices keep their numbers, which already start at 0.
+ *  <p>
+ *  The input is read once, byte by byte through a 64 KB buffer, without
+ *  creating a {@code String} per line or per number, and the edges are
+ *  added to a {@link GraphBuilder}, which builds the adjacency lists in
+ *  parallel at the end. A gzip-compressed file is decompressed as it is
+ *  read (see {@link CompressedInput}).
+ *  <p>
+ *  Since a {@code Graph} is undirected, a directed input is read as
+ *  undirected: an arc listed in both directions becomes two parallel
+ *  edges, which count twice in {@link Graph#E()}. Edge weights and vertex
+ *  weights are skipped. An invalid file is rejected with an
+ *  {@link IllegalArgumentException} that gives the number of its line.
+ */
+public final class GraphImporter {
+
+    /**
+     * The formats a graph can be imported from.
+     */
+    public enum Format {
+        /**
+         * SNAP edge lists: one edge {@code u v} per line, separated by
+         * spaces, tabs or a comma, with comment lines starting with
+         * {@code #} or {@code %}, and no header; anything after {@code v}
+         * on a line, such as a weight or a timestamp, is skipped.
+         * Vertices are numbered from 0 and keep their numbers, so
+         * <em>V</em> is one more than the largest vertex, and numbers
+         * that no edge uses are isolated vertices.
+         */
+        SNAP,
+        /**
+         * Matrix Market coordinate files ({@code .mtx}): a
+         * {@code %%MatrixMarket matrix coordinate} banner, in any case, comment lines
+         * starting with {@code %}, a line {@code rows columns entries},
+         * and one entry {@code i j [value]} per line, numbered from 1.
+         * <em>V</em> is the larger of {@code rows} and {@code columns},
+         * and each entry is an edge; a symmetric matrix stores each edge once.
+         */
+        MATRIX_MARKET,
+        /**
+         * METIS graph files: comment lines starting with {@code %}, a header
+         * {@code V E [fmt [ncon]]}, and then one line per vertex listing its
+         * neighbours, numbered from 1, with the vertex sizes, vertex weights
+         * and edge weights that {@code fmt} announces. Each edge is listed by
+         * both of its endpoints and added once.
+         */
+        METIS,
+        /**
+         * DIMACS files: comment lines starting with {@code c}, a problem line
+         * {@code p edge V E} or {@code p sp V E}, and one edge per line,
+         * {@code e u v} or {@code a u v weight}, numbered from 1; node
+         * lines starting with {@code n} are skipped.
+         */
+        DIMACS
+    }
+
+    // this class cannot be instantiated
+    private GraphImporter() { }
+
+    /**
+     * Returns the format suggested by the extension of a file name, ignoring
+     * a {@code .gz} extension: {@code .mtx} is {@link Format#MATRIX_MARKET},
+     * {@code .graph} and {@code .metis} are {@link Format#METIS},
+     * {@code .gr}, {@code .col}, {@code .clq} and {@code .dimacs} are
+     * {@link Format#DIMACS}, and anything else is {@link Format#SNAP}.
+     *
+     * @param  name the file name
+     * @return the format suggested by its extension
+     * @throws IllegalArgumentException if {@code name} is {@code null}
+     */
+    public static Format formatOf(String name) {
+        if (name == null) throw new IllegalArgumentException("name is null");
+        String lower = name.toLowerCase(Locale.US);
+        if (lower.endsWith(".gz")) lower = lower.substring(0, lower.length() - 3);
+        String extension = lower.substring(lower.lastIndexOf('.') + 1);
+        switch (extension) {
+            case "mtx":
+                return Format.MATRIX_MARKET;
+            case "graph":
+            case "metis":
+                return Format.METIS;
+            case "gr":
+            case "col":
+            case "clq":
+            case "dimacs":
+                return Format.DIMACS;
+            default:
+                return Format.SNAP;
+        }
+    }
+
+    /**
+     * Reads a graph from {@code file}, in the format suggested by its name.
+     *
+     * @param  file the file
+     * @return the graph
+     * @throws IllegalArgumentException if {@code file} is {@code null} or cannot
+     *         be opened, or is not in the format of its name
+     * @throws UncheckedIOException if the file cannot be read
+     * @see    #formatOf(String)
+     */
+    public static Graph load(File file) {
+        if (file == null) throw new IllegalArgumentException("file is null");
+        return load(file, formatOf(file.getName()));
+    }
+
+    /**
+     * Reads a graph from {@code file} in the given format.
+     *
+     * @param  file the file, which may be gzip-compressed
+     * @param  format the format
+     * @return the graph
+     * @throws IllegalArgumentException if an argument is {@code null}, the
+     *         file cannot be opened, or it is not in the given format
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public static Graph load(File file, Format format) {
+        if (file == null) throw new IllegalArgumentException("file is null");
+        InputStream in;
+        try {
+            in = CompressedInput.open(file);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Could not open " + file, e);
+        }
+        try (InputStream input = in) {
+            return load(input, format, file.getName());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not read " + file, e);
+        }
+    }
+
+    /**
+     * Reads a graph from {@code in} in the given format. The stream is not closed.
+     *
+     * @param  in the input stream
+     * @param  format the format
+     * @param  name the name of the input, for error messages
+     * @return the graph
+     * @throws IllegalArgumentException if {@code in} or {@code format} is
+     *         {@code null}, or the input is not in the given format
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    public static Graph load(InputStream in, Format format, String name) {
+        if (in == null) throw new IllegalArgumentException("input stream is null");
+        if (format == null) throw new IllegalArgumentException("format is null");
+        GraphLoadEvent event = new GraphLoadEvent();
+        event.begin();
+        Lines lines = new Lines(in, name);
+        GraphBuilder builder;
+        try {
+            switch (format) {
+                case SNAP:          builder = snap(lines);         break;
+                case MATRIX_MARKET: builder = matrixMarket(lines); break;
+                case METIS:         builder = metis(lines);        break;
+                default:            builder = dimacs(lines);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not read " + name, e);
+        }
+        Graph G = builder.build(Runtime.getRuntime().availableProcessors());
+        event.end();
+        if (event.shouldCommit()) {
+            event.V = G.V();
+            event.E = G.E();
+            event.commit();
+        }
+        return G;
+    }
+
+    private static GraphBuilder snap(Lines lines) throws IOException {
+        // V is only known at the end, so keep the edges until then
+        int[] endpoints = new int[1 << 16];
+        int size = 0;
+        int max = -1;
+        while (lines.next()) {
+            if (lines.isBlank() || lines.startsWith('#') || lines.startsWith('%')) continue;
+            int v = lines.nextInt();
+            int w = lines.nextInt();
+            if (v < 0 || w < 0) throw lines.error("negative vertex");
+            if (size + 2 > endpoints.length) {
+                if (endpoints.length > Integer.MAX_VALUE / 2) throw lines.error("too many edges");
+                endpoints = Arrays.copyOf(endpoints, 2 * endpoints.length);
+            }
+            endpoints[size++] = v;
+            endpoints[size++] = w;
+            max = Math.max(max, Math.max(v, w));
+        }
+        if (max == Integer.MAX_VALUE) throw lines.error("vertex " + max + " is too large");
+        GraphBuilder builder = new GraphBuilder(max + 1, size / 2);
+        builder.append(endpoints, 0, size);
+        return builder;
+    }
+
+    private static GraphBuilder matrixMarket(Lines lines) throws IOException {
+        if (!lines.next() || !lines.startsWithIgnoreCase("%%MatrixMarket"))
+            throw lines.error("missing %%MatrixMarket banner");
+        lines.nextWord();
+        if (!lines.nextWord().equalsIgnoreCase("matrix") || !lines.nextWord().equalsIgnoreCase("coordinate"))
+            throw lines.error("only \"matrix coordinate\" files describe graphs");
+        while (lines.next() && (lines.isBlank() || lines.startsWith('%'))) { }
+        if (lines.isBlank()) throw lines.error("missing size line");
+        int rows = lines.nextInt();
+        int columns = lines.nextInt();
+        int entries = lines.nextInt();
+        if (rows < 0 || columns < 0 || entries < 0) throw lines.error("negative size");
+        GraphBuilder builder = new GraphBuilder(Math.max(rows, columns), entries);
+        int read = 0;
+        while (lines.next()) {
+            if (lines.isBlank() || lines.startsWith('%')) continue;
+            if (read == entries) throw lines.error("more than " + entries + " entries");
+            addEdge(builder, lines, lines.nextInt() - 1, lines.nextInt() - 1);
+            read++;
+        }
+        if (read < entries) throw lines.error(entries + " entries announced, " + read + " found");
+        return builder;
+    }
+
+    private static GraphBuilder metis(Lines lines) throws IOException {
+        while (lines.next() && lines.startsWith('%')) { }
+        if (lines.isBlank()) throw lines.error("missing header");
+        int V = lines.nextInt();
+        int E = lines.nextInt();
+        int fmt = lines.hasNext() ? lines.nextInt() : 0;
+        boolean sizes = fmt / 100 % 10 == 1;
+        boolean vertexWeights = fmt / 10 % 10 == 1;
+        boolean edgeWeights = fmt % 10 == 1;
+        int ncon = lines.hasNext() ? lines.nextInt() : (vertexWeights ? 1 : 0);
+        if (V < 0 || E < 0 || ncon < 0) throw lines.error("invalid header");
+        if (fmt < 0 || fmt / 100 > 1 || fmt / 10 % 10 > 1 || fmt % 10 > 1)
+            throw lines.error("invalid fmt " + fmt + ": its digits must be 0 or 1");
+        if (!vertexWeights) ncon = 0;
+        GraphBuilder builder = new GraphBuilder(V, E);
+        int v = 0;
+        while (lines.next()) {
+            if (lines.startsWith('%')) continue;
+            if (v == V) {
+                if (lines.isBlank()) continue;
+                throw lines.error("more than " + V + " vertex lines");
+            }
+            if (sizes) lines.nextInt();
+            for (int i = 0; i < ncon; i++)
+                lines.nextInt();
+            while (lines.hasNext()) {
+                int w = lines.nextInt() - 1;
+                if (edgeWeights) lines.nextInt();
+                if (w < 0 || w >= V) throw lines.error("vertex " + (w + 1) + " is not between 1 and " + V);
+                if (v < w) builder.addEdge(v, w);
+            }
+            v++;
+        }
+        if (v < V) throw lines.error(V + " vertex lines announced, " + v + " found");
+        if (builder.E() != E) throw lines.error(E + " edges announced, " + builder.E() + " found");
+        return builder;
+    }
+
+    private static GraphBuilder dimacs(Lines lines) throws IOException {
+        GraphBuilder builder = null;
+        while (lines.next()) {
+            if (lines.isBlank() || lines.startsWith('c') || lines.startsWith('n')) continue;
+            if (lines.startsWith('p')) {
+                if (builder != null) throw lines.error("second problem line");
+                lines.nextWord();
+                lines.nextWord();
+                int V = lines.nextInt();
+                int E = lines.nextInt();
+                if (V < 0 || E < 0) throw lines.error("negative size");
+                builder = new GraphBuilder(V, E);
+            }
+            else if (lines.startsWith('e') || lines.startsWith('a')) {
+                if (builder == null) throw lines.error("edge before the problem line");
+                lines.nextWord();
+                addEdge(builder, lines, lines.nextInt() - 1, lines.nextInt() - 1);
+            }
+            else throw lines.error("unknown line type");
+        }
+        if (builder == null) throw lines.error("missing problem line");
+        return builder;
+    }
+
+    // adds v-w, numbered from 0, naming the vertices as numbered in the file
+    private static void addEdge(GraphBuilder builder, Lines lines, int v, int w) {
+        int V = builder.V();
+        if (v < 0 || v >= V) throw lines.error("vertex " + (v + 1) + " is not between 1 and " + V);
+        if (w < 0 || w >= V) throw lines.error("vertex " + (w + 1) + " is not between 1 and " + V);
+        builder.addEdge(v, w);
+    }
+
+    // the lines of the input, and the words and numbers of the current line
+    private static final class Lines {
+        private final InputStream in;
+        private final String name;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position;
+        private int limit;
+        private long number;        // of the current line, from 1
+        private boolean started;
+
+        Lines(InputStream in, String name) {
+            this.in = in;
+            this.name = name;
+        }
+
+        // the next byte, without reading it, or -1 at the end of the input
+        private int peek() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position] & 0xff;
+        }
+
+        // skips the rest of the current line and moves to the next; false at the end
+        boolean next() throws IOException {
+            if (started) {
+                for (int c; (c = peek()) >= 0; ) {
+                    position++;
+                    if (c == '\n') break;
+                }
+            }
+            started = true;
+            if (peek() < 0) return false;
+            number++;
+            return true;
+        }
+
+        private void skipBlanks() throws IOException {
+            for (int c; (c = peek()) == ' ' || c == '\t' || c == '\r' || c == ','; )
+                position++;
+        }
+
+        // is the rest of the line blank?
+        boolean isBlank() throws IOException {
+            return !hasNext();
+        }
+
+        // is there another word on the line?
+        boolean hasNext() throws IOException {
+            skipBlanks();
+            int c = peek();
+            return c >= 0 && c != '\n';
+        }
+
+        // does the rest of the line start with c, after blanks?
+        boolean startsWith(char c) throws IOException {
+            return hasNext() && peek() == c;
+        }
+
+        // does the rest of the line start with s, after blanks, ignoring the case
+        // of ASCII letters? Consumes nothing unless s is longer than the unread
+        // part of the buffer
+        boolean startsWithIgnoreCase(String s) throws IOException {
+            if (!hasNext()) return false;
+            if (limit - position < s.length()) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+                for (int n; limit < s.length() && (n = in.read(buffer, limit, buffer.length - limit)) > 0; )
+                    limit += n;
+            }
+            if (limit - position < s.length()) return false;
+            for (int i = 0; i < s.length(); i++)
+                if (lowerCase(buffer[position + i] & 0xff) != lowerCase(s.charAt(i))) return false;
+            return true;
+        }
+
+        private static int lowerCase(int c) {
+            return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+        }
+
+        String nextWord() throws IOException {
+            if (!hasNext()) throw error("missing word");
+            StringBuilder word = new StringBuilder();
+            for (int c; (c = peek()) >= 0 && c > ' ' && c != ','; position++)
+                word.append((char) c);
+            return word.toString();
+        }
+
+        int nextInt() throws IOException {
+            if (!hasNext()) throw error("missing number");
+            boolean negative = peek() == '-';
+            if (negative || peek() == '+') position++;
+            long x = 0;
+            int digits = 0;
+            for (int c; (c = peek()) >= '0' && c <= '9'; position++) {
+                x = 10 * x + (c - '0');
+                if (x > Integer.MAX_VALUE + 1L) throw error("number too large");
+                digits++;
+            }
+            int c = peek();
+            if (digits == 0 || (c > ' ' && c != ',')) throw error("not an integer");
+            if (negative) x = -x;
+            if (x > Integer.MAX_VALUE) throw error("number too large");
+            return (int) x;
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(name + ": line " + number + ": " + message);
+        }
+    }
+
+    /**
+     * Imports a graph file and reports its size and the time taken.
+     *
+     * @param args the command-line arguments: the file and, optionally, its
+     *        format ({@code snap}, {@code matrix_market}, {@code metis} or
+     *        {@code dimacs}) if its name does not tell
+     */
+    public static void main(String[] args) {
+        File file = new File(args[0]);
+        Format format = args.length > 1 ? Format.valueOf(args[1].toUpperCase(Locale.US)) : formatOf(file.getName());
+        long start = System.nanoTime();
+        Graph G = load(file, format);
+        long ms = (System.nanoTime() - start) / 1000000;
+        System.out.println(file.getName() + ": " + format + ", " + G.V() + " vertices, "
+                + G.E() + " edges in " + ms + " ms");
+    }
+}
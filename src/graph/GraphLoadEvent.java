@@ -0,0 +1,23 @@
+package graph;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ *  JDK Flight Recorder event for reading a graph from an input stream with
+ *  {@link Graph#Graph(lib.In)}; its duration covers parsing and building
+ *  the adjacency lists.
+ */
+@Name("graph.Load")
+@Label("Graph Load")
+@Category("Graph")
+@Description("Parsing a graph from an input stream")
+final class GraphLoadEvent extends jdk.jfr.Event {
+    @Label("Vertices")
+    int V;
+
+    @Label("Edges")
+    int E;
+}
@@ -0,0 +1,225 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.GraphPartitioner.java
+ *  Execution:    java graph.GraphPartitioner
+ *  Dependencies: graph.Graph.java graph.GraphShard.java lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/mediumG.txt
+ *
+ *  Splits the vertices of an undirected graph into k shards by hashing,
+ *  by id range, or with a streaming edge-cut minimizing heuristic
+ *  (linear deterministic greedy or Fennel).
+ *
+ *  % java graph.GraphPartitioner
+ *  HASH    k = 4  cut =  962  largest shard = 64
+ *  RANGE   k = 4  cut =  964  largest shard = 63
+ *  LDG     k = 4  cut =  264  largest shard = 68
+ *  FENNEL  k = 4  cut =  265  largest shard = 69
+ *
+ ******************************************************************************/
+
+import lib.In;
+
+/**
+ *  The {@code graph.GraphPartitioner} class represents an assignment of
+ *  the vertices of an undirected graph to <em>k</em> shards, and builds a
+ *  {@link GraphShard} for each of them.
+ *  <p>
+ *  {@link Strategy#HASH} and {@link Strategy#RANGE} ignore the edges.
+ *  {@link Strategy#LDG} and {@link Strategy#FENNEL} stream the vertices in
+ *  id order and place each one in the shard that already holds most of its
+ *  neighbours, penalised by the size of the shard, so that few edges cross
+ *  between shards; no shard takes more than
+ *  (1 + {@link #SLACK}) <em>V</em> / <em>k</em> vertices.
+ *  All strategies take time proportional to <em>k</em> (<em>V</em> + <em>E</em>).
+ */
+public class GraphPartitioner {
+
+    /**
+     * The partitioning strategies supported by {@code GraphPartitioner}.
+     */
+    public enum Strategy {
+        /** shard of v is a hash of v, modulo k */
+        HASH,
+        /** contiguous ranges of about V/k ids */
+        RANGE,
+        /** linear deterministic greedy: most neighbours, times remaining capacity */
+        LDG,
+        /** Fennel: most neighbours, minus a superlinear penalty on shard size */
+        FENNEL
+    }
+
+    /**
+     * The fraction by which a streaming partitioner may exceed a perfectly
+     * balanced shard size.
+     */
+    public static final double SLACK = 0.1;
+
+    private static final double FENNEL_GAMMA = 1.5;
+
+    private final Graph G;
+    private final int k;
+    private final int[] part;       // part[v] = shard of vertex v
+    private final int[] size;       // size[i] = number of vertices in shard i
+
+    /**
+     * Partitions graph {@code G} into {@code k} shards.
+     *
+     * @param G the graph
+     * @param k the number of shards
+     * @param strategy the partitioning strategy
+     * @throws IllegalArgumentException unless {@code k >= 1}
+     * @throws IllegalArgumentException if {@code strategy} is {@code null}
+     */
+    public GraphPartitioner(Graph G, int k, Strategy strategy) {
+        if (k < 1) throw new IllegalArgumentException("number of shards must be positive");
+        if (strategy == null) throw new IllegalArgumentException("strategy is null");
+        this.G = G;
+        this.k = k;
+        this.part = new int[G.V()];
+        this.size = new int[k];
+        switch (strategy) {
+            case HASH:   hash();              break;
+            case RANGE:  range();             break;
+            case LDG:    stream(false);       break;
+            case FENNEL: stream(true);        break;
+            default: throw new IllegalArgumentException("unknown strategy " + strategy);
+        }
+    }
+
+    private void hash() {
+        for (int v = 0; v < G.V(); v++) {
+            int h = v * 0x9E3779B9;
+            assign(v, (int) (((h ^ (h >>> 16)) & 0xffffffffL) % k));
+        }
+    }
+
+    private void range() {
+        long V = G.V();
+        for (int v = 0; v < V; v++)
+            assign(v, (int) ((long) v * k / V));
+    }
+
+    // one pass over the vertices in id order, each placed greedily
+    private void stream(boolean fennel) {
+        int V = G.V();
+        double capacity = Math.ceil((1 + SLACK) * V / k);
+        double alpha = Math.sqrt(k) * G.E() / Math.pow(Math.max(V, 1), FENNEL_GAMMA);
+        int[] neighbours = new int[k];    // neighbours[i] = placed neighbours of v in shard i
+        for (int v = 0; v < V; v++) {
+            for (int w : G.adj(v))
+                if (w < v) neighbours[part[w]]++;
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < k; i++) {
+                if (size[i] >= capacity) continue;
+                double score = fennel
+                        ? neighbours[i] - alpha * FENNEL_GAMMA * Math.pow(size[i], FENNEL_GAMMA - 1)
+                        : neighbours[i] * (1 - size[i] / capacity);
+                // ties go to the smaller shard
+                if (score > bestScore || score == bestScore && size[i] < size[best]) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            assign(v, best);
+            for (int w : G.adj(v))
+                if (w < v) neighbours[part[w]] = 0;
+        }
+    }
+
+    private void assign(int v, int shard) {
+        part[v] = shard;
+        size[shard]++;
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return the number of shards
+     */
+    public int shards() {
+        return k;
+    }
+
+    /**
+     * Returns the shard that owns vertex {@code v}.
+     *
+     * @param v the vertex
+     * @return the shard that owns {@code v}, between 0 and {@code k-1}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int shardOf(int v) {
+        validateVertex(v);
+        return part[v];
+    }
+
+    /**
+     * Returns the number of vertices owned by shard {@code i}.
+     *
+     * @param i the shard
+     * @return the number of vertices in shard {@code i}
+     * @throws IllegalArgumentException unless {@code 0 <= i < k}
+     */
+    public int size(int i) {
+        validateShard(i);
+        return size[i];
+    }
+
+    /**
+     * Returns the number of edges whose endpoints are in different shards.
+     *
+     * @return the edge cut of this partition
+     */
+    public int edgeCut() {
+        int cut = 0;
+        for (int v = 0; v < G.V(); v++)
+            for (int w : G.adj(v))
+                if (v < w && part[v] != part[w]) cut++;
+        return cut;
+    }
+
+    /**
+     * Builds shard {@code i}: the adjacency lists of the vertices it owns,
+     * and its boundary and ghost vertex tables.
+     *
+     * @param i the shard
+     * @return shard {@code i}
+     * @throws IllegalArgumentException unless {@code 0 <= i < k}
+     */
+    public GraphShard shard(int i) {
+        validateShard(i);
+        return new GraphShard(G, part, i);
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        int V = part.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= i < k}
+    private void validateShard(int i) {
+        if (i < 0 || i >= k)
+            throw new IllegalArgumentException("shard " + i + " is not between 0 and " + (k-1));
+    }
+
+    /**
+     * Unit tests the {@code graph.GraphPartitioner} data type.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        In in = new In("mediumG.txt");
+        Graph G = new Graph(in);
+        int k = 4;
+        for (Strategy strategy : Strategy.values()) {
+            GraphPartitioner partitioner = new GraphPartitioner(G, k, strategy);
+            int largest = 0;
+            for (int i = 0; i < k; i++)
+                largest = Math.max(largest, partitioner.size(i));
+            System.out.printf("%-7s k = %d  cut = %4d  largest shard = %d%n",
+                    strategy, k, partitioner.edgeCut(), largest);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package graph;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ *  JDK Flight Recorder event for one search run by the constructor of a
+ *  query class such as {@link BreadthFirstPaths}.
+ */
+@Name("graph.Query")
+@Label("Graph Query")
+@Category("Graph")
+@Description("A breadth-first or depth-first search query")
+final class GraphQueryEvent extends jdk.jfr.Event {
+    @Label("Engine")
+    String engine;
+
+    @Label("Source")
+    @Description("The source vertex, or -1 for a search from several sources")
+    int source;
+
+    @Label("Vertices")
+    int V;
+
+    @Label("Edges")
+    int E;
+
+    @Label("Vertices Visited")
+    int verticesVisited;
+
+    // commits this event, counting the visited vertices only if it is recorded
+    void commit(String engine, int source, Graph G, boolean[] visited) {
+        end();
+        if (!shouldCommit()) return;
+        this.engine = engine;
+        this.source = source;
+        this.V = G.V();
+        this.E = G.E();
+        int count = 0;
+        for (boolean v : visited)
+            if (v) count++;
+        this.verticesVisited = count;
+        commit();
+    }
+}
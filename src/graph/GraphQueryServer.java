@@ -0,0 +1,408 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.GraphQueryServer.java
+ *  Execution:    java graph.GraphQueryServer graph-file port
+ *  Dependencies: graph.Graph.java graph.BinaryGraphFormat.java
+ *                graph.GraphQueryExecutor.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/mediumG.txt
+ *
+ *  Loads a graph once and answers reachability, distance and path queries
+ *  sent over TCP by any number of local clients.
+ *
+ *  % java graph.GraphQueryServer mediumG.txt 7312
+ *  250 vertices, 1273 edges
+ *  serving on /127.0.0.1:7312
+ *
+ ******************************************************************************/
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  The {@code graph.GraphQueryServer} class serves the queries of a
+ *  {@link GraphQueryExecutor} over TCP, so that one process can hold a
+ *  large graph in memory and answer the queries of many clients.
+ *  <p>
+ *  Messages are frames of a 4-byte big-endian length followed by that many
+ *  bytes. A request frame holds a 4-byte id chosen by the client, a 1-byte
+ *  {@link GraphQueryExecutor.Type} ordinal, and a 4-byte source and target.
+ *  A response frame holds the id of its request, a 1-byte status
+ *  ({@link #OK} or {@link #INVALID}), the 4-byte distance (-1 if the
+ *  target was not reached), the 4-byte number of vertices reached, and a
+ *  4-byte count <em>n</em> followed by the <em>n</em> vertices of the
+ *  path, which is empty unless the query asked for one.
+ *  {@link GraphQueryClient} speaks this protocol.
+ *  <p>
+ *  Clients may pipeline: send many requests without waiting for their
+ *  responses. One selector thread reads every request that has arrived on
+ *  a connection, submits them together to the executor, and, once they
+ *  have all been answered, writes their responses in one batch. Responses
+ *  are sent in the order of the requests on each connection. The selector
+ *  thread never blocks: when the executor has as many queries in flight as
+ *  it allows, the server stops reading from the connection whose request
+ *  was refused, and resumes once a query completes, while it keeps serving
+ *  the other connections. It also stops reading from a client that is not
+ *  reading its responses.
+ *  <p>
+ *  The server listens on the loopback interface unless given another
+ *  address. It does not authenticate clients.
+ */
+public class GraphQueryServer implements AutoCloseable {
+
+    /**
+     * The status of a response to a query that was answered.
+     */
+    public static final byte OK = 0;
+
+    /**
+     * The status of a response to a query of unknown type or with a vertex
+     * that is not in the graph.
+     */
+    public static final byte INVALID = 1;
+
+    static final int REQUEST_BYTES = 13;
+    static final int RESPONSE_BYTES = 17;        // without the path
+    private static final int MAX_PENDING = 1 << 20;  // response bytes before a client is throttled
+
+    private final GraphQueryExecutor executor;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Queue<Connection> ready = new ConcurrentLinkedQueue<>();
+    private final Queue<Connection> resumable = new ConcurrentLinkedQueue<>();
+    private volatile boolean open = true;
+    private Thread thread;
+
+    /**
+     * Initializes a server for graph {@code G} listening on the given port
+     * of the loopback interface.
+     *
+     * @param G the graph
+     * @param port the port, or 0 for any free port
+     * @throws IllegalArgumentException if {@code G} is {@code null} or the port is invalid
+     * @throws UncheckedIOException if the port cannot be opened
+     */
+    public GraphQueryServer(Graph G, int port) {
+        this(new GraphQueryExecutor(G, 4096), new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Initializes a server that answers queries with {@code executor},
+     * listening on {@code address}. Closing the server closes the executor.
+     *
+     * @param executor the executor
+     * @param address the address to listen on
+     * @throws IllegalArgumentException if any argument is {@code null}
+     * @throws UncheckedIOException if the address cannot be bound
+     */
+    public GraphQueryServer(GraphQueryExecutor executor, InetSocketAddress address) {
+        if (executor == null) throw new IllegalArgumentException("executor is null");
+        if (address == null) throw new IllegalArgumentException("address is null");
+        this.executor = executor;
+        try {
+            selector = Selector.open();
+            server = ServerSocketChannel.open();
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not listen on " + address, e);
+        }
+    }
+
+    /**
+     * Returns the address this server listens on.
+     *
+     * @return the local address, with the actual port if 0 was requested
+     */
+    public InetSocketAddress address() {
+        try {
+            return (InetSocketAddress) server.getLocalAddress();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Serves queries in a new daemon thread, and returns.
+     *
+     * @return this server
+     * @throws IllegalStateException if the server is already serving
+     */
+    public synchronized GraphQueryServer start() {
+        if (thread != null) throw new IllegalStateException("server already started");
+        thread = new Thread(this::serve, "graph-query-server");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    /**
+     * Serves queries in the calling thread until the server is closed.
+     *
+     * @throws UncheckedIOException if the server socket fails
+     */
+    public void serve() {
+        try {
+            while (open) {
+                selector.select();
+                for (Connection connection; (connection = ready.poll()) != null; )
+                    connection.flush();
+                for (Connection connection; (connection = resumable.poll()) != null; )
+                    connection.resume();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) accept();
+                    else {
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) connection.read();
+                        if (key.isValid() && key.isWritable()) connection.flush();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        }
+        catch (IOException e) {
+            if (open) throw new UncheckedIOException(e);
+        }
+        finally {
+            for (SelectionKey key : selector.keys())
+                closeQuietly(key);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(key, channel));
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        }
+        catch (IOException e) {
+            // nothing more can be done with this channel
+        }
+    }
+
+    /**
+     * Stops serving, closes every connection, and closes the executor.
+     */
+    @Override
+    public void close() {
+        open = false;
+        selector.wakeup();
+        Thread serving;
+        synchronized (this) {
+            serving = thread;
+        }
+        if (serving != null && serving != Thread.currentThread()) {
+            try {
+                serving.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (serving == null) {
+                for (SelectionKey key : selector.keys())
+                    closeQuietly(key);
+            }
+            selector.close();
+        }
+        catch (IOException e) {
+            // the sockets are closed regardless
+        }
+        executor.close();
+    }
+
+    // one client: its unsubmitted requests, its unsent responses, and the
+    // completion of its latest batch, which its next batch waits for
+    private final class Connection {
+        private final SelectionKey key;
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        private final Queue<ByteBuffer> out = new ConcurrentLinkedQueue<>();
+        private final AtomicLong pending = new AtomicLong();
+        private CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+        private boolean stalled;    // a request was refused by the executor, which is full
+
+        Connection(SelectionKey key, SocketChannel channel) {
+            this.key = key;
+            this.channel = channel;
+        }
+
+        // reads what has arrived and submits every complete request
+        void read() throws IOException {
+            int n;
+            try {
+                n = channel.read(in);
+            }
+            catch (IOException e) {
+                n = -1;
+            }
+            if (n < 0) {
+                closeQuietly(key);
+                return;
+            }
+            submitAll();
+        }
+
+        // submits every complete request read so far, until the executor
+        // refuses one; then reads nothing more until a query completes
+        private void submitAll() {
+            in.flip();
+            List<Integer> ids = new ArrayList<>();
+            List<CompletableFuture<GraphQueryExecutor.Answer>> answers = new ArrayList<>();
+            while (in.remaining() >= 4) {
+                int length = in.getInt(in.position());
+                if (length != REQUEST_BYTES) {
+                    closeQuietly(key);      // not speaking this protocol
+                    return;
+                }
+                if (in.remaining() < 4 + length) break;
+                int request = in.position();
+                in.getInt();
+                int id = in.getInt();
+                CompletableFuture<GraphQueryExecutor.Answer> answer = submit(in.get(), in.getInt(), in.getInt());
+                if (answer == null) {
+                    in.position(request);
+                    stalled = true;
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                    executor.whenAvailable(() -> {
+                        resumable.add(this);
+                        selector.wakeup();
+                    });
+                    break;
+                }
+                ids.add(id);
+                answers.add(answer);
+            }
+            in.compact();
+            if (!answers.isEmpty()) respond(ids, answers);
+        }
+
+        // submits the requests left over when the executor was full
+        void resume() {
+            if (!key.isValid() || !stalled) return;
+            stalled = false;
+            submitAll();
+            flush();
+        }
+
+        // the answer to a request, or null if the executor is full
+        private CompletableFuture<GraphQueryExecutor.Answer> submit(int type, int source, int target) {
+            GraphQueryExecutor.Type[] types = GraphQueryExecutor.Type.values();
+            try {
+                if (type < 0 || type >= types.length)
+                    throw new IllegalArgumentException("unknown query type " + type);
+                return executor.trySubmit(GraphQueryExecutor.Query.of(types[type], source, target));
+            }
+            catch (IllegalArgumentException e) {
+                CompletableFuture<GraphQueryExecutor.Answer> invalid = new CompletableFuture<>();
+                invalid.completeExceptionally(e);
+                return invalid;
+            }
+        }
+
+        // once the previous batch and this one are answered, queues their
+        // responses in one buffer and wakes up the selector to send it
+        private void respond(List<Integer> ids, List<CompletableFuture<GraphQueryExecutor.Answer>> answers) {
+            CompletableFuture<?>[] all = answers.toArray(new CompletableFuture<?>[answers.size() + 1]);
+            all[answers.size()] = last;
+            last = CompletableFuture.allOf(all).handle((ignored, failure) -> {
+                ByteBuffer batch = encode(ids, answers);
+                pending.addAndGet(batch.remaining());
+                out.add(batch);
+                ready.add(this);
+                selector.wakeup();
+                return null;
+            });
+        }
+
+        // writes as many queued responses as the socket accepts, and reads
+        // no more requests while too many bytes of responses are unsent or
+        // the executor is full
+        void flush() {
+            if (!key.isValid()) return;
+            try {
+                for (ByteBuffer buffer; (buffer = out.peek()) != null; ) {
+                    int n = channel.write(buffer);
+                    pending.addAndGet(-n);
+                    if (buffer.hasRemaining()) break;
+                    out.poll();
+                }
+            }
+            catch (IOException e) {
+                closeQuietly(key);
+                return;
+            }
+            int ops = out.isEmpty() ? 0 : SelectionKey.OP_WRITE;
+            if (!stalled && pending.get() <= MAX_PENDING) ops |= SelectionKey.OP_READ;
+            key.interestOps(ops);
+        }
+    }
+
+    private static ByteBuffer encode(List<Integer> ids, List<CompletableFuture<GraphQueryExecutor.Answer>> answers) {
+        int size = 0;
+        for (CompletableFuture<GraphQueryExecutor.Answer> future : answers) {
+            GraphQueryExecutor.Answer answer = future.isCompletedExceptionally() ? null : future.join();
+            size += 4 + RESPONSE_BYTES;
+            if (answer != null && answer.path() != null) size += 4 * (answer.path().length() + 1);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (int i = 0; i < answers.size(); i++) {
+            CompletableFuture<GraphQueryExecutor.Answer> future = answers.get(i);
+            GraphQueryExecutor.Answer answer = future.isCompletedExceptionally() ? null : future.join();
+            IntPath path = answer == null ? null : answer.path();
+            int n = path == null ? 0 : path.length() + 1;
+            buffer.putInt(RESPONSE_BYTES + 4 * n);
+            buffer.putInt(ids.get(i));
+            buffer.put(answer == null ? INVALID : OK);
+            boolean reached = answer != null && (answer.reachable() || answer.query().type() == GraphQueryExecutor.Type.SEARCH);
+            buffer.putInt(reached ? answer.distance() : -1);
+            buffer.putInt(answer == null ? 0 : answer.reached());
+            buffer.putInt(n);
+            for (int j = 0; j < n; j++)
+                buffer.putInt(path.get(j));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Loads a graph in text or binary format and serves queries on it
+     * until the process is killed.
+     *
+     * @param args the command-line arguments: the graph file and the port
+     */
+    public static void main(String[] args) {
+        Graph G = BinaryGraphFormat.load(new File(args[0]));
+        System.out.println(G.V() + " vertices, " + G.E() + " edges");
+        GraphQueryServer server = new GraphQueryServer(G, Integer.parseInt(args[1]));
+        System.out.println("serving on " + server.address());
+        server.serve();
+    }
+}
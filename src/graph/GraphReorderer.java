@@ -0,0 +1,399 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.GraphReorderer.java
+ *  Execution:    java graph.GraphReorderer
+ *  Dependencies: graph.Graph.java graph.GraphBuilder.java lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/mediumG.txt
+ *
+ *  Relabels the vertices of an undirected graph so that vertices that are
+ *  explored together also have nearby ids. Supports degree-sorted,
+ *  breadth-first, reverse Cuthill-McKee and Gorder-style orderings.
+ *
+ *  % java graph.GraphReorderer
+ *  IDENTITY  bandwidth =  238  gap =  5.88  all-sources BFS = ...
+ *  DEGREE    bandwidth =  207  gap =  5.02  all-sources BFS = ...
+ *  BFS       bandwidth =   37  gap =  3.26  all-sources BFS = ...
+ *  RCM       bandwidth =   42  gap =  3.40  all-sources BFS = ...
+ *  GORDER    bandwidth =  236  gap =  2.98  all-sources BFS = ...
+ *
+ ******************************************************************************/
+
+import lib.In;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ *  The {@code graph.GraphReorderer} class represents a relabelling of the
+ *  vertices of an undirected graph.
+ *  It computes a permutation of the vertices according to one of the
+ *  {@link Strategy} orderings and builds the renumbered graph, together with
+ *  the forward map (original id to new id) and the backward map
+ *  (new id to original id).
+ *  <p>
+ *  Traversals are run on {@link #graph()} using new ids; the
+ *  {@code toOriginal} methods translate their results (single vertices,
+ *  paths and vertex-indexed arrays) back to the original ids, and
+ *  {@link #toReordered(Iterable)} translates source vertices the other way.
+ *  <p>
+ *  Only distinct edges are copied, so parallel edges of the original graph
+ *  (which {@link Graph} stores once) are not counted twice in the relabelled
+ *  graph.
+ *  The degree, BFS and RCM orderings take time proportional to
+ *  <em>E</em> log <em>V</em>; the Gorder ordering takes time proportional to
+ *  the sum over all vertices of the square of their degree, times log <em>V</em>.
+ */
+public class GraphReorderer {
+
+    /**
+     * The vertex orderings supported by {@code GraphReorderer}.
+     */
+    public enum Strategy {
+        /** keep the original ids */
+        IDENTITY,
+        /** sort vertices by decreasing degree, ties by original id */
+        DEGREE,
+        /** order of discovery by breadth-first search, one component at a time */
+        BFS,
+        /** reverse Cuthill-McKee: BFS from a low-degree vertex, neighbours by increasing degree, reversed */
+        RCM,
+        /** greedy Gorder: place next the vertex sharing the most neighbours with the last few placed */
+        GORDER
+    }
+
+    private static final int GORDER_WINDOW = 5;
+
+    private final Strategy strategy;
+    private final int[] newId;      // newId[v] = id of original vertex v in the relabelled graph
+    private final int[] oldId;      // oldId[v] = original id of vertex v of the relabelled graph
+    private final Graph reordered;
+
+    /**
+     * Computes a relabelling of graph {@code G} using the given strategy.
+     *
+     * @param G the graph
+     * @param strategy the ordering to use
+     * @throws IllegalArgumentException if {@code strategy} is {@code null}
+     */
+    public GraphReorderer(Graph G, Strategy strategy) {
+        if (strategy == null) throw new IllegalArgumentException("strategy is null");
+        this.strategy = strategy;
+        int[][] nbrs = neighbours(G);
+        switch (strategy) {
+            case IDENTITY: oldId = identityOrder(G.V());   break;
+            case DEGREE:   oldId = degreeOrder(nbrs);      break;
+            case BFS:      oldId = bfsOrder(nbrs, false);  break;
+            case RCM:      oldId = bfsOrder(nbrs, true);   break;
+            case GORDER:   oldId = gorderOrder(nbrs);      break;
+            default: throw new IllegalArgumentException("unknown strategy " + strategy);
+        }
+        newId = new int[G.V()];
+        for (int i = 0; i < oldId.length; i++)
+            newId[oldId[i]] = i;
+        reordered = relabel(nbrs, newId);
+    }
+
+    /**
+     * Returns the strategy used to compute this relabelling.
+     *
+     * @return the strategy
+     */
+    public Strategy strategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns the relabelled graph.
+     *
+     * @return the relabelled graph, in which original vertex {@code v}
+     *         has id {@code toReordered(v)}
+     */
+    public Graph graph() {
+        return reordered;
+    }
+
+    /**
+     * Returns the id in the relabelled graph of original vertex {@code v}.
+     *
+     * @param v an original vertex
+     * @return the new id of {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int toReordered(int v) {
+        validateVertex(v);
+        return newId[v];
+    }
+
+    /**
+     * Returns the original id of vertex {@code v} of the relabelled graph.
+     *
+     * @param v a vertex of the relabelled graph
+     * @return the original id of {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int toOriginal(int v) {
+        validateVertex(v);
+        return oldId[v];
+    }
+
+    /**
+     * Translates a sequence of original vertices (for example, the sources
+     * of a multi-source search) to ids of the relabelled graph.
+     *
+     * @param vertices the original vertices
+     * @return the same vertices, in the same order, as new ids
+     * @throws IllegalArgumentException if {@code vertices} is {@code null} or
+     *         contains a vertex not in range
+     */
+    public Iterable<Integer> toReordered(Iterable<Integer> vertices) {
+        if (vertices == null) throw new IllegalArgumentException("argument is null");
+        List<Integer> result = new ArrayList<>();
+        for (int v : vertices)
+            result.add(toReordered(v));
+        return result;
+    }
+
+    /**
+     * Translates a sequence of vertices of the relabelled graph (for example,
+     * a path returned by {@code pathTo}) back to original ids.
+     *
+     * @param vertices the vertices of the relabelled graph, or {@code null}
+     * @return the same vertices, in the same order, as original ids,
+     *         or {@code null} if {@code vertices} is {@code null}
+     * @throws IllegalArgumentException if a vertex is not in range
+     */
+    public Iterable<Integer> toOriginal(Iterable<Integer> vertices) {
+        if (vertices == null) return null;
+        List<Integer> result = new ArrayList<>();
+        for (int v : vertices)
+            result.add(toOriginal(v));
+        return result;
+    }
+
+    /**
+     * Translates a vertex-indexed array computed on the relabelled graph
+     * (for example, distances) into one indexed by original vertex.
+     *
+     * @param values the values indexed by new id
+     * @return an array {@code a} with {@code a[v] = values[toReordered(v)]}
+     * @throws IllegalArgumentException unless {@code values.length == V}
+     */
+    public int[] toOriginal(int[] values) {
+        if (values == null || values.length != newId.length)
+            throw new IllegalArgumentException("array length must be " + newId.length);
+        int[] result = new int[values.length];
+        for (int v = 0; v < newId.length; v++)
+            result[v] = values[newId[v]];
+        return result;
+    }
+
+    /**
+     * Returns the bandwidth of graph {@code G}: the maximum of |v - w|
+     * over all edges v-w.
+     *
+     * @param G the graph
+     * @return the bandwidth of {@code G}
+     */
+    public static int bandwidth(Graph G) {
+        int max = 0;
+        for (int v = 0; v < G.V(); v++)
+            for (int w : G.adj(v))
+                max = Math.max(max, Math.abs(v - w));
+        return max;
+    }
+
+    /**
+     * Returns the average log-gap of graph {@code G}: the mean over all
+     * adjacency entries v-w of log2(1 + |v - w|), a proxy for how many
+     * cache lines a traversal touches.
+     *
+     * @param G the graph
+     * @return the average log-gap of {@code G}, or 0 if it has no edges
+     */
+    public static double averageLogGap(Graph G) {
+        double sum = 0.0;
+        long n = 0;
+        for (int v = 0; v < G.V(); v++) {
+            for (int w : G.adj(v)) {
+                sum += Math.log(1 + Math.abs(v - w)) / Math.log(2);
+                n++;
+            }
+        }
+        return n == 0 ? 0.0 : sum / n;
+    }
+
+    // adjacency of G as primitive arrays, sorted by id
+    private static int[][] neighbours(Graph G) {
+        int[][] nbrs = new int[G.V()][];
+        for (int v = 0; v < G.V(); v++) {
+            nbrs[v] = new int[G.degree(v)];
+            int i = 0;
+            for (int w : G.adj(v))
+                nbrs[v][i++] = w;
+        }
+        return nbrs;
+    }
+
+    private static int[] identityOrder(int V) {
+        int[] order = new int[V];
+        for (int v = 0; v < V; v++)
+            order[v] = v;
+        return order;
+    }
+
+    private static int[] degreeOrder(int[][] nbrs) {
+        List<Integer> vertices = new ArrayList<>();
+        for (int v = 0; v < nbrs.length; v++)
+            vertices.add(v);
+        Collections.sort(vertices, (a, b) -> {
+            if (nbrs[a].length != nbrs[b].length) return Integer.compare(nbrs[b].length, nbrs[a].length);
+            return Integer.compare(a, b);
+        });
+        int[] order = new int[nbrs.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = vertices.get(i);
+        return order;
+    }
+
+    // breadth-first order; in Cuthill-McKee mode each component starts at a
+    // vertex of minimum degree, neighbours are enqueued by increasing degree
+    // and the final order is reversed
+    private static int[] bfsOrder(int[][] nbrs, boolean cuthillMcKee) {
+        int V = nbrs.length;
+        int[] order = new int[V];
+        boolean[] visited = new boolean[V];
+        int[] starts = cuthillMcKee ? reverse(degreeOrder(nbrs)) : identityOrder(V);
+        int head = 0;
+        int tail = 0;
+        for (int s : starts) {
+            if (visited[s]) continue;
+            visited[s] = true;
+            order[tail++] = s;
+            while (head < tail) {
+                int v = order[head++];
+                int from = tail;
+                for (int w : nbrs[v]) {
+                    if (!visited[w]) {
+                        visited[w] = true;
+                        order[tail++] = w;
+                    }
+                }
+                if (cuthillMcKee) sortByDegree(order, from, tail, nbrs);
+            }
+        }
+        return cuthillMcKee ? reverse(order) : order;
+    }
+
+    // insertion sort of order[lo..hi) by increasing degree, ties by id
+    private static void sortByDegree(int[] order, int lo, int hi, int[][] nbrs) {
+        for (int i = lo + 1; i < hi; i++) {
+            int x = order[i];
+            int j = i;
+            while (j > lo && (nbrs[order[j-1]].length > nbrs[x].length
+                    || nbrs[order[j-1]].length == nbrs[x].length && order[j-1] > x)) {
+                order[j] = order[j-1];
+                j--;
+            }
+            order[j] = x;
+        }
+    }
+
+    private static int[] reverse(int[] a) {
+        int[] b = new int[a.length];
+        for (int i = 0; i < a.length; i++)
+            b[i] = a[a.length - 1 - i];
+        return b;
+    }
+
+    // greedy Gorder: the score of an unplaced vertex is the number of edges and
+    // common neighbours it shares with the last GORDER_WINDOW placed vertices;
+    // stale heap entries are skipped lazily
+    private static int[] gorderOrder(int[][] nbrs) {
+        int V = nbrs.length;
+        int[] order = new int[V];
+        if (V == 0) return order;
+        int[] score = new int[V];
+        boolean[] placed = new boolean[V];
+        PriorityQueue<Long> pq = new PriorityQueue<>();
+        int[] byDegree = degreeOrder(nbrs);
+        int next = 0;   // next candidate in degree order when the heap runs dry
+
+        for (int i = 0; i < V; i++) {
+            int v = -1;
+            while (!pq.isEmpty()) {
+                long key = pq.remove();
+                int u = (int) (-key & 0xffffffffL);
+                int s = (int) (-key >>> 32);
+                if (!placed[u] && score[u] == s) {
+                    v = u;
+                    break;
+                }
+            }
+            if (v == -1) {
+                while (placed[byDegree[next]]) next++;
+                v = byDegree[next];
+            }
+            placed[v] = true;
+            order[i] = v;
+            adjustScores(v, +1, nbrs, score, placed, pq);
+            if (i >= GORDER_WINDOW)
+                adjustScores(order[i - GORDER_WINDOW], -1, nbrs, score, placed, pq);
+        }
+        return order;
+    }
+
+    private static void adjustScores(int v, int delta, int[][] nbrs, int[] score,
+                                     boolean[] placed, PriorityQueue<Long> pq) {
+        for (int w : nbrs[v]) {
+            bump(w, delta, score, placed, pq);
+            for (int x : nbrs[w])
+                if (x != v) bump(x, delta, score, placed, pq);
+        }
+    }
+
+    private static void bump(int v, int delta, int[] score, boolean[] placed, PriorityQueue<Long> pq) {
+        if (placed[v]) return;
+        score[v] += delta;
+        if (score[v] > 0)
+            pq.add(-(((long) score[v] << 32) | v));
+    }
+
+    private static Graph relabel(int[][] nbrs, int[] newId) {
+        GraphBuilder builder = new GraphBuilder(nbrs.length);
+        for (int v = 0; v < nbrs.length; v++)
+            for (int w : nbrs[v])
+                if (v <= w) builder.addEdge(newId[v], newId[w]);
+        return builder.build();
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        int V = newId.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Unit tests the {@code graph.GraphReorderer} data type: prints the
+     * bandwidth and average log-gap of each ordering of {@code mediumG.txt}
+     * and the time taken by breadth-first search from every vertex.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        In in = new In("mediumG.txt");
+        Graph G = new Graph(in);
+        for (Strategy strategy : Strategy.values()) {
+            GraphReorderer reorderer = new GraphReorderer(G, strategy);
+            Graph H = reorderer.graph();
+            long start = System.nanoTime();
+            for (int s = 0; s < H.V(); s++)
+                new BreadthFirstPaths(H, Collections.singletonList(s));
+            double ms = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%-9s bandwidth = %4d  gap = %5.2f  all-sources BFS = %8.2f ms%n",
+                    strategy, bandwidth(H), averageLogGap(H), ms);
+        }
+    }
+}
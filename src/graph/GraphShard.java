@@ -0,0 +1,231 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.GraphShard.java
+ *  Execution:    java graph.GraphShard
+ *  Dependencies: graph.Graph.java graph.GraphPartitioner.java lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyG.txt
+ *
+ *  The part of an undirected graph owned by one shard: its vertices, their
+ *  adjacency lists, and the remote (ghost) neighbours they point to.
+ *
+ *  % java graph.GraphShard
+ *  shard 0: 7 vertices, ghosts 3@1 4@1 11@1 12@1, boundary [5, 6, 9]
+ *  shard 1: 6 vertices, ghosts 5@0 6@0 9@0, boundary [3, 4, 11, 12]
+ *
+ ******************************************************************************/
+
+import lib.In;
+
+import java.util.Arrays;
+
+/**
+ *  The {@code graph.GraphShard} class represents the part of an undirected
+ *  graph owned by one shard of a {@link GraphPartitioner}.
+ *  <p>
+ *  Owned vertices are renumbered 0 through <em>n</em> – 1 in increasing
+ *  order of their global id, and their adjacency lists are stored in one
+ *  compressed-sparse-row array. Each adjacency entry is either the local
+ *  index of an owned neighbour ({@code >= 0}) or {@code -1 - g} for entry
+ *  <em>g</em> of the ghost table, which records the global id and the owning
+ *  shard of every remote neighbour. The boundary table lists the owned
+ *  vertices that have at least one remote neighbour.
+ *  <p>
+ *  {@link #localIndex(int)} takes time logarithmic in the size of the shard;
+ *  all other operations take constant time.
+ */
+public class GraphShard {
+    private final int id;
+    private final int[] vertices;     // vertices[l] = global id of local vertex l, increasing
+    private final int[] start;        // adjacency of l is target[start[l] .. start[l+1])
+    private final int[] target;       // local index, or -1 - ghost index
+    private final int[] ghostVertex;  // ghostVertex[g] = global id of ghost g
+    private final int[] ghostOwner;   // ghostOwner[g] = shard owning ghost g
+    private final int[] boundary;     // local indices of vertices with a remote neighbour
+
+    /**
+     * Builds shard {@code id} of graph {@code G}, given the shard of every vertex.
+     *
+     * @param G the graph
+     * @param part {@code part[v]} is the shard that owns vertex {@code v}
+     * @param id this shard
+     */
+    GraphShard(Graph G, int[] part, int id) {
+        this.id = id;
+        int n = 0;
+        for (int v = 0; v < G.V(); v++)
+            if (part[v] == id) n++;
+        vertices = new int[n];
+        start = new int[n + 1];
+        for (int v = 0, l = 0; v < G.V(); v++) {
+            if (part[v] != id) continue;
+            vertices[l] = v;
+            start[l + 1] = start[l] + G.degree(v);
+            l++;
+        }
+
+        target = new int[start[n]];
+        LongSymbolTable ghosts = new LongSymbolTable();
+        int[] owners = new int[16];
+        int[] border = new int[n];
+        int borderSize = 0;
+        for (int l = 0; l < n; l++) {
+            int j = start[l];
+            boolean remote = false;
+            for (int w : G.adj(vertices[l])) {
+                if (part[w] == id) {
+                    target[j++] = Arrays.binarySearch(vertices, w);
+                }
+                else {
+                    int g = ghosts.intern(w);
+                    if (g == owners.length) owners = Arrays.copyOf(owners, 2 * g);
+                    owners[g] = part[w];
+                    target[j++] = -1 - g;
+                    remote = true;
+                }
+            }
+            if (remote) border[borderSize++] = l;
+        }
+        ghostVertex = new int[ghosts.size()];
+        for (int g = 0; g < ghostVertex.length; g++)
+            ghostVertex[g] = (int) ghosts.keyOf(g);
+        ghostOwner = Arrays.copyOf(owners, ghostVertex.length);
+        boundary = Arrays.copyOf(border, borderSize);
+    }
+
+    /**
+     * Returns the id of this shard.
+     *
+     * @return the id of this shard
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Returns the number of vertices owned by this shard.
+     *
+     * @return the number of owned vertices
+     */
+    public int size() {
+        return vertices.length;
+    }
+
+    /**
+     * Returns the global id of local vertex {@code l}.
+     *
+     * @param l the local index
+     * @return the global id of {@code l}
+     * @throws IllegalArgumentException unless {@code 0 <= l < size()}
+     */
+    public int globalId(int l) {
+        validateLocal(l);
+        return vertices[l];
+    }
+
+    /**
+     * Returns the local index of global vertex {@code v}.
+     *
+     * @param v the global id
+     * @return the local index of {@code v}, or -1 if this shard does not own it
+     */
+    public int localIndex(int v) {
+        int l = Arrays.binarySearch(vertices, v);
+        return l < 0 ? -1 : l;
+    }
+
+    /**
+     * Returns the degree of local vertex {@code l}.
+     *
+     * @param l the local index
+     * @return the degree of {@code l}
+     * @throws IllegalArgumentException unless {@code 0 <= l < size()}
+     */
+    public int degree(int l) {
+        validateLocal(l);
+        return start[l + 1] - start[l];
+    }
+
+    /**
+     * Returns the number of ghost vertices: remote neighbours of owned vertices.
+     *
+     * @return the size of the ghost table
+     */
+    public int ghosts() {
+        return ghostVertex.length;
+    }
+
+    /**
+     * Returns the global id of ghost {@code g}.
+     *
+     * @param g the ghost index
+     * @return the global id of {@code g}
+     * @throws IllegalArgumentException unless {@code 0 <= g < ghosts()}
+     */
+    public int ghostVertex(int g) {
+        validateGhost(g);
+        return ghostVertex[g];
+    }
+
+    /**
+     * Returns the shard that owns ghost {@code g}.
+     *
+     * @param g the ghost index
+     * @return the shard owning {@code g}
+     * @throws IllegalArgumentException unless {@code 0 <= g < ghosts()}
+     */
+    public int ghostOwner(int g) {
+        validateGhost(g);
+        return ghostOwner[g];
+    }
+
+    /**
+     * Returns the global ids of the owned vertices that have at least one
+     * neighbour in another shard.
+     *
+     * @return the boundary vertices, in increasing order
+     */
+    public int[] boundary() {
+        int[] result = new int[boundary.length];
+        for (int i = 0; i < boundary.length; i++)
+            result[i] = vertices[boundary[i]];
+        return result;
+    }
+
+    // raw accessors for traversal loops, no validation
+    int adjStart(int l)      { return start[l]; }
+    int adjEnd(int l)        { return start[l + 1]; }
+    int target(int j)        { return target[j]; }
+    int rawGlobalId(int l)   { return vertices[l]; }
+    int rawGhostVertex(int g) { return ghostVertex[g]; }
+    int rawGhostOwner(int g) { return ghostOwner[g]; }
+
+    private void validateLocal(int l) {
+        if (l < 0 || l >= vertices.length)
+            throw new IllegalArgumentException("local vertex " + l + " is not between 0 and " + (vertices.length-1));
+    }
+
+    private void validateGhost(int g) {
+        if (g < 0 || g >= ghostVertex.length)
+            throw new IllegalArgumentException("ghost " + g + " is not between 0 and " + (ghostVertex.length-1));
+    }
+
+    /**
+     * Unit tests the {@code graph.GraphShard} data type with the shards of
+     * {@code tinyG.txt} split in two by hashing.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        In in = new In("tinyG.txt");
+        Graph G = new Graph(in);
+        GraphPartitioner partitioner = new GraphPartitioner(G, 2, GraphPartitioner.Strategy.HASH);
+        for (int i = 0; i < partitioner.shards(); i++) {
+            GraphShard shard = partitioner.shard(i);
+            StringBuilder ghosts = new StringBuilder();
+            for (int g = 0; g < shard.ghosts(); g++)
+                ghosts.append(' ').append(shard.ghostVertex(g)).append('@').append(shard.ghostOwner(g));
+            System.out.println("shard " + shard.id() + ": " + shard.size() + " vertices, ghosts" + ghosts
+                    + ", boundary " + Arrays.toString(shard.boundary()));
+        }
+    }
+}
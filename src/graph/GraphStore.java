@@ -0,0 +1,643 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.GraphStore.java
+ *  Execution:    java graph.GraphStore directory input.txt
+ *  Dependencies: graph.Graph.java graph.BinaryGraphFormat.java
+ *                graph.GraphExporter.java lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/mediumG.txt
+ *
+ *  Keeps a graph on disk as a binary snapshot and an append-only log of
+ *  the edges added since, committed in groups and compacted in the
+ *  background.
+ *
+ *  % java graph.GraphStore /tmp/store mediumG.txt
+ *  added 1273 edges in 2 commits (85 ms)
+ *  reopened: 250 vertices, 1273 edges, log of 10216 bytes replayed in 4 ms
+ *  compacted: 250 vertices, 1273 edges, log of 16 bytes replayed in 8 ms
+ *
+ ******************************************************************************/
+
+import lib.In;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.CRC32;
+
+/**
+ *  The {@code graph.GraphStore} class keeps a {@link Graph} in a directory,
+ *  so that the edges added to it at run time survive a restart or a crash.
+ *  <p>
+ *  The directory holds a snapshot {@code snapshot-g.bin} in
+ *  {@link BinaryGraphFormat}, and logs {@code edges-g.log} of the edges
+ *  added after it, where <em>g</em> is a generation number. Snapshot
+ *  <em>g</em> holds every edge of the logs before generation <em>g</em>.
+ *  {@link #addEdge(int, int)} adds an edge to the graph in memory and
+ *  queues it for the log. A committer thread writes whatever edges are
+ *  queued as one checksummed frame, appended to the log, and then calls
+ *  {@link FileChannel#force(boolean)} once for the whole frame. Edges added
+ *  while a frame is being forced go into the next one. This is group
+ *  commit: many edges share one disk flush. {@link #sync()} waits until
+ *  every edge added before it is on disk.
+ *  <p>
+ *  On {@link #open(File, int)}, the newest snapshot is mapped and the logs
+ *  after it are replayed, so restart time is bounded by the size of the
+ *  logs. A frame torn by a crash fails its checksum; it is cut off, with
+ *  the edges in it that were never synced. {@link #compact()} starts a new
+ *  log, then writes a new snapshot from the old snapshot and logs in a
+ *  background thread, and renames it into place atomically. A crash at
+ *  any point leaves either the old or the new snapshot, with its logs.
+ *  Compaction also starts by itself when the log grows past
+ *  {@code maxLogBytes}.
+ *  <p>
+ *  Since {@link BinaryGraphFormat} stores adjacency sets, parallel edges
+ *  are stored once by a snapshot, and a reopened graph counts them once.
+ *  <p>
+ *  {@code addEdge} is safe for use by multiple threads. The graph returned
+ *  by {@link #graph()} must only be modified through its store, and, like
+ *  any {@code Graph}, only read while no edge is being added.
+ */
+public final class GraphStore implements Closeable {
+
+    /**
+     * The log size past which a compaction starts, unless another is given, in bytes.
+     */
+    public static final long DEFAULT_MAX_LOG_BYTES = 64L << 20;
+
+    private static final int LOG_MAGIC = 0x474c4f47;         // "GLOG"
+    private static final int LOG_VERSION = 1;
+    private static final int LOG_HEADER_BYTES = 16;
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final int MAX_FRAME_EDGES = 1 << 16;
+
+    private final File directory;
+    private final Graph G;
+    private final long maxLogBytes;
+    private final long replayNanos;
+    private final long replayedBytes;
+
+    // guarded by this
+    private FileChannel log;
+    private long generation;          // of the current log
+    private long logBytes;
+    private int[] pending = new int[1024];     // v0, w0, v1, w1, ... not yet written
+    private int pendingSize;
+    private long added;               // edges added since open
+    private long durable;             // of which are on disk
+    private long commits;
+    private IOException failure;
+    private boolean closed;
+    private boolean rotate;           // start a new log before the next commit
+    private CompletableFuture<Void> compaction;
+
+    private final Thread committer;
+
+    private GraphStore(File directory, Graph G, FileChannel log, long generation, long maxLogBytes,
+                       long replayedBytes, long replayNanos) throws IOException {
+        this.directory = directory;
+        this.G = G;
+        this.log = log;
+        this.generation = generation;
+        this.logBytes = log.size();
+        this.maxLogBytes = maxLogBytes;
+        this.replayedBytes = replayedBytes;
+        this.replayNanos = replayNanos;
+        this.committer = new Thread(this::commitLoop, "graph-store-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Opens the store in {@code directory}, creating it with an empty graph
+     * of {@code V} vertices if it holds no snapshot, and compacting its log
+     * when it grows past {@link #DEFAULT_MAX_LOG_BYTES}.
+     *
+     * @param  directory the directory
+     * @param  V the number of vertices
+     * @return the store
+     * @throws IllegalArgumentException if {@code directory} is {@code null},
+     *         {@code V < 0}, or the store has another number of vertices
+     * @throws IllegalArgumentException if a snapshot or a log is corrupt
+     * @throws UncheckedIOException if the directory cannot be read or written
+     */
+    public static GraphStore open(File directory, int V) {
+        return open(directory, V, DEFAULT_MAX_LOG_BYTES);
+    }
+
+    /**
+     * Opens the store in {@code directory}, creating it with an empty graph
+     * of {@code V} vertices if it holds no snapshot.
+     *
+     * @param  directory the directory
+     * @param  V the number of vertices
+     * @param  maxLogBytes the log size past which a compaction starts
+     * @return the store
+     * @throws IllegalArgumentException if {@code directory} is {@code null},
+     *         {@code V < 0}, {@code maxLogBytes < 1}, or the store has another
+     *         number of vertices
+     * @throws IllegalArgumentException if a snapshot or a log is corrupt
+     * @throws UncheckedIOException if the directory cannot be read or written
+     */
+    public static GraphStore open(File directory, int V, long maxLogBytes) {
+        if (directory == null) throw new IllegalArgumentException("directory is null");
+        if (V < 0) throw new IllegalArgumentException("number of vertices must be nonnegative");
+        if (maxLogBytes < 1) throw new IllegalArgumentException("maximum log size must be positive");
+        try {
+            Files.createDirectories(directory.toPath());
+            TreeMap<Long, File> snapshots = files(directory, "snapshot-", ".bin");
+            TreeMap<Long, File> logs = files(directory, "edges-", ".log");
+            if (snapshots.isEmpty()) {
+                writeSnapshot(new Graph(V), snapshotFile(directory, 0));
+                snapshots.put(0L, snapshotFile(directory, 0));
+            }
+
+            // files older than the newest snapshot were folded into it
+            long snapshot = snapshots.lastKey();
+            for (File file : snapshots.headMap(snapshot).values()) Files.delete(file.toPath());
+            for (File file : logs.headMap(snapshot).values()) Files.delete(file.toPath());
+            File[] temporary = directory.listFiles((dir, name) -> name.endsWith(".tmp"));
+            if (temporary != null)
+                for (File file : temporary) Files.delete(file.toPath());
+
+            long start = System.nanoTime();
+            Graph G = BinaryGraphFormat.read(snapshots.get(snapshot));
+            if (G.V() != V)
+                throw new IllegalArgumentException(directory + " holds a graph of " + G.V() + " vertices, not " + V);
+            long bytes = 0;
+            TreeMap<Long, File> replayed = new TreeMap<>(logs.tailMap(snapshot));
+            for (File file : replayed.values()) {
+                boolean last = file.equals(replayed.lastEntry().getValue());
+                bytes += replay(file, G, last);
+            }
+            long nanos = System.nanoTime() - start;
+
+            long generation = replayed.isEmpty() ? snapshot : replayed.lastKey();
+            FileChannel log = replayed.isEmpty() ? createLog(directory, generation, V)
+                                                 : FileChannel.open(logFile(directory, generation).toPath(),
+                                                                    StandardOpenOption.WRITE);
+            log.position(log.size());
+            return new GraphStore(directory, G, log, generation, maxLogBytes, bytes, nanos);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not open graph store " + directory, e);
+        }
+    }
+
+    /**
+     * Returns the graph of this store.
+     *
+     * @return the graph, with every edge added so far
+     */
+    public Graph graph() {
+        return G;
+    }
+
+    /**
+     * Adds the undirected edge v-w to the graph, and queues it for the log.
+     * The edge is on disk once {@link #sync()} returns.
+     *
+     * @param  v one vertex in the edge
+     * @param  w the other vertex in the edge
+     * @throws IllegalArgumentException unless both {@code 0 <= v < V} and {@code 0 <= w < V}
+     * @throws IllegalStateException if the store is closed
+     * @throws UncheckedIOException if the log could not be written
+     */
+    public synchronized void addEdge(int v, int w) {
+        checkOpen();
+        G.addEdge(v, w);
+        if (pendingSize + 2 > pending.length) pending = Arrays.copyOf(pending, 2 * pending.length);
+        pending[pendingSize++] = v;
+        pending[pendingSize++] = w;
+        added++;
+        notifyAll();
+    }
+
+    /**
+     * Waits until every edge added before this call is on disk.
+     *
+     * @throws IllegalStateException if the store is closed, or the thread is interrupted
+     * @throws UncheckedIOException if the log could not be written
+     */
+    public synchronized void sync() {
+        long target = added;
+        while (durable < target) {
+            checkOpen();
+            try {
+                wait();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for the log", e);
+            }
+        }
+        checkOpen();
+    }
+
+    private void checkOpen() {
+        if (failure != null) throw new UncheckedIOException("could not write the log of " + directory, failure);
+        if (closed) throw new IllegalStateException("graph store is closed");
+    }
+
+    /**
+     * Returns the number of group commits so far, each a write of the
+     * edges queued and one flush to disk.
+     *
+     * @return the number of group commits since the store was opened
+     */
+    public synchronized long commits() {
+        return commits;
+    }
+
+    /**
+     * Returns the size of the current log, in bytes, including what is
+     * written but not yet forced to disk.
+     *
+     * @return the size of the current log
+     */
+    public synchronized long logBytes() {
+        return logBytes;
+    }
+
+    /**
+     * Returns the number of log bytes replayed when the store was opened.
+     *
+     * @return the number of log bytes replayed
+     */
+    public long replayedBytes() {
+        return replayedBytes;
+    }
+
+    /**
+     * Returns the time taken to read the snapshot and replay the logs when
+     * the store was opened.
+     *
+     * @return the recovery time, in nanoseconds
+     */
+    public long recoveryNanos() {
+        return replayNanos;
+    }
+
+    // the committer thread: writes the queued edges as frames, forces them,
+    // and starts a new log when a compaction asks for it
+    private void commitLoop() {
+        while (true) {
+            int[] edges;
+            int size;
+            boolean rotating;
+            FileChannel channel;
+            synchronized (this) {
+                while (pendingSize == 0 && !rotate && !closed) {
+                    try {
+                        wait();
+                    }
+                    catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pendingSize == 0 && !rotate) return;
+                edges = pending;
+                size = pendingSize;
+                if (size > 0) pending = new int[Math.max(1024, size)];
+                pendingSize = 0;
+                rotating = rotate;
+                channel = log;
+            }
+            long written = 0;
+            FileChannel next = null;
+            IOException error = null;
+            try {
+                for (int from = 0; from < size; from += 2 * MAX_FRAME_EDGES)
+                    written += writeFrame(channel, edges, from, Math.min(size, from + 2 * MAX_FRAME_EDGES));
+                if (size > 0) channel.force(false);
+                if (rotating) {
+                    next = createLog(directory, generation + 1, G.V());
+                    channel.close();
+                }
+            }
+            catch (IOException e) {
+                error = e;
+            }
+            synchronized (this) {
+                if (error != null) {
+                    failure = error;
+                    if (compaction != null)
+                        compaction.completeExceptionally(new UncheckedIOException("could not compact " + directory, error));
+                    notifyAll();
+                    return;
+                }
+                durable += size / 2;
+                if (size > 0) commits++;
+                logBytes += written;
+                if (rotating) {
+                    rotate = false;
+                    log = next;
+                    generation++;
+                    logBytes = LOG_HEADER_BYTES;
+                    startFold(generation, compaction);
+                }
+                else if (logBytes > maxLogBytes && compaction == null && !closed) {
+                    compaction = new CompletableFuture<>();
+                    rotate = true;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    private static long writeFrame(FileChannel channel, int[] edges, int from, int to) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + 4 * (to - from));
+        frame.position(FRAME_HEADER_BYTES);
+        for (int i = from; i < to; i++)
+            frame.putInt(edges[i]);
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), FRAME_HEADER_BYTES, 4 * (to - from));
+        frame.putInt(0, (to - from) / 2);
+        frame.putInt(4, (int) crc.getValue());
+        frame.flip();
+        long n = frame.remaining();
+        while (frame.hasRemaining())
+            channel.write(frame);
+        return n;
+    }
+
+    /**
+     * Starts a compaction, unless one is running: a new log is started
+     * after the edges queued are written, and a new snapshot with every
+     * edge of the old snapshot and logs is written in the background,
+     * after which the old files are deleted. Edges can be added meanwhile.
+     *
+     * @return a future that completes when the new snapshot is in place
+     * @throws IllegalStateException if the store is closed
+     * @throws UncheckedIOException if the log could not be written
+     */
+    public synchronized CompletableFuture<Void> compact() {
+        checkOpen();
+        if (compaction == null) {
+            compaction = new CompletableFuture<>();
+            rotate = true;
+            notifyAll();
+        }
+        return compaction;
+    }
+
+    // folds the logs before generation g into a new snapshot, in a background thread
+    private void startFold(long g, CompletableFuture<Void> result) {
+        Thread thread = new Thread(() -> {
+            try {
+                fold(directory, g);
+                synchronized (this) {
+                    compaction = null;
+                }
+                result.complete(null);
+            }
+            catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    compaction = null;
+                }
+                result.completeExceptionally(e instanceof IOException
+                        ? new UncheckedIOException("could not compact " + directory, (IOException) e) : e);
+            }
+        }, "graph-store-compact");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // writes snapshot g from the older snapshot and logs, then deletes them
+    private static void fold(File directory, long g) throws IOException {
+        TreeMap<Long, File> snapshots = new TreeMap<>(files(directory, "snapshot-", ".bin").headMap(g, false));
+        long base = snapshots.lastKey();
+        Graph G = BinaryGraphFormat.read(snapshots.get(base));
+        TreeMap<Long, File> logs = new TreeMap<>(files(directory, "edges-", ".log").subMap(base, true, g, false));
+        for (File file : logs.values())
+            replay(file, G, false);
+        writeSnapshot(G, snapshotFile(directory, g));
+        for (File file : logs.values()) Files.delete(file.toPath());
+        for (File file : snapshots.values()) Files.delete(file.toPath());
+    }
+
+    /**
+     * Commits the edges queued, waits for a running compaction, and closes
+     * the log.
+     *
+     * @throws UncheckedIOException if the log could not be written, or the
+     *         running compaction failed
+     */
+    @Override
+    public void close() {
+        CompletableFuture<Void> running;
+        synchronized (this) {
+            if (closed) return;
+            if (failure == null) sync();
+            closed = true;
+            notifyAll();
+            running = compaction;
+        }
+        try {
+            committer.join();
+            if (running != null) running.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+        finally {
+            try {
+                synchronized (this) {
+                    log.close();
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("could not close the log of " + directory, e);
+            }
+        }
+    }
+
+    private static File snapshotFile(File directory, long g) {
+        return new File(directory, "snapshot-" + g + ".bin");
+    }
+
+    private static File logFile(File directory, long g) {
+        return new File(directory, "edges-" + g + ".log");
+    }
+
+    // the files prefix-g.suffix of the directory, by generation
+    private static TreeMap<Long, File> files(File directory, String prefix, String suffix) {
+        TreeMap<Long, File> files = new TreeMap<>();
+        File[] all = directory.listFiles();
+        if (all == null) return files;
+        for (File file : all) {
+            String name = file.getName();
+            if (!name.startsWith(prefix) || !name.endsWith(suffix)) continue;
+            try {
+                files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), file);
+            }
+            catch (NumberFormatException e) {
+                // not a file of the store
+            }
+        }
+        return files;
+    }
+
+    // writes a snapshot to a temporary file, forces it, and renames it into place
+    private static void writeSnapshot(Graph G, File file) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            GraphExporter.export(G, GraphExporter.Format.BINARY, channel, 1);
+            channel.force(true);
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(file.getParentFile());
+    }
+
+    private static FileChannel createLog(File directory, long g, int V) throws IOException {
+        FileChannel channel = FileChannel.open(logFile(directory, g).toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeLogHeader(channel, V);
+            forceDirectory(directory);
+        }
+        catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    // forces the entries of a directory to disk, so that a file just created
+    // or renamed in it is still there after a crash
+    private static void forceDirectory(File directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+        }
+        catch (IOException e) {
+            return;     // some platforms, such as Windows, cannot open a directory
+        }
+        try (FileChannel entries = channel) {
+            entries.force(true);
+        }
+    }
+
+    private static void writeLogHeader(FileChannel channel, int V) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES);
+        header.putInt(LOG_MAGIC).putInt(LOG_VERSION).putInt(V).putInt(0);
+        header.flip();
+        channel.truncate(0);
+        channel.position(0);
+        while (header.hasRemaining())
+            channel.write(header);
+        channel.force(true);
+    }
+
+    // adds the edges of a log to G, cutting off a torn last frame if the
+    // log is the last one; returns the size of the log
+    private static long replay(File file, Graph G, boolean last) throws IOException {
+        long valid = 0;
+        boolean torn = false;
+        boolean headerTorn = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            try {
+                if (in.readInt() != LOG_MAGIC) throw new IllegalArgumentException(file + " is not a graph log");
+                if (in.readInt() != LOG_VERSION) throw new IllegalArgumentException(file + " has an unsupported version");
+                if (in.readInt() != G.V()) throw new IllegalArgumentException(file + " is the log of another graph");
+                in.readInt();
+            }
+            catch (EOFException e) {
+                torn = headerTorn = true;       // crashed while creating it
+            }
+            valid = LOG_HEADER_BYTES;
+            byte[] payload = new byte[0];
+            CRC32 crc = new CRC32();
+            while (!torn) {
+                int count;
+                try {
+                    count = in.readInt();
+                }
+                catch (EOFException e) {
+                    break;
+                }
+                try {
+                    int checksum = in.readInt();
+                    if (count < 1 || count > MAX_FRAME_EDGES) {
+                        torn = true;
+                        break;
+                    }
+                    if (payload.length < 8 * count) payload = new byte[8 * count];
+                    in.readFully(payload, 0, 8 * count);
+                    crc.reset();
+                    crc.update(payload, 0, 8 * count);
+                    if ((int) crc.getValue() != checksum) {
+                        torn = true;
+                        break;
+                    }
+                }
+                catch (EOFException e) {
+                    torn = true;
+                    break;
+                }
+                ByteBuffer edges = ByteBuffer.wrap(payload, 0, 8 * count);
+                for (int i = 0; i < count; i++)
+                    G.addEdge(edges.getInt(), edges.getInt());
+                valid += FRAME_HEADER_BYTES + 8L * count;
+            }
+        }
+        if (torn) {
+            if (!last) throw new IllegalArgumentException(file + " is corrupt");
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                if (headerTorn) writeLogHeader(channel, G.V());
+                else {
+                    channel.truncate(valid);
+                    channel.force(true);
+                }
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Adds the edges of a graph file to a store, reopens it, compacts it,
+     * and reopens it again, reporting the size of the log replayed each time.
+     *
+     * @param args the command-line arguments: the store directory and the graph file
+     */
+    public static void main(String[] args) {
+        File directory = new File(args[0]);
+        Graph input = new Graph(new In(args[1]));
+        long start = System.nanoTime();
+        try (GraphStore store = open(directory, input.V())) {
+            for (int v = 0; v < input.V(); v++)
+                for (int w : input.adj(v))
+                    if (v < w) store.addEdge(v, w);
+            store.sync();
+            System.out.println("added " + store.graph().E() + " edges in " + store.commits() + " commits ("
+                    + (System.nanoTime() - start) / 1000000 + " ms)");
+        }
+        try (GraphStore store = open(directory, input.V())) {
+            System.out.println("reopened: " + store.graph().V() + " vertices, " + store.graph().E() + " edges, log of "
+                    + store.replayedBytes() + " bytes replayed in " + store.recoveryNanos() / 1000000 + " ms");
+            store.compact().join();
+        }
+        try (GraphStore store = open(directory, input.V())) {
+            System.out.println("compacted: " + store.graph().V() + " vertices, " + store.graph().E() + " edges, log of "
+                    + store.replayedBytes() + " bytes replayed in " + store.recoveryNanos() / 1000000 + " ms");
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.IntPath.java
+ *  Execution:    java graph.IntPath
+ *  Dependencies: graph.Graph.java graph.BreadthFirstPaths.java lib.FastOut.java
+ *                lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyCG.txt
+ *
+ *  A path in a graph stored as an array of primitive vertex ids.
+ *
+ *  % java graph.IntPath
+ *  0 to 0 (0):  0
+ *  0 to 1 (1):  0-1
+ *  0 to 2 (1):  0-2
+ *  0 to 3 (2):  0-2-3
+ *  0 to 4 (2):  0-2-4
+ *  0 to 5 (1):  0-5
+ *
+ ******************************************************************************/
+
+import lib.FastOut;
+import lib.In;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ *  The {@code graph.IntPath} class represents a path in a graph, from its
+ *  source to its last vertex, as an array of {@code int} vertex ids.
+ *  <p>
+ *  Unlike the {@code Stack<Integer>} returned by the {@code pathTo()}
+ *  methods, it holds no boxed integers and is not synchronized: it costs
+ *  one array per path, and iterating it with {@link #iterator()}'s
+ *  {@code nextInt()} costs nothing per vertex.
+ *  Callers that extract many paths can avoid even that array with the
+ *  {@code pathTo(v, buffer)} methods of the path classes, which write the
+ *  path into a reusable {@code int[]}.
+ *  <p>
+ *  {@link #length()} is the number of edges; a path has {@code length() + 1}
+ *  vertices, numbered 0 (the source) through {@code length()}.
+ */
+public final class IntPath implements Iterable<Integer> {
+    private final int[] vertices;   // vertices[0] is the source
+
+    // wraps vertices without copying; the caller gives up the array
+    IntPath(int[] vertices) {
+        if (vertices.length == 0) throw new IllegalArgumentException("a path has at least one vertex");
+        this.vertices = vertices;
+    }
+
+    /**
+     * Returns the number of edges on this path.
+     *
+     * @return the length of this path
+     */
+    public int length() {
+        return vertices.length - 1;
+    }
+
+    /**
+     * Returns vertex {@code i} of this path.
+     *
+     * @param i the position on the path, 0 for the source
+     * @return vertex {@code i} of this path
+     * @throws IllegalArgumentException unless {@code 0 <= i <= length()}
+     */
+    public int get(int i) {
+        if (i < 0 || i >= vertices.length)
+            throw new IllegalArgumentException("index " + i + " is not between 0 and " + length());
+        return vertices[i];
+    }
+
+    /**
+     * Returns the first vertex of this path.
+     *
+     * @return the source of this path
+     */
+    public int source() {
+        return vertices[0];
+    }
+
+    /**
+     * Returns the last vertex of this path.
+     *
+     * @return the last vertex of this path
+     */
+    public int target() {
+        return vertices[vertices.length - 1];
+    }
+
+    /**
+     * Returns the vertices of this path, from the source.
+     *
+     * @return a new array of the {@code length() + 1} vertices
+     */
+    public int[] toArray() {
+        return vertices.clone();
+    }
+
+    /**
+     * Returns an iterator over the vertices of this path, from the source,
+     * whose {@code nextInt()} method does not box.
+     *
+     * @return an iterator over the vertices of this path
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < vertices.length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return vertices[i++];
+            }
+        };
+    }
+
+    // the path from a root to v in a tree given by parent pointers: the walk
+    // ends at the first vertex x with isRoot, i.e. distTo[x] == 0
+    static IntPath of(int[] edgeTo, int[] distTo, int v) {
+        int[] vertices = new int[hops(edgeTo, distTo, v) + 1];
+        fill(edgeTo, distTo, v, vertices, vertices.length - 1);
+        return new IntPath(vertices);
+    }
+
+    // writes the path to v into buffer and returns its number of vertices
+    static int fill(int[] edgeTo, int[] distTo, int v, int[] buffer) {
+        int n = hops(edgeTo, distTo, v) + 1;
+        if (buffer.length < n)
+            throw new IllegalArgumentException("buffer of length " + buffer.length + " cannot hold " + n + " vertices");
+        fill(edgeTo, distTo, v, buffer, n - 1);
+        return n;
+    }
+
+    private static int hops(int[] edgeTo, int[] distTo, int v) {
+        int n = 0;
+        for (int x = v; distTo[x] != 0; x = edgeTo[x])
+            n++;
+        return n;
+    }
+
+    private static void fill(int[] edgeTo, int[] distTo, int v, int[] buffer, int last) {
+        int i = last;
+        int x;
+        for (x = v; distTo[x] != 0; x = edgeTo[x])
+            buffer[i--] = x;
+        buffer[i] = x;
+    }
+
+    /**
+     * Returns a string representation of this path.
+     *
+     * @return the vertices of this path, separated by hyphens
+     */
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < vertices.length; i++) {
+            if (i > 0) s.append('-');
+            s.append(vertices[i]);
+        }
+        return s.toString();
+    }
+
+    /**
+     * Prints this path, in the format of {@link #toString()}, without
+     * building it as a string first.
+     *
+     * @param out the output to print to; it is not flushed
+     * @throws IllegalArgumentException if {@code out} is {@code null}
+     */
+    public void print(FastOut out) {
+        if (out == null) throw new IllegalArgumentException("output is null");
+        out.print(vertices[0]);
+        for (int i = 1; i < vertices.length; i++) {
+            out.print('-');
+            out.print(vertices[i]);
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) return true;
+        if (!(other instanceof IntPath)) return false;
+        return Arrays.equals(vertices, ((IntPath) other).vertices);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(vertices);
+    }
+
+    /**
+     * Unit tests the {@code graph.IntPath} data type.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        In in = new In("tinyCG.txt");
+        Graph G = new Graph(in);
+        int s = 0;
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(s));
+        for (int v = 0; v < G.V(); v++) {
+            IntPath path = bfs.path(v);
+            System.out.println(s + " to " + v + " (" + path.length() + "):  " + path);
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.LandmarkDistanceOracle.java
+ *  Execution:    java graph.LandmarkDistanceOracle
+ *  Dependencies: graph.Graph.java lib.In.java lib.StdRandom.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/mediumG.txt
+ *
+ *  Approximate hop distances from breadth-first searches rooted at a few
+ *  landmark vertices, with an optional exact mode that runs a
+ *  bidirectional BFS pruned by the landmark bounds.
+ *
+ *  % java graph.LandmarkDistanceOracle
+ *  k =  4  index =   1000 bytes  estimate = ... us/query  exact = ... us/query
+ *  k = 16  index =   4000 bytes  estimate = ... us/query  exact = ... us/query
+ *  k = 64  index =  16000 bytes  estimate = ... us/query  exact = ... us/query
+ *
+ ******************************************************************************/
+
+import lib.In;
+import lib.StdRandom;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ *  The {@code graph.LandmarkDistanceOracle} class represents an index for
+ *  estimating the number of edges on a shortest path between two vertices
+ *  of an undirected graph without searching the graph.
+ *  <p>
+ *  The index stores, for each of <em>k</em> landmark vertices, the distance
+ *  from the landmark to every vertex, vertex-major and in the narrowest of
+ *  {@code byte}, {@code char} or {@code int} that holds the largest distance.
+ *  By the triangle inequality, for every landmark <em>l</em>,
+ *  |d(s, l) – d(l, t)| ≤ d(s, t) ≤ d(s, l) + d(l, t),
+ *  so {@link #lowerBound(int, int)} and {@link #upperBound(int, int)} take
+ *  time proportional to <em>k</em>.
+ *  {@link #distance(int, int)} returns the exact distance: it stops as soon
+ *  as the bounds meet, and otherwise runs a bidirectional breadth-first
+ *  search that gives up on any meeting point that cannot beat the best
+ *  path found so far (starting with the landmark upper bound).
+ *  <p>
+ *  Building the index takes time proportional to <em>k</em> (<em>V</em> + <em>E</em>)
+ *  and space proportional to <em>k V</em>.
+ */
+public class LandmarkDistanceOracle {
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    // the most elements in one array
+    private static final long MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    /**
+     * The ways of choosing landmarks supported by {@code LandmarkDistanceOracle}.
+     */
+    public enum Selection {
+        /** the k vertices of highest degree */
+        DEGREE,
+        /** k distinct vertices chosen uniformly at random */
+        RANDOM
+    }
+
+    private final Graph G;
+    private final int k;
+    private final int[] landmarks;
+    private final byte[] distByte;   // exactly one of the three is non-null; dist[v*k + i] = d(v, landmark i)
+    private final char[] distChar;   // with the maximum value of the type meaning unreachable
+    private final int[] distInt;
+
+    /**
+     * Builds an oracle for graph {@code G} using {@code k} landmarks.
+     *
+     * @param G the graph
+     * @param k the number of landmarks
+     * @param selection how to choose the landmarks
+     * @throws IllegalArgumentException unless {@code 1 <= k <= V}
+     * @throws IllegalArgumentException if the <em>k V</em> distances do not fit in one array
+     * @throws IllegalArgumentException if {@code selection} is {@code null}
+     */
+    public LandmarkDistanceOracle(Graph G, int k, Selection selection) {
+        this(G, k, selection, null);
+    }
+
+    /**
+     * Builds an oracle for graph {@code G} using {@code k} landmarks, polling
+     * {@code token} once every {@link CancellationToken#CHECK_INTERVAL}
+     * vertices that each of the <em>k</em> searches from the landmarks processes.
+     *
+     * @param G the graph
+     * @param k the number of landmarks
+     * @param selection how to choose the landmarks
+     * @param token the cancellation token, or {@code null} for a build that
+     *        cannot be cancelled
+     * @throws IllegalArgumentException unless {@code 1 <= k <= V}
+     * @throws IllegalArgumentException if the <em>k V</em> distances do not fit in one array
+     * @throws IllegalArgumentException if {@code selection} is {@code null}
+     * @throws CancellationException if {@code token} is cancelled before the build ends
+     */
+    public LandmarkDistanceOracle(Graph G, int k, Selection selection, CancellationToken token) {
+        if (k < 1 || k > G.V())
+            throw new IllegalArgumentException("number of landmarks must be between 1 and " + G.V());
+        if ((long) k * G.V() > MAX_ARRAY_LENGTH)
+            throw new IllegalArgumentException("too many landmarks for " + G.V() + " vertices: " + k);
+        if (selection == null) throw new IllegalArgumentException("selection is null");
+        this.G = G;
+        this.k = k;
+        this.landmarks = selection == Selection.DEGREE ? highestDegree(G, k) : random(G.V(), k);
+
+        int V = G.V();
+        int[][] dist = new int[k][];
+        int max = 0;
+        for (int i = 0; i < k; i++) {
+            dist[i] = bfs(G, landmarks[i], token);
+            for (int d : dist[i])
+                if (d != INFINITY) max = Math.max(max, d);
+        }
+
+        if (max < 0xff) {
+            distByte = new byte[k * V];
+            for (int v = 0; v < V; v++)
+                for (int i = 0; i < k; i++)
+                    distByte[v * k + i] = (byte) (dist[i][v] == INFINITY ? 0xff : dist[i][v]);
+            distChar = null;
+            distInt = null;
+        }
+        else if (max < 0xffff) {
+            distByte = null;
+            distChar = new char[k * V];
+            for (int v = 0; v < V; v++)
+                for (int i = 0; i < k; i++)
+                    distChar[v * k + i] = (char) (dist[i][v] == INFINITY ? 0xffff : dist[i][v]);
+            distInt = null;
+        }
+        else {
+            distByte = null;
+            distChar = null;
+            distInt = new int[k * V];
+            for (int v = 0; v < V; v++)
+                for (int i = 0; i < k; i++)
+                    distInt[v * k + i] = dist[i][v];
+        }
+    }
+
+    private static int[] highestDegree(Graph G, int k) {
+        Integer[] vertices = new Integer[G.V()];
+        for (int v = 0; v < G.V(); v++)
+            vertices[v] = v;
+        Arrays.sort(vertices, (a, b) -> {
+            if (G.degree(a) != G.degree(b)) return Integer.compare(G.degree(b), G.degree(a));
+            return Integer.compare(a, b);
+        });
+        int[] result = new int[k];
+        for (int i = 0; i < k; i++)
+            result[i] = vertices[i];
+        return result;
+    }
+
+    private static int[] random(int V, int k) {
+        int[] vertices = new int[V];
+        for (int v = 0; v < V; v++)
+            vertices[v] = v;
+        StdRandom.shuffle(vertices);
+        return Arrays.copyOf(vertices, k);
+    }
+
+    private static int[] bfs(Graph G, int s, CancellationToken token) {
+        int check = token == null ? INFINITY : 1;
+        int[] dist = new int[G.V()];
+        Arrays.fill(dist, INFINITY);
+        int[] queue = new int[G.V()];
+        int head = 0;
+        int tail = 0;
+        dist[s] = 0;
+        queue[tail++] = s;
+        while (head < tail) {
+            int v = queue[head++];
+            if (--check == 0) {
+                if (token.isCancelled())
+                    throw new CancellationException("landmark search from " + s + " was cancelled");
+                check = CancellationToken.CHECK_INTERVAL;
+            }
+            for (int w : G.adj(v)) {
+                if (dist[w] == INFINITY) {
+                    dist[w] = dist[v] + 1;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return dist;
+    }
+
+    // d(v, landmark i), or INFINITY
+    private int landmarkDist(int v, int i) {
+        int j = v * k + i;
+        if (distByte != null) {
+            int d = distByte[j] & 0xff;
+            return d == 0xff ? INFINITY : d;
+        }
+        if (distChar != null) {
+            int d = distChar[j];
+            return d == 0xffff ? INFINITY : d;
+        }
+        return distInt[j];
+    }
+
+    /**
+     * Returns the landmark vertices.
+     *
+     * @return the landmarks
+     */
+    public int[] landmarks() {
+        return landmarks.clone();
+    }
+
+    /**
+     * Returns an upper bound on the distance between {@code s} and {@code t}.
+     *
+     * @param s one vertex
+     * @param t the other vertex
+     * @return an upper bound on the number of edges on a shortest s-t path,
+     *         or {@code Integer.MAX_VALUE} if no landmark reaches both
+     * @throws IllegalArgumentException unless {@code 0 <= s < V} and {@code 0 <= t < V}
+     */
+    public int upperBound(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        if (s == t) return 0;
+        int best = INFINITY;
+        for (int i = 0; i < k; i++) {
+            int ds = landmarkDist(s, i);
+            int dt = landmarkDist(t, i);
+            if (ds != INFINITY && dt != INFINITY) best = Math.min(best, ds + dt);
+        }
+        return best;
+    }
+
+    /**
+     * Returns a lower bound on the distance between {@code s} and {@code t}.
+     *
+     * @param s one vertex
+     * @param t the other vertex
+     * @return a lower bound on the number of edges on a shortest s-t path,
+     *         or {@code Integer.MAX_VALUE} if some landmark reaches exactly
+     *         one of them, in which case there is no such path
+     * @throws IllegalArgumentException unless {@code 0 <= s < V} and {@code 0 <= t < V}
+     */
+    public int lowerBound(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        int best = 0;
+        for (int i = 0; i < k; i++) {
+            int ds = landmarkDist(s, i);
+            int dt = landmarkDist(t, i);
+            if ((ds == INFINITY) != (dt == INFINITY)) return INFINITY;
+            if (ds != INFINITY) best = Math.max(best, Math.abs(ds - dt));
+        }
+        return best;
+    }
+
+    /**
+     * Returns the exact distance between {@code s} and {@code t}.
+     *
+     * @param s one vertex
+     * @param t the other vertex
+     * @return the number of edges on a shortest s-t path, or
+     *         {@code Integer.MAX_VALUE} if there is none
+     * @throws IllegalArgumentException unless {@code 0 <= s < V} and {@code 0 <= t < V}
+     */
+    public int distance(int s, int t) {
+        int lower = lowerBound(s, t);
+        if (lower == INFINITY) return INFINITY;
+        int best = upperBound(s, t);
+        if (lower == best) return best;
+
+        IntIntMap fromS = new IntIntMap();
+        IntIntMap fromT = new IntIntMap();
+        int[] frontierS = { s };
+        int[] frontierT = { t };
+        int sizeS = 1;
+        int sizeT = 1;
+        fromS.put(s, 0);
+        fromT.put(t, 0);
+        int depthS = 0;
+        int depthT = 0;
+
+        // a path not yet found has length at least depthS + depthT + 1
+        while (sizeS > 0 && sizeT > 0 && depthS + depthT + 1 < best) {
+            boolean forward = sizeS <= sizeT;
+            int[] frontier = forward ? frontierS : frontierT;
+            int size = forward ? sizeS : sizeT;
+            IntIntMap mine = forward ? fromS : fromT;
+            IntIntMap other = forward ? fromT : fromS;
+            int depth = forward ? depthS : depthT;
+
+            int[] next = new int[Math.max(size, 4)];
+            int nextSize = 0;
+            for (int f = 0; f < size; f++) {
+                for (int w : G.adj(frontier[f])) {
+                    int d = other.get(w);
+                    if (d != -1) best = Math.min(best, depth + 1 + d);
+                    if (mine.get(w) == -1) {
+                        mine.put(w, depth + 1);
+                        if (nextSize == next.length) next = Arrays.copyOf(next, 2 * nextSize);
+                        next[nextSize++] = w;
+                    }
+                }
+            }
+            if (forward) {
+                frontierS = next;
+                sizeS = nextSize;
+                depthS++;
+            }
+            else {
+                frontierT = next;
+                sizeT = nextSize;
+                depthT++;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the number of bytes used by the distance arrays of the index.
+     *
+     * @return the size of the index in bytes
+     */
+    public long sizeInBytes() {
+        if (distByte != null) return distByte.length;
+        if (distChar != null) return 2L * distChar.length;
+        return 4L * distInt.length;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        int V = G.V();
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    // open-addressing map from vertex to distance, sized to the part of the
+    // graph a query explores rather than to V
+    private static final class IntIntMap {
+        private int[] keys = new int[16];
+        private int[] values = new int[16];
+        private int n;
+
+        IntIntMap() {
+            Arrays.fill(keys, -1);
+        }
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; keys[i] != -1; i = (i + 1) & mask)
+                if (keys[i] == key) return values[i];
+            return -1;
+        }
+
+        void put(int key, int value) {
+            if (2 * (n + 1) > keys.length) resize();
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != -1 && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] == -1) n++;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[2 * oldKeys.length];
+            values = new int[2 * oldKeys.length];
+            Arrays.fill(keys, -1);
+            n = 0;
+            for (int i = 0; i < oldKeys.length; i++)
+                if (oldKeys[i] != -1) put(oldKeys[i], oldValues[i]);
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Unit tests the {@code graph.LandmarkDistanceOracle} data type: reports
+     * the index size and the latency of estimated and exact queries on
+     * {@code mediumG.txt} for several numbers of landmarks.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        In in = new In("mediumG.txt");
+        Graph G = new Graph(in);
+        int queries = 100000;
+        int[] sources = new int[queries];
+        int[] targets = new int[queries];
+        StdRandom.setSeed(0);
+        for (int q = 0; q < queries; q++) {
+            sources[q] = StdRandom.uniform(G.V());
+            targets[q] = StdRandom.uniform(G.V());
+        }
+
+        for (int k : new int[] { 4, 16, 64 }) {
+            LandmarkDistanceOracle oracle = new LandmarkDistanceOracle(G, k, Selection.DEGREE);
+            long checksum = 0;
+            long start = System.nanoTime();
+            for (int q = 0; q < queries; q++)
+                checksum += oracle.upperBound(sources[q], targets[q]);
+            double estimate = (System.nanoTime() - start) / 1e3 / queries;
+            start = System.nanoTime();
+            for (int q = 0; q < queries; q++)
+                checksum += oracle.distance(sources[q], targets[q]);
+            double exact = (System.nanoTime() - start) / 1e3 / queries;
+            System.out.printf("k = %2d  index = %6d bytes  estimate = %6.3f us/query  exact = %6.3f us/query  (%d)%n",
+                    k, oracle.sizeInBytes(), estimate, exact, checksum);
+        }
+    }
+}
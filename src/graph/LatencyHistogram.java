@@ -0,0 +1,168 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.LatencyHistogram.java
+ *  Execution:    java graph.LatencyHistogram
+ *  Dependencies: lib.StdRandom.java
+ *
+ *  A fixed-size, thread-safe histogram of latencies with logarithmic
+ *  buckets, for percentiles of query times.
+ *
+ *  % java graph.LatencyHistogram
+ *  count = 100000  mean = 1002.1 us  p50 = 786 us  p99 = 5242 us  max = 12000 us
+ *
+ ******************************************************************************/
+
+import lib.StdRandom;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *  The {@code graph.LatencyHistogram} class counts latencies, in nanoseconds,
+ *  in buckets whose width grows with the value: each power of two is split
+ *  into {@link #SUB_BUCKETS} buckets, so that any recorded value is known
+ *  to within 25%, whatever its magnitude.
+ *  <p>
+ *  Recording is a few integer operations and an atomic increment, so the
+ *  histogram can be shared by many threads. It takes constant space.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of buckets per power of two.
+     */
+    public static final int SUB_BUCKETS = 4;
+
+    private static final int SUB_BITS = 2;
+    private static final int BUCKETS = SUB_BUCKETS * 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Initializes an empty histogram.
+     */
+    public LatencyHistogram() { }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency, in nanoseconds
+     * @throws IllegalArgumentException if {@code nanos < 0}
+     */
+    public void record(long nanos) {
+        if (nanos < 0) throw new IllegalArgumentException("latency must be nonnegative");
+        counts.incrementAndGet(bucket(nanos));
+        total.incrementAndGet();
+        sum.addAndGet(nanos);
+        long m = max.get();
+        while (nanos > m && !max.compareAndSet(m, nanos))
+            m = max.get();
+    }
+
+    // bucket of value: exact below SUB_BUCKETS, then SUB_BUCKETS per power of two
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int e = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (e - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS * (e - SUB_BITS + 1) + sub;
+    }
+
+    // largest value that falls in bucket b
+    private static long upperBound(int b) {
+        if (b < SUB_BUCKETS) return b;
+        int e = b / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = b % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << (e - SUB_BITS);
+        return lower + (1L << (e - SUB_BITS)) - 1;
+    }
+
+    /**
+     * Returns the number of latencies recorded.
+     *
+     * @return the number of latencies recorded
+     */
+    public long count() {
+        return total.get();
+    }
+
+    /**
+     * Returns the mean of the recorded latencies.
+     *
+     * @return the mean latency in nanoseconds, or {@code Double.NaN} if none
+     */
+    public double mean() {
+        long n = total.get();
+        return n == 0 ? Double.NaN : (double) sum.get() / n;
+    }
+
+    /**
+     * Returns the largest recorded latency.
+     *
+     * @return the largest latency in nanoseconds, or 0 if none
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns an upper bound on the given percentile of the recorded latencies,
+     * within the width of one bucket.
+     *
+     * @param p the percentile, between 0 and 100
+     * @return the percentile in nanoseconds, or 0 if no latency was recorded
+     * @throws IllegalArgumentException unless {@code 0 <= p <= 100}
+     */
+    public long percentile(double p) {
+        if (!(p >= 0 && p <= 100)) throw new IllegalArgumentException("percentile must be between 0 and 100");
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p / 100 * n));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) return Math.min(upperBound(b), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Discards every recorded latency.
+     */
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b++)
+            counts.set(b, 0);
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Returns a one-line summary of this histogram in microseconds.
+     *
+     * @return the count, mean, median, 99th percentile and maximum
+     */
+    @Override
+    public String toString() {
+        long us = TimeUnit.MICROSECONDS.toNanos(1);
+        return String.format("count = %d  mean = %.1f us  p50 = %d us  p99 = %d us  max = %d us",
+                count(), mean() / us, percentile(50) / us, percentile(99) / us, max() / us);
+    }
+
+    /**
+     * Unit tests the {@code graph.LatencyHistogram} data type with
+     * exponentially distributed latencies of mean 1 ms.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        StdRandom.setSeed(0);
+        for (int i = 0; i < 100000; i++)
+            histogram.record((long) StdRandom.exp(1e-6));
+        System.out.println(histogram);
+    }
+}
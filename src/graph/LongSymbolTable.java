@@ -0,0 +1,168 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.LongSymbolTable.java
+ *  Execution:    java graph.LongSymbolTable
+ *  Dependencies: lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyG.txt
+ *
+ *  Interns 64-bit keys as dense integer ids, in an open-addressing table
+ *  of primitive arrays.
+ *
+ *  % java graph.LongSymbolTable
+ *  28 keys, 14 distinct
+ *  0 -> 13  1 -> 0  2 -> 5  3 -> 4  4 -> 3
+ *
+ ******************************************************************************/
+
+import lib.In;
+
+import java.util.Arrays;
+
+/**
+ *  The {@code graph.LongSymbolTable} class interns 64-bit keys as dense
+ *  integer ids 0, 1, 2, ... in order of first appearance.
+ *  <p>
+ *  This implementation uses linear-probing open addressing over parallel
+ *  primitive arrays, so no key is ever boxed.
+ *  {@link #intern(long)} and {@link #indexOf(long)} take constant expected
+ *  time; {@link #keyOf(int)} takes constant time.
+ *  The table is resized to keep it at most half full.
+ */
+public class LongSymbolTable {
+    private static final int EMPTY = -1;
+
+    private int[] slots;     // slots[i] = id stored in probe slot i, or EMPTY
+    private long[] keys;     // keys[id] = key with that id
+    private int n;           // number of keys
+
+    /**
+     * Initializes an empty symbol table.
+     */
+    public LongSymbolTable() {
+        this(16);
+    }
+
+    /**
+     * Initializes an empty symbol table with room for {@code capacity} keys
+     * before resizing.
+     *
+     * @param capacity the expected number of keys
+     * @throws IllegalArgumentException if {@code capacity < 0}
+     */
+    public LongSymbolTable(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity must be nonnegative");
+        int m = 4;
+        while (m < 2L * capacity) m <<= 1;
+        slots = new int[m];
+        Arrays.fill(slots, EMPTY);
+        keys = new long[Math.max(capacity, 4)];
+    }
+
+    /**
+     * Returns the number of keys in this table.
+     *
+     * @return the number of keys in this table
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns the id of {@code key}, assigning the next unused id if the key
+     * has not been seen before.
+     *
+     * @param key the key
+     * @return the id of {@code key}
+     */
+    public int intern(long key) {
+        int mask = slots.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            int id = slots[i];
+            if (id == EMPTY) {
+                if (n == keys.length) keys = Arrays.copyOf(keys, 2 * n);
+                keys[n] = key;
+                slots[i] = n;
+                n++;
+                if (2 * n > slots.length) rehash(2 * slots.length);
+                return n - 1;
+            }
+            if (keys[id] == key) return id;
+        }
+    }
+
+    /**
+     * Returns the id of {@code key}.
+     *
+     * @param key the key
+     * @return the id of {@code key}, or -1 if it is not in this table
+     */
+    public int indexOf(long key) {
+        int mask = slots.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            int id = slots[i];
+            if (id == EMPTY) return -1;
+            if (keys[id] == key) return id;
+        }
+    }
+
+    /**
+     * Does this table contain {@code key}?
+     *
+     * @param key the key
+     * @return {@code true} if this table contains {@code key}, and {@code false} otherwise
+     */
+    public boolean contains(long key) {
+        return indexOf(key) != -1;
+    }
+
+    /**
+     * Returns the key with id {@code id}.
+     *
+     * @param id the id
+     * @return the key with that id
+     * @throws IllegalArgumentException unless {@code 0 <= id < size()}
+     */
+    public long keyOf(int id) {
+        if (id < 0 || id >= n)
+            throw new IllegalArgumentException("id " + id + " is not between 0 and " + (n-1));
+        return keys[id];
+    }
+
+    private void rehash(int m) {
+        slots = new int[m];
+        Arrays.fill(slots, EMPTY);
+        int mask = m - 1;
+        for (int id = 0; id < n; id++) {
+            int i = hash(keys[id]) & mask;
+            while (slots[i] != EMPTY) i = (i + 1) & mask;
+            slots[i] = id;
+        }
+    }
+
+    // spread the bits of the key (murmur3 finalizer)
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * Unit tests the {@code graph.LongSymbolTable} data type with the
+     * numbers in {@code tinyG.txt}.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        long[] keys = new In("tinyG.txt").readAllLongs();
+        LongSymbolTable st = new LongSymbolTable();
+        for (long key : keys)
+            st.intern(key);
+        System.out.println(keys.length + " keys, " + st.size() + " distinct");
+        for (int id = 0; id < 5; id++)
+            System.out.print((id > 0 ? "  " : "") + id + " -> " + st.keyOf(id));
+        System.out.println();
+    }
+}
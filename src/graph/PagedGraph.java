@@ -0,0 +1,576 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.PagedGraph.java
+ *  Execution:    java graph.PagedGraph graph.bin cache-kb [searches] [depth]
+ *  Dependencies: graph.BinaryGraphFormat.java graph.LongSymbolTable.java
+ *
+ *  A read-only graph over a file in binary format, whose blocks are read
+ *  on demand into a cache of bounded size with clock eviction.
+ *
+ *  % java graph.BinaryGraphFormat random-200000-2000000.txt random.bin
+ *  200000 vertices, 2000000 edges written to random.bin (17599056 bytes)
+ *  % java graph.PagedGraph random.bin 1024 1000 2
+ *  1000 searches to depth 2 in 2010 ms: 415 vertices on average
+ *  cache 1048576 of 17599056 bytes: 67% hits, 33306 misses, 32302 prefetched, 65486 evictions
+ *
+ ******************************************************************************/
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  The {@code graph.PagedGraph} class represents a read-only undirected
+ *  graph stored in a file in {@link BinaryGraphFormat}, of which only the
+ *  blocks that queries touch are held in memory, so that a query that
+ *  visits a small part of a graph can run on a graph much larger than the
+ *  heap.
+ *  <p>
+ *  The file is read in blocks of {@code blockBytes} bytes into a cache of
+ *  at most {@code cacheBytes / blockBytes} blocks. When the cache is full,
+ *  a block is evicted with the clock algorithm: a hand sweeps the cached
+ *  blocks, clearing the reference bit of each block used since the hand
+ *  last passed, and evicts the first block whose bit is already clear.
+ *  Blocks are read outside the lock of the cache, with positional reads on
+ *  a {@link FileChannel}, so that several threads can wait for the disk at
+ *  the same time. An evicted block is dropped rather than overwritten, so
+ *  a reader copying from it is not affected. Since a {@code FileChannel}
+ *  is closed when a thread reading from it is interrupted, the channel is
+ *  then reopened and the read retried, so that interrupting one query, or
+ *  the prefetcher, does not break the others.
+ *  <p>
+ *  {@link #prefetch(int[], int, int)} reads the blocks of the adjacency
+ *  lists of some vertices in a background thread.
+ *  {@link #search(int, int)}, a breadth-first search bounded in depth,
+ *  prefetches the adjacency lists of each level as soon as its vertices
+ *  are discovered, while the level before is still being expanded.
+ *  <p>
+ *  This class is safe for use by multiple threads.
+ */
+public final class PagedGraph implements Closeable {
+
+    /**
+     * The block size used unless another is given, in bytes.
+     */
+    public static final int DEFAULT_BLOCK_BYTES = 1 << 16;
+
+    // the number of vertices discovered by a search before their blocks are prefetched
+    private static final int PREFETCH_BATCH = 256;
+
+    private final File file;
+    private volatile FileChannel channel;    // replaced when an interrupt closes it
+    private volatile boolean closed;
+    private final int V;
+    private final int E;
+    private final long targetsStart;     // file position of the neighbours of vertex 0
+    private final int blockBytes;
+    private final int blockShift;
+    private final ExecutorService prefetcher;
+
+    // the cache, guarded by this
+    private final int[] frameOf;         // frameOf[block] = frame holding it, or -1
+    private final int[] blockOf;         // blockOf[frame] = block it holds, or -1
+    private final ByteBuffer[] data;
+    private final boolean[] referenced;
+    private int used;                    // frames holding a block
+    private int hand;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong prefetched = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Opens the graph of {@code file} with a cache of {@code cacheBytes}
+     * bytes of blocks of {@link #DEFAULT_BLOCK_BYTES} bytes.
+     *
+     * @param  file the file, in binary format
+     * @param  cacheBytes the memory budget of the cache, in bytes
+     * @throws IllegalArgumentException if {@code file} is {@code null} or not a
+     *         binary graph file, or the budget holds fewer than two blocks
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public PagedGraph(File file, long cacheBytes) {
+        this(file, cacheBytes, DEFAULT_BLOCK_BYTES);
+    }
+
+    /**
+     * Opens the graph of {@code file} with a cache of {@code cacheBytes}
+     * bytes of blocks of {@code blockBytes} bytes.
+     *
+     * @param  file the file, in binary format
+     * @param  cacheBytes the memory budget of the cache, in bytes
+     * @param  blockBytes the size of a block, a power of two of at least 256 bytes
+     * @throws IllegalArgumentException if {@code file} is {@code null} or not a
+     *         binary graph file, {@code blockBytes} is not a power of two of at
+     *         least 256, or the budget holds fewer than two blocks
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public PagedGraph(File file, long cacheBytes, int blockBytes) {
+        if (file == null) throw new IllegalArgumentException("file is null");
+        if (blockBytes < 256 || Integer.bitCount(blockBytes) != 1)
+            throw new IllegalArgumentException("block size must be a power of two of at least 256 bytes");
+        if (cacheBytes / blockBytes < 2)
+            throw new IllegalArgumentException("cache must hold at least two blocks");
+        this.file = file;
+        this.blockBytes = blockBytes;
+        this.blockShift = Integer.numberOfTrailingZeros(blockBytes);
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not open " + file, e);
+        }
+        try {
+            long size = channel.size();
+            if (size < BinaryGraphFormat.HEADER_BYTES)
+                throw new IllegalArgumentException(file + " is not a binary graph file");
+            ByteBuffer header = ByteBuffer.allocate(BinaryGraphFormat.HEADER_BYTES);
+            read(header, 0);
+            this.V = BinaryGraphFormat.checkHeader(header, file);
+            this.E = header.getInt(12);
+            long entries = header.getLong(16);
+            this.targetsStart = BinaryGraphFormat.HEADER_BYTES + 8L * (V + 1);
+            if (entries < 0 || targetsStart + 4 * entries > size)
+                throw new IllegalArgumentException(file + " is truncated");
+            long blocks = (size + blockBytes - 1) >>> blockShift;
+            if (blocks > Integer.MAX_VALUE - 8)
+                throw new IllegalArgumentException("blocks of " + blockBytes + " bytes are too small for " + file);
+            this.frameOf = new int[(int) blocks];
+            Arrays.fill(frameOf, -1);
+        }
+        catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            }
+            catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            if (e instanceof RuntimeException) throw (RuntimeException) e;
+            throw new UncheckedIOException("could not read " + file, (IOException) e);
+        }
+        int frames = (int) Math.min(cacheBytes / blockBytes, frameOf.length);
+        this.blockOf = new int[frames];
+        Arrays.fill(blockOf, -1);
+        this.data = new ByteBuffer[frames];
+        this.referenced = new boolean[frames];
+        this.prefetcher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "graph-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the number of vertices in this graph.
+     *
+     * @return the number of vertices in this graph
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges in this graph.
+     *
+     * @return the number of edges in this graph
+     */
+    public int E() {
+        return E;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    // the block of the file at position, from the cache or the disk
+    private ByteBuffer block(long position, boolean prefetch) {
+        int b = (int) (position >>> blockShift);
+        synchronized (this) {
+            int frame = frameOf[b];
+            if (frame >= 0) {
+                referenced[frame] = true;
+                if (!prefetch) hits.incrementAndGet();
+                return data[frame];
+            }
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(blockBytes);
+        try {
+            read(bytes, (long) b << blockShift);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not read " + file, e);
+        }
+        bytes.flip();
+        (prefetch ? prefetched : misses).incrementAndGet();
+        synchronized (this) {
+            int frame = frameOf[b];
+            if (frame >= 0) return data[frame];     // read by another thread meanwhile
+            if (used < data.length) frame = used++;
+            else {
+                while (referenced[hand]) {
+                    referenced[hand] = false;
+                    hand = (hand + 1) % data.length;
+                }
+                frame = hand;
+                hand = (hand + 1) % data.length;
+                frameOf[blockOf[frame]] = -1;
+                evictions.incrementAndGet();
+            }
+            blockOf[frame] = b;
+            frameOf[b] = frame;
+            data[frame] = bytes;
+            referenced[frame] = true;
+            return bytes;
+        }
+    }
+
+    // fills bytes from the file at start, up to the end of the file; if the
+    // channel was closed by an interrupt, of this thread or another one, reopens
+    // it and goes on, keeping the interrupt status of this thread for its caller
+    private void read(ByteBuffer bytes, long start) throws IOException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                FileChannel current = channel;
+                try {
+                    while (bytes.hasRemaining() && current.read(bytes, start + bytes.position()) > 0) { }
+                    return;
+                }
+                catch (ClosedChannelException e) {
+                    if (closed) throw e;
+                    if (Thread.interrupted()) interrupted = true;
+                    reopen(current);
+                }
+            }
+        }
+        finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void reopen(FileChannel current) throws IOException {
+        if (closed) throw new ClosedChannelException();
+        if (channel == current) channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    private long readLong(long position, boolean prefetch) {
+        return block(position, prefetch).getLong((int) (position & (blockBytes - 1)));
+    }
+
+    // the positions of the first and after the last neighbour of v
+    private long start(int v, boolean prefetch) {
+        return targetsStart + 4 * readLong(BinaryGraphFormat.HEADER_BYTES + 8L * v, prefetch);
+    }
+
+    /**
+     * Returns the degree of vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return the degree of vertex {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public int degree(int v) {
+        validateVertex(v);
+        return (int) ((start(v + 1, false) - start(v, false)) / 4);
+    }
+
+    /**
+     * Copies the vertices adjacent to vertex {@code v} into {@code buffer},
+     * reading their blocks if they are not cached.
+     *
+     * @param  v the vertex
+     * @param  buffer the array to fill; must have room for {@code degree(v)} entries
+     * @return the number of vertices written, that is, the degree of {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     * @throws IllegalArgumentException if {@code buffer} is too small
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public int adj(int v, int[] buffer) {
+        validateVertex(v);
+        long from = start(v, false);
+        long to = start(v + 1, false);
+        int degree = (int) ((to - from) / 4);
+        if (buffer == null || buffer.length < degree)
+            throw new IllegalArgumentException("buffer must have room for " + degree + " vertices");
+        int n = 0;
+        for (long position = from; position < to; ) {
+            ByteBuffer block = block(position, false);
+            int offset = (int) (position & (blockBytes - 1));
+            int count = (int) Math.min((to - position) / 4, (blockBytes - offset) / 4);
+            for (int i = 0; i < count; i++)
+                buffer[n + i] = block.getInt(offset + 4 * i);
+            n += count;
+            position += 4L * count;
+        }
+        return degree;
+    }
+
+    /**
+     * Returns the vertices adjacent to vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return the vertices adjacent to vertex {@code v}, as an iterable
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public Iterable<Integer> adj(int v) {
+        int[] neighbours = new int[degree(v)];
+        adj(v, neighbours);
+        return () -> new Iterator<Integer>() {
+            private int i;
+
+            public boolean hasNext() {
+                return i < neighbours.length;
+            }
+
+            public Integer next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return neighbours[i++];
+            }
+        };
+    }
+
+    /**
+     * Starts reading, in a background thread, the blocks that hold the
+     * adjacency lists of {@code vertices[from]} to {@code vertices[to-1]}.
+     * Blocks already cached are not read again.
+     *
+     * @param  vertices the vertices
+     * @param  from the index of the first vertex
+     * @param  to the index after the last vertex
+     * @throws IllegalArgumentException unless each vertex is between 0 and <em>V</em> – 1
+     * @throws IndexOutOfBoundsException unless {@code 0 <= from <= to <= vertices.length}
+     */
+    public void prefetch(int[] vertices, int from, int to) {
+        if (from < 0 || from > to || to > vertices.length) throw new IndexOutOfBoundsException();
+        int[] batch = Arrays.copyOfRange(vertices, from, to);
+        for (int v : batch)
+            validateVertex(v);
+        if (prefetcher.isShutdown()) return;
+        try {
+            prefetcher.execute(() -> {
+                try {
+                    for (int v : batch) {
+                        long start = start(v, true);
+                        long end = start(v + 1, true);
+                        for (long position = start; position < end; position = (position | (blockBytes - 1)) + 1)
+                            block(position, true);
+                    }
+                }
+                catch (UncheckedIOException e) {
+                    // only a hint: the query that needs the block reports the error
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            // closed meanwhile
+        }
+    }
+
+    /**
+     * Returns the vertices within {@code maxDepth} edges of {@code s}, by a
+     * breadth-first search that prefetches the adjacency lists of the next
+     * level as it discovers it.
+     *
+     * @param  s the source vertex
+     * @param  maxDepth the largest distance from {@code s} to search
+     * @return the vertices reached, in breadth-first order, with their distances
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}, or if {@code maxDepth < 0}
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public Search search(int s, int maxDepth) {
+        validateVertex(s);
+        if (maxDepth < 0) throw new IllegalArgumentException("maximum depth must be nonnegative");
+        LongSymbolTable reached = new LongSymbolTable();
+        int[] distance = new int[16];
+        int[] neighbours = new int[16];
+        int[] discovered = new int[PREFETCH_BATCH];
+        reached.intern(s);
+        int levelStart = 0;
+        for (int depth = 0; depth < maxDepth && levelStart < reached.size(); depth++) {
+            int levelEnd = reached.size();
+            int pending = 0;
+            boolean prefetchNext = depth + 1 < maxDepth;
+            for (int i = levelStart; i < levelEnd; i++) {
+                int v = (int) reached.keyOf(i);
+                int degree = degree(v);
+                if (neighbours.length < degree) neighbours = new int[Math.max(degree, 2 * neighbours.length)];
+                adj(v, neighbours);
+                for (int j = 0; j < degree; j++) {
+                    int w = neighbours[j];
+                    int id = reached.size();
+                    if (reached.intern(w) != id) continue;
+                    if (distance.length == id) distance = Arrays.copyOf(distance, 2 * id);
+                    distance[id] = depth + 1;
+                    if (prefetchNext) {
+                        discovered[pending++] = w;
+                        if (pending == PREFETCH_BATCH) {
+                            prefetch(discovered, 0, pending);
+                            pending = 0;
+                        }
+                    }
+                }
+            }
+            if (pending > 0) prefetch(discovered, 0, pending);
+            levelStart = levelEnd;
+        }
+        return new Search(reached, distance);
+    }
+
+    /**
+     * The vertices reached by a bounded breadth-first search.
+     */
+    public static final class Search {
+        private final LongSymbolTable reached;
+        private final int[] distance;
+
+        private Search(LongSymbolTable reached, int[] distance) {
+            this.reached = reached;
+            this.distance = distance;
+        }
+
+        /**
+         * Returns the number of vertices reached, including the source.
+         *
+         * @return the number of vertices reached
+         */
+        public int count() {
+            return reached.size();
+        }
+
+        /**
+         * Returns the <em>i</em>th vertex reached, in breadth-first order.
+         *
+         * @param  i the index, between 0 and {@code count() - 1}
+         * @return the <em>i</em>th vertex reached
+         * @throws IndexOutOfBoundsException unless {@code 0 <= i < count()}
+         */
+        public int vertex(int i) {
+            if (i < 0 || i >= reached.size()) throw new IndexOutOfBoundsException();
+            return (int) reached.keyOf(i);
+        }
+
+        /**
+         * Returns the distance from the source to vertex {@code v}.
+         *
+         * @param  v the vertex
+         * @return the number of edges of a shortest path from the source to
+         *         {@code v}, or -1 if {@code v} was not reached
+         */
+        public int distTo(int v) {
+            int i = reached.indexOf(v);
+            return i < 0 ? -1 : distance[i];
+        }
+    }
+
+    /**
+     * Returns the number of block reads that found the block in the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of blocks read from the file by queries.
+     *
+     * @return the number of cache misses
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of blocks read from the file by prefetching.
+     *
+     * @return the number of blocks prefetched
+     */
+    public long prefetched() {
+        return prefetched.get();
+    }
+
+    /**
+     * Returns the number of blocks evicted from the cache.
+     *
+     * @return the number of evictions
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the number of bytes of the blocks in the cache.
+     *
+     * @return the number of bytes cached, at most the memory budget
+     */
+    public synchronized long cachedBytes() {
+        return (long) used * blockBytes;
+    }
+
+    /**
+     * Stops prefetching and closes the file.
+     *
+     * @throws UncheckedIOException if the file cannot be closed
+     */
+    @Override
+    public void close() {
+        prefetcher.shutdownNow();
+        FileChannel current;
+        synchronized (this) {
+            closed = true;
+            current = channel;
+        }
+        try {
+            current.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not close " + file, e);
+        }
+    }
+
+    /**
+     * Runs bounded searches from random sources on a binary graph file
+     * with a cache of the given size, and reports the cache statistics.
+     *
+     * @param args the command-line arguments: the file, the cache size in
+     *        kilobytes, and optionally the number of searches and their depth
+     */
+    public static void main(String[] args) {
+        File file = new File(args[0]);
+        long cacheBytes = Long.parseLong(args[1]) << 10;
+        int searches = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        try (PagedGraph G = new PagedGraph(file, cacheBytes)) {
+            Random random = new Random(42);
+            long reached = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < searches; i++)
+                reached += G.search(random.nextInt(G.V()), depth).count();
+            long ms = (System.nanoTime() - start) / 1000000;
+            System.out.println(searches + " searches to depth " + depth + " in " + ms + " ms: "
+                    + reached / searches + " vertices on average");
+            long reads = G.hits() + G.misses();
+            System.out.println("cache " + G.cachedBytes() + " of " + file.length() + " bytes: "
+                    + (reads == 0 ? 0 : 100 * G.hits() / reads) + "% hits, " + G.misses() + " misses, "
+                    + G.prefetched() + " prefetched, " + G.evictions() + " evictions");
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.PipelinedGraphLoader.java
+ *  Execution:    java graph.PipelinedGraphLoader input.txt [parsers]
+ *  Dependencies: graph.Graph.java graph.GraphBuilder.java
+ *                lib.CompressedInput.java lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/mediumG.txt
+ *
+ *  Loads a graph in the text format of graph.Graph with a reader thread,
+ *  several parser threads, and a builder, working at the same time.
+ *
+ *  % java graph.PipelinedGraphLoader random-200000-2000000.txt 4
+ *  Graph(In):            200000 vertices, 2000000 edges in 17086 ms
+ *  PipelinedGraphLoader: 200000 vertices, 2000000 edges in 2166 ms
+ *
+ ******************************************************************************/
+
+import lib.CompressedInput;
+import lib.In;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ *  The {@code graph.PipelinedGraphLoader} class provides static methods for
+ *  reading a graph in the format of {@link Graph#Graph(In)}: the number of
+ *  vertices <em>V</em>, the number of edges <em>E</em>, and <em>E</em>
+ *  pairs of vertices.
+ *  <p>
+ *  {@code Graph(In)} reads, tokenizes, validates and inserts one edge at
+ *  a time in one thread. This loader splits that work into three stages:
+ *  <ul>
+ *  <li>a reader thread reads the input in chunks of {@link #CHUNK_BYTES}
+ *      bytes, cut after the last whitespace so that no number is split;
+ *  <li>parser threads turn the chunks into blocks of {@code int}s, and
+ *      check that each one is a vertex between 0 and <em>V</em> – 1,
+ *      working on several chunks at the same time;
+ *  <li>the calling thread appends the blocks, in input order, to a
+ *      {@link GraphBuilder}, which counts degrees as it goes and finally
+ *      builds the adjacency lists in parallel.
+ *  </ul>
+ *  Chunks are handed over through a queue of at most twice as many chunks
+ *  as parsers, so the reader waits rather than running ahead of the
+ *  parsers, and memory stays proportional to a few chunks plus the graph.
+ *  <p>
+ *  The graph, and the exceptions thrown for invalid input, are those of
+ *  {@code Graph(In)}, except that numbers must be separated by ASCII
+ *  whitespace and written without grouping separators.
+ */
+public final class PipelinedGraphLoader {
+
+    /**
+     * The size of the chunks the input is read in, in bytes.
+     */
+    public static final int CHUNK_BYTES = 1 << 20;
+
+    private static final String INVALID_FORMAT = "invalid input format in graph.Graph constructor";
+
+    // this class cannot be instantiated
+    private PipelinedGraphLoader() { }
+
+    // the numbers parsed from a chunk
+    private static final class Block {
+        static final Block END = new Block(new int[0]);
+
+        final int[] values;
+        int count;          // number of values parsed
+        int end;            // index after the last byte parsed
+        String error;       // why parsing stopped before the end of the chunk, or null
+
+        Block(int[] values) {
+            this.values = values;
+        }
+    }
+
+    /**
+     * Reads a graph from {@code file}, which may be gzip-compressed, with
+     * {@code parsers} parser threads.
+     *
+     * @param  file the file
+     * @param  parsers the number of parser threads
+     * @return the graph
+     * @throws IllegalArgumentException if {@code file} is {@code null} or cannot
+     *         be opened, or {@code parsers < 1}
+     * @throws IllegalArgumentException if the file is in the wrong format, or the
+     *         endpoints of any edge are not in prescribed range
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public static Graph load(File file, int parsers) {
+        if (file == null) throw new IllegalArgumentException("file is null");
+        InputStream in;
+        try {
+            in = CompressedInput.open(file);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Could not open " + file, e);
+        }
+        try (InputStream input = in) {
+            return load(input, parsers);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not close " + file, e);
+        }
+    }
+
+    /**
+     * Reads a graph from {@code in} with {@code parsers} parser threads.
+     * The stream is not closed; it may not have been read to the end.
+     *
+     * @param  in the input stream
+     * @param  parsers the number of parser threads
+     * @return the graph
+     * @throws IllegalArgumentException if {@code in} is {@code null}, or {@code parsers < 1}
+     * @throws IllegalArgumentException if the input is in the wrong format, or the
+     *         endpoints of any edge are not in prescribed range
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    public static Graph load(InputStream in, int parsers) {
+        if (in == null) throw new IllegalArgumentException("input stream is null");
+        if (parsers < 1) throw new IllegalArgumentException("number of parsers must be positive");
+        GraphLoadEvent event = new GraphLoadEvent();
+        event.begin();
+        ExecutorService pool = Executors.newFixedThreadPool(parsers, r -> {
+            Thread thread = new Thread(r, "graph-parse");
+            thread.setDaemon(true);
+            return thread;
+        });
+        BlockingQueue<CompletableFuture<Block>> blocks = new ArrayBlockingQueue<>(2 * parsers);
+        Thread reader = new Thread(() -> read(in, pool, blocks), "graph-read");
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            Block header = take(blocks);
+            int V = header.values[0];
+            int E = header.values[1];
+            GraphBuilder builder = new GraphBuilder(V, E);
+            long needed = 2L * E;
+            long consumed = 0;
+            int pending = -1;       // the first endpoint of an edge split between blocks
+            while (consumed < needed) {
+                Block block = take(blocks);
+                if (block == Block.END) throw new IllegalArgumentException(INVALID_FORMAT);
+                int n = (int) Math.min(block.count, needed - consumed);
+                int i = 0;
+                if (pending >= 0 && n > 0) {
+                    builder.append(new int[] { pending, block.values[0] }, 0, 2);
+                    pending = -1;
+                    i = 1;
+                }
+                int even = i + ((n - i) & ~1);
+                builder.append(block.values, i, even);
+                if (even < n) pending = block.values[even];
+                consumed += n;
+                if (consumed < needed && block.error != null)
+                    throw new IllegalArgumentException(block.error);
+            }
+            Graph G = builder.build(parsers);
+            event.end();
+            if (event.shouldCommit()) {
+                event.V = G.V();
+                event.E = G.E();
+                event.commit();
+            }
+            return G;
+        }
+        finally {
+            reader.interrupt();
+            pool.shutdownNow();
+        }
+    }
+
+    // the next block, or the exception of the stage that failed
+    private static Block take(BlockingQueue<CompletableFuture<Block>> blocks) {
+        try {
+            return blocks.take().join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while loading a graph", e);
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    // the reader stage: parses the header itself, then hands chunks to the parsers
+    private static void read(InputStream in, ExecutorService pool, BlockingQueue<CompletableFuture<Block>> blocks) {
+        try {
+            byte[] carry = new byte[0];
+            int V = -1;
+            boolean eof = false;
+            while (!eof) {
+                byte[] chunk = new byte[Math.max(CHUNK_BYTES, 2 * carry.length)];
+                System.arraycopy(carry, 0, chunk, 0, carry.length);
+                int length = carry.length;
+                while (length < chunk.length) {
+                    int n = in.read(chunk, length, chunk.length - length);
+                    if (n < 0) {
+                        eof = true;
+                        break;
+                    }
+                    length += n;
+                }
+
+                // cut after the last whitespace, unless no number fits in a whole chunk
+                int cut = length;
+                if (!eof) {
+                    while (cut > 0 && !isWhitespace(chunk[cut - 1])) cut--;
+                    if (cut == 0) cut = length;
+                }
+                carry = Arrays.copyOfRange(chunk, cut, length);
+
+                int start = 0;
+                if (V < 0) {
+                    Block header = parse(chunk, 0, cut, -1, 2);
+                    if (header.count < 2) throw new IllegalArgumentException(INVALID_FORMAT);
+                    if (header.values[0] < 0)
+                        throw new IllegalArgumentException("number of vertices in a graph.Graph must be nonnegative");
+                    if (header.values[1] < 0)
+                        throw new IllegalArgumentException("number of edges in a graph.Graph must be nonnegative");
+                    V = header.values[0];
+                    blocks.put(CompletableFuture.completedFuture(header));
+                    start = header.end;
+                }
+                int vertices = V, from = start, to = cut;
+                blocks.put(CompletableFuture.supplyAsync(() -> parse(chunk, from, to, vertices, Integer.MAX_VALUE), pool));
+            }
+            blocks.put(CompletableFuture.completedFuture(Block.END));
+        }
+        catch (InterruptedException e) {
+            // the builder has stopped
+        }
+        catch (IOException e) {
+            fail(blocks, new UncheckedIOException(e));
+        }
+        catch (RuntimeException e) {
+            fail(blocks, e);
+        }
+    }
+
+    private static void fail(BlockingQueue<CompletableFuture<Block>> blocks, RuntimeException e) {
+        CompletableFuture<Block> failed = new CompletableFuture<>();
+        failed.completeExceptionally(e);
+        try {
+            blocks.put(failed);
+        }
+        catch (InterruptedException ignored) {
+            // the builder has stopped
+        }
+    }
+
+    // whitespace, as Character.isWhitespace defines it for ASCII
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || (c >= '\t' && c <= '\r') || (c >= 0x1c && c <= 0x1f);
+    }
+
+    // the parser stage: parses up to max numbers from b[from..to), checking
+    // that each is a vertex if V >= 0, and stops at the first invalid one
+    private static Block parse(byte[] b, int from, int to, int V, int max) {
+        Block block = new Block(new int[Math.min(max, (to - from + 1) / 2)]);
+        int[] values = block.values;
+        int count = 0;
+        int i = from;
+        while (count < max) {
+            while (i < to && isWhitespace(b[i])) i++;
+            if (i == to) break;
+            int tokenStart = i;
+            boolean negative = b[i] == '-';
+            if (negative || b[i] == '+') i++;
+            long x = 0;
+            int digits = 0;
+            while (i < to && !isWhitespace(b[i])) {
+                int d = b[i] - '0';
+                if (d < 0 || d > 9 || x > Integer.MAX_VALUE + 1L) {
+                    digits = -1;
+                    break;
+                }
+                x = 10 * x + d;
+                digits++;
+                i++;
+            }
+            if (negative) x = -x;
+            if (digits <= 0 || x < Integer.MIN_VALUE || x > Integer.MAX_VALUE) {
+                block.error = INVALID_FORMAT;
+                i = tokenStart;
+                break;
+            }
+            if (V >= 0 && (x < 0 || x >= V)) {
+                block.error = "vertex " + x + " is not between 0 and " + (V-1);
+                i = tokenStart;
+                break;
+            }
+            values[count++] = (int) x;
+        }
+        block.count = count;
+        block.end = i;
+        return block;
+    }
+
+    /**
+     * Loads a graph with {@link Graph#Graph(In)} and with this loader, and
+     * reports the time of each.
+     *
+     * @param args the command-line arguments: the graph file and, optionally,
+     *        the number of parser threads
+     */
+    public static void main(String[] args) {
+        File file = new File(args[0]);
+        int parsers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        Graph G = new Graph(new In(file));
+        long ms = (System.nanoTime() - start) / 1000000;
+        System.out.println("Graph(In):            " + G.V() + " vertices, " + G.E() + " edges in " + ms + " ms");
+        G = null;
+
+        start = System.nanoTime();
+        Graph H = load(file, parsers);
+        ms = (System.nanoTime() - start) / 1000000;
+        System.out.println("PipelinedGraphLoader: " + H.V() + " vertices, " + H.E() + " edges in " + ms + " ms");
+    }
+}
@@ -0,0 +1,347 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.ShardedBreadthFirstSearch.java
+ *  Execution:    java graph.ShardedBreadthFirstSearch
+ *  Dependencies: graph.GraphPartitioner.java graph.GraphShard.java lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/mediumG.txt
+ *
+ *  Level-synchronous breadth-first search over a partitioned graph, with
+ *  one worker thread per shard exchanging frontier messages through
+ *  in-memory queues.
+ *
+ *  % java graph.ShardedBreadthFirstSearch
+ *  HASH    messages = 1924  levels = 13
+ *  RANGE   messages = 1928  levels = 13
+ *  LDG     messages =  528  levels = 13
+ *  FENNEL  messages =  530  levels = 13
+ *
+ ******************************************************************************/
+
+import lib.In;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Stack;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  The {@code graph.ShardedBreadthFirstSearch} class computes shortest paths
+ *  (number of edges) from a source vertex <em>s</em> in a graph split into
+ *  shards by a {@link GraphPartitioner}, as a model of a distributed search.
+ *  <p>
+ *  Each shard is processed by its own worker thread, which only reads and
+ *  writes the state of the vertices it owns. At every level a worker expands
+ *  its part of the frontier; edges to owned vertices are followed directly,
+ *  and edges to ghost vertices become (vertex, parent) messages, batched per
+ *  destination shard and posted to that shard's inbox queue. After a barrier
+ *  each worker drains its inbox, and the search ends when no shard has a
+ *  new frontier vertex.
+ *  {@link #messages()} and {@link #levels()} report the traffic and number
+ *  of rounds, so that partitioning strategies can be compared.
+ *  A {@link CancellationToken} is polled once per level, at the barrier
+ *  that ends it.
+ *  <p>
+ *  The constructor takes time proportional to <em>V</em> + <em>E</em>,
+ *  spread over <em>k</em> threads, plus two barriers per level.
+ */
+public class ShardedBreadthFirstSearch {
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final GraphPartitioner partitioner;
+    private final GraphShard[] shards;
+    private final int[][] distTo;     // distTo[i][l] = distance of local vertex l of shard i
+    private final int[][] edgeTo;     // edgeTo[i][l] = global id of the parent of l
+    private final AtomicLong messages = new AtomicLong();
+    private int levels;
+    private boolean complete = true;  // false if the search was cancelled
+
+    /**
+     * Computes the shortest paths from {@code s} to every other vertex of the
+     * graph partitioned by {@code partitioner}.
+     *
+     * @param partitioner the partitioned graph
+     * @param s the source vertex
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     * @throws IllegalStateException if a worker thread is interrupted; an
+     *         exception or error thrown in a worker is rethrown as it is
+     */
+    public ShardedBreadthFirstSearch(GraphPartitioner partitioner, int s) {
+        this(partitioner, s, null);
+    }
+
+    /**
+     * Computes the shortest paths from {@code s} to the vertices of the graph
+     * partitioned by {@code partitioner}, stopping after the first level at
+     * which {@code token} is found cancelled.
+     *
+     * @param partitioner the partitioned graph
+     * @param s the source vertex
+     * @param token the cancellation token polled once per level, or {@code null}
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     * @throws IllegalStateException if a worker thread is interrupted; an
+     *         exception or error thrown in a worker is rethrown as it is
+     */
+    public ShardedBreadthFirstSearch(GraphPartitioner partitioner, int s, CancellationToken token) {
+        this.partitioner = partitioner;
+        int k = partitioner.shards();
+        int owner = partitioner.shardOf(s);
+        shards = new GraphShard[k];
+        distTo = new int[k][];
+        edgeTo = new int[k][];
+        for (int i = 0; i < k; i++) {
+            shards[i] = partitioner.shard(i);
+            distTo[i] = new int[shards[i].size()];
+            edgeTo[i] = new int[shards[i].size()];
+            Arrays.fill(distTo[i], INFINITY);
+        }
+        distTo[owner][shards[owner].localIndex(s)] = 0;
+        edgeTo[owner][shards[owner].localIndex(s)] = s;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Queue<int[]>[] inbox = (Queue<int[]>[]) new Queue[k];
+        for (int i = 0; i < k; i++)
+            inbox[i] = new ConcurrentLinkedQueue<>();
+
+        // each level passes two barriers: sent once every batch is posted, and
+        // received once every inbox is drained; only the second one ends the level
+        AtomicInteger pending = new AtomicInteger();
+        boolean[] done = new boolean[1];
+        CyclicBarrier sent = new CyclicBarrier(k);
+        CyclicBarrier received = new CyclicBarrier(k, () -> {
+            if (pending.getAndSet(0) == 0) {
+                done[0] = true;
+                return;
+            }
+            levels++;
+            if (token != null && token.isCancelled()) {
+                complete = false;
+                done[0] = true;
+            }
+        });
+        Throwable[] failure = new Throwable[1];
+
+        Thread[] workers = new Thread[k];
+        for (int i = 0; i < k; i++) {
+            Worker worker = new Worker(i, i == owner ? shards[i].localIndex(s) : -1,
+                                       inbox, sent, received, pending, done);
+            workers[i] = new Thread(() -> {
+                try {
+                    worker.run();
+                }
+                catch (Throwable e) {
+                    // record the first failure, then break the barriers so the other workers stop
+                    synchronized (failure) {
+                        if (failure[0] == null || failure[0] instanceof BrokenBarrierException) failure[0] = e;
+                    }
+                    sent.reset();
+                    received.reset();
+                }
+            }, "shard-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for shard workers", e);
+            }
+        }
+        if (failure[0] instanceof RuntimeException) throw (RuntimeException) failure[0];
+        if (failure[0] instanceof Error) throw (Error) failure[0];
+        if (failure[0] != null)
+            throw new IllegalStateException("shard worker failed", failure[0]);
+    }
+
+    // the search as seen by the worker of one shard
+    private class Worker {
+        private final int i;
+        private final GraphShard shard;
+        private final Queue<int[]>[] inbox;
+        private final CyclicBarrier sent;
+        private final CyclicBarrier received;
+        private final AtomicInteger pending;
+        private final boolean[] done;
+        private int[] frontier;
+        private int frontierSize;
+        private int[] next;
+        private int nextSize;
+        private final int[][] outbox;     // outbox[j] = (vertex, parent) pairs for shard j
+        private final int[] outboxSize;
+
+        Worker(int i, int source, Queue<int[]>[] inbox, CyclicBarrier sent, CyclicBarrier received,
+               AtomicInteger pending, boolean[] done) {
+            this.i = i;
+            this.shard = shards[i];
+            this.inbox = inbox;
+            this.sent = sent;
+            this.received = received;
+            this.pending = pending;
+            this.done = done;
+            this.frontier = new int[Math.max(shard.size(), 1)];
+            this.next = new int[Math.max(shard.size(), 1)];
+            this.outbox = new int[inbox.length][16];
+            this.outboxSize = new int[inbox.length];
+            if (source >= 0) frontier[frontierSize++] = source;
+        }
+
+        void run() throws InterruptedException, BrokenBarrierException {
+            int[] dist = distTo[i];
+            int[] parent = edgeTo[i];
+            for (int level = 1; ; level++) {
+                // expand the local frontier
+                for (int f = 0; f < frontierSize; f++) {
+                    int v = frontier[f];
+                    int from = shard.rawGlobalId(v);
+                    for (int j = shard.adjStart(v), end = shard.adjEnd(v); j < end; j++) {
+                        int t = shard.target(j);
+                        if (t >= 0) {
+                            if (dist[t] == INFINITY) {
+                                dist[t] = level;
+                                parent[t] = from;
+                                next[nextSize++] = t;
+                            }
+                        }
+                        else {
+                            send(shard.rawGhostOwner(-1 - t), shard.rawGhostVertex(-1 - t), from);
+                        }
+                    }
+                }
+                for (int j = 0; j < outbox.length; j++) {
+                    if (outboxSize[j] == 0) continue;
+                    inbox[j].add(Arrays.copyOf(outbox[j], outboxSize[j]));
+                    messages.addAndGet(outboxSize[j] / 2);
+                    outboxSize[j] = 0;
+                }
+                sent.await();
+
+                // receive remote discoveries
+                for (int[] batch = inbox[i].poll(); batch != null; batch = inbox[i].poll()) {
+                    for (int m = 0; m < batch.length; m += 2) {
+                        int l = shard.localIndex(batch[m]);
+                        if (dist[l] == INFINITY) {
+                            dist[l] = level;
+                            parent[l] = batch[m + 1];
+                            next[nextSize++] = l;
+                        }
+                    }
+                }
+                pending.addAndGet(nextSize);
+                received.await();
+                if (done[0]) return;
+
+                int[] temp = frontier;
+                frontier = next;
+                next = temp;
+                frontierSize = nextSize;
+                nextSize = 0;
+            }
+        }
+
+        private void send(int j, int w, int from) {
+            if (outboxSize[j] + 2 > outbox[j].length)
+                outbox[j] = Arrays.copyOf(outbox[j], 2 * outbox[j].length);
+            outbox[j][outboxSize[j]++] = w;
+            outbox[j][outboxSize[j]++] = from;
+        }
+    }
+
+    /**
+     * Is there a path between the source vertex {@code s} and vertex {@code v}?
+     *
+     * @param v the vertex
+     * @return {@code true} if there is a path, and {@code false} otherwise
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public boolean hasPathTo(int v) {
+        return distTo(v) != INFINITY;
+    }
+
+    /**
+     * Returns the number of edges in a shortest path between the source
+     * vertex {@code s} and vertex {@code v}.
+     *
+     * @param v the vertex
+     * @return the number of edges in a shortest path, or {@code Integer.MAX_VALUE}
+     *         if there is none
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int distTo(int v) {
+        int i = partitioner.shardOf(v);
+        return distTo[i][shards[i].localIndex(v)];
+    }
+
+    /**
+     * Returns a shortest path between the source vertex {@code s} and
+     * {@code v}, or {@code null} if no such path.
+     *
+     * @param v the vertex
+     * @return the sequence of vertices on a shortest path, as an Iterable
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public Iterable<Integer> pathTo(int v) {
+        if (!hasPathTo(v)) return null;
+        Stack<Integer> path = new Stack<>();
+        int x;
+        for (x = v; distTo(x) != 0; x = parentOf(x))
+            path.push(x);
+        path.push(x);
+        return path;
+    }
+
+    private int parentOf(int v) {
+        int i = partitioner.shardOf(v);
+        return edgeTo[i][shards[i].localIndex(v)];
+    }
+
+    /**
+     * Did the search run to the end, rather than being stopped by its
+     * {@link CancellationToken}? If not, the paths found so far are shortest
+     * paths, but vertices beyond the last completed level have no path.
+     *
+     * @return {@code true} if the search was not cancelled, and {@code false} otherwise
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns the number of frontier messages exchanged between shards.
+     *
+     * @return the number of (vertex, parent) messages sent
+     */
+    public long messages() {
+        return messages.get();
+    }
+
+    /**
+     * Returns the number of levels of the search: the largest distance from
+     * the source to a reachable vertex.
+     *
+     * @return the number of levels
+     */
+    public int levels() {
+        return levels;
+    }
+
+    /**
+     * Unit tests the {@code graph.ShardedBreadthFirstSearch} data type.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        In in = new In("mediumG.txt");
+        Graph G = new Graph(in);
+        for (GraphPartitioner.Strategy strategy : GraphPartitioner.Strategy.values()) {
+            GraphPartitioner partitioner = new GraphPartitioner(G, 4, strategy);
+            ShardedBreadthFirstSearch bfs = new ShardedBreadthFirstSearch(partitioner, 0);
+            System.out.printf("%-7s messages = %4d  levels = %d%n",
+                    strategy, bfs.messages(), bfs.levels());
+        }
+    }
+}
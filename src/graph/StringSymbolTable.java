@@ -0,0 +1,214 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.StringSymbolTable.java
+ *  Execution:    java graph.StringSymbolTable
+ *  Dependencies: lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyG.txt
+ *
+ *  Interns string keys as dense integer ids, with the keys stored as
+ *  UTF-8 bytes outside the Java heap.
+ *
+ *  % java graph.StringSymbolTable
+ *  28 keys, 14 distinct
+ *  0 -> 13  1 -> 0  2 -> 5  3 -> 4  4 -> 3
+ *
+ ******************************************************************************/
+
+import lib.In;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ *  The {@code graph.StringSymbolTable} class interns string keys as dense
+ *  integer ids 0, 1, 2, ... in order of first appearance.
+ *  <p>
+ *  The UTF-8 bytes of the keys are stored back to back in a pool outside
+ *  the Java heap (a direct {@link ByteBuffer}), so that millions of keys
+ *  cost no {@code String} objects and put no pressure on the garbage
+ *  collector. Lookups use linear-probing open addressing over an
+ *  {@code int[]} of ids, comparing candidate keys byte by byte in the pool.
+ *  {@link #intern(String)} and {@link #indexOf(String)} take expected time
+ *  proportional to the length of the key; {@link #keyOf(int)} creates a new
+ *  {@code String} each time it is called.
+ */
+public class StringSymbolTable {
+    private static final int EMPTY = -1;
+
+    private int[] slots;        // slots[i] = id stored in probe slot i, or EMPTY
+    private int[] hashes;       // hashes[id] = hash of key with that id
+    private long[] offsets;     // key with id i occupies pool[offsets[i], offsets[i+1])
+    private ByteBuffer pool;    // off-heap UTF-8 bytes of the keys
+    private int n;              // number of keys
+
+    /**
+     * Initializes an empty symbol table.
+     */
+    public StringSymbolTable() {
+        slots = new int[16];
+        Arrays.fill(slots, EMPTY);
+        hashes = new int[8];
+        offsets = new long[9];
+        pool = ByteBuffer.allocateDirect(1 << 12);
+    }
+
+    /**
+     * Returns the number of keys in this table.
+     *
+     * @return the number of keys in this table
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns the number of bytes of off-heap memory used by the key pool.
+     *
+     * @return the capacity of the key pool in bytes
+     */
+    public long poolCapacity() {
+        return pool.capacity();
+    }
+
+    /**
+     * Returns the id of {@code key}, assigning the next unused id if the key
+     * has not been seen before.
+     *
+     * @param key the key
+     * @return the id of {@code key}
+     * @throws IllegalArgumentException if {@code key} is {@code null}
+     */
+    public int intern(String key) {
+        if (key == null) throw new IllegalArgumentException("key is null");
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int h = hash(bytes);
+        int mask = slots.length - 1;
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            int id = slots[i];
+            if (id == EMPTY) {
+                append(bytes, h);
+                slots[i] = n - 1;
+                if (2 * n > slots.length) rehash(2 * slots.length);
+                return n - 1;
+            }
+            if (hashes[id] == h && matches(id, bytes)) return id;
+        }
+    }
+
+    /**
+     * Returns the id of {@code key}.
+     *
+     * @param key the key
+     * @return the id of {@code key}, or -1 if it is not in this table
+     * @throws IllegalArgumentException if {@code key} is {@code null}
+     */
+    public int indexOf(String key) {
+        if (key == null) throw new IllegalArgumentException("key is null");
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int h = hash(bytes);
+        int mask = slots.length - 1;
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            int id = slots[i];
+            if (id == EMPTY) return -1;
+            if (hashes[id] == h && matches(id, bytes)) return id;
+        }
+    }
+
+    /**
+     * Does this table contain {@code key}?
+     *
+     * @param key the key
+     * @return {@code true} if this table contains {@code key}, and {@code false} otherwise
+     * @throws IllegalArgumentException if {@code key} is {@code null}
+     */
+    public boolean contains(String key) {
+        return indexOf(key) != -1;
+    }
+
+    /**
+     * Returns the key with id {@code id}.
+     *
+     * @param id the id
+     * @return the key with that id
+     * @throws IllegalArgumentException unless {@code 0 <= id < size()}
+     */
+    public String keyOf(int id) {
+        if (id < 0 || id >= n)
+            throw new IllegalArgumentException("id " + id + " is not between 0 and " + (n-1));
+        int start = (int) offsets[id];
+        byte[] bytes = new byte[(int) (offsets[id + 1] - start)];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = pool.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean matches(int id, byte[] bytes) {
+        int start = (int) offsets[id];
+        if (offsets[id + 1] - start != bytes.length) return false;
+        for (int i = 0; i < bytes.length; i++)
+            if (pool.get(start + i) != bytes[i]) return false;
+        return true;
+    }
+
+    private void append(byte[] bytes, int h) {
+        int end = (int) offsets[n];
+        if ((long) end + bytes.length > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("string pool is full");
+        if (end + bytes.length > pool.capacity()) {
+            long capacity = Math.max(2L * pool.capacity(), (long) end + bytes.length);
+            ByteBuffer bigger = ByteBuffer.allocateDirect((int) Math.min(capacity, Integer.MAX_VALUE - 8));
+            pool.clear().limit(end);
+            bigger.put(pool);
+            pool = bigger;
+        }
+        for (int i = 0; i < bytes.length; i++)
+            pool.put(end + i, bytes[i]);
+        if (n + 1 == hashes.length) {
+            int capacity = 2 * hashes.length;
+            hashes = Arrays.copyOf(hashes, capacity);
+            offsets = Arrays.copyOf(offsets, capacity + 1);
+        }
+        hashes[n] = h;
+        offsets[n + 1] = end + bytes.length;
+        n++;
+    }
+
+    private void rehash(int m) {
+        slots = new int[m];
+        Arrays.fill(slots, EMPTY);
+        int mask = m - 1;
+        for (int id = 0; id < n; id++) {
+            int i = hashes[id] & mask;
+            while (slots[i] != EMPTY) i = (i + 1) & mask;
+            slots[i] = id;
+        }
+    }
+
+    // FNV-1a over the UTF-8 bytes, with a final mix so that the low bits are usable
+    private static int hash(byte[] bytes) {
+        int h = 0x811c9dc5;
+        for (byte b : bytes) {
+            h ^= b;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Unit tests the {@code graph.StringSymbolTable} data type with the
+     * words in {@code tinyG.txt}.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        String[] keys = new In("tinyG.txt").readAllStrings();
+        StringSymbolTable st = new StringSymbolTable();
+        for (String key : keys)
+            st.intern(key);
+        System.out.println(keys.length + " keys, " + st.size() + " distinct");
+        for (int id = 0; id < 5; id++)
+            System.out.print((id > 0 ? "  " : "") + id + " -> " + st.keyOf(id));
+        System.out.println();
+    }
+}
@@ -0,0 +1,263 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.SymbolGraph.java
+ *  Execution:    java graph.SymbolGraph
+ *  Dependencies: graph.Graph.java graph.GraphBuilder.java graph.LongSymbolTable.java
+ *                graph.StringSymbolTable.java lib.In.java
+ *
+ *  An undirected graph whose vertices are named by arbitrary strings or
+ *  64-bit keys, loaded in a single streaming pass.
+ *
+ *  % java graph.SymbolGraph
+ *  JFK: MCO ORD ATL
+ *  MCO: JFK HOU ATL
+ *  ...
+ *
+ ******************************************************************************/
+
+import lib.In;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import java.util.regex.Pattern;
+
+/**
+ *  The {@code graph.SymbolGraph} class represents an undirected graph whose
+ *  vertices are named by external keys, either strings or {@code long}s,
+ *  rather than by the integers 0 through <em>V</em> – 1 that {@link Graph}
+ *  requires.
+ *  Keys are interned in order of first appearance into a
+ *  {@link StringSymbolTable} or a {@link LongSymbolTable}; the resulting
+ *  dense ids are the vertices of {@link #graph()}.
+ *  <p>
+ *  The input has one line per vertex: a key, followed by the keys of its
+ *  neighbours, all separated by the delimiter. An edge-list file is the
+ *  special case of one pair per line. The input is read once: edges are
+ *  buffered as {@code int} pairs while the keys are interned, and the graph
+ *  is built when the number of vertices is known.
+ *  <p>
+ *  Traversals run on {@link #graph()}; {@link #indexOf(String)} and
+ *  {@link #indexOf(long)} translate their sources, and {@link #nameOf(int)},
+ *  {@link #keyOf(int)}, {@link #toNames(Iterable)} and {@link #toKeys(Iterable)}
+ *  translate their results back to external keys.
+ */
+public class SymbolGraph {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final StringSymbolTable names;   // null if keyed by long
+    private final LongSymbolTable keys;      // null if keyed by string
+    private final Graph graph;
+
+    private SymbolGraph(StringSymbolTable names, LongSymbolTable keys, int[] edges, int E) {
+        this.names = names;
+        this.keys = keys;
+        int V = names != null ? names.size() : keys.size();
+        GraphBuilder builder = new GraphBuilder(V, E);
+        builder.addEdges(edges, 0, 2 * E);
+        graph = builder.build();
+    }
+
+    /**
+     * Reads a graph whose vertices are named by strings.
+     *
+     * @param  in the input stream
+     * @param  delimiter the regular expression separating the keys on a line
+     * @return the symbol graph
+     * @throws IllegalArgumentException if {@code in} or {@code delimiter} is {@code null}
+     */
+    public static SymbolGraph ofStrings(In in, String delimiter) {
+        if (in == null || delimiter == null) throw new IllegalArgumentException("argument is null");
+        Pattern pattern = Pattern.compile(delimiter);
+        StringSymbolTable names = new StringSymbolTable();
+        int[] edges = new int[16];
+        int E = 0;
+        while (in.hasNextLine()) {
+            String[] a = pattern.split(in.readLine());
+            if (a.length == 0 || a[0].isEmpty()) continue;
+            int v = names.intern(a[0]);
+            for (int i = 1; i < a.length; i++) {
+                if (2 * E + 2 > edges.length) edges = Arrays.copyOf(edges, 2 * edges.length);
+                edges[2 * E] = v;
+                edges[2 * E + 1] = names.intern(a[i]);
+                E++;
+            }
+        }
+        return new SymbolGraph(names, null, edges, E);
+    }
+
+    /**
+     * Reads a graph whose vertices are named by 64-bit integers, separated
+     * by whitespace.
+     *
+     * @param  in the input stream
+     * @return the symbol graph
+     * @throws IllegalArgumentException if {@code in} is {@code null}
+     * @throws IllegalArgumentException if a key is not a 64-bit integer
+     */
+    public static SymbolGraph ofLongs(In in) {
+        if (in == null) throw new IllegalArgumentException("argument is null");
+        LongSymbolTable keys = new LongSymbolTable();
+        int[] edges = new int[16];
+        int E = 0;
+        while (in.hasNextLine()) {
+            String[] a = WHITESPACE.split(in.readLine().trim());
+            if (a[0].isEmpty()) continue;
+            try {
+                int v = keys.intern(Long.parseLong(a[0]));
+                for (int i = 1; i < a.length; i++) {
+                    if (2 * E + 2 > edges.length) edges = Arrays.copyOf(edges, 2 * edges.length);
+                    edges[2 * E] = v;
+                    edges[2 * E + 1] = keys.intern(Long.parseLong(a[i]));
+                    E++;
+                }
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid input format in graph.SymbolGraph", e);
+            }
+        }
+        return new SymbolGraph(null, keys, edges, E);
+    }
+
+    /**
+     * Returns the graph associated with this symbol graph, with vertices
+     * named by dense ids.
+     *
+     * @return the graph
+     */
+    public Graph graph() {
+        return graph;
+    }
+
+    /**
+     * Does the graph contain the vertex named {@code s}?
+     *
+     * @param  s the name of a vertex
+     * @return {@code true} if {@code s} is the name of a vertex, and {@code false} otherwise
+     * @throws UnsupportedOperationException if this graph is keyed by {@code long}
+     */
+    public boolean contains(String s) {
+        return indexOf(s) != -1;
+    }
+
+    /**
+     * Does the graph contain the vertex with key {@code key}?
+     *
+     * @param  key the key of a vertex
+     * @return {@code true} if {@code key} is the key of a vertex, and {@code false} otherwise
+     * @throws UnsupportedOperationException if this graph is keyed by string
+     */
+    public boolean contains(long key) {
+        return indexOf(key) != -1;
+    }
+
+    /**
+     * Returns the id of the vertex named {@code s}.
+     *
+     * @param  s the name of a vertex
+     * @return the id of the vertex named {@code s}, or -1 if there is none
+     * @throws UnsupportedOperationException if this graph is keyed by {@code long}
+     */
+    public int indexOf(String s) {
+        if (names == null) throw new UnsupportedOperationException("graph is keyed by long");
+        return names.indexOf(s);
+    }
+
+    /**
+     * Returns the id of the vertex with key {@code key}.
+     *
+     * @param  key the key of a vertex
+     * @return the id of the vertex with key {@code key}, or -1 if there is none
+     * @throws UnsupportedOperationException if this graph is keyed by string
+     */
+    public int indexOf(long key) {
+        if (keys == null) throw new UnsupportedOperationException("graph is keyed by string");
+        return keys.indexOf(key);
+    }
+
+    /**
+     * Returns the name of vertex {@code v}, the decimal form of its key if
+     * this graph is keyed by {@code long}.
+     *
+     * @param  v the vertex
+     * @return the name of vertex {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public String nameOf(int v) {
+        validateVertex(v);
+        return names != null ? names.keyOf(v) : Long.toString(keys.keyOf(v));
+    }
+
+    /**
+     * Returns the key of vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return the key of vertex {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     * @throws UnsupportedOperationException if this graph is keyed by string
+     */
+    public long keyOf(int v) {
+        validateVertex(v);
+        if (keys == null) throw new UnsupportedOperationException("graph is keyed by string");
+        return keys.keyOf(v);
+    }
+
+    /**
+     * Translates a sequence of vertices, such as a path, to their names.
+     *
+     * @param  vertices the vertices, or {@code null}
+     * @return the names of the vertices, in the same order, or {@code null}
+     *         if {@code vertices} is {@code null}
+     * @throws IllegalArgumentException if a vertex is not in range
+     */
+    public List<String> toNames(Iterable<Integer> vertices) {
+        if (vertices == null) return null;
+        List<String> result = new ArrayList<>();
+        for (int v : vertices)
+            result.add(nameOf(v));
+        return result;
+    }
+
+    /**
+     * Translates a sequence of vertices, such as a path, to their keys.
+     *
+     * @param  vertices the vertices, or {@code null}
+     * @return the keys of the vertices, in the same order, or {@code null}
+     *         if {@code vertices} is {@code null}
+     * @throws IllegalArgumentException if a vertex is not in range
+     * @throws UnsupportedOperationException if this graph is keyed by string
+     */
+    public long[] toKeys(Iterable<Integer> vertices) {
+        if (vertices == null) return null;
+        long[] result = new long[8];
+        int n = 0;
+        for (int v : vertices) {
+            if (n == result.length) result = Arrays.copyOf(result, 2 * n);
+            result[n++] = keyOf(v);
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        int V = graph.V();
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Unit tests the {@code graph.SymbolGraph} data type.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        String routes = "JFK MCO\nORD DEN\nORD HOU\nDFW PHX\nJFK ATL\nORD DFW\nORD PHX\n"
+                      + "ATL HOU\nDEN PHX\nPHX LAX\nJFK ORD\nDEN LAS\nDFW HOU\nORD ATL\n"
+                      + "LAS LAX\nATL MCO\nHOU MCO\nLAS PHX\n";
+        SymbolGraph sg = SymbolGraph.ofStrings(new In(new Scanner(routes)), " ");
+        Graph G = sg.graph();
+        for (int v = 0; v < G.V(); v++)
+            System.out.println(sg.nameOf(v) + ": " + String.join(" ", sg.toNames(G.adj(v))));
+    }
+}
@@ -0,0 +1,40 @@
+package graph;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ *  JDK Flight Recorder event for one traversal recorded by a
+ *  {@link TraversalStatistics}; its duration is the duration of the search.
+ */
+@Name("graph.Traversal")
+@Label("Graph Traversal")
+@Category("Graph")
+@Description("A breadth-first or depth-first search of a graph")
+final class TraversalEvent extends jdk.jfr.Event {
+    @Label("Engine")
+    String engine;
+
+    @Label("Source")
+    int source;
+
+    @Label("Vertices Visited")
+    long verticesVisited;
+
+    @Label("Edges Inspected")
+    long edgesInspected;
+
+    @Label("Levels")
+    int levels;
+
+    @Label("Peak Depth")
+    @Description("Largest number of vertices in the queue or stack")
+    int peakDepth;
+
+    @Label("Bytes Allocated")
+    @DataAmount
+    long bytesAllocated;
+}
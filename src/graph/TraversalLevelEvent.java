@@ -0,0 +1,25 @@
+package graph;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ *  JDK Flight Recorder event for the expansion of one level of the frontier
+ *  of a breadth-first search recorded by a {@link TraversalStatistics}.
+ */
+@Name("graph.TraversalLevel")
+@Label("Graph Traversal Level")
+@Category("Graph")
+@Description("The expansion of one level of a breadth-first search")
+final class TraversalLevelEvent extends jdk.jfr.Event {
+    @Label("Engine")
+    String engine;
+
+    @Label("Level")
+    int level;
+
+    @Label("Frontier Size")
+    int frontierSize;
+}
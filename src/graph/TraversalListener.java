@@ -0,0 +1,64 @@
+package graph;
+
+/**
+ *  The {@code graph.TraversalListener} interface is notified of the steps of
+ *  a breadth-first or depth-first search, so that callers can trace, count
+ *  or collect what a search does without changing it.
+ *  <p>
+ *  A search calls {@link #discover(int)} when it first reaches a vertex,
+ *  {@link #treeEdge(int, int)} just before, for the edge it reached the vertex
+ *  through, {@link #nonTreeEdge(int, int)} for every other edge it scans, and
+ *  {@link #finish(int)} once it has scanned all the edges of a vertex.
+ *  It calls {@link #end()} once when it stops, however it stops.
+ *  Every method does nothing by default, so a listener only overrides the
+ *  events it needs.
+ *  <p>
+ *  A listener is passed to a search through {@link TraversalOptions#listener}.
+ *  Searches without a listener skip every notification with a single
+ *  well-predicted branch, so they pay nothing for the hooks; a listener that
+ *  is the only one ever used at a call site is inlined by the JIT.
+ */
+public interface TraversalListener {
+
+    /**
+     * Called when the search reaches vertex {@code v} for the first time,
+     * including for each source vertex.
+     *
+     * @param v the vertex
+     */
+    default void discover(int v) { }
+
+    /**
+     * Called when the search is done with vertex {@code v}: it has scanned
+     * every edge of {@code v}, or {@code v} lies at the maximum depth of the
+     * search, which does not scan its edges.
+     *
+     * @param v the vertex
+     */
+    default void finish(int v) { }
+
+    /**
+     * Called when the search reaches vertex {@code w} through the edge
+     * {@code v-w}, which becomes part of the search tree.
+     *
+     * @param v the vertex being scanned
+     * @param w the vertex reached
+     */
+    default void treeEdge(int v, int w) { }
+
+    /**
+     * Called when the search scans the edge {@code v-w} but does not follow
+     * it, because {@code w} has already been reached.
+     *
+     * @param v the vertex being scanned
+     * @param w the vertex already reached
+     */
+    default void nonTreeEdge(int v, int w) { }
+
+    /**
+     * Called once when the search stops, whether it has reached every
+     * vertex it could, found a target, hit a limit, or been cancelled.
+     * A listener that buffers what it reports should flush it here.
+     */
+    default void end() { }
+}
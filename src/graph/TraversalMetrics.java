@@ -0,0 +1,78 @@
+package graph;
+
+/**
+ *  The {@code graph.TraversalMetrics} interface is a read-only view of the
+ *  work done by one or more traversals: how many vertices they visited and
+ *  edges they inspected, how deep their queue or stack grew, how much they
+ *  allocated and, for breadth-first searches, the size of each level of the
+ *  frontier and the time spent on it.
+ *  <p>
+ *  Metrics are collected by a {@link TraversalStatistics} passed to a
+ *  search through {@link TraversalOptions#statistics}.
+ */
+public interface TraversalMetrics {
+
+    /**
+     * Returns the number of traversals recorded.
+     *
+     * @return the number of traversals
+     */
+    long traversals();
+
+    /**
+     * Returns the total number of vertices visited, sources included.
+     *
+     * @return the number of vertices visited
+     */
+    long verticesVisited();
+
+    /**
+     * Returns the total number of adjacency entries scanned.
+     *
+     * @return the number of edges inspected
+     */
+    long edgesInspected();
+
+    /**
+     * Returns the largest number of vertices held at once in the queue or
+     * stack of any recorded traversal.
+     *
+     * @return the peak queue or stack depth
+     */
+    int peakDepth();
+
+    /**
+     * Returns the total number of bytes allocated by the threads running
+     * the traversals while they ran.
+     *
+     * @return the number of bytes allocated, or -1 if the JVM cannot measure it
+     */
+    long bytesAllocated();
+
+    /**
+     * Returns the number of levels of the deepest recorded breadth-first search.
+     *
+     * @return the number of levels, or 0 if no breadth-first search was recorded
+     */
+    int levels();
+
+    /**
+     * Returns the total number of vertices in level {@code level} of the
+     * frontier, over all recorded breadth-first searches.
+     *
+     * @param level the level, where level 0 holds the sources
+     * @return the total frontier size at that level
+     * @throws IllegalArgumentException unless {@code 0 <= level < levels()}
+     */
+    long frontierSize(int level);
+
+    /**
+     * Returns the total wall time spent expanding level {@code level} of the
+     * frontier, over all recorded breadth-first searches.
+     *
+     * @param level the level, where level 0 holds the sources
+     * @return the time in nanoseconds
+     * @throws IllegalArgumentException unless {@code 0 <= level < levels()}
+     */
+    long levelNanos(int level);
+}
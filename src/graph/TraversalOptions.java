@@ -0,0 +1,279 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.TraversalOptions.java
+ *  Execution:    java graph.TraversalOptions
+ *  Dependencies: graph.Graph.java graph.BreadthFirstPaths.java lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/tinyG.txt
+ *
+ *  Limits on how far a graph traversal explores: a maximum depth, a set of
+ *  target vertices to stop at, a budget of visited vertices and a filter.
+ *
+ *  % java graph.TraversalOptions
+ *  within 1 hop of 0: 0 1 2 5 6
+ *  first of {3, 4} found from 0: 3 (2 hops)
+ *
+ ******************************************************************************/
+
+import lib.In;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ *  The {@code graph.TraversalOptions} class describes when a breadth-first
+ *  or depth-first search stops exploring, so that a query such as
+ *  "the vertices within <em>k</em> hops" or "the nearest of these targets"
+ *  costs time proportional to the part of the graph it explores rather
+ *  than to the whole component.
+ *  <p>
+ *  A vertex is visited only if its depth is at most {@link #maxDepth()} and,
+ *  unless it is a source, it satisfies the {@link #filter()}. The search
+ *  stops as soon as it visits any one of the {@link #targets()}, or once it
+ *  has visited {@link #maxVisited()} vertices. It also stops, leaving an
+ *  incomplete result, when its {@link #cancellation()} token is cancelled.
+ *  Traversals read these limits into local variables before they start,
+ *  so checking them costs no allocation in the inner loop. The marks of
+ *  the targets are built once and shared, read-only, by every search run
+ *  with these options on graphs of the same number of vertices.
+ *  <p>
+ *  A {@link #listener()}, if any, is told of every vertex and edge the
+ *  search processes, and its {@link #statistics()}, if any, record what
+ *  the search cost.
+ *  <p>
+ *  The setters return this object, so options can be chained:
+ *  {@code new TraversalOptions().maxDepth(2).target(t)}.
+ */
+public class TraversalOptions {
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int[] NO_TARGETS = new int[0];
+
+    private int maxDepth = INFINITY;
+    private int maxVisited = INFINITY;
+    private int[] targets = NO_TARGETS;
+    private int targetCount;
+    private volatile boolean[] marks;   // targetMarks() of the last V asked for, or null
+    private IntPredicate filter;
+    private CancellationToken cancellation;
+    private TraversalListener listener;
+    private TraversalStatistics statistics;
+
+    /**
+     * Initializes options that impose no limit: the search explores the
+     * whole component of its sources.
+     */
+    public TraversalOptions() { }
+
+    /**
+     * Limits the search to vertices at most {@code depth} edges from a source.
+     *
+     * @param depth the maximum depth
+     * @return these options
+     * @throws IllegalArgumentException if {@code depth < 0}
+     */
+    public TraversalOptions maxDepth(int depth) {
+        if (depth < 0) throw new IllegalArgumentException("maximum depth must be nonnegative");
+        this.maxDepth = depth;
+        return this;
+    }
+
+    /**
+     * Stops the search once it has visited {@code count} vertices, sources included.
+     *
+     * @param count the maximum number of visited vertices
+     * @return these options
+     * @throws IllegalArgumentException if {@code count < 1}
+     */
+    public TraversalOptions maxVisited(int count) {
+        if (count < 1) throw new IllegalArgumentException("visit budget must be positive");
+        this.maxVisited = count;
+        return this;
+    }
+
+    /**
+     * Adds vertex {@code t} to the targets: the search stops as soon as it
+     * visits any target.
+     *
+     * @param t the target vertex
+     * @return these options
+     * @throws IllegalArgumentException if {@code t < 0}
+     */
+    public TraversalOptions target(int t) {
+        if (t < 0) throw new IllegalArgumentException("vertex " + t + " is negative");
+        if (targetCount == targets.length)
+            targets = Arrays.copyOf(targets, Math.max(4, 2 * targetCount));
+        targets[targetCount++] = t;
+        marks = null;
+        return this;
+    }
+
+    /**
+     * Adds every vertex in {@code vertices} to the targets.
+     *
+     * @param vertices the target vertices
+     * @return these options
+     * @throws IllegalArgumentException if {@code vertices} is {@code null}
+     *         or contains a negative vertex
+     */
+    public TraversalOptions targets(Iterable<Integer> vertices) {
+        if (vertices == null) throw new IllegalArgumentException("argument is null");
+        for (int t : vertices)
+            target(t);
+        return this;
+    }
+
+    /**
+     * Restricts the search to vertices that satisfy {@code filter}; the
+     * search neither visits nor expands the others. Sources are always visited.
+     *
+     * @param filter the vertex filter, or {@code null} to accept every vertex
+     * @return these options
+     */
+    public TraversalOptions filter(IntPredicate filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * Lets {@code token} stop the search: the search polls it every
+     * {@link CancellationToken#CHECK_INTERVAL} vertices.
+     *
+     * @param token the cancellation token, or {@code null} for a search
+     *        that cannot be cancelled
+     * @return these options
+     */
+    public TraversalOptions cancellation(CancellationToken token) {
+        this.cancellation = token;
+        return this;
+    }
+
+    /**
+     * Reports the steps of the search to {@code listener}.
+     *
+     * @param listener the listener, or {@code null} for a silent search
+     * @return these options
+     */
+    public TraversalOptions listener(TraversalListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Records the metrics of the search in {@code statistics}.
+     *
+     * @param statistics the statistics, or {@code null} for a search that
+     *        records nothing
+     * @return these options
+     */
+    public TraversalOptions statistics(TraversalStatistics statistics) {
+        this.statistics = statistics;
+        return this;
+    }
+
+    /**
+     * Returns the maximum depth of a visited vertex.
+     *
+     * @return the maximum depth, or {@code Integer.MAX_VALUE} if unlimited
+     */
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the maximum number of vertices the search visits.
+     *
+     * @return the visit budget, or {@code Integer.MAX_VALUE} if unlimited
+     */
+    public int maxVisited() {
+        return maxVisited;
+    }
+
+    /**
+     * Returns the target vertices.
+     *
+     * @return a copy of the target vertices, in the order they were added
+     */
+    public int[] targets() {
+        return Arrays.copyOf(targets, targetCount);
+    }
+
+    /**
+     * Returns the vertex filter.
+     *
+     * @return the vertex filter, or {@code null} if every vertex is accepted
+     */
+    public IntPredicate filter() {
+        return filter;
+    }
+
+    /**
+     * Returns the cancellation token.
+     *
+     * @return the cancellation token, or {@code null} if the search cannot be cancelled
+     */
+    public CancellationToken cancellation() {
+        return cancellation;
+    }
+
+    /**
+     * Returns the listener.
+     *
+     * @return the listener, or {@code null} if the search is silent
+     */
+    public TraversalListener listener() {
+        return listener;
+    }
+
+    /**
+     * Returns the statistics the search records its metrics in.
+     *
+     * @return the statistics, or {@code null} if the search records nothing
+     */
+    public TraversalStatistics statistics() {
+        return statistics;
+    }
+
+    // returns the number of vertices to process before the first poll of the token
+    int firstCheck() {
+        return cancellation == null ? INFINITY : 1;
+    }
+
+    // returns isTarget[v] for a graph of V vertices, or null if there are no targets;
+    // the array is cached, so searches must not modify it
+    boolean[] targetMarks(int V) {
+        if (targetCount == 0) return null;
+        boolean[] isTarget = marks;
+        if (isTarget != null && isTarget.length == V) return isTarget;
+        isTarget = new boolean[V];
+        for (int i = 0; i < targetCount; i++) {
+            int t = targets[i];
+            if (t >= V)
+                throw new IllegalArgumentException("vertex " + t + " is not between 0 and " + (V-1));
+            isTarget[t] = true;
+        }
+        marks = isTarget;
+        return isTarget;
+    }
+
+    /**
+     * Unit tests the {@code graph.TraversalOptions} data type.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        In in = new In("tinyG.txt");
+        Graph G = new Graph(in);
+        List<Integer> sources = Collections.singletonList(0);
+
+        BreadthFirstPaths near = new BreadthFirstPaths(G, sources, new TraversalOptions().maxDepth(1));
+        System.out.print("within 1 hop of 0: ");
+        for (int v = 0; v < G.V(); v++)
+            if (near.hasPathTo(v)) System.out.print(v + " ");
+        System.out.println();
+
+        BreadthFirstPaths search = new BreadthFirstPaths(G, sources, new TraversalOptions().target(3).target(4));
+        int t = search.foundTarget();
+        System.out.println("first of {3, 4} found from 0: " + t + " (" + search.distTo(t) + " hops)");
+    }
+}
@@ -0,0 +1,303 @@
+package graph;
+/******************************************************************************
+ *  Compilation:  javac graph.TraversalStatistics.java
+ *  Execution:    java graph.TraversalStatistics
+ *  Dependencies: graph.Graph.java graph.BreadthFirstPaths.java
+ *                graph.TraversalOptions.java lib.In.java
+ *  Data files:   https://algs4.cs.princeton.edu/41graph/mediumG.txt
+ *
+ *  Opt-in counters of the work done by graph traversals, accumulated in
+ *  striped counters and also emitted as JDK Flight Recorder events.
+ *
+ *  % java graph.TraversalStatistics
+ *  250 traversals, 62500 vertices, 636500 edges, peak depth 69
+ *  level   frontier     ms
+ *      0        250    2.756
+ *      1       2546    9.640
+ *      2       4120    4.612
+ *  ...
+ *     14         56    0.025
+ *
+ ******************************************************************************/
+
+import jdk.jfr.EventType;
+import lib.In;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ *  The {@code graph.TraversalStatistics} class collects {@link TraversalMetrics}
+ *  from the searches it is passed to through {@link TraversalOptions#statistics}.
+ *  <p>
+ *  A finished search adds its counts to one of a fixed number of stripes,
+ *  picked by its thread, so that searches running in parallel rarely
+ *  contend on the same counters and short-lived threads leave nothing
+ *  behind; {@link #snapshot()} sums the stripes. Each thread reuses the
+ *  buffers of its last search. A search without statistics only keeps a
+ *  few local counters and pays no call per vertex.
+ *  <p>
+ *  Every recorded search is also emitted as a {@code graph.Traversal} JDK
+ *  Flight Recorder event, and every level of a breadth-first search as a
+ *  {@code graph.TraversalLevel} event, when those events are enabled in a
+ *  recording.
+ */
+public class TraversalStatistics {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATION_SUPPORTED = allocationSupported();
+    private static final EventType TRAVERSAL = EventType.getEventType(TraversalEvent.class);
+    private static final EventType LEVEL = EventType.getEventType(TraversalLevelEvent.class);
+    private static final int STRIPES = Integer.highestOneBit(2 * Runtime.getRuntime().availableProcessors() - 1) << 1;
+
+    // the probe of the last search of each thread, reused by its next one
+    private static final ThreadLocal<Probe> PROBES = ThreadLocal.withInitial(Probe::new);
+
+    private final Counters[] stripes = new Counters[STRIPES];
+
+    /**
+     * Initializes empty statistics.
+     */
+    public TraversalStatistics() {
+        for (int i = 0; i < STRIPES; i++)
+            stripes[i] = new Counters();
+    }
+
+    private static boolean allocationSupported() {
+        try {
+            return THREADS instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported()
+                    && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemoryEnabled();
+        }
+        catch (LinkageError | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private static long allocatedBytes() {
+        if (!ALLOCATION_SUPPORTED) return -1;
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns the sum of the metrics recorded so far by all threads.
+     * Traversals still running are not included.
+     *
+     * @return the metrics
+     */
+    public TraversalMetrics snapshot() {
+        Snapshot sum = new Snapshot();
+        for (Counters counters : stripes) {
+            synchronized (counters) {
+                sum.traversals += counters.traversals;
+                sum.vertices += counters.vertices;
+                sum.edges += counters.edges;
+                sum.peakDepth = Math.max(sum.peakDepth, counters.peakDepth);
+                if (counters.bytes < 0 || sum.bytes < 0) sum.bytes = -1;
+                else sum.bytes += counters.bytes;
+                if (counters.levels > sum.levels) {
+                    sum.frontier = Arrays.copyOf(sum.frontier, counters.levels);
+                    sum.nanos = Arrays.copyOf(sum.nanos, counters.levels);
+                    sum.levels = counters.levels;
+                }
+                for (int i = 0; i < counters.levels; i++) {
+                    sum.frontier[i] += counters.frontier[i];
+                    sum.nanos[i] += counters.nanos[i];
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Discards everything recorded so far.
+     */
+    public void reset() {
+        for (Counters counters : stripes) {
+            synchronized (counters) {
+                counters.clear();
+            }
+        }
+    }
+
+    // starts recording one search from source s (or -1 for several sources)
+    Probe start(String engine, int source) {
+        Probe probe = PROBES.get();
+        if (probe.busy) probe = new Probe();    // a search started by a listener of another one
+        Counters counters = stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+        probe.begin(counters, engine, source);
+        return probe;
+    }
+
+    // one stripe of counters, updated under its own lock so reads never race
+    private static final class Counters {
+        long traversals;
+        long vertices;
+        long edges;
+        int peakDepth;
+        long bytes;
+        int levels;
+        long[] frontier = new long[16];
+        long[] nanos = new long[16];
+
+        void clear() {
+            traversals = 0;
+            vertices = 0;
+            edges = 0;
+            peakDepth = 0;
+            bytes = 0;
+            levels = 0;
+            Arrays.fill(frontier, 0);
+            Arrays.fill(nanos, 0);
+        }
+    }
+
+    /**
+     * The recording of one search, used by the traversal classes.
+     */
+    static final class Probe {
+        private Counters counters;
+        private TraversalEvent event;       // null unless the event is enabled
+        private String engine;
+        private long startBytes;
+        private boolean busy;
+        private int level;
+        private long mark;
+        private long[] frontier = new long[16];
+        private long[] nanos = new long[16];
+
+        private void begin(Counters counters, String engine, int source) {
+            this.counters = counters;
+            this.engine = engine;
+            busy = true;
+            level = 0;
+            event = null;
+            if (TRAVERSAL.isEnabled()) {
+                event = new TraversalEvent();
+                event.engine = engine;
+                event.source = source;
+                event.begin();
+            }
+            startBytes = allocatedBytes();
+            mark = System.nanoTime();
+        }
+
+        // the search has finished expanding a level of frontierSize vertices
+        void level(int frontierSize) {
+            long now = System.nanoTime();
+            if (level == frontier.length) {
+                frontier = Arrays.copyOf(frontier, 2 * level);
+                nanos = Arrays.copyOf(nanos, 2 * level);
+            }
+            frontier[level] = frontierSize;
+            nanos[level] = now - mark;
+            mark = now;
+
+            if (LEVEL.isEnabled()) {
+                TraversalLevelEvent levelEvent = new TraversalLevelEvent();
+                levelEvent.engine = engine;
+                levelEvent.level = level;
+                levelEvent.frontierSize = frontierSize;
+                levelEvent.commit();
+            }
+            level++;
+        }
+
+        // the search has ended
+        void finish(int vertices, long edges, int peakDepth) {
+            long endBytes = allocatedBytes();
+            long bytes = startBytes < 0 || endBytes < 0 ? -1 : endBytes - startBytes;
+            synchronized (counters) {
+                counters.traversals++;
+                counters.vertices += vertices;
+                counters.edges += edges;
+                counters.peakDepth = Math.max(counters.peakDepth, peakDepth);
+                if (bytes < 0 || counters.bytes < 0) counters.bytes = -1;
+                else counters.bytes += bytes;
+                if (level > counters.frontier.length) {
+                    int n = Math.max(level, 2 * counters.frontier.length);
+                    counters.frontier = Arrays.copyOf(counters.frontier, n);
+                    counters.nanos = Arrays.copyOf(counters.nanos, n);
+                }
+                for (int i = 0; i < level; i++) {
+                    counters.frontier[i] += frontier[i];
+                    counters.nanos[i] += nanos[i];
+                }
+                counters.levels = Math.max(counters.levels, level);
+            }
+
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.verticesVisited = vertices;
+                    event.edgesInspected = edges;
+                    event.levels = level;
+                    event.peakDepth = peakDepth;
+                    event.bytesAllocated = bytes;
+                    event.commit();
+                }
+                event = null;
+            }
+            counters = null;
+            busy = false;
+        }
+    }
+
+    // the sum of the counters of all threads
+    private static final class Snapshot implements TraversalMetrics {
+        private long traversals;
+        private long vertices;
+        private long edges;
+        private int peakDepth;
+        private long bytes;
+        private int levels;
+        private long[] frontier = new long[0];
+        private long[] nanos = new long[0];
+
+        public long traversals()      { return traversals; }
+        public long verticesVisited() { return vertices; }
+        public long edgesInspected()  { return edges; }
+        public int peakDepth()        { return peakDepth; }
+        public long bytesAllocated()  { return bytes; }
+        public int levels()           { return levels; }
+
+        public long frontierSize(int level) {
+            validateLevel(level);
+            return frontier[level];
+        }
+
+        public long levelNanos(int level) {
+            validateLevel(level);
+            return nanos[level];
+        }
+
+        private void validateLevel(int level) {
+            if (level < 0 || level >= levels)
+                throw new IllegalArgumentException("level " + level + " is not between 0 and " + (levels-1));
+        }
+    }
+
+    /**
+     * Unit tests the {@code graph.TraversalStatistics} data type with a
+     * breadth-first search from every vertex of {@code mediumG.txt}.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        In in = new In("mediumG.txt");
+        Graph G = new Graph(in);
+        TraversalStatistics statistics = new TraversalStatistics();
+        TraversalOptions options = new TraversalOptions().statistics(statistics);
+        for (int s = 0; s < G.V(); s++)
+            new BreadthFirstPaths(G, Collections.singletonList(s), options);
+
+        TraversalMetrics metrics = statistics.snapshot();
+        System.out.println(metrics.traversals() + " traversals, " + metrics.verticesVisited() + " vertices, "
+                + metrics.edgesInspected() + " edges, peak depth " + metrics.peakDepth());
+        System.out.println("level   frontier     ms");
+        for (int level = 0; level < metrics.levels(); level++)
+            System.out.printf("%5d  %9d  %7.3f%n", level, metrics.frontierSize(level),
+                    metrics.levelNanos(level) / 1e6);
+    }
+}
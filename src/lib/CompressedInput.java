@@ -0,0 +1,153 @@
+package lib; /******************************************************************************
+ *  Compilation:  javac lib.CompressedInput.java
+ *  Execution:    java lib.CompressedInput file
+ *  Dependencies: lib.ReadAheadInputStream.java
+ *
+ *  Opens a file that may be compressed, recognizing gzip by its magic
+ *  bytes and decompressing it in a background thread.
+ *
+ *  % gzip -k mediumG.txt
+ *  % java lib.CompressedInput mediumG.txt.gz
+ *  mediumG.txt.gz: GZIP, 3380 bytes, 9106 bytes decompressed
+ *
+ ******************************************************************************/
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ *  The {@code lib.CompressedInput} class provides static methods for
+ *  opening a file whose content may be compressed, so that a compressed
+ *  graph file can be read with {@code new In(file)} without decompressing
+ *  it to disk first.
+ *  <p>
+ *  The compression is recognized by the first bytes of the file, not by its
+ *  name. A gzip stream is decompressed by a {@link ReadAheadInputStream},
+ *  in a background thread that stays a few blocks ahead of the reader, so
+ *  that decompression overlaps with parsing. A Zstandard stream is
+ *  recognized but rejected, since the JDK has no Zstandard decoder; any
+ *  other file is read as it is.
+ */
+public final class CompressedInput {
+
+    /**
+     * The compressions recognized by their magic bytes.
+     */
+    public enum Compression {
+        /** no compression recognized */
+        NONE,
+        /** gzip, starting with bytes {@code 1f 8b} */
+        GZIP,
+        /** Zstandard, starting with bytes {@code 28 b5 2f fd} */
+        ZSTD
+    }
+
+    // the size of the buffers around the file and the inflater
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // this class cannot be instantiated
+    private CompressedInput() { }
+
+    /**
+     * Returns the compression of the stream, whose next bytes are read and
+     * then reset.
+     *
+     * @param  in the stream; it must support {@link InputStream#mark(int)}
+     * @return the compression of the stream
+     * @throws IllegalArgumentException if {@code in} is {@code null}, or
+     *         does not support {@code mark}
+     * @throws IOException if the stream cannot be read
+     */
+    public static Compression detect(InputStream in) throws IOException {
+        if (in == null) throw new IllegalArgumentException("input stream is null");
+        if (!in.markSupported()) throw new IllegalArgumentException("input stream does not support mark");
+        byte[] magic = new byte[4];
+        in.mark(magic.length);
+        int n = 0;
+        try {
+            for (int count; n < magic.length && (count = in.read(magic, n, magic.length - n)) > 0; )
+                n += count;
+        }
+        finally {
+            in.reset();
+        }
+        if (n >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b)
+            return Compression.GZIP;
+        if (n == 4 && (magic[0] & 0xff) == 0x28 && (magic[1] & 0xff) == 0xb5
+                   && (magic[2] & 0xff) == 0x2f && (magic[3] & 0xff) == 0xfd)
+            return Compression.ZSTD;
+        return Compression.NONE;
+    }
+
+    /**
+     * Opens a file for reading, decompressing it if it is compressed.
+     *
+     * @param  file the file
+     * @return a buffered stream over the (decompressed) content of the file
+     * @throws IllegalArgumentException if {@code file} is {@code null}, or is
+     *         compressed with Zstandard
+     * @throws IOException if the file cannot be opened or read
+     */
+    public static InputStream open(File file) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file is null");
+        return open(new FileInputStream(file), file.toString());
+    }
+
+    /**
+     * Wraps a stream, decompressing it if it is compressed.
+     * The stream is closed by closing the returned stream, or if an
+     * exception is thrown.
+     *
+     * @param  in the stream
+     * @param  name the name of the stream, for error messages
+     * @return a buffered stream over the (decompressed) content of {@code in}
+     * @throws IllegalArgumentException if {@code in} is {@code null}, or is
+     *         compressed with Zstandard
+     * @throws IOException if the stream cannot be read
+     */
+    public static InputStream open(InputStream in, String name) throws IOException {
+        if (in == null) throw new IllegalArgumentException("input stream is null");
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        try {
+            switch (detect(buffered)) {
+                case GZIP:
+                    return new ReadAheadInputStream(new GZIPInputStream(buffered, BUFFER_SIZE));
+                case ZSTD:
+                    throw new IllegalArgumentException(name + " is compressed with Zstandard, which is not supported; "
+                            + "decompress it with zstd -d or recompress it with gzip");
+                default:
+                    return buffered;
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            buffered.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reports the compression and decompressed size of a file.
+     *
+     * @param args the command-line arguments: the file name
+     * @throws IOException if the file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        File file = new File(args[0]);
+        Compression compression;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            compression = detect(in);
+        }
+        long size = 0;
+        try (InputStream in = open(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int n; (n = in.read(buffer)) > 0; )
+                size += n;
+        }
+        System.out.println(file + ": " + compression + ", " + file.length() + " bytes, "
+                + size + " bytes decompressed");
+    }
+}
@@ -0,0 +1,373 @@
+package lib; /******************************************************************************
+ *  Compilation:  javac lib.FastOut.java
+ *  Execution:    java lib.FastOut
+ *  Dependencies: none
+ *
+ *  Writes strings and numbers through a large buffer that is flushed
+ *  only when it is full or when asked to.
+ *
+ ******************************************************************************/
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ *  This class provides methods for printing strings and numbers, in UTF-8,
+ *  much faster than {@link System#out} or {@link StdOut} when the output
+ *  is large.
+ *  <p>
+ *  <b>Differences with StdOut.</b>
+ *  {@link StdOut} flushes after every {@code println()}, which costs a
+ *  system call per line. {@code lib.FastOut} instead collects bytes in a
+ *  buffer (64 KB by default) and writes them only when the buffer is full,
+ *  or when {@link #flush()} or {@link #close()} is called, so that text
+ *  appears in the output <em>only</em> then. Integers are converted to
+ *  digits directly in the buffer, without creating a {@code String}.
+ *  <p>
+ *  When the output is a {@link WritableByteChannel}, or a
+ *  {@link FileOutputStream} such as a file or
+ *  {@code new FileOutputStream(FileDescriptor.out)}, the buffer is a
+ *  direct {@link ByteBuffer} written straight to the channel.
+ *  Otherwise it is an array written to the stream with one call per buffer.
+ *  <p>
+ *  A {@code FastOut} is not safe for use by multiple threads.
+ */
+public final class FastOut implements Flushable, Closeable {
+
+    /**
+     * The buffer size used unless another is given, in bytes.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final String NEWLINE = System.lineSeparator();
+
+    // room for the digits and sign of any long
+    private static final int MAX_DIGITS = 20;
+
+    private final ByteBuffer buffer;
+    private final WritableByteChannel channel;    // null unless writing to a channel or file
+    private final OutputStream stream;    // null means the current System.out
+
+    /**
+     * Initializes an output that writes to standard output, as it is
+     * whenever this output is flushed.
+     */
+    public FastOut() {
+        this.buffer = ByteBuffer.allocate(DEFAULT_CAPACITY);
+        this.channel = null;
+        this.stream = null;
+    }
+
+    /**
+     * Initializes an output that writes to {@code out}.
+     *
+     * @param out the output stream
+     * @throws IllegalArgumentException if {@code out} is {@code null}
+     */
+    public FastOut(OutputStream out) {
+        this(out, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes an output that writes to {@code out} through a buffer of
+     * {@code capacity} bytes.
+     *
+     * @param out the output stream
+     * @param capacity the size of the buffer, in bytes
+     * @throws IllegalArgumentException if {@code out} is {@code null}
+     * @throws IllegalArgumentException if {@code capacity < 64}
+     */
+    public FastOut(OutputStream out, int capacity) {
+        if (out == null) throw new IllegalArgumentException("output stream is null");
+        if (capacity < 64) throw new IllegalArgumentException("capacity must be at least 64 bytes");
+        if (out instanceof FileOutputStream) {
+            this.buffer = ByteBuffer.allocateDirect(capacity);
+            this.channel = ((FileOutputStream) out).getChannel();
+        }
+        else {
+            this.buffer = ByteBuffer.allocate(capacity);
+            this.channel = null;
+        }
+        this.stream = out;
+    }
+
+    /**
+     * Initializes an output that writes to {@code channel} through a direct
+     * buffer of {@code capacity} bytes.
+     *
+     * @param channel the channel
+     * @param capacity the size of the buffer, in bytes
+     * @throws IllegalArgumentException if {@code channel} is {@code null}
+     * @throws IllegalArgumentException if {@code capacity < 64}
+     */
+    public FastOut(WritableByteChannel channel, int capacity) {
+        if (channel == null) throw new IllegalArgumentException("channel is null");
+        if (capacity < 64) throw new IllegalArgumentException("capacity must be at least 64 bytes");
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+        this.channel = channel;
+        this.stream = null;
+    }
+
+    // makes room for at least n bytes
+    private void ensure(int n) {
+        if (buffer.remaining() < n) drain();
+    }
+
+    // writes the buffer out, without flushing the stream
+    private void drain() {
+        buffer.flip();
+        try {
+            if (channel != null) {
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+            else {
+                OutputStream out = stream != null ? stream : System.out;
+                out.write(buffer.array(), 0, buffer.limit());
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Prints a string.
+     *
+     * @param s the string to print
+     */
+    public void print(String s) {
+        if (s == null) s = "null";
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (!buffer.hasRemaining()) drain();
+                buffer.put((byte) c);
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                putCodePoint(Character.toCodePoint(c, s.charAt(++i)));
+            }
+            else if (Character.isSurrogate(c)) {
+                if (!buffer.hasRemaining()) drain();
+                buffer.put((byte) '?');     // as String.getBytes() does for a lone surrogate
+            }
+            else putCodePoint(c);
+        }
+    }
+
+    // the UTF-8 encoding of a code point that is not ASCII
+    private void putCodePoint(int cp) {
+        ensure(4);
+        if (cp < 0x800) {
+            buffer.put((byte) (0xc0 | (cp >> 6)));
+        }
+        else if (cp < 0x10000) {
+            buffer.put((byte) (0xe0 | (cp >> 12)));
+            buffer.put((byte) (0x80 | ((cp >> 6) & 0x3f)));
+        }
+        else {
+            buffer.put((byte) (0xf0 | (cp >> 18)));
+            buffer.put((byte) (0x80 | ((cp >> 12) & 0x3f)));
+            buffer.put((byte) (0x80 | ((cp >> 6) & 0x3f)));
+        }
+        buffer.put((byte) (0x80 | (cp & 0x3f)));
+    }
+
+    /**
+     * Prints a character.
+     *
+     * @param c the character to print
+     */
+    public void print(char c) {
+        if (c < 0x80) {
+            if (!buffer.hasRemaining()) drain();
+            buffer.put((byte) c);
+        }
+        else print(String.valueOf(c));
+    }
+
+    /**
+     * Prints an integer in decimal.
+     *
+     * @param x the integer to print
+     */
+    public void print(int x) {
+        print((long) x);
+    }
+
+    /**
+     * Prints a long integer in decimal.
+     *
+     * @param x the long integer to print
+     */
+    public void print(long x) {
+        ensure(MAX_DIGITS);
+        if (x < 0) {
+            buffer.put((byte) '-');
+            if (x == Long.MIN_VALUE) {
+                // -x overflows; print all but the last digit first
+                putDigits(-(x / 10));
+                buffer.put((byte) ('0' - x % 10));
+                return;
+            }
+            x = -x;
+        }
+        putDigits(x);
+    }
+
+    // the digits of x >= 0, written from the last one back
+    private void putDigits(long x) {
+        int digits = 1;
+        for (long y = x / 10; y != 0; y /= 10)
+            digits++;
+        int end = buffer.position() + digits;
+        for (int p = end - 1; p >= end - digits; p--) {
+            buffer.put(p, (byte) ('0' + x % 10));
+            x /= 10;
+        }
+        buffer.position(end);
+    }
+
+    /**
+     * Prints a boolean as {@code true} or {@code false}.
+     *
+     * @param x the boolean to print
+     */
+    public void print(boolean x) {
+        print(x ? "true" : "false");
+    }
+
+    /**
+     * Prints the string representation of an object.
+     *
+     * @param x the object to print
+     */
+    public void print(Object x) {
+        print(String.valueOf(x));
+    }
+
+    /**
+     * Terminates the current line by printing the line-separator string.
+     */
+    public void println() {
+        print(NEWLINE);
+    }
+
+    /**
+     * Prints a string and then terminates the line.
+     *
+     * @param s the string to print
+     */
+    public void println(String s) {
+        print(s);
+        println();
+    }
+
+    /**
+     * Prints a character and then terminates the line.
+     *
+     * @param c the character to print
+     */
+    public void println(char c) {
+        print(c);
+        println();
+    }
+
+    /**
+     * Prints an integer and then terminates the line.
+     *
+     * @param x the integer to print
+     */
+    public void println(int x) {
+        print(x);
+        println();
+    }
+
+    /**
+     * Prints a long integer and then terminates the line.
+     *
+     * @param x the long integer to print
+     */
+    public void println(long x) {
+        print(x);
+        println();
+    }
+
+    /**
+     * Prints a boolean and then terminates the line.
+     *
+     * @param x the boolean to print
+     */
+    public void println(boolean x) {
+        print(x);
+        println();
+    }
+
+    /**
+     * Prints an object and then terminates the line.
+     *
+     * @param x the object to print
+     */
+    public void println(Object x) {
+        print(x);
+        println();
+    }
+
+    /**
+     * Writes everything printed so far to the output, and flushes it.
+     *
+     * @throws UncheckedIOException if the output cannot be written
+     */
+    @Override
+    public void flush() {
+        drain();
+        if (channel != null) return;
+        try {
+            (stream != null ? stream : System.out).flush();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes this output and closes its stream or channel. An output that
+     * writes to standard output is only flushed.
+     *
+     * @throws UncheckedIOException if the output cannot be written
+     */
+    @Override
+    public void close() {
+        flush();
+        try {
+            if (stream != null) stream.close();
+            else if (channel != null) channel.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Unit tests some of the methods in {@code lib.FastOut}.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        FastOut out = new FastOut();
+        out.println("Test");
+        out.println(17);
+        out.println(Long.MIN_VALUE);
+        out.println(true);
+        out.println("café 😀");
+        out.flush();
+    }
+}
@@ -1,7 +1,7 @@
 package lib; /******************************************************************************
  *  Compilation:  javac lib.In.java
  *  Execution:    java lib.In   (basic test --- see source for required files)
- *  Dependencies: none
+ *  Dependencies: lib.CompressedInput.java lib.TokenReader.java
  *
  *  Reads in data of various types from standard input, files, and URLs.
  *
@@ -39,6 +39,18 @@ import java.util.regex.Pattern;
  *  consist of \n, \r, \r\n, and Unicode hex code points 0x2028, 0x2029, 0x0085;
  *  see <a href="http://www.docjar.com/html/api/java/util/Scanner.java.html">
  *  Scanner.java</a> (NB: Java 6u23 and earlier uses only \r, \r, \r\n).
+ *  <p>
+ *  <b>Fast mode.</b>
+ *  An input stream created with {@link #fast(String)} or {@link #fast(File)}
+ *  reads the bytes of its input directly, instead of through a
+ *  {@link Scanner}: it parses numbers without regular expressions and
+ *  without creating a {@code String} for each one, and
+ *  {@link #readAllInts()} never holds the whole input as a {@code String}.
+ *  It reads the same tokens, lines and characters with the same methods;
+ *  numbers, however, must be written with ASCII digits and without
+ *  grouping separators such as {@code 1,000}, and a token that is not a
+ *  number always throws an {@link InputMismatchException}, in
+ *  {@code readAllInts()} too.
  *
  *  @author David Pritchard
  *  @author Robert Sedgewick
@@ -68,6 +80,7 @@ public final class In {
     //// end: section (1 of 2) of code duplicated from lib.In to lib.StdIn.
 
     private Scanner scanner;
+    private TokenReader reader;     // instead of the scanner, in fast mode
 
    /**
      * Initializes an input stream from standard input.
@@ -117,19 +130,20 @@ public final class In {
     }
 
    /**
-     * Initializes an input stream from a file.
+     * Initializes an input stream from a file. A gzip-compressed file is
+     * decompressed as it is read; see {@link CompressedInput}.
      *
      * @param  file the file
      * @throws IllegalArgumentException if cannot open {@code file}
-     * @throws IllegalArgumentException if {@code file} is {@code null}
+     * @throws IllegalArgumentException if {@code file} is {@code null}, or is
+     *         compressed with Zstandard
      */
     public In(File file) {
         if (file == null) throw new IllegalArgumentException("file argument is null");
         try {
             // for consistency with lib.StdIn, wrap with BufferedInputStream instead of use
-            // file as argument to Scanner
-            FileInputStream fis = new FileInputStream(file);
-            scanner = new Scanner(new BufferedInputStream(fis), CHARSET_NAME);
+            // file as argument to Scanner; gzip files are decompressed as they are read
+            scanner = new Scanner(CompressedInput.open(file), CHARSET_NAME);
             scanner.useLocale(LOCALE);
         }
         catch (IOException ioe) {
@@ -140,6 +154,7 @@ public final class In {
 
    /**
      * Initializes an input stream from a filename or web page name.
+     * A gzip-compressed file is decompressed as it is read.
      *
      * @param  name the filename or web page name
      * @throws IllegalArgumentException if cannot open {@code name} as
@@ -149,43 +164,45 @@ public final class In {
     public In(String name) {
         if (name == null) throw new IllegalArgumentException("argument is null");
         try {
-            // first try to read file from local file system
-            File file = new File(name);
-            if (file.exists()) {
-                // for consistency with lib.StdIn, wrap with BufferedInputStream instead of use
-                // file as argument to Scanner
-                FileInputStream fis = new FileInputStream(file);
-                scanner = new Scanner(new BufferedInputStream(fis), CHARSET_NAME);
-                scanner.useLocale(LOCALE);
-                return;
-            }
+            scanner = new Scanner(open(name), CHARSET_NAME);
+            scanner.useLocale(LOCALE);
+        }
+        catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not open " + name, ioe);
+        }
+    }
 
-            // resource relative to .class file
-            URL url = getClass().getResource(name);
+    // the stream of a file, a resource, or a web page, by name
+    private static InputStream open(String name) throws IOException {
+        // first try to read file from local file system
+        File file = new File(name);
+        if (file.exists()) {
+            // for consistency with lib.StdIn, wrap with BufferedInputStream instead of use
+            // file as argument to Scanner; gzip files are decompressed as they are read
+            return CompressedInput.open(file);
+        }
 
-            // resource relative to classloader root
-            if (url == null) {
-                url = getClass().getClassLoader().getResource(name);
-            }
+        // resource relative to .class file
+        URL url = In.class.getResource(name);
 
-            // or URL from web
-            if (url == null) {
-                url = new URL(name);
-            }
+        // resource relative to classloader root
+        if (url == null) {
+            url = In.class.getClassLoader().getResource(name);
+        }
 
-            URLConnection site = url.openConnection();
+        // or URL from web
+        if (url == null) {
+            url = new URL(name);
+        }
 
-            // in order to set User-Agent, replace above line with these two
-            // HttpURLConnection site = (HttpURLConnection) url.openConnection();
-            // site.addRequestProperty("User-Agent", "Mozilla/4.76");
+        URLConnection site = url.openConnection();
 
-            InputStream is     = site.getInputStream();
-            scanner            = new Scanner(new BufferedInputStream(is), CHARSET_NAME);
-            scanner.useLocale(LOCALE);
-        }
-        catch (IOException ioe) {
-            throw new IllegalArgumentException("Could not open " + name, ioe);
-        }
+        // in order to set User-Agent, replace above line with these two
+        // HttpURLConnection site = (HttpURLConnection) url.openConnection();
+        // site.addRequestProperty("User-Agent", "Mozilla/4.76");
+
+        InputStream is = site.getInputStream();
+        return new BufferedInputStream(is);
     }
 
     /**
@@ -203,13 +220,58 @@ public final class In {
         this.scanner = scanner;
     }
 
+    // an input stream in fast mode
+    private In(TokenReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns an input stream in fast mode from a filename or web page name,
+     * found as {@link #In(String)} finds it. See the class documentation.
+     *
+     * @param  name the filename or web page name
+     * @return an input stream in fast mode
+     * @throws IllegalArgumentException if cannot open {@code name} as
+     *         a file or URL
+     * @throws IllegalArgumentException if {@code name} is {@code null}
+     */
+    public static In fast(String name) {
+        if (name == null) throw new IllegalArgumentException("argument is null");
+        try {
+            return new In(new TokenReader(open(name)));
+        }
+        catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not open " + name, ioe);
+        }
+    }
+
+    /**
+     * Returns an input stream in fast mode from a file, which may be
+     * gzip-compressed. See the class documentation.
+     *
+     * @param  file the file
+     * @return an input stream in fast mode
+     * @throws IllegalArgumentException if cannot open {@code file}
+     * @throws IllegalArgumentException if {@code file} is {@code null}, or is
+     *         compressed with Zstandard
+     */
+    public static In fast(File file) {
+        if (file == null) throw new IllegalArgumentException("file argument is null");
+        try {
+            return new In(new TokenReader(CompressedInput.open(file)));
+        }
+        catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not open " + file, ioe);
+        }
+    }
+
     /**
      * Returns true if this input stream exists.
      *
      * @return {@code true} if this input stream exists; {@code false} otherwise
      */
     public boolean exists()  {
-        return scanner != null;
+        return scanner != null || reader != null;
     }
     
     ////  begin: section (2 of 2) of code duplicated from lib.In to lib.StdIn,
@@ -224,6 +286,7 @@ public final class In {
      *         {@code false} otherwise
      */
     public boolean isEmpty() {
+        if (reader != null) return reader.isEmpty();
         return !scanner.hasNext();
     }
 
@@ -237,6 +300,7 @@ public final class In {
      *         {@code false} otherwise
      */
     public boolean hasNextLine() {
+        if (reader != null) return reader.hasNextChar();
         return scanner.hasNextLine();
     }
 
@@ -249,6 +313,7 @@ public final class In {
      *         {@code false} otherwise   
      */
     public boolean hasNextChar() {
+        if (reader != null) return reader.hasNextChar();
         scanner.useDelimiter(EMPTY_PATTERN);
         boolean result = scanner.hasNext();
         scanner.useDelimiter(WHITESPACE_PATTERN);
@@ -262,6 +327,7 @@ public final class In {
      * @return the next line in this input stream; {@code null} if no such line
      */
     public String readLine() {
+        if (reader != null) return reader.readLine();
         String line;
         try {
             line = scanner.nextLine();
@@ -279,6 +345,7 @@ public final class In {
      * @throws NoSuchElementException if the input stream is empty
      */
     public char readChar() {
+        if (reader != null) return reader.readChar();
         scanner.useDelimiter(EMPTY_PATTERN);
         try {
             String ch = scanner.next();
@@ -300,6 +367,7 @@ public final class In {
      * @return the remainder of this input stream, as a string
      */
     public String readAll() {
+        if (reader != null) return reader.readAll();
         if (!scanner.hasNextLine())
             return "";
 
@@ -317,6 +385,7 @@ public final class In {
      * @throws NoSuchElementException if the input stream is empty
      */
     public String readString() {
+        if (reader != null) return reader.readString();
         try {
             return scanner.next();
         }
@@ -335,6 +404,7 @@ public final class In {
      * @throws InputMismatchException if the next token cannot be parsed as an {@code int}
      */
     public int readInt() {
+        if (reader != null) return reader.readInt();
         try {
             return scanner.nextInt();
         }
@@ -358,6 +428,7 @@ public final class In {
      * @throws InputMismatchException if the next token cannot be parsed as a {@code double}
      */
     public double readDouble() {
+        if (reader != null) return reader.readDouble();
         try {
             return scanner.nextDouble();
         }
@@ -381,6 +452,7 @@ public final class In {
      * @throws InputMismatchException if the next token cannot be parsed as a {@code float}
      */
     public float readFloat() {
+        if (reader != null) return reader.readFloat();
         try {
             return scanner.nextFloat();
         }
@@ -404,6 +476,7 @@ public final class In {
      * @throws InputMismatchException if the next token cannot be parsed as a {@code long}
      */
     public long readLong() {
+        if (reader != null) return reader.readLong();
         try {
             return scanner.nextLong();
         }
@@ -427,6 +500,7 @@ public final class In {
      * @throws InputMismatchException if the next token cannot be parsed as a {@code short}
      */
     public short readShort() {
+        if (reader != null) return reader.readShort();
         try {
             return scanner.nextShort();
         }
@@ -452,6 +526,7 @@ public final class In {
      * @throws InputMismatchException if the next token cannot be parsed as a {@code byte}
      */
     public byte readByte() {
+        if (reader != null) return reader.readByte();
         try {
             return scanner.nextByte();
         }
@@ -498,6 +573,7 @@ public final class In {
      * @return all remaining tokens in this input stream, as an array of strings
      */
     public String[] readAllStrings() {
+        if (reader != null) return reader.readAllStrings();
         // we could use readAll.trim().split(), but that's not consistent
         // since trim() uses characters 0x00..0x20 as whitespace
         String[] tokens = WHITESPACE_PATTERN.split(readAll());
@@ -531,6 +607,7 @@ public final class In {
      * @return all remaining lines in this input stream, as an array of integers
      */
     public int[] readAllInts() {
+        if (reader != null) return reader.readAllInts();
         String[] fields = readAllStrings();
         int[] vals = new int[fields.length];
         for (int i = 0; i < fields.length; i++)
@@ -545,6 +622,7 @@ public final class In {
      * @return all remaining lines in this input stream, as an array of longs
      */
     public long[] readAllLongs() {
+        if (reader != null) return reader.readAllLongs();
         String[] fields = readAllStrings();
         long[] vals = new long[fields.length];
         for (int i = 0; i < fields.length; i++)
@@ -559,6 +637,7 @@ public final class In {
      * @return all remaining lines in this input stream, as an array of doubles
      */
     public double[] readAllDoubles() {
+        if (reader != null) return reader.readAllDoubles();
         String[] fields = readAllStrings();
         double[] vals = new double[fields.length];
         for (int i = 0; i < fields.length; i++)
@@ -572,33 +651,40 @@ public final class In {
      * Closes this input stream.
      */
     public void close() {
-        scanner.close();  
+        if (reader != null) reader.close();
+        else scanner.close();
     }
 
     /**
      * Reads all integers from a file and returns them as
-     * an array of integers.
+     * an array of integers, in fast mode.
      *
      * @param      filename the name of the file
      * @return     the integers in the file
-     * @deprecated Replaced by {@code new lib.In(filename)}.{@link #readAllInts()}.
+     * @deprecated Replaced by {@code lib.In.fast(filename)}.{@link #readAllInts()}.
      */
     @Deprecated
     public static int[] readInts(String filename) {
-        return new In(filename).readAllInts();
+        In in = fast(filename);
+        int[] vals = in.readAllInts();
+        in.close();
+        return vals;
     }
 
    /**
      * Reads all doubles from a file and returns them as
-     * an array of doubles.
+     * an array of doubles, in fast mode.
      *
      * @param      filename the name of the file
      * @return     the doubles in the file
-     * @deprecated Replaced by {@code new lib.In(filename)}.{@link #readAllDoubles()}.
+     * @deprecated Replaced by {@code lib.In.fast(filename)}.{@link #readAllDoubles()}.
      */
     @Deprecated
     public static double[] readDoubles(String filename) {
-        return new In(filename).readAllDoubles();
+        In in = fast(filename);
+        double[] vals = in.readAllDoubles();
+        in.close();
+        return vals;
     }
 
    /**
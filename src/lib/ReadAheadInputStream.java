@@ -0,0 +1,199 @@
+package lib; /******************************************************************************
+ *  Compilation:  javac lib.ReadAheadInputStream.java
+ *  Execution:    java lib.ReadAheadInputStream file
+ *  Dependencies: none
+ *
+ *  An input stream that reads its source in a background thread, a few
+ *  blocks ahead of its reader.
+ *
+ ******************************************************************************/
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ *  This class wraps an input stream whose reads are expensive, such as a
+ *  decompressing stream, so that its data is produced in a background
+ *  thread while the reader consumes the data produced before.
+ *  <p>
+ *  The background thread reads blocks of {@code blockSize} bytes from the
+ *  source and hands them over through a queue that holds at most
+ *  {@code depth} blocks, so at most {@code (depth + 2) * blockSize} bytes
+ *  are buffered however far ahead the source could go; the thread waits
+ *  while the queue is full. An exception or error thrown by the source is
+ *  rethrown to the reader once it has consumed the blocks read before it.
+ *  <p>
+ *  Like the streams it wraps, a {@code ReadAheadInputStream} is not safe
+ *  for use by multiple reader threads.
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    /**
+     * The block size used unless another is given, in bytes.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    /**
+     * The number of queued blocks used unless another is given.
+     */
+    public static final int DEFAULT_DEPTH = 4;
+
+    private static final byte[] END = new byte[0];
+
+    private final InputStream source;
+    private final BlockingQueue<byte[]> blocks;
+    private final Thread reader;
+    private volatile Throwable failure;     // an IOException or Error of the source, rethrown at END
+    private volatile boolean closed;
+
+    private byte[] block = new byte[0];
+    private int position;
+    private boolean ended;
+
+    /**
+     * Starts reading {@code source} ahead with the default block size and depth.
+     *
+     * @param source the stream to read
+     * @throws IllegalArgumentException if {@code source} is {@code null}
+     */
+    public ReadAheadInputStream(InputStream source) {
+        this(source, DEFAULT_BLOCK_SIZE, DEFAULT_DEPTH);
+    }
+
+    /**
+     * Starts reading {@code source} ahead, in blocks of {@code blockSize}
+     * bytes, keeping at most {@code depth} blocks queued.
+     *
+     * @param source the stream to read
+     * @param blockSize the size of a block, in bytes
+     * @param depth the maximum number of queued blocks
+     * @throws IllegalArgumentException if {@code source} is {@code null},
+     *         or {@code blockSize} or {@code depth} is not positive
+     */
+    public ReadAheadInputStream(InputStream source, int blockSize, int depth) {
+        if (source == null) throw new IllegalArgumentException("source stream is null");
+        if (blockSize < 1) throw new IllegalArgumentException("block size must be positive");
+        if (depth < 1) throw new IllegalArgumentException("depth must be positive");
+        this.source = source;
+        this.blocks = new ArrayBlockingQueue<>(depth);
+        this.reader = new Thread(() -> fill(blockSize), "read-ahead");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    // the background thread: reads full blocks until the end of the source
+    private void fill(int blockSize) {
+        try {
+            while (!closed) {
+                byte[] buffer = new byte[blockSize];
+                int n = 0;
+                while (n < blockSize) {
+                    int count = source.read(buffer, n, blockSize - n);
+                    if (count < 0) break;
+                    n += count;
+                }
+                if (n > 0) blocks.put(n == blockSize ? buffer : Arrays.copyOf(buffer, n));
+                if (n < blockSize) break;
+            }
+        }
+        catch (InterruptedException e) {
+            // closed by the reader
+        }
+        catch (IOException | Error e) {
+            failure = e;
+        }
+        catch (RuntimeException e) {
+            failure = new IOException(e);
+        }
+        finally {
+            // whatever stopped the thread, the reader must not wait for a block forever;
+            // close() sets closed before it interrupts, so this put cannot miss the interrupt
+            try {
+                if (!closed) blocks.put(END);
+            }
+            catch (InterruptedException e) {
+                // closed by the reader
+            }
+        }
+    }
+
+    // makes the next unread byte available; returns false at the end
+    private boolean next() throws IOException {
+        while (position == block.length) {
+            if (ended) return false;
+            if (closed) throw new IOException("stream closed");
+            try {
+                block = blocks.take();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for data");
+            }
+            position = 0;
+            if (block == END) {
+                ended = true;
+                if (failure instanceof Error) throw (Error) failure;
+                if (failure != null) throw (IOException) failure;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!next()) return -1;
+        return block[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+        if (len == 0) return 0;
+        if (!next()) return -1;
+        int n = Math.min(len, block.length - position);
+        System.arraycopy(block, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return block.length - position;
+    }
+
+    /**
+     * Stops the background thread and closes the source. The thread is
+     * interrupted, so it stops even while it waits for room in a full queue.
+     *
+     * @throws IOException if the source cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        reader.interrupt();
+        blocks.clear();
+        source.close();
+    }
+
+    /**
+     * Copies a file to standard output through a read-ahead stream.
+     *
+     * @param args the command-line arguments: the file name
+     * @throws IOException if the file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        try (InputStream in = new ReadAheadInputStream(new FileInputStream(args[0]))) {
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) > 0; )
+                System.out.write(buffer, 0, n);
+        }
+        System.out.flush();
+    }
+}
@@ -1,7 +1,7 @@
 package lib; /******************************************************************************
  *  Compilation:  javac lib.StdIn.java
  *  Execution:    java lib.StdIn   (interactive test of basic functionality)
- *  Dependencies: none
+ *  Dependencies: lib.TokenReader.java
  *
  *  Reads in data of various types from standard input.
  *
@@ -176,6 +176,12 @@ import java.util.regex.Pattern;
  *  Historical note: {@code lib.StdIn} preceded {@code Scanner}; when
  *  {@code Scanner} was introduced, this class was re-implemented to use {@code Scanner}.
  *  <p>
+ *  <b>Fast mode.</b>
+ *  After {@link #useFastReader()}, {@code lib.StdIn} reads the bytes of
+ *  standard input directly instead of through a {@code Scanner}, as an
+ *  {@link In} created with {@link In#fast(String)} does, which is much
+ *  faster for large inputs of numbers.
+ *  <p>
  *  <b>Using standard input.</b>
  *  Standard input is a fundamental operating system abstraction on Mac OS X,
  *  Windows, and Linux.
@@ -227,6 +233,7 @@ public final class StdIn {
     /*** end: section (1 of 2) of code duplicated from lib.In to lib.StdIn. */
 
     private static Scanner scanner;
+    private static TokenReader reader;      // instead of the scanner, in fast mode
 
     // it doesn't make sense to instantiate this class
     private StdIn() { }
@@ -243,6 +250,7 @@ public final class StdIn {
      *         for whitespace); {@code false} otherwise
      */
     public static boolean isEmpty() {
+        if (reader != null) return reader.isEmpty();
         return !scanner.hasNext();
     }
 
@@ -256,6 +264,7 @@ public final class StdIn {
      *         {@code false} otherwise
      */
     public static boolean hasNextLine() {
+        if (reader != null) return reader.hasNextChar();
         return scanner.hasNextLine();
     }
 
@@ -268,6 +277,7 @@ public final class StdIn {
      *         {@code false} otherwise
      */
     public static boolean hasNextChar() {
+        if (reader != null) return reader.hasNextChar();
         scanner.useDelimiter(EMPTY_PATTERN);
         boolean result = scanner.hasNext();
         scanner.useDelimiter(WHITESPACE_PATTERN);
@@ -282,6 +292,7 @@ public final class StdIn {
      *         {@code null} if no such line
      */
     public static String readLine() {
+        if (reader != null) return reader.readLine();
         String line;
         try {
             line = scanner.nextLine();
@@ -299,6 +310,7 @@ public final class StdIn {
      * @throws NoSuchElementException if standard input is empty
      */
     public static char readChar() {
+        if (reader != null) return reader.readChar();
         try {
             scanner.useDelimiter(EMPTY_PATTERN);
             String ch = scanner.next();
@@ -321,6 +333,7 @@ public final class StdIn {
      * @throws NoSuchElementException if standard input is empty
      */
     public static String readAll() {
+        if (reader != null) return reader.readAll();
         if (!scanner.hasNextLine())
             return "";
 
@@ -338,6 +351,7 @@ public final class StdIn {
      * @throws NoSuchElementException if standard input is empty
      */
     public static String readString() {
+        if (reader != null) return reader.readString();
         try {
             return scanner.next();
         }
@@ -355,6 +369,7 @@ public final class StdIn {
      * @throws InputMismatchException if the next token cannot be parsed as an {@code int}
      */
     public static int readInt() {
+        if (reader != null) return reader.readInt();
         try {
             return scanner.nextInt();
         }
@@ -378,6 +393,7 @@ public final class StdIn {
      * @throws InputMismatchException if the next token cannot be parsed as a {@code double}
      */
     public static double readDouble() {
+        if (reader != null) return reader.readDouble();
         try {
             return scanner.nextDouble();
         }
@@ -400,6 +416,7 @@ public final class StdIn {
      * @throws InputMismatchException if the next token cannot be parsed as a {@code float}
      */
     public static float readFloat() {
+        if (reader != null) return reader.readFloat();
         try {
             return scanner.nextFloat();
         }
@@ -422,6 +439,7 @@ public final class StdIn {
      * @throws InputMismatchException if the next token cannot be parsed as a {@code long}
      */
     public static long readLong() {
+        if (reader != null) return reader.readLong();
         try {
             return scanner.nextLong();
         }
@@ -444,6 +462,7 @@ public final class StdIn {
      * @throws InputMismatchException if the next token cannot be parsed as a {@code short}
      */
     public static short readShort() {
+        if (reader != null) return reader.readShort();
         try {
             return scanner.nextShort();
         }
@@ -466,6 +485,7 @@ public final class StdIn {
      * @throws InputMismatchException if the next token cannot be parsed as a {@code byte}
      */
     public static byte readByte() {
+        if (reader != null) return reader.readByte();
         try {
             return scanner.nextByte();
         }
@@ -513,6 +533,7 @@ public final class StdIn {
      * @return all remaining tokens on standard input, as an array of strings
      */
     public static String[] readAllStrings() {
+        if (reader != null) return reader.readAllStrings();
         // we could use readAll.trim().split(), but that's not consistent
         // because trim() uses characters 0x00..0x20 as whitespace
         String[] tokens = WHITESPACE_PATTERN.split(readAll());
@@ -545,6 +566,7 @@ public final class StdIn {
      * @throws InputMismatchException if any token cannot be parsed as an {@code int}
      */
     public static int[] readAllInts() {
+        if (reader != null) return reader.readAllInts();
         String[] fields = readAllStrings();
         int[] vals = new int[fields.length];
         for (int i = 0; i < fields.length; i++)
@@ -559,6 +581,7 @@ public final class StdIn {
      * @throws InputMismatchException if any token cannot be parsed as a {@code long}
      */
     public static long[] readAllLongs() {
+        if (reader != null) return reader.readAllLongs();
         String[] fields = readAllStrings();
         long[] vals = new long[fields.length];
         for (int i = 0; i < fields.length; i++)
@@ -573,6 +596,7 @@ public final class StdIn {
      * @throws InputMismatchException if any token cannot be parsed as a {@code double}
      */
     public static double[] readAllDoubles() {
+        if (reader != null) return reader.readAllDoubles();
         String[] fields = readAllStrings();
         double[] vals = new double[fields.length];
         for (int i = 0; i < fields.length; i++)
@@ -589,10 +613,12 @@ public final class StdIn {
     }
 
     /**
-     * If lib.StdIn changes, use this to reinitialize the scanner.
+     * If lib.StdIn changes, use this to reinitialize the scanner, and the
+     * fast reader if it is in use.
      */
     private static void resync() {
         setScanner(new Scanner(new java.io.BufferedInputStream(System.in), CHARSET_NAME));
+        if (reader != null) reader = new TokenReader(System.in);
     }
 
     private static void setScanner(Scanner scanner) {
@@ -600,6 +626,16 @@ public final class StdIn {
         StdIn.scanner.useLocale(LOCALE);
     }
 
+    /**
+     * Switches to fast mode: from now on, standard input is read byte by
+     * byte rather than through a {@link Scanner}; see {@link In#fast(String)}.
+     * Call this before reading anything, since input that was already
+     * buffered for the scanner is not read again.
+     */
+    public static void useFastReader() {
+        if (reader == null) reader = new TokenReader(System.in);
+    }
+
     /**
      * Reads all remaining tokens, parses them as integers, and returns
      * them as an array of integers.
@@ -0,0 +1,649 @@
+package lib; /******************************************************************************
+ *  Compilation:  javac lib.TokenReader.java
+ *  Execution:    java lib.TokenReader input.txt
+ *  Dependencies: lib.In.java lib.CompressedInput.java
+ *
+ *  Reads whitespace-separated tokens and numbers straight from the bytes
+ *  of a UTF-8 stream, without regular expressions and without creating a
+ *  String for each number.
+ *
+ *  % java lib.TokenReader random-200000-2000000.txt
+ *  readAllInts(), Scanner:     4000002 integers in 1328 ms
+ *  readAllInts(), fast:        4000002 integers in 326 ms
+ *  readInt(), Scanner:         4000002 integers in 4407 ms
+ *  readInt(), fast:            4000002 integers in 367 ms
+ *
+ ******************************************************************************/
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/**
+ *  The {@code lib.TokenReader} class implements the fast mode of {@link In}
+ *  and {@link StdIn}; see {@link In#fast(String)}.
+ *  <p>
+ *  {@link Scanner} decodes its input into characters and matches each token
+ *  against a regular expression, and {@link In#readAllInts()} goes further,
+ *  reading all of the input into one {@code String} and splitting it.
+ *  A {@code TokenReader} instead reads the bytes of the input into a buffer
+ *  and parses numbers in place. A token becomes a {@code String} only when
+ *  it is read as one, or when it is a {@code double} that cannot be
+ *  converted exactly from its digits (more than 15 significant digits, or
+ *  a power of ten beyond 10<sup>22</sup>), which is then left to
+ *  {@link Double#parseDouble(String)}.
+ *  <p>
+ *  Whitespace and line terminators are those of {@link In}, and a token is
+ *  the same string that {@code In} returns. A {@code double} or
+ *  {@code float} is read from exactly the tokens that the {@code Scanner}
+ *  of {@code In} accepts, grouped digits and hexadecimal forms included.
+ *  Integers are those that {@code In} accepts, except that their digits
+ *  must be ASCII and must not be grouped, as in {@code 1,000}. Malformed
+ *  UTF-8 is read as the replacement character {@code \}{@code uFFFD}.
+ *  <p>
+ *  A {@code TokenReader} is not safe for use by multiple threads.
+ */
+final class TokenReader implements Closeable {
+
+    // the initial size of the buffer, in bytes; it grows to hold the longest token or line
+    static final int DEFAULT_CAPACITY = 1 << 16;
+
+    // the powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = {
+        1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // the significant digits of a long that is an exact double
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    // the ASCII whitespace characters, as Character.isWhitespace defines them
+    private static final boolean[] WHITESPACE = new boolean[128];
+
+    static {
+        for (int c = 0; c < WHITESPACE.length; c++)
+            WHITESPACE[c] = Character.isWhitespace(c);
+    }
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int position;       // index of the next byte to read
+    private int limit;          // index after the last byte in the buffer
+    private boolean eof;        // has the input ended?
+    private char pendingLow;    // the low surrogate of a character half read by readChar(), or 0
+
+    /**
+     * Initializes a reader of {@code in}.
+     *
+     * @param  in the input stream
+     * @throws IllegalArgumentException if {@code in} is {@code null}
+     */
+    TokenReader(InputStream in) {
+        this(in, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes a reader of {@code in} with a buffer of {@code capacity} bytes.
+     *
+     * @param  in the input stream
+     * @param  capacity the initial size of the buffer, in bytes
+     * @throws IllegalArgumentException if {@code in} is {@code null}
+     * @throws IllegalArgumentException if {@code capacity < 4}
+     */
+    TokenReader(InputStream in, int capacity) {
+        if (in == null) throw new IllegalArgumentException("input stream is null");
+        if (capacity < 4) throw new IllegalArgumentException("capacity must be at least 4 bytes");
+        this.in = in;
+        this.buffer = new byte[capacity];
+    }
+
+    // whether the n bytes from position are in the buffer, reading more of the input
+    // if needed; bytes are only ever moved to the front, so offsets from position stay valid
+    private boolean available(int n) {
+        if (n <= limit - position) return true;
+        if (eof) return false;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (n > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(n, 2 * buffer.length));
+        try {
+            while (limit < n) {
+                int r = in.read(buffer, limit, buffer.length - limit);
+                if (r < 0) {
+                    eof = true;
+                    return false;
+                }
+                limit += r;
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    // whether there is a byte at offset k from position
+    private boolean hasByte(int k) {
+        return position + k < limit || available(k + 1);
+    }
+
+    private boolean isContinuation(int k) {
+        return (buffer[position + k] & 0xc0) == 0x80;
+    }
+
+    // the length of the whitespace character at offset k, or 0 if it is not whitespace;
+    // the only whitespace beyond ASCII is encoded in three bytes, led by e1, e2 or e3
+    private int whitespace(int k) {
+        int b = buffer[position + k];
+        if (b >= 0) return WHITESPACE[b] ? 1 : 0;
+        b &= 0xff;
+        if (b < 0xe1 || b > 0xe3 || !available(k + 3) || !isContinuation(k + 1) || !isContinuation(k + 2))
+            return 0;
+        int c = ((b & 0x0f) << 12) | ((buffer[position + k + 1] & 0x3f) << 6) | (buffer[position + k + 2] & 0x3f);
+        return Character.isWhitespace(c) ? 3 : 0;
+    }
+
+    // the length of the line terminator at offset k, or 0 if there is none:
+    // \r\n, \n, \r, or the UTF-8 encoding of u0085, u2028 or u2029
+    private int lineTerminator(int k) {
+        int b = buffer[position + k] & 0xff;
+        if (b == '\n') return 1;
+        if (b == '\r') return hasByte(k + 1) && buffer[position + k + 1] == '\n' ? 2 : 1;
+        if (b == 0xc2) return hasByte(k + 1) && (buffer[position + k + 1] & 0xff) == 0x85 ? 2 : 0;
+        if (b == 0xe2 && available(k + 3) && (buffer[position + k + 1] & 0xff) == 0x80) {
+            int c = buffer[position + k + 2] & 0xff;
+            return c == 0xa8 || c == 0xa9 ? 3 : 0;
+        }
+        return 0;
+    }
+
+    // skips whitespace; returns false if the input ends first
+    private boolean skipWhitespace() {
+        if (pendingLow != 0) return true;
+        while (hasByte(0)) {
+            int n = whitespace(0);
+            if (n == 0) return true;
+            position += n;
+        }
+        return false;
+    }
+
+    // the length of the token at position, all of which is then in the buffer
+    private int tokenLength() {
+        int k = 0;
+        while (hasByte(k) && whitespace(k) == 0)
+            k++;
+        return k;
+    }
+
+    // the n bytes at position as a string, consumed
+    private String take(int n) {
+        String s = new String(buffer, position, n, StandardCharsets.UTF_8);
+        position += n;
+        if (pendingLow != 0) {
+            s = pendingLow + s;
+            pendingLow = 0;
+        }
+        return s;
+    }
+
+    private static NoSuchElementException noMoreTokens(String type) {
+        return new NoSuchElementException("attempts to read " + type + " value from the input stream, "
+                                        + "but no more tokens are available");
+    }
+
+    private static InputMismatchException mismatch(String type, String token) {
+        return new InputMismatchException("attempts to read " + type + " value from the input stream, "
+                                        + "but the next token is \"" + token + "\"");
+    }
+
+    /**
+     * Returns true if the input is empty, except possibly for whitespace.
+     * No input is consumed.
+     *
+     * @return {@code true} if the input is empty, except possibly for whitespace
+     */
+    boolean isEmpty() {
+        if (pendingLow != 0) return false;
+        int k = 0;
+        while (hasByte(k)) {
+            int n = whitespace(k);
+            if (n == 0) return false;
+            k += n;
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if there is more input, including whitespace.
+     *
+     * @return {@code true} if there is more input, including whitespace
+     */
+    boolean hasNextChar() {
+        return pendingLow != 0 || hasByte(0);
+    }
+
+    /**
+     * Reads the rest of the line, and consumes its line terminator.
+     *
+     * @return the rest of the line; {@code null} if the input is empty
+     */
+    String readLine() {
+        if (!hasNextChar()) return null;
+        int k = 0, terminator = 0;
+        while (hasByte(k) && (terminator = lineTerminator(k)) == 0)
+            k++;
+        String line = take(k);
+        position += terminator;
+        return line;
+    }
+
+    /**
+     * Reads the next character.
+     *
+     * @return the next character; a character outside the Basic Multilingual
+     *         Plane is read as two, its high and then its low surrogate
+     * @throws NoSuchElementException if the input is empty
+     */
+    char readChar() {
+        if (pendingLow != 0) {
+            char c = pendingLow;
+            pendingLow = 0;
+            return c;
+        }
+        if (!hasByte(0)) throw noMoreTokens("a 'char'");
+        int b = buffer[position] & 0xff;
+        if (b < 0x80) {
+            position++;
+            return (char) b;
+        }
+        int n = b >= 0xf0 ? 4 : b >= 0xe0 ? 3 : b >= 0xc0 ? 2 : 0;
+        boolean wellFormed = n > 0 && available(n);
+        for (int k = 1; wellFormed && k < n; k++)
+            wellFormed = isContinuation(k);
+        if (!wellFormed) {
+            position++;
+            return '\uFFFD';
+        }
+        String s = new String(buffer, position, n, StandardCharsets.UTF_8);
+        position += n;
+        if (s.length() > 1) pendingLow = s.charAt(1);
+        return s.charAt(0);
+    }
+
+    /**
+     * Reads the rest of the input.
+     *
+     * @return the rest of the input, as a string
+     */
+    String readAll() {
+        while (available(limit - position + 1)) { }
+        return take(limit - position);
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return the next token
+     * @throws NoSuchElementException if the input is empty
+     */
+    String readString() {
+        if (!skipWhitespace()) throw noMoreTokens("a 'String'");
+        return take(tokenLength());
+    }
+
+    // the next token, after skipWhitespace(), as an integer between min and max;
+    // the digits are accumulated as a negative number, which reaches Long.MIN_VALUE
+    private long integer(String type, long min, long max) {
+        int n = tokenLength();
+        int i = position, end = position + n;
+        boolean negative = false;
+        if (n > 0 && (buffer[i] == '-' || buffer[i] == '+')) negative = buffer[i++] == '-';
+        long bound = negative ? min : -max;
+        long x = 0;
+        boolean valid = pendingLow == 0 && i < end;
+        for (; valid && i < end; i++) {
+            int d = buffer[i] - '0';
+            valid = d >= 0 && d <= 9 && x >= (bound + d) / 10;
+            x = 10 * x - d;
+        }
+        if (!valid) throw mismatch(type, take(n));
+        position = end;
+        return negative ? x : -x;
+    }
+
+    /**
+     * Reads the next token as an {@code int}.
+     *
+     * @return the next {@code int}
+     * @throws NoSuchElementException if the input is empty
+     * @throws InputMismatchException if the next token is not an {@code int};
+     *         the token is consumed
+     */
+    int readInt() {
+        if (!skipWhitespace()) throw noMoreTokens("an 'int'");
+        return (int) integer("an 'int'", Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the next token as a {@code long}.
+     *
+     * @return the next {@code long}
+     * @throws NoSuchElementException if the input is empty
+     * @throws InputMismatchException if the next token is not a {@code long};
+     *         the token is consumed
+     */
+    long readLong() {
+        if (!skipWhitespace()) throw noMoreTokens("a 'long'");
+        return integer("a 'long'", Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads the next token as a {@code short}.
+     *
+     * @return the next {@code short}
+     * @throws NoSuchElementException if the input is empty
+     * @throws InputMismatchException if the next token is not a {@code short};
+     *         the token is consumed
+     */
+    short readShort() {
+        if (!skipWhitespace()) throw noMoreTokens("a 'short'");
+        return (short) integer("a 'short'", Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+
+    /**
+     * Reads the next token as a {@code byte}.
+     *
+     * @return the next {@code byte}
+     * @throws NoSuchElementException if the input is empty
+     * @throws InputMismatchException if the next token is not a {@code byte};
+     *         the token is consumed
+     */
+    byte readByte() {
+        if (!skipWhitespace()) throw noMoreTokens("a 'byte'");
+        return (byte) integer("a 'byte'", Byte.MIN_VALUE, Byte.MAX_VALUE);
+    }
+
+    // the n bytes at position as a decimal number with at most 15 significant digits,
+    // scaled by a power of ten that is an exact double, so that one multiplication or
+    // division rounds it correctly; NaN if the token is anything else
+    private double exactDecimal(int n) {
+        if (pendingLow != 0) return Double.NaN;
+        int i = position, end = position + n;
+        boolean negative = false;
+        if (n > 0 && (buffer[i] == '-' || buffer[i] == '+')) negative = buffer[i++] == '-';
+        long m = 0;
+        int digits = 0, significant = 0, scale = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            int d = buffer[i] - '0';
+            if (d >= 0 && d <= 9) {
+                if (m != 0 || d != 0) significant++;
+                if (significant > MAX_EXACT_DIGITS) return Double.NaN;
+                m = 10 * m + d;
+                digits++;
+                if (fraction) scale--;
+            }
+            else if (buffer[i] == '.' && !fraction) fraction = true;
+            else break;
+        }
+        if (digits == 0) return Double.NaN;
+        if (i < end && (buffer[i] == 'e' || buffer[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buffer[i] == '-' || buffer[i] == '+')) negativeExponent = buffer[i++] == '-';
+            int exponent = 0, exponentDigits = 0;
+            for (; i < end && exponentDigits <= 3; i++, exponentDigits++) {
+                int d = buffer[i] - '0';
+                if (d < 0 || d > 9) return Double.NaN;
+                exponent = 10 * exponent + d;
+            }
+            if (exponentDigits == 0) return Double.NaN;
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (i != end) return Double.NaN;
+        double x;
+        if (m == 0)                                   x = 0.0;
+        else if (scale >= 0 && scale < POWERS_OF_TEN.length)   x = m * POWERS_OF_TEN[scale];
+        else if (scale < 0 && -scale < POWERS_OF_TEN.length)   x = m / POWERS_OF_TEN[-scale];
+        else return Double.NaN;
+        return negative ? -x : x;
+    }
+
+    // the token as Scanner.nextDouble(), in the US locale of In, passes it to
+    // Double.parseDouble: without group separators and with ASCII digits; or
+    // null if Scanner does not accept it as a float. Scanner accepts an optional
+    // sign, then NaN, Infinity, a hexadecimal float with a point and a binary
+    // exponent, or a decimal numeral whose digits are any Unicode digits,
+    // grouped by threes or not, with an optional point and exponent
+    private static String scannerFloat(String token) {
+        int n = token.length();
+        int i = 0;
+        if (i < n && (token.charAt(i) == '-' || token.charAt(i) == '+')) i++;
+        if (token.startsWith("NaN", i) && n == i + 3) return token;
+        if (token.startsWith("Infinity", i) && n == i + 8) return token;
+        if (token.startsWith("0x", i) || token.startsWith("0X", i)) return hexFloat(token, i + 2) ? token : null;
+
+        StringBuilder s = new StringBuilder(n).append(token, 0, i);
+        int start = i;
+        i = digits(token, i, s);
+        int integerDigits = i - start;
+        if (i < n && token.charAt(i) == ',') {
+            // 1 to 3 digits, the first not an ASCII 0, then groups of exactly 3
+            if (integerDigits == 0 || integerDigits > 3 || token.charAt(start) == '0') return null;
+            while (i < n && token.charAt(i) == ',') {
+                int group = digits(token, i + 1, s);
+                if (group - (i + 1) != 3) return null;
+                i = group;
+            }
+        }
+        int fractionDigits = 0;
+        if (i < n && token.charAt(i) == '.') {
+            s.append('.');
+            int end = digits(token, i + 1, s);
+            fractionDigits = end - (i + 1);
+            i = end;
+        }
+        if (integerDigits == 0 && fractionDigits == 0) return null;
+        if (i < n && (token.charAt(i) == 'e' || token.charAt(i) == 'E')) {
+            s.append('e');
+            i++;
+            if (i < n && (token.charAt(i) == '-' || token.charAt(i) == '+')) s.append(token.charAt(i++));
+            int end = digits(token, i, s);
+            if (end == i) return null;
+            i = end;
+        }
+        return i == n ? s.toString() : null;
+    }
+
+    // appends the Unicode digits of token from i on to s, as ASCII digits;
+    // returns the index after the last one
+    private static int digits(String token, int i, StringBuilder s) {
+        for (; i < token.length() && Character.isDigit(token.charAt(i)); i++)
+            s.append((char) ('0' + Character.digit(token.charAt(i), 10)));
+        return i;
+    }
+
+    // are the characters of token from i on hex digits, a point, at least one
+    // hex digit, and an exponent p or P with an optional sign and ASCII digits?
+    private static boolean hexFloat(String token, int i) {
+        int n = token.length();
+        while (i < n && Character.digit(token.charAt(i), 16) >= 0 && token.charAt(i) < 128) i++;
+        if (i == n || token.charAt(i++) != '.') return false;
+        int start = i;
+        while (i < n && Character.digit(token.charAt(i), 16) >= 0 && token.charAt(i) < 128) i++;
+        if (i == start || i == n || (token.charAt(i) != 'p' && token.charAt(i) != 'P')) return false;
+        i++;
+        if (i < n && (token.charAt(i) == '-' || token.charAt(i) == '+')) i++;
+        start = i;
+        while (i < n && token.charAt(i) >= '0' && token.charAt(i) <= '9') i++;
+        return i > start && i == n;
+    }
+
+    // the next token, after skipWhitespace(), as a double
+    private double decimal() {
+        int n = tokenLength();
+        double x = exactDecimal(n);
+        if (!Double.isNaN(x)) {
+            position += n;
+            return x;
+        }
+        String token = take(n);
+        String number = scannerFloat(token);
+        if (number == null) throw mismatch("a 'double'", token);
+        return Double.parseDouble(number);
+    }
+
+    /**
+     * Reads the next token as a {@code double}.
+     *
+     * @return the next {@code double}
+     * @throws NoSuchElementException if the input is empty
+     * @throws InputMismatchException if the next token is not a {@code double};
+     *         the token is consumed
+     */
+    double readDouble() {
+        if (!skipWhitespace()) throw noMoreTokens("a 'double'");
+        return decimal();
+    }
+
+    /**
+     * Reads the next token as a {@code float}.
+     *
+     * @return the next {@code float}
+     * @throws NoSuchElementException if the input is empty
+     * @throws InputMismatchException if the next token is not a {@code float};
+     *         the token is consumed
+     */
+    float readFloat() {
+        if (!skipWhitespace()) throw noMoreTokens("a 'float'");
+        String token = take(tokenLength());
+        String number = scannerFloat(token);
+        if (number == null) throw mismatch("a 'float'", token);
+        return Float.parseFloat(number);
+    }
+
+    /**
+     * Reads all remaining tokens.
+     *
+     * @return all remaining tokens
+     */
+    String[] readAllStrings() {
+        ArrayList<String> tokens = new ArrayList<String>();
+        while (skipWhitespace())
+            tokens.add(take(tokenLength()));
+        return tokens.toArray(new String[tokens.size()]);
+    }
+
+    /**
+     * Reads all remaining tokens as {@code int}s, without creating a
+     * {@code String} for any of them.
+     *
+     * @return all remaining tokens, as {@code int}s
+     * @throws InputMismatchException if a token is not an {@code int}
+     */
+    int[] readAllInts() {
+        int[] values = new int[16];
+        int n = 0;
+        while (skipWhitespace()) {
+            if (n == values.length) values = Arrays.copyOf(values, 2 * n);
+            values[n++] = (int) integer("an 'int'", Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        return Arrays.copyOf(values, n);
+    }
+
+    /**
+     * Reads all remaining tokens as {@code long}s, without creating a
+     * {@code String} for any of them.
+     *
+     * @return all remaining tokens, as {@code long}s
+     * @throws InputMismatchException if a token is not a {@code long}
+     */
+    long[] readAllLongs() {
+        long[] values = new long[16];
+        int n = 0;
+        while (skipWhitespace()) {
+            if (n == values.length) values = Arrays.copyOf(values, 2 * n);
+            values[n++] = integer("a 'long'", Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        return Arrays.copyOf(values, n);
+    }
+
+    /**
+     * Reads all remaining tokens as {@code double}s.
+     *
+     * @return all remaining tokens, as {@code double}s
+     * @throws InputMismatchException if a token is not a {@code double}
+     */
+    double[] readAllDoubles() {
+        double[] values = new double[16];
+        int n = 0;
+        while (skipWhitespace()) {
+            if (n == values.length) values = Arrays.copyOf(values, 2 * n);
+            values[n++] = decimal();
+        }
+        return Arrays.copyOf(values, n);
+    }
+
+    /**
+     * Closes the input stream. As with {@link Scanner#close()}, an
+     * {@code IOException} is ignored.
+     */
+    @Override
+    public void close() {
+        try {
+            in.close();
+        }
+        catch (IOException e) {
+            // the input is no longer needed
+        }
+    }
+
+    /**
+     * Reads the integers of a file with {@link In} and with {@link In#fast(File)},
+     * first all at once and then one at a time, and reports the time of each.
+     *
+     * @param args the command-line arguments: the name of a file of integers
+     */
+    public static void main(String[] args) {
+        File file = new File(args[0]);
+
+        long start = System.nanoTime();
+        int[] a = new In(file).readAllInts();
+        long ms = (System.nanoTime() - start) / 1000000;
+        System.out.println("readAllInts(), Scanner:     " + a.length + " integers in " + ms + " ms");
+
+        start = System.nanoTime();
+        int[] b = In.fast(file).readAllInts();
+        ms = (System.nanoTime() - start) / 1000000;
+        System.out.println("readAllInts(), fast:        " + b.length + " integers in " + ms + " ms");
+        if (!Arrays.equals(a, b)) throw new IllegalStateException("the integers read differ");
+
+        start = System.nanoTime();
+        In in = new In(file);
+        long sum = 0, count = 0;
+        for (; !in.isEmpty(); count++)
+            sum += in.readInt();
+        ms = (System.nanoTime() - start) / 1000000;
+        System.out.println("readInt(), Scanner:         " + count + " integers in " + ms + " ms");
+
+        start = System.nanoTime();
+        in = In.fast(file);
+        long fastSum = 0, fastCount = 0;
+        for (; !in.isEmpty(); fastCount++)
+            fastSum += in.readInt();
+        ms = (System.nanoTime() - start) / 1000000;
+        System.out.println("readInt(), fast:            " + fastCount + " integers in " + ms + " ms");
+        if (sum != fastSum) throw new IllegalStateException("the integers read differ");
+    }
+}
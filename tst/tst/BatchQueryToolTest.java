@@ -0,0 +1,60 @@
+package tst;
+
+import graph.BatchQueryTool;
+import graph.BreadthFirstPaths;
+import graph.Graph;
+import graph.GraphQueryExecutor;
+import lib.FastOut;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+public class BatchQueryToolTest {
+
+    private static String run(Graph G, String queries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GraphQueryExecutor executor = new GraphQueryExecutor(G, 2 * BatchQueryTool.BATCH)) {
+            new BatchQueryTool(executor).run(new BufferedReader(new StringReader(queries)), new FastOut(bytes));
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void test1() throws IOException {
+        Graph G = new Graph(new In("tinyG.txt"));
+        String out = run(G, "bfs 0\npath 0 3\n\n  reach 0 9 \npath 9 12\nwalk 1\nreach 0\npath 0 x\npath 0 13\n");
+        Assert.assertEquals("bfs 0: 7 vertices, depth 2\n"
+                + "path 0 3: 0-5-3\n"
+                + "reach 0 9: false\n"
+                + "path 9 12: 9-12\n"
+                + "error: line 6: unknown query \"walk 1\"\n"
+                + "error: line 7: reach takes 2 vertices: \"reach 0\"\n"
+                + "error: line 8: vertex is not an integer: \"path 0 x\"\n"
+                + "error: line 9: vertex 13 is not between 0 and 12\n", out);
+    }
+
+    @Test
+    public void test2() throws IOException {
+        // several batches, answered in input order
+        Graph G = new Graph(new In("mediumG.txt"));
+        StringBuilder queries = new StringBuilder();
+        int n = 2 * BatchQueryTool.BATCH + 17;
+        for (int i = 0; i < n; i++)
+            queries.append("reach ").append(i % G.V()).append(' ').append((7 * i) % G.V()).append('\n');
+        String[] lines = run(G, queries.toString()).split("\n");
+        Assert.assertEquals(n, lines.length);
+        for (int i = 0; i < n; i++) {
+            int s = i % G.V();
+            int t = (7 * i) % G.V();
+            BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(s));
+            Assert.assertEquals("reach " + s + " " + t + ": " + bfs.hasPathTo(t), lines[i]);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package tst;
+
+import graph.BfsResultCache;
+import graph.BreadthFirstPaths;
+import graph.CancellationToken;
+import graph.Graph;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Stack;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+public class BfsResultCacheTest {
+    @Test
+    public void test1(){
+        Graph G = new Graph(new In("mediumG.txt"));
+        BfsResultCache cache = new BfsResultCache(G, Long.MAX_VALUE);
+        for (int s = 0; s < 5; s++) {
+            BfsResultCache.Result result = cache.get(s);
+            BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(s));
+            for (int v = 0; v < G.V(); v++) {
+                Assert.assertEquals("Reachability of " + v, bfs.hasPathTo(v), result.hasPathTo(v));
+                Assert.assertEquals("Distance to " + v, bfs.distTo(v), result.distTo(v));
+                if (!result.hasPathTo(v)) continue;
+                Stack<Integer> path = (Stack<Integer>) result.pathTo(v);
+                int prev = path.pop();
+                Assert.assertEquals("Path starts at the source", s, prev);
+                int length = 0;
+                while (!path.isEmpty()) {
+                    int x = path.pop();
+                    boolean adjacent = false;
+                    for (int w : G.adj(prev)) adjacent |= w == x;
+                    Assert.assertTrue("Path follows edges", adjacent);
+                    prev = x;
+                    length++;
+                }
+                Assert.assertEquals("Path ends at " + v, v, prev);
+                Assert.assertEquals("Path is shortest", bfs.distTo(v), length);
+            }
+            Assert.assertSame("Second lookup is a hit", result, cache.get(s));
+        }
+        Assert.assertEquals("Hits", 5, cache.hits());
+        Assert.assertEquals("Misses", 5, cache.misses());
+    }
+
+    @Test
+    public void test2(){
+        Graph G = new Graph(new In("tinyG.txt"));
+        // small distances are stored one byte each, next to a 4-byte parent
+        long resultBytes = 5L * G.V();
+        BfsResultCache cache = new BfsResultCache(G, 2 * resultBytes);
+        cache.get(0);
+        cache.get(1);
+        cache.get(0);
+        cache.get(2);   // evicts 1, the least recently used
+        Assert.assertEquals("Size bound in bytes", 2 * resultBytes, cache.bytes());
+        Assert.assertEquals("Evictions", 1, cache.evictions());
+        cache.get(0);
+        Assert.assertEquals("0 stays cached", 2, cache.hits());
+        cache.get(1);
+        Assert.assertEquals("1 was evicted", 4, cache.misses());
+    }
+
+    @Test
+    public void test3(){
+        Graph G = new Graph(new In("tinyG.txt"));
+        BfsResultCache cache = new BfsResultCache(G, Long.MAX_VALUE);
+        Assert.assertFalse("7 unreachable from 0", cache.get(0).hasPathTo(7));
+        G.addEdge(0, 7);
+        Assert.assertEquals("New edge is seen after a version change", 1, cache.get(0).distTo(7));
+        Assert.assertEquals("No stale hit", 0, cache.hits());
+    }
+
+    @Test
+    public void test4() throws InterruptedException {
+        // a lookup that waited for a cancelled search and ran it again is one miss
+        Graph G = new Graph(new In("mediumG.txt"));
+        BfsResultCache cache = new BfsResultCache(G, Long.MAX_VALUE);
+        CountDownLatch waiting = new CountDownLatch(1);
+        CancellationToken cancelLater = new CancellationToken() {
+            @Override
+            public boolean isCancelled() {
+                try {
+                    waiting.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        CompletableFuture<Boolean> owner = CompletableFuture.supplyAsync(() -> {
+            try {
+                cache.get(0, cancelLater);
+                return false;
+            }
+            catch (CancellationException e) {
+                return true;
+            }
+        });
+        while (cache.misses() == 0)
+            Thread.sleep(1);
+        CompletableFuture<BfsResultCache.Result> waiter = CompletableFuture.supplyAsync(() -> cache.get(0));
+        while (cache.misses() == 1)
+            Thread.sleep(1);
+        Thread.sleep(50);   // let the waiter block on the search of the owner
+        waiting.countDown();
+        Assert.assertTrue("The owner is cancelled", owner.join());
+        Assert.assertEquals(0, waiter.join().distTo(0));
+        Assert.assertEquals("One miss per lookup", 2, cache.misses());
+        Assert.assertEquals(0, cache.hits());
+        cache.get(0);
+        Assert.assertEquals(1, cache.hits());
+        Assert.assertEquals(2, cache.misses());
+    }
+}
@@ -0,0 +1,122 @@
+package tst;
+
+import graph.BfsResultCache;
+import graph.BreadthFirstPaths;
+import graph.CancellationToken;
+import graph.DenseGraph;
+import graph.DepthFirstPathsNoRecursion;
+import graph.Graph;
+import graph.GraphGenerator;
+import graph.GraphPartitioner;
+import graph.LandmarkDistanceOracle;
+import graph.ShardedBreadthFirstSearch;
+import graph.TraversalOptions;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+public class CancellationTokenTest {
+
+    private static int reached(BreadthFirstPaths bfs, int V) {
+        int count = 0;
+        for (int v = 0; v < V; v++)
+            if (bfs.hasPathTo(v)) count++;
+        return count;
+    }
+
+    @Test
+    public void test1(){
+        // a token that is never cancelled does not change the result
+        Graph G = new Graph(new In("mediumG.txt"));
+        List<Integer> sources = Collections.singletonList(0);
+        BreadthFirstPaths full = new BreadthFirstPaths(G, sources);
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, sources,
+                new TraversalOptions().cancellation(new CancellationToken()));
+        Assert.assertTrue(bfs.isComplete());
+        for (int v = 0; v < G.V(); v++)
+            Assert.assertEquals("Distance to " + v, full.distTo(v), bfs.distTo(v));
+    }
+
+    @Test
+    public void test2(){
+        // an expired deadline stops the search at its first poll
+        Graph G = new Graph(new In("mediumG.txt"));
+        CancellationToken token = CancellationToken.withTimeout(0, TimeUnit.NANOSECONDS);
+        TraversalOptions options = new TraversalOptions().cancellation(token);
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(0), options);
+        Assert.assertFalse(bfs.isComplete());
+        Assert.assertEquals(1, reached(bfs, G.V()));
+        Assert.assertEquals(0, bfs.distTo(0));
+
+        DepthFirstPathsNoRecursion dfs = new DepthFirstPathsNoRecursion(G, 0, options);
+        Assert.assertFalse(dfs.isComplete());
+    }
+
+    @Test
+    public void test3(){
+        // a search cancelled from another thread keeps consistent partial paths
+        Graph G = GraphGenerator.simple(100000, 500000);
+        List<Integer> sources = Collections.singletonList(0);
+        BreadthFirstPaths full = new BreadthFirstPaths(G, sources);
+        CancellationToken token = new CancellationToken();
+        int[] polls = new int[1];
+        TraversalOptions options = new TraversalOptions().cancellation(token).filter(v -> {
+            if (++polls[0] == 5000) token.cancel();
+            return true;
+        });
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, sources, options);
+        Assert.assertFalse(bfs.isComplete());
+        int count = reached(bfs, G.V());
+        Assert.assertTrue("Reached " + count, count < G.V());
+        for (int v = 0; v < G.V(); v++)
+            if (bfs.hasPathTo(v)) Assert.assertEquals("Distance to " + v, full.distTo(v), bfs.distTo(v));
+    }
+
+    @Test
+    public void test4(){
+        Graph G = new Graph(new In("mediumG.txt"));
+        GraphPartitioner partitioner = new GraphPartitioner(G, 4, GraphPartitioner.Strategy.LDG);
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        ShardedBreadthFirstSearch bfs = new ShardedBreadthFirstSearch(partitioner, 0, token);
+        Assert.assertFalse(bfs.isComplete());
+        Assert.assertEquals(1, bfs.levels());
+        BreadthFirstPaths full = new BreadthFirstPaths(G, Collections.singletonList(0));
+        for (int v = 0; v < G.V(); v++)
+            Assert.assertEquals("Vertex " + v, full.distTo(v) <= 1, bfs.hasPathTo(v));
+        Assert.assertTrue(new ShardedBreadthFirstSearch(partitioner, 0, new CancellationToken()).isComplete());
+    }
+
+    @Test
+    public void test5(){
+        // searches that return a single value throw, and a cancelled cache lookup caches nothing
+        Graph G = new Graph(new In("mediumG.txt"));
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        try {
+            new DenseGraph(G).bfs(0, token);
+            Assert.fail("the search is expected to be cancelled");
+        }
+        catch (CancellationException e) { }
+        try {
+            new LandmarkDistanceOracle(G, 4, LandmarkDistanceOracle.Selection.DEGREE, token);
+            Assert.fail("the build is expected to be cancelled");
+        }
+        catch (CancellationException e) { }
+        BfsResultCache cache = new BfsResultCache(G, 1 << 20);
+        try {
+            cache.get(0, token);
+            Assert.fail("the lookup is expected to be cancelled");
+        }
+        catch (CancellationException e) { }
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(new BreadthFirstPaths(G, Collections.singletonList(0)).distTo(100),
+                cache.get(0, new CancellationToken()).distTo(100));
+        Assert.assertArrayEquals(new DenseGraph(G).bfs(0), new DenseGraph(G).bfs(0, new CancellationToken()));
+    }
+}
@@ -0,0 +1,44 @@
+package tst;
+
+import graph.CompressedGraph;
+import graph.Graph;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompressedGraphTest {
+    private void testAgainstFile(String inputFile) {
+        Graph G = new Graph(new In(inputFile));
+        CompressedGraph C = new CompressedGraph(G);
+        Assert.assertEquals("Vertex count must match", G.V(), C.V());
+        Assert.assertEquals("Edge count must match", G.E(), C.E());
+        Assert.assertEquals("toString must match", G.toString(), C.toString());
+
+        int[] buffer = new int[C.maxDegree()];
+        for (int v = 0; v < G.V(); v++) {
+            Assert.assertEquals("Degree must match", G.degree(v), C.degree(v));
+            int n = C.adj(v, buffer);
+            int i = 0;
+            for (int w : G.adj(v))
+                Assert.assertEquals("Neighbour " + i + " of " + v + " must match", w, buffer[i++]);
+            Assert.assertEquals("Neighbour count must match", i, n);
+        }
+        Assert.assertTrue("Compressed lists must use fewer than 32 bits per edge", C.bitsPerEdge() < 32);
+    }
+
+    @Test
+    public void test1(){
+        testAgainstFile("tinyG.txt");
+    }
+
+    @Test
+    public void test2(){
+        testAgainstFile("mediumG.txt");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test3(){
+        CompressedGraph C = new CompressedGraph(new Graph(new In("tinyG.txt")));
+        C.adj(0, new int[1]);
+    }
+}
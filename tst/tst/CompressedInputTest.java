@@ -0,0 +1,168 @@
+package tst;
+
+import graph.BinaryGraphFormat;
+import graph.Graph;
+import graph.GraphGenerator;
+import lib.CompressedInput;
+import lib.In;
+import lib.ReadAheadInputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+public class CompressedInputTest {
+
+    private static File gzip(byte[] content) throws IOException {
+        File file = File.createTempFile("graph", ".gz");
+        file.deleteOnExit();
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(content);
+        }
+        return file;
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+        for (int n; (n = in.read(buffer)) > 0; )
+            bytes.write(buffer, 0, n);
+        return new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void test1() throws IOException {
+        // a gzip graph file loads as the plain one does, by file and by name
+        File file = gzip(Files.readAllBytes(Paths.get("mediumG.txt")));
+        String expected = new Graph(new In("mediumG.txt")).toString();
+        Assert.assertEquals(expected, new Graph(new In(file)).toString());
+        Assert.assertEquals(expected, new Graph(new In(file.getPath())).toString());
+        Assert.assertEquals(expected, BinaryGraphFormat.load(file).toString());
+    }
+
+    @Test
+    public void test2() throws IOException {
+        // a graph spanning many read-ahead blocks
+        Graph G = GraphGenerator.simple(20000, 100000);
+        StringBuilder text = new StringBuilder();
+        text.append(G.V()).append('\n').append(G.E()).append('\n');
+        for (int v = 0; v < G.V(); v++)
+            for (int w : G.adj(v))
+                if (v < w) text.append(v).append(' ').append(w).append('\n');
+        File file = gzip(text.toString().getBytes(StandardCharsets.UTF_8));
+        Graph H = new Graph(new In(file));
+        Assert.assertEquals(G.V(), H.V());
+        Assert.assertEquals(G.E(), H.E());
+        for (int v = 0; v < G.V(); v++)
+            Assert.assertEquals(G.degree(v), H.degree(v));
+    }
+
+    @Test
+    public void test3() throws IOException {
+        // detection by magic bytes, leaving the stream where it was
+        InputStream plain = new BufferedInputStream(new ByteArrayInputStream("13\n".getBytes()));
+        Assert.assertEquals(CompressedInput.Compression.NONE, CompressedInput.detect(plain));
+        Assert.assertEquals("13\n", readAll(plain));
+        byte[] zstd = { 0x28, (byte) 0xb5, 0x2f, (byte) 0xfd, 0 };
+        Assert.assertEquals(CompressedInput.Compression.ZSTD,
+                CompressedInput.detect(new BufferedInputStream(new ByteArrayInputStream(zstd))));
+        Assert.assertEquals(CompressedInput.Compression.NONE,
+                CompressedInput.detect(new BufferedInputStream(new ByteArrayInputStream(new byte[] { 0x1f }))));
+        File file = File.createTempFile("graph", ".zst");
+        file.deleteOnExit();
+        Files.write(file.toPath(), zstd);
+        try {
+            new In(file);
+            Assert.fail("a Zstandard file was read");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("Zstandard"));
+        }
+    }
+
+    @Test
+    public void test4() throws IOException {
+        // read-ahead returns every byte in order, and rethrows a failure of its source
+        byte[] content = new byte[100003];
+        for (int i = 0; i < content.length; i++)
+            content[i] = (byte) (i * 31);
+        try (InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(content), 4096, 2)) {
+            Assert.assertEquals(new String(content, StandardCharsets.ISO_8859_1), readAll(in));
+            Assert.assertEquals(-1, in.read());
+        }
+        InputStream failing = new InputStream() {
+            private int n;
+            @Override
+            public int read() throws IOException {
+                if (n == 5000) throw new IOException("disk error");
+                return n++ & 0xff;
+            }
+        };
+        try (InputStream in = new ReadAheadInputStream(failing, 1024, 2)) {
+            int n = 0;
+            try {
+                while (in.read() >= 0) n++;
+                Assert.fail("the failure was not rethrown");
+            }
+            catch (IOException e) {
+                Assert.assertEquals("disk error", e.getMessage());
+                Assert.assertEquals(4096, n);
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void test5() throws IOException {
+        // an error of the source reaches the reader instead of leaving it waiting
+        InputStream failing = new InputStream() {
+            private int n;
+            @Override
+            public int read() {
+                if (n == 3000) throw new AssertionError("corrupt source");
+                return n++ & 0xff;
+            }
+        };
+        try (InputStream in = new ReadAheadInputStream(failing, 1024, 2)) {
+            int n = 0;
+            try {
+                while (in.read() >= 0) n++;
+                Assert.fail("the error was not rethrown");
+            }
+            catch (AssertionError e) {
+                Assert.assertEquals("corrupt source", e.getMessage());
+                Assert.assertEquals(2048, n);
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void test6() throws IOException, InterruptedException {
+        // closing a stream that is never read stops the thread waiting on its full queue
+        AtomicReference<Thread> producer = new AtomicReference<>();
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                producer.set(Thread.currentThread());
+                return 7;
+            }
+        };
+        InputStream in = new ReadAheadInputStream(endless, 64, 1);
+        while (producer.get() == null || producer.get().getState() != Thread.State.WAITING)
+            Thread.sleep(1);
+        in.close();
+        producer.get().join(5000);
+        Assert.assertFalse(producer.get().isAlive());
+    }
+}
@@ -0,0 +1,132 @@
+package tst;
+
+import graph.BinaryGraphFormat;
+import graph.BreadthFirstPaths;
+import graph.DenseGraph;
+import graph.Graph;
+import graph.GraphBuilder;
+import graph.GraphGenerator;
+import graph.GraphReorderer;
+import graph.SymbolGraph;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Scanner;
+
+public class DenseGraphTest {
+    private void testAgainstGraph(Graph G) {
+        DenseGraph D = new DenseGraph(G);
+        Assert.assertEquals("toString must match", G.toString(), D.toString());
+        for (int v = 0; v < G.V(); v++) {
+            Assert.assertEquals("Degree must match", G.degree(v), D.degree(v));
+            for (int w : G.adj(v))
+                Assert.assertTrue("Edge " + v + "-" + w + " must be present", D.hasEdge(v, w));
+        }
+
+        for (int s = 0; s < G.V(); s++) {
+            BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(s));
+            int[] dist = D.bfs(s);
+            for (int v = 0; v < G.V(); v++)
+                Assert.assertEquals("Distance from " + s + " to " + v + " must match", bfs.distTo(v), dist[v]);
+        }
+    }
+
+    @Test
+    public void test1(){
+        testAgainstGraph(new Graph(new In("tinyG.txt")));
+    }
+
+    @Test
+    public void test2(){
+        testAgainstGraph(new Graph(new In("mediumG.txt")));
+    }
+
+    @Test
+    public void test3(){
+        DenseGraph D = GraphGenerator.denseComplete(130);
+        Assert.assertEquals("Complete graph edge count", 130 * 129 / 2, D.E());
+        Assert.assertFalse("No self-loops", D.hasEdge(7, 7));
+        Assert.assertTrue("Complete graph is dense", DenseGraph.isDense(D.V(), D.E()));
+        testAgainstGraph(D.toGraph());
+    }
+
+    @Test
+    public void test4(){
+        // a graph is stored as a bit matrix once it is dense enough, and looks the same
+        Assert.assertFalse("Sparse graph keeps adjacency sets", GraphGenerator.simple(1000, 3000).isDense());
+        Assert.assertFalse("Small graph keeps adjacency sets", new Graph(new In("tinyG.txt")).isDense());
+        Assert.assertTrue("mediumG is dense", new Graph(new In("mediumG.txt")).isDense());
+        Graph K = GraphGenerator.complete(100);
+        Assert.assertTrue("Complete graph is stored as a bit matrix", K.isDense());
+        Assert.assertEquals("Complete graph edge count", 100 * 99 / 2, K.E());
+        Graph copy = new Graph(K);
+        Assert.assertTrue("Copy keeps the bit matrix", copy.isDense());
+        Assert.assertEquals("Copy must match", K.toString(), copy.toString());
+
+        Graph G = GraphGenerator.simple(200, 5000);
+        Assert.assertTrue("Dense random graph is stored as a bit matrix", G.isDense());
+        StringBuilder text = new StringBuilder();
+        text.append(G.V()).append(' ').append(G.E() + 1).append('\n');
+        GraphBuilder builder = new GraphBuilder(G.V());
+        Graph lists = new Graph(G.V());
+        for (int v = 0; v < G.V(); v++)
+            for (int w : G.adj(v))
+                if (v < w) {
+                    text.append(v).append(' ').append(w).append('\n');
+                    builder.addEdge(v, w);
+                    lists.addEdge(v, w);
+                }
+        // a parallel edge counts in E, as with adjacency sets
+        text.append("0 ").append(G.adj(0).iterator().next()).append('\n');
+        builder.addEdge(0, G.adj(0).iterator().next());
+        lists.addEdge(0, G.adj(0).iterator().next());
+        Assert.assertFalse(lists.isDense());
+        Graph read = new Graph(new In(new Scanner(text.toString())));
+        Graph built = builder.build();
+        Assert.assertTrue("Dense input is read as a bit matrix", read.isDense());
+        Assert.assertTrue("Dense edges are built as a bit matrix", built.isDense());
+        Assert.assertEquals("Read graph must match", lists.toString(), read.toString());
+        Assert.assertEquals("Built graph must match", lists.toString(), built.toString());
+        for (int v = 0; v < G.V(); v++)
+            Assert.assertEquals("Degree must match", lists.degree(v), read.degree(v));
+        testAgainstGraph(G);
+    }
+
+    @Test
+    public void test5() throws IOException {
+        // copies, binary files, symbol graphs and relabellings of a dense graph are bit matrices
+        Graph G = GraphGenerator.simple(200, 5000);
+        Graph lists = new Graph(G.V());
+        StringBuilder text = new StringBuilder();
+        for (int v = 0; v < G.V(); v++)
+            for (int w : G.adj(v))
+                if (v < w) {
+                    lists.addEdge(v, w);
+                    text.append(v).append(' ').append(w).append('\n');
+                }
+        Assert.assertFalse(lists.isDense());
+        Graph copy = new Graph(lists);
+        Assert.assertTrue("Copy of dense adjacency sets is a bit matrix", copy.isDense());
+        Assert.assertEquals("Copy keeps the version", lists.version(), copy.version());
+        Assert.assertEquals("Copy must match", lists.toString(), copy.toString());
+
+        File file = File.createTempFile("dense", ".bin");
+        file.deleteOnExit();
+        BinaryGraphFormat.write(lists, file);
+        Graph read = BinaryGraphFormat.read(file);
+        Assert.assertTrue("Binary file is read as a bit matrix", read.isDense());
+        Assert.assertEquals("Read graph must match", lists.toString(), read.toString());
+
+        Graph relabelled = new GraphReorderer(lists, GraphReorderer.Strategy.BFS).graph();
+        Assert.assertTrue("Relabelled graph is a bit matrix", relabelled.isDense());
+        Assert.assertEquals(lists.E(), relabelled.E());
+
+        SymbolGraph symbols = SymbolGraph.ofLongs(new In(new Scanner(text.toString())));
+        Assert.assertTrue("Symbol graph is a bit matrix", symbols.graph().isDense());
+        Assert.assertEquals(lists.E(), symbols.graph().E());
+    }
+}
@@ -0,0 +1,117 @@
+package tst;
+
+import graph.BreadthFirstSearch;
+import graph.DepthFirstPathsNoRecursion;
+import graph.Graph;
+import lib.FastOut;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+public class FastOutTest {
+    private static String dumpFileContentsToString(String filePath) {
+        try {
+            return new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Assert.fail("Could not load file: " + filePath);
+            return null;
+        }
+    }
+
+    private static String captureMain(Runnable main) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PrintStream ps = new PrintStream(baos);
+        PrintStream oldOut = System.out;
+        System.setOut(ps);
+        try {
+            main.run();
+        }
+        finally {
+            System.out.flush();
+            System.setOut(oldOut);
+        }
+        return baos.toString();
+    }
+
+    @Test
+    public void test1(){
+        // numbers and text are encoded as PrintStream would
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FastOut out = new FastOut(bytes, 64);
+        StringBuilder expected = new StringBuilder();
+        long[] numbers = { 0, 7, -7, 10, 99, 100, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE };
+        for (long x : numbers) {
+            out.print(x);
+            out.print(' ');
+            expected.append(x).append(' ');
+            if (x >= Integer.MIN_VALUE && x <= Integer.MAX_VALUE) {
+                out.print((int) x);
+                expected.append((int) x);
+            }
+            out.println();
+            expected.append(System.lineSeparator());
+        }
+        String text = "café, naïve, 😀 and \ud800 alone";
+        out.println(text);
+        out.println(true);
+        out.println((Object) null);
+        out.print('é');
+        expected.append(text).append(System.lineSeparator())
+                .append(true).append(System.lineSeparator())
+                .append("null").append(System.lineSeparator())
+                .append('é');
+        out.flush();
+        // a lone surrogate becomes '?', as in String.getBytes()
+        byte[] encoded = expected.toString().getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(new String(encoded, StandardCharsets.UTF_8),
+                new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void test2(){
+        // output much larger than the buffer
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FastOut out = new FastOut(bytes, 64);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            out.print(i);
+            out.print(',');
+            expected.append(i).append(',');
+        }
+        Assert.assertTrue(bytes.size() > 0);
+        Assert.assertTrue(bytes.size() < expected.length());
+        out.flush();
+        Assert.assertEquals(expected.toString(), bytes.toString());
+    }
+
+    @Test
+    public void test3() throws IOException {
+        // a file is written through a direct buffer and its channel
+        File file = File.createTempFile("fastout", ".txt");
+        file.deleteOnExit();
+        Graph G = new Graph(new In("mediumG.txt"));
+        try (FastOut out = new FastOut(new FileOutputStream(file), 1024)) {
+            G.print(out);
+        }
+        Assert.assertEquals(G.toString(), dumpFileContentsToString(file.getPath()));
+        Assert.assertTrue(G.toString().startsWith("250 vertices, 1273 edges " + System.lineSeparator()));
+    }
+
+    @Test
+    public void test4(){
+        // the printers still match the golden files
+        Assert.assertEquals(dumpFileContentsToString("expected/BFS_mediumG_expected.txt"),
+                captureMain(() -> BreadthFirstSearch.main(new String[0])));
+        Assert.assertEquals(dumpFileContentsToString("expected/DFP_mediumG_expected.txt"),
+                captureMain(() -> DepthFirstPathsNoRecursion.main(new String[0])));
+    }
+}
@@ -0,0 +1,76 @@
+package tst;
+
+import graph.Graph;
+import graph.GraphBuilder;
+import graph.GraphGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GraphBuilderTest {
+
+    @Test
+    public void test1(){
+        // the same graph as addEdge, with parallel edges and self-loops, in any number of threads
+        int[] edges = { 0, 1, 1, 2, 2, 0, 0, 1, 3, 3, 4, 0 };
+        Graph G = new Graph(5);
+        GraphBuilder builder = new GraphBuilder(5);
+        for (int i = 0; i < edges.length; i += 2) {
+            G.addEdge(edges[i], edges[i + 1]);
+            builder.addEdge(edges[i], edges[i + 1]);
+        }
+        Assert.assertEquals(6, builder.E());
+        Assert.assertEquals(G.toString(), builder.build().toString());
+        Assert.assertEquals(G.toString(), builder.build(3).toString());
+        Assert.assertEquals(G.version(), builder.build().version());
+    }
+
+    @Test
+    public void test2(){
+        // a copy of a random graph, edge by edge and in bulk
+        Graph G = GraphGenerator.simple(2000, 10000);
+        GraphBuilder one = new GraphBuilder(G.V());
+        int[] endpoints = new int[2 * G.E()];
+        int n = 0;
+        for (int v = 0; v < G.V(); v++) {
+            for (int w : G.adj(v)) {
+                if (v < w) {
+                    one.addEdge(v, w);
+                    endpoints[n++] = v;
+                    endpoints[n++] = w;
+                }
+            }
+        }
+        GraphBuilder bulk = new GraphBuilder(G.V(), 3);
+        bulk.addEdges(endpoints, 0, n);
+        Assert.assertEquals(G.toString(), one.build(4).toString());
+        Assert.assertEquals(G.toString(), bulk.build(2).toString());
+    }
+
+    @Test
+    public void test3(){
+        // invalid vertices are rejected, and no edge of a rejected block is added
+        GraphBuilder builder = new GraphBuilder(3);
+        try {
+            builder.addEdge(0, 3);
+            Assert.fail("vertex 3 was accepted");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertEquals("vertex 3 is not between 0 and 2", e.getMessage());
+        }
+        try {
+            builder.addEdges(new int[] { 0, 1, 2, -1 }, 0, 4);
+            Assert.fail("vertex -1 was accepted");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertEquals(0, builder.E());
+        }
+        try {
+            builder.addEdges(new int[] { 0, 1, 2 }, 0, 3);
+            Assert.fail("an odd number of endpoints was accepted");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertEquals(0, builder.E());
+        }
+        Assert.assertEquals(new Graph(3).toString(), builder.build().toString());
+    }
+}
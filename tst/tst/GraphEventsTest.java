@@ -0,0 +1,81 @@
+package tst;
+
+import graph.BinaryGraphFormat;
+import graph.BreadthFirstPaths;
+import graph.DepthFirstPathsNoRecursion;
+import graph.Graph;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class GraphEventsTest {
+
+    private static List<RecordedEvent> record(Runnable work) throws IOException {
+        Path file = Files.createTempFile("graph", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("graph.Load").withoutThreshold();
+            recording.enable("graph.Build").withoutThreshold();
+            recording.enable("graph.Query").withoutThreshold();
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file))
+                if (event.getEventType().getName().startsWith("graph.")) events.add(event);
+            return events;
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void test1() throws IOException {
+        List<RecordedEvent> events = record(() -> {
+            Graph G = new Graph(new In("tinyG.txt"));
+            new BreadthFirstPaths(G, Collections.singletonList(0));
+            new DepthFirstPathsNoRecursion(G, 9);
+        });
+        Assert.assertEquals(3, events.size());
+        Assert.assertEquals("graph.Load", events.get(0).getEventType().getName());
+        Assert.assertEquals(13, events.get(0).getInt("V"));
+        Assert.assertEquals(13, events.get(0).getInt("E"));
+        Assert.assertEquals("BreadthFirstPaths", events.get(1).getString("engine"));
+        Assert.assertEquals(7, events.get(1).getInt("verticesVisited"));
+        Assert.assertEquals("DepthFirstPathsNoRecursion", events.get(2).getString("engine"));
+        Assert.assertEquals(9, events.get(2).getInt("source"));
+        Assert.assertEquals(4, events.get(2).getInt("verticesVisited"));
+    }
+
+    @Test
+    public void test2() throws IOException {
+        Graph G = new Graph(new In("tinyG.txt"));
+        File file = File.createTempFile("tinyG", ".bin");
+        try {
+            BinaryGraphFormat.write(G, file);
+            List<RecordedEvent> events = record(() -> {
+                BinaryGraphFormat.read(file);
+                new Graph(G);
+            });
+            Assert.assertEquals(2, events.size());
+            Assert.assertEquals("BinaryGraphFormat", events.get(0).getString("representation"));
+            Assert.assertEquals("Graph", events.get(1).getString("representation"));
+            Assert.assertEquals(13, events.get(1).getInt("E"));
+        }
+        finally {
+            file.delete();
+        }
+    }
+}
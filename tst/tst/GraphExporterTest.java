@@ -0,0 +1,104 @@
+package tst;
+
+import graph.BinaryGraphFormat;
+import graph.Graph;
+import graph.GraphExporter;
+import graph.GraphExporter.Format;
+import graph.GraphGenerator;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Scanner;
+
+public class GraphExporterTest {
+
+    private static byte[] export(Graph G, Format format, int threads) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphExporter.export(G, format, Channels.newChannel(bytes), threads);
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void test1(){
+        // the adjacency format is Graph.toString()
+        Graph G = new Graph(new In("mediumG.txt"));
+        Assert.assertEquals(G.toString(), new String(export(G, Format.ADJACENCY, 1), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void test2(){
+        // the edge list reads back into the same graph
+        Graph G = new Graph(new In("tinyG.txt"));
+        String edges = new String(export(G, Format.EDGE_LIST, 1), StandardCharsets.UTF_8);
+        Assert.assertTrue(edges.startsWith("13" + System.lineSeparator() + "13" + System.lineSeparator()));
+        Graph H = new Graph(new In(new Scanner(edges)));
+        Assert.assertEquals(G.E(), H.E());
+        Assert.assertEquals(G.toString(), H.toString());
+    }
+
+    @Test
+    public void test3() throws IOException {
+        // the binary export reads back into the same graph
+        Graph G = new Graph(new In("mediumG.txt"));
+        File file = File.createTempFile("mediumG", ".bin");
+        file.deleteOnExit();
+        GraphExporter.export(G, Format.BINARY, file, 3);
+        Assert.assertEquals(12216, file.length());
+        Assert.assertEquals(G.toString(), BinaryGraphFormat.read(file).toString());
+        Assert.assertEquals(new String(export(G, Format.BINARY, 1), StandardCharsets.ISO_8859_1),
+                new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void test4(){
+        // many chunks: exports with several threads equal the serial ones
+        Graph G = GraphGenerator.simple(40000, 200000);
+        for (Format format : Format.values()) {
+            String serial = new String(export(G, format, 1), StandardCharsets.ISO_8859_1);
+            String parallel = new String(export(G, format, 4), StandardCharsets.ISO_8859_1);
+            Assert.assertEquals(format.toString(), serial, parallel);
+        }
+        Graph H = new Graph(new In(new Scanner(new String(export(G, Format.EDGE_LIST, 4), StandardCharsets.UTF_8))));
+        Assert.assertEquals(G.toString(), H.toString());
+    }
+
+    @Test
+    public void test5(){
+        Graph G = new Graph(0);
+        Assert.assertEquals("0 vertices, 0 edges " + System.lineSeparator(),
+                new String(export(G, Format.ADJACENCY, 2), StandardCharsets.UTF_8));
+        Assert.assertEquals(32, export(G, Format.BINARY, 1).length);
+    }
+
+    @Test
+    public void test6() throws IOException {
+        // the binary header counts distinct edges, as the loaded graph does
+        Graph G = new Graph(4);
+        G.addEdge(0, 1);
+        G.addEdge(1, 0);
+        G.addEdge(2, 2);
+        G.addEdge(2, 2);
+        G.addEdge(2, 3);
+        Assert.assertEquals(5, G.E());
+        File file = File.createTempFile("parallel", ".bin");
+        file.deleteOnExit();
+        GraphExporter.export(G, Format.BINARY, file, 2);
+        Graph H = BinaryGraphFormat.read(file);
+        Assert.assertEquals(3, H.E());
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            Assert.assertEquals(BinaryGraphFormat.MAGIC, in.readInt());
+            Assert.assertEquals(BinaryGraphFormat.VERSION, in.readInt());
+            Assert.assertEquals(4, in.readInt());
+            Assert.assertEquals(H.E(), in.readInt());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package tst;
+
+import graph.Graph;
+import graph.GraphImporter;
+import graph.GraphImporter.Format;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+public class GraphImporterTest {
+
+    private static Graph load(String text, Format format) {
+        return GraphImporter.load(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), format, "test");
+    }
+
+    // the graph on 0 to V - 1 with the given edges
+    private static String graph(int V, int... edges) {
+        Graph G = new Graph(V);
+        for (int i = 0; i < edges.length; i += 2)
+            G.addEdge(edges[i], edges[i + 1]);
+        return G.toString();
+    }
+
+    private static void assertRejected(String text, Format format, String message) {
+        try {
+            load(text, format);
+            Assert.fail("accepted \"" + text + "\"");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertEquals(message, e.getMessage());
+        }
+    }
+
+    @Test
+    public void test1(){
+        // SNAP: comments, tabs, extra columns, no header
+        String text = "# Directed graph\n# FromNodeId\tToNodeId\n0\t1\n1\t2\t1234\n\n4 0\r\n";
+        Assert.assertEquals(graph(5, 0, 1, 1, 2, 4, 0), load(text, Format.SNAP).toString());
+        assertRejected("0 1\n2 x\n", Format.SNAP, "test: line 2: not an integer");
+        assertRejected("0 1\n2\n", Format.SNAP, "test: line 2: missing number");
+    }
+
+    @Test
+    public void test2(){
+        // Matrix Market: numbered from 1, with values
+        String text = "%%MatrixMarket matrix coordinate real symmetric\n% comment\n4 4 3\n2 1 0.5\n3 2 -1e3\n4 4 2\n";
+        Assert.assertEquals(graph(4, 1, 0, 2, 1, 3, 3), load(text, Format.MATRIX_MARKET).toString());
+        Assert.assertEquals(graph(3, 0, 2), load("%%MatrixMarket matrix coordinate pattern general\n3 2 1\n1 3\n",
+                Format.MATRIX_MARKET).toString());
+        assertRejected("%%MatrixMarket matrix array real general\n2 2\n", Format.MATRIX_MARKET,
+                "test: line 1: only \"matrix coordinate\" files describe graphs");
+        assertRejected("%%MatrixMarket matrix coordinate pattern general\n3 3 2\n1 2\n", Format.MATRIX_MARKET,
+                "test: line 3: 2 entries announced, 1 found");
+        assertRejected("%%MatrixMarket matrix coordinate pattern general\n3 3 1\n1 4\n", Format.MATRIX_MARKET,
+                "test: line 3: vertex 4 is not between 1 and 3");
+        Assert.assertEquals(graph(3, 0, 2), load("%%matrixmarket MATRIX Coordinate pattern general\n3 2 1\n1 3\n",
+                Format.MATRIX_MARKET).toString());
+        assertRejected("%MatrixMarket matrix coordinate pattern general\n3 2 1\n1 3\n", Format.MATRIX_MARKET,
+                "test: line 1: missing %%MatrixMarket banner");
+    }
+
+    @Test
+    public void test3(){
+        // METIS: each edge listed twice, an isolated vertex, weights
+        String text = "% a triangle and an isolated vertex\n4 3\n2 3\n1 3\n1 2\n\n";
+        Assert.assertEquals(graph(4, 0, 1, 0, 2, 1, 2), load(text, Format.METIS).toString());
+        String weighted = "3 2 11 1\n7 2 5\n8 1 5 3 6\n9 2 6\n";
+        Assert.assertEquals(graph(3, 0, 1, 1, 2), load(weighted, Format.METIS).toString());
+        assertRejected("3 2\n2\n1 3\n", Format.METIS, "test: line 3: 3 vertex lines announced, 2 found");
+        assertRejected("3 2\n2\n1\n\n", Format.METIS, "test: line 4: 2 edges announced, 1 found");
+        assertRejected("3 2 2\n2\n1 3\n2\n", Format.METIS, "test: line 1: invalid fmt 2: its digits must be 0 or 1");
+        assertRejected("3 2 20\n", Format.METIS, "test: line 1: invalid fmt 20: its digits must be 0 or 1");
+    }
+
+    @Test
+    public void test4() throws IOException {
+        // DIMACS: clique and shortest path formats, and a gzip file named by its format
+        String clique = "c a path\np edge 3 2\ne 1 2\nn 1 5\ne 2 3\n";
+        Assert.assertEquals(graph(3, 0, 1, 1, 2), load(clique, Format.DIMACS).toString());
+        String sp = "p sp 2 2\na 1 2 7\na 2 1 7\n";
+        Assert.assertEquals(graph(2, 0, 1, 1, 0), load(sp, Format.DIMACS).toString());
+        assertRejected("e 1 2\n", Format.DIMACS, "test: line 1: edge before the problem line");
+
+        File file = File.createTempFile("tinyG", ".gr.gz");
+        file.deleteOnExit();
+        Graph G = new Graph(new In("tinyG.txt"));
+        StringBuilder text = new StringBuilder("p sp " + G.V() + " " + G.E() + "\n");
+        for (int v = 0; v < G.V(); v++)
+            for (int w : G.adj(v))
+                if (v < w) text.append("a ").append(v + 1).append(' ').append(w + 1).append(" 1\n");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        Assert.assertEquals(Format.DIMACS, GraphImporter.formatOf(file.getName()));
+        Assert.assertEquals(G.toString(), GraphImporter.load(file).toString());
+        Assert.assertEquals(Format.MATRIX_MARKET, GraphImporter.formatOf("web.MTX"));
+        Assert.assertEquals(Format.SNAP, GraphImporter.formatOf("facebook_combined.txt.gz"));
+    }
+}
@@ -0,0 +1,193 @@
+package tst;
+
+import graph.BreadthFirstPaths;
+import graph.CancellationToken;
+import graph.Graph;
+import graph.GraphQueryExecutor;
+import graph.GraphQueryExecutor.Answer;
+import graph.GraphQueryExecutor.Query;
+import graph.GraphQueryExecutor.Type;
+import graph.IntPath;
+import graph.LatencyHistogram;
+import graph.TraversalOptions;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+public class GraphQueryExecutorTest {
+
+    private static boolean adjacent(Graph G, int v, int w) {
+        for (int x : G.adj(v))
+            if (x == w) return true;
+        return false;
+    }
+
+    @Test
+    public void test1(){
+        Graph G = new Graph(new In("mediumG.txt"));
+        List<Query> batch = new ArrayList<>();
+        for (int s = 0; s < G.V(); s += 25)
+            for (int t = 0; t < G.V(); t++)
+                batch.add(Query.of(Type.values()[t % 3], s, t));
+
+        try (GraphQueryExecutor executor = new GraphQueryExecutor(G, 64, 4, false)) {
+            List<CompletableFuture<Answer>> answers = executor.submitAll(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                Query query = batch.get(i);
+                Answer answer = answers.get(i).join();
+                int s = query.source();
+                int t = query.target();
+                BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(s));
+                Assert.assertSame(query, answer.query());
+                Assert.assertTrue(answer.isComplete());
+                Assert.assertEquals(bfs.hasPathTo(t), answer.reachable());
+                if (!bfs.hasPathTo(t)) {
+                    Assert.assertEquals(Integer.MAX_VALUE, answer.distance());
+                    Assert.assertNull(answer.path());
+                    continue;
+                }
+                Assert.assertEquals(bfs.distTo(t), answer.distance());
+                if (query.type() != Type.PATH) {
+                    Assert.assertNull(answer.path());
+                    continue;
+                }
+                IntPath path = answer.path();
+                Assert.assertEquals(bfs.distTo(t), path.length());
+                Assert.assertEquals(s, path.source());
+                Assert.assertEquals(t, path.target());
+                for (int j = 0; j < path.length(); j++)
+                    Assert.assertTrue(adjacent(G, path.get(j), path.get(j + 1)));
+            }
+            long recorded = 0;
+            for (Type type : Type.values())
+                recorded += executor.latencies(type).count();
+            Assert.assertEquals(batch.size(), recorded);
+        }
+    }
+
+    @Test
+    public void test2(){
+        Graph G = new Graph(new In("tinyG.txt"));
+        try (GraphQueryExecutor executor = new GraphQueryExecutor(G, 4)) {
+            // searches cover the component of the source; 9 is in {9, 10, 11, 12}
+            Answer zero = executor.run(Query.of(Type.SEARCH, 0, 0));
+            Assert.assertEquals(7, zero.reached());
+            Assert.assertEquals(2, zero.distance());
+            Answer nine = executor.submit(Query.of(Type.SEARCH, 9, 0)).join();
+            Assert.assertEquals(4, nine.reached());
+            Assert.assertEquals(1, nine.distance());
+            Assert.assertFalse(executor.run(Query.of(Type.REACH, 0, 9)).reachable());
+            Assert.assertTrue(executor.run(Query.of(Type.REACH, 7, 8)).reachable());
+            Assert.assertEquals(0, executor.run(Query.of(Type.DISTANCE, 3, 3)).distance());
+        }
+    }
+
+    @Test
+    public void test3(){
+        Graph G = new Graph(new In("tinyG.txt"));
+        try (GraphQueryExecutor executor = new GraphQueryExecutor(G, 4)) {
+            // 3 and 4 are 2 edges from 0
+            TraversalOptions shallow = new TraversalOptions().maxDepth(1);
+            Assert.assertFalse(executor.run(new Query(Type.REACH, 0, 3, shallow)).reachable());
+            Assert.assertTrue(executor.run(new Query(Type.REACH, 0, 3, null)).reachable());
+
+            // without 5 and 6, 3 and 4 are cut off from 0
+            TraversalOptions filtered = new TraversalOptions().filter(v -> v != 5 && v != 6);
+            Answer cut = executor.run(new Query(Type.SEARCH, 0, 0, filtered));
+            Assert.assertEquals(3, cut.reached());
+
+            TraversalOptions budget = new TraversalOptions().maxVisited(2);
+            Assert.assertEquals(2, executor.run(new Query(Type.SEARCH, 0, 0, budget)).reached());
+
+            CancellationToken token = new CancellationToken();
+            token.cancel();
+            Answer cancelled = executor.run(new Query(Type.REACH, 0, 4, new TraversalOptions().cancellation(token)));
+            Assert.assertFalse(cancelled.isComplete());
+            Assert.assertFalse(cancelled.reachable());
+        }
+    }
+
+    @Test
+    public void test4(){
+        Graph G = new Graph(new In("tinyG.txt"));
+        GraphQueryExecutor executor = new GraphQueryExecutor(G, 4);
+        try {
+            executor.submit(Query.of(Type.PATH, 0, 13));
+            Assert.fail("vertex 13 is not in tinyG");
+        }
+        catch (IllegalArgumentException e) { }
+        executor.close();
+        try {
+            executor.submit(Query.of(Type.PATH, 0, 1));
+            Assert.fail("executor is closed");
+        }
+        catch (IllegalStateException e) { }
+    }
+
+    @Test
+    public void test5(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.percentile(50));
+        for (long nanos = 1; nanos <= 1000; nanos++)
+            histogram.record(nanos);
+        Assert.assertEquals(1000, histogram.count());
+        Assert.assertEquals(500.5, histogram.mean(), 1e-9);
+        Assert.assertEquals(1000, histogram.max());
+        Assert.assertEquals(1000, histogram.percentile(100));
+        // percentiles are upper bounds within 25%
+        long p50 = histogram.percentile(50);
+        Assert.assertTrue(p50 >= 500 && p50 <= 625);
+        long p99 = histogram.percentile(99);
+        Assert.assertTrue(p99 >= 990 && p99 <= 1000);
+        histogram.reset();
+        Assert.assertEquals(0, histogram.count());
+    }
+
+    @Test
+    public void test6(){
+        // the latency of an answer is recorded by the time the answer completes
+        Graph G = new Graph(new In("tinyG.txt"));
+        try (GraphQueryExecutor executor = new GraphQueryExecutor(G, 1)) {
+            for (int i = 1; i <= 500; i++) {
+                executor.submit(Query.of(Type.DISTANCE, 0, 4)).join();
+                Assert.assertEquals(i, executor.latencies(Type.DISTANCE).count());
+            }
+        }
+    }
+
+    @Test
+    public void test7() throws InterruptedException {
+        // trySubmit refuses a query while the executor is full, without blocking
+        Graph G = new Graph(new In("tinyG.txt"));
+        CountDownLatch release = new CountDownLatch(1);
+        TraversalOptions blocking = new TraversalOptions().filter(w -> {
+            try {
+                release.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        });
+        try (GraphQueryExecutor executor = new GraphQueryExecutor(G, 1)) {
+            CompletableFuture<Answer> held = executor.submit(new Query(Type.SEARCH, 0, 0, blocking));
+            Assert.assertNull(executor.trySubmit(Query.of(Type.DISTANCE, 0, 4)));
+            try {
+                executor.trySubmit(Query.of(Type.DISTANCE, 0, 13));
+                Assert.fail("vertex 13 is not in tinyG");
+            }
+            catch (IllegalArgumentException e) { }
+            release.countDown();
+            Assert.assertEquals(7, held.join().reached());
+            CompletableFuture<Answer> answer = executor.trySubmit(Query.of(Type.DISTANCE, 0, 4));
+            Assert.assertNotNull(answer);
+            Assert.assertEquals(2, answer.join().distance());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package tst;
+
+import graph.BinaryGraphFormat;
+import graph.BreadthFirstPaths;
+import graph.Graph;
+import graph.GraphQueryClient;
+import graph.GraphQueryExecutor;
+import graph.GraphQueryExecutor.Answer;
+import graph.GraphQueryExecutor.Query;
+import graph.GraphQueryExecutor.Type;
+import graph.GraphQueryServer;
+import graph.IntPath;
+import graph.TraversalOptions;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+public class GraphQueryServerTest {
+
+    private static boolean adjacent(Graph G, int v, int w) {
+        for (int x : G.adj(v))
+            if (x == w) return true;
+        return false;
+    }
+
+    private static void check(Graph G, Query query, Answer answer) {
+        int s = query.source();
+        int t = query.target();
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(s));
+        Assert.assertSame(query, answer.query());
+        Assert.assertEquals(bfs.hasPathTo(t), answer.reachable());
+        if (!bfs.hasPathTo(t)) return;
+        Assert.assertEquals(bfs.distTo(t), answer.distance());
+        IntPath path = answer.path();
+        if (query.type() != Type.PATH) {
+            Assert.assertNull(path);
+            return;
+        }
+        Assert.assertEquals(bfs.distTo(t), path.length());
+        Assert.assertEquals(s, path.source());
+        Assert.assertEquals(t, path.target());
+        for (int j = 0; j < path.length(); j++)
+            Assert.assertTrue(adjacent(G, path.get(j), path.get(j + 1)));
+    }
+
+    @Test
+    public void test1(){
+        Graph G = new Graph(new In("mediumG.txt"));
+        List<Query> batch = new ArrayList<>();
+        for (int s = 0; s < G.V(); s += 50)
+            for (int t = 0; t < G.V(); t++)
+                batch.add(Query.of(Type.values()[t % 3], s, t));
+        try (GraphQueryServer server = new GraphQueryServer(G, 0).start();
+             GraphQueryClient client = new GraphQueryClient(server.address())) {
+            // more queries than one window, so the client pipelines several
+            List<Answer> answers = client.query(batch);
+            Assert.assertEquals(batch.size(), answers.size());
+            for (int i = 0; i < batch.size(); i++)
+                check(G, batch.get(i), answers.get(i));
+        }
+    }
+
+    @Test
+    public void test2(){
+        Graph G = new Graph(new In("tinyG.txt"));
+        try (GraphQueryServer server = new GraphQueryServer(G, 0).start();
+             GraphQueryClient client = new GraphQueryClient(server.address())) {
+            Answer search = client.query(Query.of(Type.SEARCH, 0, 0));
+            Assert.assertEquals(7, search.reached());
+            Assert.assertEquals(2, search.distance());
+            Assert.assertFalse(client.query(Query.of(Type.REACH, 0, 9)).reachable());
+            try {
+                client.query(Query.of(Type.DISTANCE, 0, 13));
+                Assert.fail("vertex 13 is not in tinyG");
+            }
+            catch (IllegalArgumentException e) { }
+            try {
+                client.query(Arrays.asList(Query.of(Type.REACH, 0, 1), Query.of(Type.REACH, -1, 1),
+                        Query.of(Type.REACH, 0, 2)));
+                Assert.fail("vertex -1 is not in tinyG");
+            }
+            catch (IllegalArgumentException e) { }
+            // the connection is still usable after a rejected query
+            Assert.assertEquals(1, client.query(Query.of(Type.DISTANCE, 0, 5)).distance());
+        }
+    }
+
+    @Test
+    public void test3() throws IOException {
+        Graph G = new Graph(new In("mediumG.txt"));
+        File file = File.createTempFile("mediumG", ".bin");
+        file.deleteOnExit();
+        BinaryGraphFormat.write(G, file);
+        Graph H = BinaryGraphFormat.load(file);
+        Assert.assertEquals(G.E(), H.E());
+
+        try (GraphQueryServer server = new GraphQueryServer(H, 0).start()) {
+            List<CompletableFuture<List<Answer>>> results = new ArrayList<>();
+            List<List<Query>> batches = new ArrayList<>();
+            for (int c = 0; c < 4; c++) {
+                List<Query> batch = new ArrayList<>();
+                for (int t = 0; t < G.V(); t++)
+                    batch.add(Query.of(Type.PATH, c, t));
+                batches.add(batch);
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    try (GraphQueryClient client = new GraphQueryClient(server.address())) {
+                        return client.query(batch);
+                    }
+                }));
+            }
+            for (int c = 0; c < 4; c++) {
+                List<Answer> answers = results.get(c).join();
+                for (int i = 0; i < answers.size(); i++)
+                    check(G, batches.get(c).get(i), answers.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void test4() throws InterruptedException {
+        // a full executor stalls the connection whose request it refused, not the selector
+        Graph G = new Graph(new In("tinyG.txt"));
+        CountDownLatch release = new CountDownLatch(1);
+        TraversalOptions blocking = new TraversalOptions().filter(w -> {
+            try {
+                release.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        });
+        GraphQueryExecutor executor = new GraphQueryExecutor(G, 1);
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        try (GraphQueryServer server = new GraphQueryServer(executor, address).start()) {
+            CompletableFuture<Answer> held = executor.submit(new Query(Type.SEARCH, 0, 0, blocking));
+            List<Query> batch = Arrays.asList(Query.of(Type.DISTANCE, 0, 4), Query.of(Type.REACH, 0, 9),
+                    Query.of(Type.PATH, 9, 12));
+            CompletableFuture<List<Answer>> stalled = CompletableFuture.supplyAsync(() -> {
+                try (GraphQueryClient client = new GraphQueryClient(server.address())) {
+                    return client.query(batch);
+                }
+            });
+            try {
+                Thread.sleep(200);
+                Assert.assertFalse(stalled.isDone());
+                for (Map.Entry<Thread, StackTraceElement[]> thread : Thread.getAllStackTraces().entrySet()) {
+                    if (!thread.getKey().getName().equals("graph-query-server")) continue;
+                    for (StackTraceElement frame : thread.getValue())
+                        Assert.assertFalse("the selector thread waits for the executor",
+                                frame.getClassName().startsWith("java.util.concurrent.Semaphore"));
+                }
+            }
+            finally {
+                release.countDown();
+            }
+            Assert.assertEquals(7, held.join().reached());
+            List<Answer> answers = stalled.join();
+            for (int i = 0; i < batch.size(); i++)
+                check(G, batch.get(i), answers.get(i));
+            try (GraphQueryClient client = new GraphQueryClient(server.address())) {
+                Assert.assertEquals(1, client.query(Query.of(Type.DISTANCE, 0, 5)).distance());
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package tst;
+
+import graph.BreadthFirstPaths;
+import graph.Graph;
+import graph.GraphReorderer;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class GraphReordererTest {
+    private static Graph load(String inputFile) {
+        return new Graph(new In(inputFile));
+    }
+
+    private void testStrategy(String inputFile, GraphReorderer.Strategy strategy) {
+        Graph G = load(inputFile);
+        GraphReorderer reorderer = new GraphReorderer(G, strategy);
+        Graph H = reorderer.graph();
+        Assert.assertEquals("Vertex count must be preserved", G.V(), H.V());
+
+        // the maps must be inverse permutations
+        boolean[] seen = new boolean[G.V()];
+        for (int v = 0; v < G.V(); v++) {
+            int w = reorderer.toReordered(v);
+            Assert.assertFalse("New ids must be distinct", seen[w]);
+            seen[w] = true;
+            Assert.assertEquals("Maps must be inverses", v, reorderer.toOriginal(w));
+            Assert.assertEquals("Degrees must be preserved", G.degree(v), H.degree(w));
+        }
+
+        // distances computed on the relabelled graph must translate back
+        int s = 0;
+        BreadthFirstPaths expected = new BreadthFirstPaths(G, Collections.singletonList(s));
+        BreadthFirstPaths actual = new BreadthFirstPaths(H, reorderer.toReordered(Collections.singletonList(s)));
+        int[] dist = new int[H.V()];
+        for (int v = 0; v < H.V(); v++)
+            dist[v] = actual.distTo(v);
+        int[] translated = reorderer.toOriginal(dist);
+        for (int v = 0; v < G.V(); v++)
+            Assert.assertEquals("Distance to " + v + " must match", expected.distTo(v), translated[v]);
+    }
+
+    @Test
+    public void test1(){
+        for (GraphReorderer.Strategy strategy : GraphReorderer.Strategy.values())
+            testStrategy("tinyG.txt", strategy);
+    }
+
+    @Test
+    public void test2(){
+        for (GraphReorderer.Strategy strategy : GraphReorderer.Strategy.values())
+            testStrategy("mediumG.txt", strategy);
+    }
+
+    @Test
+    public void test3(){
+        Graph G = load("mediumG.txt");
+        GraphReorderer rcm = new GraphReorderer(G, GraphReorderer.Strategy.RCM);
+        Assert.assertTrue("RCM must not increase bandwidth",
+                GraphReorderer.bandwidth(rcm.graph()) <= GraphReorderer.bandwidth(G));
+    }
+}
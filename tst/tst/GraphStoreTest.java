@@ -0,0 +1,158 @@
+package tst;
+
+import graph.Graph;
+import graph.GraphGenerator;
+import graph.GraphStore;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+public class GraphStoreTest {
+
+    private static File directory() throws IOException {
+        File directory = Files.createTempDirectory("store").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    private static String[] names(File directory) {
+        String[] names = directory.list();
+        Arrays.sort(names);
+        return names;
+    }
+
+    private static void addAll(GraphStore store, Graph G) {
+        for (int v = 0; v < G.V(); v++)
+            for (int w : G.adj(v))
+                if (v < w) store.addEdge(v, w);
+    }
+
+    @Test
+    public void test1() throws IOException {
+        // the edges added survive a restart
+        File directory = directory();
+        Graph G = new Graph(new In("mediumG.txt"));
+        long written;
+        try (GraphStore store = GraphStore.open(directory, G.V())) {
+            Assert.assertEquals(0, store.graph().E());
+            addAll(store, G);
+            store.sync();
+            Assert.assertTrue(store.commits() >= 1);
+            written = store.logBytes();
+            // a header, then an 8-byte frame header per frame and 8 bytes per edge
+            Assert.assertTrue(written >= 16 + 8 * 1273 + 8 * store.commits());
+        }
+        try (GraphStore store = GraphStore.open(directory, G.V())) {
+            Assert.assertEquals(G.toString(), store.graph().toString());
+            Assert.assertEquals(written, store.replayedBytes());
+            Assert.assertEquals(new File(directory, "edges-0.log").length(), store.replayedBytes());
+        }
+        Assert.assertEquals("[edges-0.log, snapshot-0.bin]", Arrays.toString(names(directory)));
+    }
+
+    @Test
+    public void test2() throws IOException {
+        // a frame torn by a crash is cut off; the frames before it are kept
+        File directory = directory();
+        try (GraphStore store = GraphStore.open(directory, 5)) {
+            store.addEdge(0, 1);
+            store.sync();
+            store.addEdge(1, 2);
+            store.sync();
+        }
+        File log = new File(directory, "edges-0.log");
+        long length = log.length();
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.seek(length);
+            file.writeInt(1);
+            file.writeInt(12345);
+            file.writeInt(3);       // the crash happened here
+        }
+        try (GraphStore store = GraphStore.open(directory, 5)) {
+            Assert.assertEquals(2, store.graph().E());
+            Assert.assertEquals(length, log.length());
+            store.addEdge(3, 4);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.seek(length + 8);
+            file.writeInt(4);       // corrupts the frame of 3-4
+        }
+        try (GraphStore store = GraphStore.open(directory, 5)) {
+            Assert.assertEquals(2, store.graph().E());
+            Assert.assertEquals(0, store.graph().degree(3));
+        }
+    }
+
+    @Test
+    public void test3() throws IOException {
+        // compaction folds the log into a new snapshot while edges are added
+        File directory = directory();
+        Graph G = GraphGenerator.simple(1000, 5000);
+        try (GraphStore store = GraphStore.open(directory, G.V())) {
+            addAll(store, G);
+            CompletableFuture<Void> compaction = store.compact();
+            Assert.assertSame(compaction, store.compact());
+            compaction.join();
+            store.addEdge(0, 0);
+            store.sync();
+        }
+        Assert.assertEquals("[edges-1.log, snapshot-1.bin]", Arrays.toString(names(directory)));
+        G.addEdge(0, 0);
+        try (GraphStore store = GraphStore.open(directory, G.V())) {
+            Assert.assertEquals(G.toString(), store.graph().toString());
+            Assert.assertEquals(16 + 16, store.replayedBytes());
+        }
+        try {
+            GraphStore.open(directory, 999);
+            Assert.fail("a store of 1000 vertices was opened with 999");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertEquals(directory + " holds a graph of 1000 vertices, not 999", e.getMessage());
+        }
+    }
+
+    @Test
+    public void test4() throws Exception {
+        // edges added by several threads, with compactions started by the log size
+        File directory = directory();
+        int threads = 4, perThread = 5000, V = 1000;
+        try (GraphStore store = GraphStore.open(directory, V, 4096)) {
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                workers[t] = new Thread(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < perThread; i++) {
+                        store.addEdge(random.nextInt(V), random.nextInt(V));
+                        if (i % 100 == 0) store.sync();
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers)
+                worker.join();
+            store.sync();
+            Assert.assertEquals(threads * perThread, store.graph().E());
+            Assert.assertTrue(store.commits() < threads * perThread);
+        }
+        String expected;
+        try (GraphStore store = GraphStore.open(directory, V, 4096)) {
+            expected = store.graph().toString();
+            Assert.assertTrue(store.replayedBytes() < threads * perThread * 8);
+            store.compact().join();
+        }
+        try (GraphStore store = GraphStore.open(directory, V, 4096)) {
+            // a snapshot stores parallel edges once, so only the adjacency lists are the same
+            String adjacency = store.graph().toString();
+            Assert.assertEquals(expected.substring(expected.indexOf('\n')), adjacency.substring(adjacency.indexOf('\n')));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package tst;
+
+import graph.BfsResultCache;
+import graph.BreadthFirstPaths;
+import graph.DepthFirstPathsNoRecursion;
+import graph.Graph;
+import graph.IntPath;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Stack;
+
+public class IntPathTest {
+
+    private static List<Integer> popAll(Iterable<Integer> stack) {
+        Stack<Integer> path = (Stack<Integer>) stack;
+        List<Integer> vertices = new ArrayList<>();
+        while (!path.isEmpty())
+            vertices.add(path.pop());
+        return vertices;
+    }
+
+    private static boolean contains(Iterable<Integer> vertices, int w) {
+        for (int x : vertices)
+            if (x == w) return true;
+        return false;
+    }
+
+    private static List<Integer> iterate(IntPath path) {
+        List<Integer> vertices = new ArrayList<>();
+        for (PrimitiveIterator.OfInt it = path.iterator(); it.hasNext(); )
+            vertices.add(it.nextInt());
+        return vertices;
+    }
+
+    private static void assertSamePath(Iterable<Integer> expected, IntPath path, int[] buffer, int n) {
+        List<Integer> vertices = popAll(expected);
+        Assert.assertEquals(vertices, iterate(path));
+        Assert.assertEquals(vertices.size() - 1, path.length());
+        Assert.assertEquals(vertices.size(), n);
+        int[] array = path.toArray();
+        for (int i = 0; i < vertices.size(); i++) {
+            Assert.assertEquals((int) vertices.get(i), path.get(i));
+            Assert.assertEquals((int) vertices.get(i), array[i]);
+            Assert.assertEquals((int) vertices.get(i), buffer[i]);
+        }
+    }
+
+    @Test
+    public void test1(){
+        Graph G = new Graph(new In("mediumG.txt"));
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(0));
+        int[] buffer = new int[G.V()];
+        for (int v = 0; v < G.V(); v++) {
+            // a shortest path: from 0 to v, along edges, with distTo(v) edges
+            IntPath path = bfs.path(v);
+            int n = bfs.pathTo(v, buffer);
+            Assert.assertEquals(bfs.distTo(v), path.length());
+            Assert.assertEquals(path.length() + 1, n);
+            Assert.assertEquals(0, path.source());
+            Assert.assertEquals(v, path.target());
+            for (int i = 0; i < path.length(); i++) {
+                Assert.assertEquals(path.get(i), buffer[i]);
+                Assert.assertTrue("Edge " + path.get(i) + "-" + path.get(i + 1),
+                        contains(G.adj(path.get(i)), path.get(i + 1)));
+            }
+        }
+    }
+
+    @Test
+    public void test2(){
+        Graph G = new Graph(new In("tinyG.txt"));
+        DepthFirstPathsNoRecursion dfs = new DepthFirstPathsNoRecursion(G, 0);
+        int[] buffer = new int[G.V()];
+        for (int v = 0; v < G.V(); v++) {
+            if (!dfs.hasPathTo(v)) {
+                Assert.assertNull(dfs.path(v));
+                Assert.assertEquals(0, dfs.pathTo(v, buffer));
+                continue;
+            }
+            assertSamePath(dfs.pathTo(v), dfs.path(v), buffer, dfs.pathTo(v, buffer));
+        }
+    }
+
+    @Test
+    public void test3(){
+        Graph G = new Graph(new In("mediumG.txt"));
+        BfsResultCache.Result result = new BfsResultCache(G, 1 << 20).get(7);
+        int[] buffer = new int[G.V()];
+        for (int v = 0; v < G.V(); v++)
+            assertSamePath(result.pathTo(v), result.path(v), buffer, result.pathTo(v, buffer));
+    }
+
+    @Test
+    public void test4(){
+        Graph G = new Graph(new In("tinyCG.txt"));
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(0));
+        IntPath path = bfs.path(3);
+        Assert.assertEquals("0-2-3", path.toString());
+        Assert.assertEquals(0, path.source());
+        Assert.assertEquals(3, path.target());
+        Assert.assertEquals(path, bfs.path(3));
+        Assert.assertEquals("0", bfs.path(0).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test5(){
+        Graph G = new Graph(new In("tinyCG.txt"));
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(0));
+        bfs.pathTo(3, new int[2]);
+    }
+}
@@ -0,0 +1,54 @@
+package tst;
+
+import graph.BreadthFirstPaths;
+import graph.Graph;
+import graph.LandmarkDistanceOracle;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class LandmarkDistanceOracleTest {
+    private void testAgainstFile(String inputFile, int k, LandmarkDistanceOracle.Selection selection) {
+        Graph G = new Graph(new In(inputFile));
+        LandmarkDistanceOracle oracle = new LandmarkDistanceOracle(G, k, selection);
+        for (int s = 0; s < G.V(); s += 7) {
+            BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(s));
+            for (int t = 0; t < G.V(); t++) {
+                int d = bfs.distTo(t);
+                Assert.assertTrue("Lower bound " + s + "-" + t, oracle.lowerBound(s, t) <= d);
+                Assert.assertTrue("Upper bound " + s + "-" + t, oracle.upperBound(s, t) >= d);
+                Assert.assertEquals("Exact distance " + s + "-" + t, d, oracle.distance(s, t));
+            }
+        }
+    }
+
+    @Test
+    public void test1(){
+        testAgainstFile("tinyG.txt", 2, LandmarkDistanceOracle.Selection.DEGREE);
+    }
+
+    @Test
+    public void test2(){
+        testAgainstFile("mediumG.txt", 8, LandmarkDistanceOracle.Selection.DEGREE);
+    }
+
+    @Test
+    public void test3(){
+        testAgainstFile("mediumG.txt", 3, LandmarkDistanceOracle.Selection.RANDOM);
+    }
+
+    @Test
+    public void test4(){
+        // k V distances that overflow an int array index are rejected up front
+        Graph G = new Graph(50000);
+        try {
+            new LandmarkDistanceOracle(G, 50000, LandmarkDistanceOracle.Selection.RANDOM);
+            Assert.fail("k V > Integer.MAX_VALUE must be rejected");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("too many landmarks"));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package tst;
+
+import graph.BinaryGraphFormat;
+import graph.Graph;
+import graph.GraphGenerator;
+import graph.PagedGraph;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+public class PagedGraphTest {
+
+    private static File binary(Graph G) throws IOException {
+        File file = File.createTempFile("graph", ".bin");
+        file.deleteOnExit();
+        BinaryGraphFormat.write(G, file);
+        return file;
+    }
+
+    // distances from s up to maxDepth, -1 beyond
+    private static int[] distances(Graph G, int s, int maxDepth) {
+        int[] distTo = new int[G.V()];
+        Arrays.fill(distTo, -1);
+        distTo[s] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(s);
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            if (distTo[v] == maxDepth) continue;
+            for (int w : G.adj(v)) {
+                if (distTo[w] >= 0) continue;
+                distTo[w] = distTo[v] + 1;
+                queue.add(w);
+            }
+        }
+        return distTo;
+    }
+
+    @Test
+    public void test1() throws IOException {
+        // every adjacency list, through a cache much smaller than the file
+        Graph G = new Graph(new In("mediumG.txt"));
+        File file = binary(G);
+        try (PagedGraph P = new PagedGraph(file, 1024, 256)) {
+            Assert.assertEquals(G.V(), P.V());
+            Assert.assertEquals(G.E(), P.E());
+            int[] buffer = new int[G.V()];
+            for (int v = G.V() - 1; v >= 0; v--) {
+                Assert.assertEquals(G.degree(v), P.degree(v));
+                int n = P.adj(v, buffer);
+                int i = 0;
+                for (int w : G.adj(v))
+                    Assert.assertEquals(w, buffer[i++]);
+                Assert.assertEquals(n, i);
+                Assert.assertEquals(G.adj(v).toString(), toString(P.adj(v)));
+            }
+            Assert.assertEquals(1024, P.cachedBytes());
+            Assert.assertTrue(P.evictions() > 0);
+            Assert.assertTrue(P.hits() > 0);
+        }
+    }
+
+    private static String toString(Iterable<Integer> vertices) {
+        StringBuilder s = new StringBuilder("[");
+        for (int v : vertices)
+            s.append(s.length() > 1 ? ", " : "").append(v);
+        return s.append(']').toString();
+    }
+
+    @Test
+    public void test2() throws IOException {
+        // bounded searches find the distances of a full search, with prefetching
+        Graph G = GraphGenerator.simple(5000, 20000);
+        File file = binary(G);
+        try (PagedGraph P = new PagedGraph(file, 16 * 1024, 1024)) {
+            for (int s = 0; s < 50; s++) {
+                for (int depth = 0; depth <= 3; depth++) {
+                    int[] expected = distances(G, s, depth);
+                    PagedGraph.Search search = P.search(s, depth);
+                    int count = 0;
+                    for (int v = 0; v < G.V(); v++) {
+                        Assert.assertEquals(expected[v], search.distTo(v));
+                        if (expected[v] >= 0) count++;
+                    }
+                    Assert.assertEquals(count, search.count());
+                    Assert.assertEquals(s, search.vertex(0));
+                    for (int i = 1; i < search.count(); i++)
+                        Assert.assertTrue(search.distTo(search.vertex(i - 1)) <= search.distTo(search.vertex(i)));
+                }
+            }
+            Assert.assertTrue(P.prefetched() > 0);
+            Assert.assertTrue(P.cachedBytes() <= 16 * 1024);
+        }
+    }
+
+    @Test
+    public void test3() throws IOException {
+        // invalid files and budgets
+        File text = new File("tinyG.txt");
+        try {
+            new PagedGraph(text, 1 << 20);
+            Assert.fail("a text file was opened");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertEquals("tinyG.txt is not a binary graph file", e.getMessage());
+        }
+        File file = binary(new Graph(new In("tinyG.txt")));
+        try {
+            new PagedGraph(file, 1000, 512);
+            Assert.fail("a cache of one block was accepted");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertEquals("cache must hold at least two blocks", e.getMessage());
+        }
+        try (PagedGraph P = new PagedGraph(file, 1 << 20)) {
+            P.degree(13);
+            Assert.fail("vertex 13 was accepted");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertEquals("vertex 13 is not between 0 and 12", e.getMessage());
+        }
+    }
+
+    @Test
+    public void test4() throws IOException {
+        // an interrupted reader neither fails nor breaks the file for the others
+        Graph G = new Graph(new In("mediumG.txt"));
+        File file = binary(G);
+        try (PagedGraph P = new PagedGraph(file, 1024, 256)) {
+            Thread.currentThread().interrupt();
+            try {
+                for (int v = 0; v < G.V(); v++)
+                    Assert.assertEquals(G.degree(v), P.degree(v));
+                Assert.assertTrue(Thread.currentThread().isInterrupted());
+            }
+            finally {
+                Thread.interrupted();
+            }
+            for (int v = G.V() - 1; v >= 0; v--)
+                Assert.assertEquals(G.adj(v).toString(), toString(P.adj(v)));
+            Assert.assertTrue(P.misses() > 0);
+        }
+    }
+}
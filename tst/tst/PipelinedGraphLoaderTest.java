@@ -0,0 +1,97 @@
+package tst;
+
+import graph.Graph;
+import graph.GraphGenerator;
+import graph.PipelinedGraphLoader;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.zip.GZIPOutputStream;
+
+public class PipelinedGraphLoaderTest {
+
+    private static Graph load(String text, int parsers) {
+        return PipelinedGraphLoader.load(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), parsers);
+    }
+
+    // the message of the exception Graph(In) and the loader throw for text
+    private static String error(String text) {
+        String expected = null;
+        try {
+            new Graph(new In(new Scanner(text)));
+            Assert.fail("Graph(In) accepted \"" + text + "\"");
+        }
+        catch (IllegalArgumentException e) {
+            expected = e.getMessage();
+        }
+        try {
+            load(text, 2);
+            Assert.fail("the loader accepted \"" + text + "\"");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertEquals(expected, e.getMessage());
+        }
+        return expected;
+    }
+
+    @Test
+    public void test1(){
+        // the graphs of the data files, by file and by name
+        for (String name : new String[] { "tinyG.txt", "mediumG.txt" }) {
+            String expected = new Graph(new In(name)).toString();
+            Assert.assertEquals(expected, PipelinedGraphLoader.load(new File(name), 1).toString());
+            Assert.assertEquals(expected, PipelinedGraphLoader.load(new File(name), 3).toString());
+        }
+    }
+
+    @Test
+    public void test2() throws IOException {
+        // a gzip file of several chunks, with edges split between chunks
+        Graph G = GraphGenerator.simple(100000, 400000);
+        StringBuilder text = new StringBuilder();
+        text.append(G.V()).append("\r\n").append(G.E()).append("\r\n");
+        for (int v = 0; v < G.V(); v++)
+            for (int w : G.adj(v))
+                if (v < w) text.append(w).append('\t').append(v).append(v % 7 == 0 ? "\n" : "   ");
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        Assert.assertTrue(bytes.length > 3 * PipelinedGraphLoader.CHUNK_BYTES);
+        File file = File.createTempFile("graph", ".txt.gz");
+        file.deleteOnExit();
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(bytes);
+        }
+        Graph H = PipelinedGraphLoader.load(file, 4);
+        Assert.assertEquals(G.toString(), H.toString());
+        Assert.assertEquals(G.E(), H.version());
+    }
+
+    @Test
+    public void test3(){
+        // tokens after the E edges are ignored, as by Graph(In)
+        Assert.assertEquals(new Graph(new In(new Scanner("3 1 0 2 x"))).toString(), load("3 1 0 2 x", 1).toString());
+        Assert.assertEquals(new Graph(new In(new Scanner("3 1 0 2 7"))).toString(), load("3\n1\n0 2\n7\n", 2).toString());
+        Assert.assertEquals("0 vertices, 0 edges " + System.lineSeparator(), load("0 0", 1).toString());
+    }
+
+    @Test
+    public void test4(){
+        // invalid input is rejected with the exceptions of Graph(In)
+        Assert.assertEquals("vertex 3 is not between 0 and 2", error("3 2 0 1 1 3"));
+        Assert.assertEquals("vertex -1 is not between 0 and 2", error("3 2 0 1 -1 2"));
+        Assert.assertEquals("number of vertices in a graph.Graph must be nonnegative", error("-3 2"));
+        Assert.assertEquals("number of edges in a graph.Graph must be nonnegative", error("3 -2"));
+        error("3 2 0 1 1");
+        error("3 2 0 1 1 x");
+        error("3 2 0 1 1 99999999999");
+        error("3");
+        error("");
+    }
+}
@@ -0,0 +1,136 @@
+package tst;
+
+import graph.BinaryGraphFormat;
+import graph.BreadthFirstPaths;
+import graph.Graph;
+import graph.PrunedLandmarkLabeling;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+
+public class PrunedLandmarkLabelingTest {
+    private static void assertAgrees(Graph G, PrunedLandmarkLabeling pll) {
+        for (int s = 0; s < G.V(); s++) {
+            BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(s));
+            for (int t = 0; t < G.V(); t++)
+                Assert.assertEquals("Distance " + s + "-" + t, bfs.distTo(t), pll.distance(s, t));
+        }
+    }
+
+    private void testAgainstFile(String inputFile) {
+        Graph G = new Graph(new In(inputFile));
+        assertAgrees(G, new PrunedLandmarkLabeling(G));
+    }
+
+    @Test
+    public void test1(){
+        testAgainstFile("tinyG.txt");
+    }
+
+    @Test
+    public void test2(){
+        testAgainstFile("tinyCG.txt");
+    }
+
+    @Test
+    public void test3(){
+        testAgainstFile("tinyGConn.txt");
+    }
+
+    @Test
+    public void test4(){
+        testAgainstFile("mediumG.txt");
+    }
+
+    @Test
+    public void test5() throws IOException {
+        Graph G = new Graph(new In("mediumG.txt"));
+        File file = File.createTempFile("mediumG", ".bin");
+        File labels = BinaryGraphFormat.sibling(file, PrunedLandmarkLabeling.SUFFIX);
+        try {
+            BinaryGraphFormat.write(G, file);
+            Graph H = BinaryGraphFormat.read(file);
+            Assert.assertEquals("Binary round trip", G.toString(), H.toString());
+
+            new PrunedLandmarkLabeling(H).save(file);
+            assertAgrees(G, PrunedLandmarkLabeling.load(file));
+        }
+        finally {
+            file.delete();
+            labels.delete();
+        }
+    }
+
+    @Test
+    public void test6() throws IOException {
+        // a label file of another format version is rejected
+        Graph G = new Graph(new In("tinyG.txt"));
+        File file = File.createTempFile("tinyG", ".bin");
+        File labels = BinaryGraphFormat.sibling(file, PrunedLandmarkLabeling.SUFFIX);
+        try {
+            new PrunedLandmarkLabeling(G).save(file);
+            try (RandomAccessFile raf = new RandomAccessFile(labels, "rw")) {
+                raf.seek(4);
+                raf.writeInt(BinaryGraphFormat.VERSION + 1);
+            }
+            PrunedLandmarkLabeling.load(file);
+            Assert.fail("an unknown version is expected to be rejected");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("version"));
+        }
+        finally {
+            file.delete();
+            labels.delete();
+        }
+    }
+
+    // saves the labels of labelled next to a binary copy of G, overwrites the int
+    // at offset of the label file (if offset >= 0) with value, and returns the
+    // message of the failed load, or null if it loads
+    private static String corrupt(Graph G, Graph labelled, long offset, int value) throws IOException {
+        File file = File.createTempFile("graph", ".bin");
+        File labels = BinaryGraphFormat.sibling(file, PrunedLandmarkLabeling.SUFFIX);
+        try {
+            BinaryGraphFormat.write(G, file);
+            new PrunedLandmarkLabeling(labelled).save(file);
+            if (offset >= 0) {
+                try (RandomAccessFile raf = new RandomAccessFile(labels, "rw")) {
+                    raf.seek(offset);
+                    raf.writeInt(value);
+                }
+            }
+            PrunedLandmarkLabeling.load(file);
+            return null;
+        }
+        catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        finally {
+            file.delete();
+            labels.delete();
+        }
+    }
+
+    @Test
+    public void test7() throws IOException {
+        // a stale or corrupt label file is rejected
+        Graph G = new Graph(new In("tinyG.txt"));
+        int V = G.V();
+        long entries = new PrunedLandmarkLabeling(G).entries();
+        long header = 24;
+        long hubs = header + 8L * (V + 1);
+        long dists = hubs + 4 * entries;
+        Assert.assertNull(corrupt(G, G, -1, 0));
+        Assert.assertTrue(corrupt(G, new Graph(new In("tinyCG.txt")), -1, 0).contains("vertices"));
+        Assert.assertTrue(corrupt(G, G, hubs, V).contains("hub " + V));
+        Assert.assertTrue(corrupt(G, G, hubs, -1).contains("hub -1"));
+        Assert.assertTrue(corrupt(G, G, dists, -3).contains("negative distance"));
+        Assert.assertTrue(corrupt(G, G, header + 8 + 4, 1 << 20).contains("offset"));
+    }
+}
@@ -0,0 +1,108 @@
+package tst;
+
+import graph.BreadthFirstPaths;
+import graph.CancellationToken;
+import graph.Graph;
+import graph.GraphPartitioner;
+import graph.GraphShard;
+import graph.ShardedBreadthFirstSearch;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class ShardedBreadthFirstSearchTest {
+    private void testAgainstFile(String inputFile, int s) {
+        Graph G = new Graph(new In(inputFile));
+        BreadthFirstPaths expected = new BreadthFirstPaths(G, Collections.singletonList(s));
+        for (GraphPartitioner.Strategy strategy : GraphPartitioner.Strategy.values()) {
+            for (int k = 1; k <= 5; k++) {
+                GraphPartitioner partitioner = new GraphPartitioner(G, k, strategy);
+                int owned = 0;
+                for (int i = 0; i < k; i++) {
+                    GraphShard shard = partitioner.shard(i);
+                    owned += shard.size();
+                    for (int g = 0; g < shard.ghosts(); g++)
+                        Assert.assertTrue("Ghost must be owned by another shard", shard.ghostOwner(g) != i);
+                }
+                Assert.assertEquals("Every vertex must be owned once", G.V(), owned);
+
+                ShardedBreadthFirstSearch actual = new ShardedBreadthFirstSearch(partitioner, s);
+                int levels = 0;
+                for (int v = 0; v < G.V(); v++) {
+                    if (expected.hasPathTo(v)) levels = Math.max(levels, expected.distTo(v));
+                    Assert.assertEquals("Reachability of " + v, expected.hasPathTo(v), actual.hasPathTo(v));
+                    Assert.assertEquals("Distance to " + v, expected.distTo(v), actual.distTo(v));
+                }
+                Assert.assertEquals("Levels", levels, actual.levels());
+                Assert.assertTrue(actual.isComplete());
+                if (k == 1) Assert.assertEquals("One shard sends no messages", 0, actual.messages());
+            }
+        }
+    }
+
+    @Test
+    public void test1(){
+        testAgainstFile("tinyG.txt", 0);
+    }
+
+    @Test
+    public void test2(){
+        testAgainstFile("mediumG.txt", 0);
+    }
+
+    @Test
+    public void test3(){
+        Graph G = new Graph(new In("mediumG.txt"));
+        int hash = new GraphPartitioner(G, 4, GraphPartitioner.Strategy.HASH).edgeCut();
+        int ldg = new GraphPartitioner(G, 4, GraphPartitioner.Strategy.LDG).edgeCut();
+        Assert.assertTrue("LDG must cut fewer edges than hashing", ldg < hash);
+    }
+
+    @Test
+    public void test4(){
+        // a failure in one worker stops all of them and reaches the caller
+        Graph G = new Graph(new In("mediumG.txt"));
+        GraphPartitioner partitioner = new GraphPartitioner(G, 4, GraphPartitioner.Strategy.RANGE);
+        CancellationToken failing = new CancellationToken() {
+            @Override
+            public boolean isCancelled() {
+                throw new UnsupportedOperationException("token failed");
+            }
+        };
+        try {
+            new ShardedBreadthFirstSearch(partitioner, 0, failing);
+            Assert.fail("the failure of a worker must be rethrown");
+        }
+        catch (UnsupportedOperationException e) {
+            Assert.assertEquals("token failed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void test5(){
+        // the token is polled once at the end of every level with new vertices
+        Graph G = new Graph(new In("mediumG.txt"));
+        BreadthFirstPaths expected = new BreadthFirstPaths(G, Collections.singletonList(0));
+        for (int k = 1; k <= 4; k++) {
+            GraphPartitioner partitioner = new GraphPartitioner(G, k, GraphPartitioner.Strategy.LDG);
+            int[] polls = new int[1];
+            CancellationToken token = new CancellationToken() {
+                @Override
+                public boolean isCancelled() {
+                    return ++polls[0] == 3;
+                }
+            };
+            ShardedBreadthFirstSearch actual = new ShardedBreadthFirstSearch(partitioner, 0, token);
+            Assert.assertFalse(actual.isComplete());
+            Assert.assertEquals(3, polls[0]);
+            Assert.assertEquals(3, actual.levels());
+            for (int v = 0; v < G.V(); v++) {
+                boolean reached = expected.hasPathTo(v) && expected.distTo(v) <= 3;
+                Assert.assertEquals("Reachability of " + v, reached, actual.hasPathTo(v));
+                if (reached) Assert.assertEquals("Distance to " + v, expected.distTo(v), actual.distTo(v));
+            }
+        }
+    }
+}
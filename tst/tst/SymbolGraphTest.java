@@ -0,0 +1,65 @@
+package tst;
+
+import graph.BreadthFirstPaths;
+import graph.Graph;
+import graph.LongSymbolTable;
+import graph.StringSymbolTable;
+import graph.SymbolGraph;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Scanner;
+
+public class SymbolGraphTest {
+    @Test
+    public void test1(){
+        String input = "alice/bob/carol\nbob/dave\nérica/alice\n";
+        SymbolGraph sg = SymbolGraph.ofStrings(new In(new Scanner(input)), "/");
+        Graph G = sg.graph();
+        Assert.assertEquals("Vertex count", 5, G.V());
+        Assert.assertEquals("Edge count", 4, G.E());
+        Assert.assertEquals("First key gets id 0", 0, sg.indexOf("alice"));
+        Assert.assertEquals("Non-ASCII names round-trip", "érica", sg.nameOf(sg.indexOf("érica")));
+        Assert.assertFalse("Unknown name", sg.contains("zed"));
+
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, Collections.singletonList(sg.indexOf("dave")));
+        Assert.assertEquals("Distance in external names", 3, bfs.distTo(sg.indexOf("érica")));
+    }
+
+    @Test
+    public void test2(){
+        String input = "9000000000000000001 42\n42 -7\n-7 9000000000000000001\n5 6\n";
+        SymbolGraph sg = SymbolGraph.ofLongs(new In(new Scanner(input)));
+        Graph G = sg.graph();
+        Assert.assertEquals("Vertex count", 5, G.V());
+        Assert.assertEquals("Key round-trips", 9000000000000000001L, sg.keyOf(sg.indexOf(9000000000000000001L)));
+        long[] neighbours = sg.toKeys(G.adj(sg.indexOf(42L)));
+        Arrays.sort(neighbours);
+        Assert.assertEquals("Neighbours in external keys",
+                Arrays.toString(new long[] { -7L, 9000000000000000001L }), Arrays.toString(neighbours));
+    }
+
+    @Test
+    public void test3(){
+        LongSymbolTable longs = new LongSymbolTable();
+        StringSymbolTable strings = new StringSymbolTable();
+        for (int i = 0; i < 100000; i++) {
+            Assert.assertEquals("Long ids are dense", i, longs.intern(i * 1000003L));
+            Assert.assertEquals("String ids are dense", i, strings.intern("key" + i));
+        }
+        for (int i = 0; i < 100000; i++) {
+            Assert.assertEquals("Long lookup", i, longs.indexOf(i * 1000003L));
+            Assert.assertEquals("String lookup", "key" + i, strings.keyOf(strings.indexOf("key" + i)));
+        }
+        Assert.assertEquals("Missing long", -1, longs.indexOf(1L));
+        Assert.assertEquals("Missing string", -1, strings.indexOf("key"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test4(){
+        SymbolGraph.ofLongs(new In(new Scanner("1 2\n3 x\n")));
+    }
+}
@@ -0,0 +1,227 @@
+package tst;
+
+import graph.Graph;
+import graph.GraphGenerator;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.zip.GZIPOutputStream;
+
+public class TokenReaderTest {
+
+    private static File write(String text, boolean gzip) throws IOException {
+        File file = File.createTempFile("tokens", gzip ? ".gz" : ".txt");
+        file.deleteOnExit();
+        try (OutputStream out = gzip ? new GZIPOutputStream(new FileOutputStream(file)) : new FileOutputStream(file)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    // the Scanner and fast modes of In, over the same text
+    private static In scanner(String text) {
+        Scanner scanner = new Scanner(text);
+        scanner.useLocale(Locale.US);
+        return new In(scanner);
+    }
+
+    private static In fast(String text) throws IOException {
+        return In.fast(write(text, false));
+    }
+
+    @Test
+    public void test1() throws IOException {
+        // tokens, lines and characters, with Unicode whitespace and line terminators
+        String text = "  alpha\tbeta\r\n\r\ngamma delta\u3000café 😀 next\u0085line\u2028\rlast\u00a0nbsp \n\n";
+        In a = scanner(text), b = fast(text);
+        while (!a.isEmpty()) {
+            Assert.assertFalse(b.isEmpty());
+            Assert.assertEquals(a.readString(), b.readString());
+        }
+        Assert.assertTrue(b.isEmpty());
+        Assert.assertEquals(a.readAll(), b.readAll());
+
+        a = scanner(text);
+        b = fast(text);
+        while (a.hasNextLine()) {
+            Assert.assertTrue(b.hasNextLine());
+            Assert.assertEquals(a.readLine(), b.readLine());
+        }
+        Assert.assertFalse(b.hasNextLine());
+        Assert.assertNull(b.readLine());
+
+        a = scanner(text);
+        b = fast(text);
+        while (a.hasNextChar())
+            Assert.assertEquals(a.readChar(), b.readChar());
+        Assert.assertFalse(b.hasNextChar());
+
+        // isEmpty() consumes nothing
+        b = fast(text);
+        Assert.assertFalse(b.isEmpty());
+        Assert.assertEquals("  alpha\tbeta", b.readLine());
+        b = fast(" \n");
+        Assert.assertTrue(b.isEmpty());
+        Assert.assertEquals(" \n", b.readAll());
+    }
+
+    @Test
+    public void test2() throws IOException {
+        // numbers of every type, as Scanner parses them
+        String text = "0 -0 +7 2147483647 -2147483648 9223372036854775807 -9223372036854775808 "
+                    + "127 -128 32767 -32768 "
+                    + "1.5 -2.25e-3 .5 1. 6.02214076e23 0.1 3.141592653589793 1e-400 -0.0 NaN -Infinity "
+                    + "123456789012345678901234567890 4.9e-324 1.7976931348623157e308 0.30000000000000004\n";
+        In a = scanner(text), b = fast(text);
+        for (int i = 0; i < 5; i++)
+            Assert.assertEquals(a.readInt(), b.readInt());
+        Assert.assertEquals(a.readLong(), b.readLong());
+        Assert.assertEquals(a.readLong(), b.readLong());
+        Assert.assertEquals(a.readByte(), b.readByte());
+        Assert.assertEquals(a.readByte(), b.readByte());
+        Assert.assertEquals(a.readShort(), b.readShort());
+        Assert.assertEquals(a.readShort(), b.readShort());
+        while (!a.isEmpty()) {
+            double x = a.readDouble(), y = b.readDouble();
+            Assert.assertEquals(Double.doubleToLongBits(x), Double.doubleToLongBits(y));
+        }
+        Assert.assertTrue(b.isEmpty());
+
+        // an int too large, or not a number, is a mismatch, and is consumed
+        b = fast("2147483648 128 1,000 1d 0x10 - . 5");
+        String[] types = { "int", "byte", "int", "double", "int", "long", "double" };
+        for (String type : types) {
+            try {
+                if (type.equals("int")) b.readInt();
+                else if (type.equals("byte")) b.readByte();
+                else if (type.equals("long")) b.readLong();
+                else b.readDouble();
+                Assert.fail("a mismatch is expected");
+            }
+            catch (InputMismatchException e) {
+                Assert.assertTrue(e.getMessage().contains("'" + type + "'"));
+            }
+        }
+        Assert.assertEquals(5, b.readInt());
+        try {
+            b.readInt();
+            Assert.fail("the input is empty");
+        }
+        catch (NoSuchElementException e) {
+            Assert.assertFalse(e instanceof InputMismatchException);
+        }
+    }
+
+    @Test
+    public void test3() throws IOException {
+        // numbers spanning many buffers, read all at once and one at a time
+        Random random = new Random(7);
+        StringBuilder ints = new StringBuilder(), doubles = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            ints.append(random.nextInt()).append(i % 10 == 9 ? "\r\n" : " ");
+            double x = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+            doubles.append(i % 2 == 0 ? Double.toString(x) : String.format(Locale.US, "%.4f", x)).append('\n');
+        }
+        Assert.assertArrayEquals(scanner(ints.toString()).readAllInts(), fast(ints.toString()).readAllInts());
+        Assert.assertTrue(Arrays.equals(scanner(ints.toString()).readAllLongs(), fast(ints.toString()).readAllLongs()));
+        Assert.assertTrue(Arrays.equals(scanner(ints.toString()).readAllStrings(), fast(ints.toString()).readAllStrings()));
+        double[] expected = scanner(doubles.toString()).readAllDoubles();
+        double[] actual = In.fast(write(doubles.toString(), true)).readAllDoubles();
+        Assert.assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++)
+            Assert.assertEquals(Double.doubleToLongBits(expected[i]), Double.doubleToLongBits(actual[i]));
+
+        In a = scanner(ints.toString()), b = fast(ints.toString());
+        while (!a.isEmpty())
+            Assert.assertEquals(a.readInt(), b.readInt());
+        Assert.assertTrue(b.isEmpty());
+        b.close();
+    }
+
+    @Test
+    public void test4() {
+        // a graph reads the same in fast mode, by name, by file, and from a gzip file
+        String expected = new Graph(new In("mediumG.txt")).toString();
+        Assert.assertEquals(expected, new Graph(In.fast("mediumG.txt")).toString());
+        Assert.assertEquals(expected, new Graph(In.fast(new File("mediumG.txt"))).toString());
+        Graph G = GraphGenerator.simple(2000, 10000);
+        StringBuilder text = new StringBuilder();
+        text.append(G.V()).append('\n').append(G.E()).append('\n');
+        for (int v = 0; v < G.V(); v++)
+            for (int w : G.adj(v))
+                if (v < w) text.append(v).append(' ').append(w).append('\n');
+        try {
+            Assert.assertEquals(G.toString(), new Graph(In.fast(write(text.toString(), true))).toString());
+        }
+        catch (IOException e) {
+            Assert.fail("Could not write graph: " + e);
+        }
+        Assert.assertFalse(In.fast(new File("mediumG.txt")).isEmpty());
+        try {
+            In.fast("no-such-file.txt");
+            Assert.fail("the file does not exist");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("no-such-file.txt"));
+        }
+    }
+
+    @Test
+    public void test5() throws IOException {
+        // a double or a float is read from exactly the tokens Scanner accepts
+        String[] tokens = {
+            "0x1p3", "0x1.8p3", "-0X.8P-1", "0x1.8", "0x1.p3", "0x.p1", "0xg.1p1",
+            "1,000.5", "-12,345,678.25e-2", "1,00.5", "0,001", "1234,567", ",123", "1,000,",
+            "\u0663.\u0665", "\u0663\u0665,000", "1.e5", ".5e-3", "+.5", "1e", ".", "-", "e5",
+            "NaN", "-NaN", "+Infinity", "Infinity", "\u221e", "nan", "1d", "2.5f", "1e+", "12345678901234567890.5e-7"
+        };
+        for (String token : tokens) {
+            for (String type : new String[] { "double", "float" }) {
+                In a = scanner(token), b = fast(token);
+                String expected, actual;
+                try {
+                    expected = type.equals("double") ? Long.toString(Double.doubleToLongBits(a.readDouble()))
+                                                     : Integer.toString(Float.floatToIntBits(a.readFloat()));
+                }
+                catch (InputMismatchException e) {
+                    expected = "mismatch";
+                }
+                try {
+                    actual = type.equals("double") ? Long.toString(Double.doubleToLongBits(b.readDouble()))
+                                                   : Integer.toString(Float.floatToIntBits(b.readFloat()));
+                }
+                catch (InputMismatchException e) {
+                    actual = "mismatch";
+                }
+                Assert.assertEquals(type + " " + token, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void test6() throws IOException {
+        // the static readers of a file read it in fast mode, as Scanner would
+        String ints = "3 -1 2147483647\n-2147483648 0 42\n";
+        String doubles = "1.5 -2.25e-3 .5 NaN 1,000.5 0x1.8p3\n";
+        Assert.assertArrayEquals(scanner(ints).readAllInts(), In.readInts(write(ints, false).getPath()));
+        Assert.assertArrayEquals(scanner(ints).readAllInts(), In.readInts(write(ints, true).getPath()));
+        double[] actual = In.readDoubles(write(doubles, false).getPath());
+        In expected = scanner(doubles);
+        for (double x : actual)
+            Assert.assertEquals(Double.doubleToLongBits(expected.readDouble()), Double.doubleToLongBits(x));
+        Assert.assertTrue(expected.isEmpty());
+    }
+}
@@ -0,0 +1,122 @@
+package tst;
+
+import graph.BreadthFirstPaths;
+import graph.BreadthFirstSearch;
+import graph.ConsoleTraversalListener;
+import graph.DepthFirstPathsNoRecursion;
+import graph.Graph;
+import graph.TraversalListener;
+import graph.TraversalOptions;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+public class TraversalListenerTest {
+    private static String dumpFileContentsToString(String filePath) {
+        try {
+            return new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Assert.fail("Could not load file: " + filePath);
+            return null;
+        }
+    }
+
+    private static class CountingListener implements TraversalListener {
+        int discovered, finished, treeEdges, nonTreeEdges;
+
+        @Override
+        public void discover(int v) { discovered++; }
+
+        @Override
+        public void finish(int v) { finished++; }
+
+        @Override
+        public void treeEdge(int v, int w) { treeEdges++; }
+
+        @Override
+        public void nonTreeEdge(int v, int w) { nonTreeEdges++; }
+    }
+
+    private void testConsole(String inputFile, String expectedFile) {
+        Graph G = new Graph(new In(inputFile));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PrintStream ps = new PrintStream(baos);
+        BreadthFirstSearch bfs = new BreadthFirstSearch(G, 0,
+                new TraversalOptions().listener(new ConsoleTraversalListener(ps)));
+        for (int v = 0; v < G.V(); v++)
+            if (bfs.visited(v))
+                ps.print(v + ",");
+        ps.println();
+        ps.flush();
+        Assert.assertEquals("Output must match expected value",
+                dumpFileContentsToString(expectedFile), baos.toString());
+    }
+
+    @Test
+    public void test1(){
+        testConsole("tinyG.txt", "expected/BFS_tinyG_expected.txt");
+    }
+
+    @Test
+    public void test2(){
+        testConsole("mediumG.txt", "expected/BFS_mediumG_expected.txt");
+    }
+
+    @Test
+    public void test3(){
+        // every vertex reached is discovered and finished once, and every edge
+        // of its component is scanned once from each endpoint
+        Graph G = new Graph(new In("tinyG.txt"));
+        CountingListener bfs = new CountingListener();
+        new BreadthFirstPaths(G, Collections.singletonList(0), new TraversalOptions().listener(bfs));
+        Assert.assertEquals(7, bfs.discovered);
+        Assert.assertEquals(7, bfs.finished);
+        Assert.assertEquals(6, bfs.treeEdges);
+        Assert.assertEquals(2 * 8, bfs.treeEdges + bfs.nonTreeEdges);
+
+        CountingListener dfs = new CountingListener();
+        new DepthFirstPathsNoRecursion(G, 9, new TraversalOptions().listener(dfs));
+        Assert.assertEquals(4, dfs.discovered);
+        Assert.assertTrue(dfs.treeEdges >= 3);
+    }
+
+    @Test
+    public void test4(){
+        // a search without a listener prints nothing
+        Graph G = new Graph(new In("tinyG.txt"));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PrintStream oldOut = System.out;
+        System.setOut(new PrintStream(baos));
+        try {
+            new BreadthFirstSearch(G, 0, new TraversalOptions());
+        }
+        finally {
+            System.setOut(oldOut);
+        }
+        Assert.assertEquals("", baos.toString());
+    }
+
+    @Test
+    public void test5(){
+        // vertices at the depth limit are finished, though their edges are not scanned
+        Graph G = new Graph(new In("tinyG.txt"));
+        CountingListener paths = new CountingListener();
+        new BreadthFirstPaths(G, Collections.singletonList(0), new TraversalOptions().maxDepth(1).listener(paths));
+        Assert.assertEquals(5, paths.discovered);
+        Assert.assertEquals(5, paths.finished);
+
+        CountingListener search = new CountingListener();
+        new BreadthFirstSearch(G, 0, new TraversalOptions().maxDepth(1).listener(search));
+        Assert.assertEquals(5, search.discovered);
+        Assert.assertEquals(5, search.finished);
+        Assert.assertEquals(paths.treeEdges + paths.nonTreeEdges, search.treeEdges + search.nonTreeEdges);
+    }
+}
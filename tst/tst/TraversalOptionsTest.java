@@ -0,0 +1,120 @@
+package tst;
+
+import graph.BreadthFirstPaths;
+import graph.DepthFirstPathsNoRecursion;
+import graph.Graph;
+import graph.TraversalOptions;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+public class TraversalOptionsTest {
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private static Graph graph(String inputFile) {
+        return new Graph(new In(inputFile));
+    }
+
+    @Test
+    public void test1(){
+        // a depth-limited search visits exactly the vertices within that many hops
+        Graph G = graph("mediumG.txt");
+        List<Integer> sources = Collections.singletonList(0);
+        BreadthFirstPaths full = new BreadthFirstPaths(G, sources);
+        for (int k = 0; k <= 4; k++) {
+            BreadthFirstPaths bfs = new BreadthFirstPaths(G, sources, new TraversalOptions().maxDepth(k));
+            DepthFirstPathsNoRecursion dfs = new DepthFirstPathsNoRecursion(G, 0, new TraversalOptions().maxDepth(k));
+            for (int v = 0; v < G.V(); v++) {
+                boolean near = full.distTo(v) <= k;
+                Assert.assertEquals("BFS depth " + k + " vertex " + v, near, bfs.hasPathTo(v));
+                Assert.assertEquals("DFS depth " + k + " vertex " + v, near, dfs.hasPathTo(v));
+                if (near) Assert.assertEquals("Distance to " + v, full.distTo(v), bfs.distTo(v));
+                else Assert.assertEquals("Distance to " + v, INFINITY, bfs.distTo(v));
+            }
+        }
+    }
+
+    @Test
+    public void test2(){
+        // a search with targets stops at the nearest one
+        Graph G = graph("tinyG.txt");
+        List<Integer> sources = Collections.singletonList(0);
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, sources, new TraversalOptions().target(3).target(4));
+        int t = bfs.foundTarget();
+        Assert.assertTrue("Found " + t, t == 3 || t == 4);
+        Assert.assertEquals(2, bfs.distTo(t));
+        Assert.assertFalse(bfs.hasPathTo(7 - t));
+
+        bfs = new BreadthFirstPaths(G, sources, new TraversalOptions().target(7));
+        Assert.assertEquals(-1, bfs.foundTarget());
+
+        bfs = new BreadthFirstPaths(G, sources, new TraversalOptions().target(0));
+        Assert.assertEquals(0, bfs.foundTarget());
+        Assert.assertFalse(bfs.hasPathTo(6));
+    }
+
+    @Test
+    public void test3(){
+        // a budgeted search visits exactly that many vertices, nearest first
+        Graph G = graph("mediumG.txt");
+        List<Integer> sources = Collections.singletonList(0);
+        BreadthFirstPaths full = new BreadthFirstPaths(G, sources);
+        int budget = 25;
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, sources, new TraversalOptions().maxVisited(budget));
+        int count = 0;
+        int farthest = 0;
+        for (int v = 0; v < G.V(); v++) {
+            if (bfs.hasPathTo(v)) {
+                count++;
+                farthest = Math.max(farthest, bfs.distTo(v));
+                Assert.assertEquals("Distance to " + v, full.distTo(v), bfs.distTo(v));
+            }
+        }
+        Assert.assertEquals(budget, count);
+        for (int v = 0; v < G.V(); v++)
+            if (full.distTo(v) < farthest) Assert.assertTrue("Vertex " + v, bfs.hasPathTo(v));
+
+        DepthFirstPathsNoRecursion dfs = new DepthFirstPathsNoRecursion(G, 0, new TraversalOptions().maxVisited(budget));
+        count = 0;
+        for (int v = 0; v < G.V(); v++)
+            if (dfs.hasPathTo(v)) count++;
+        Assert.assertEquals(budget, count);
+    }
+
+    @Test
+    public void test4(){
+        // filtered-out vertices are neither visited nor expanded
+        Graph G = graph("tinyG.txt");
+        List<Integer> sources = Collections.singletonList(0);
+        BreadthFirstPaths bfs = new BreadthFirstPaths(G, sources, new TraversalOptions().filter(v -> v != 5 && v != 6));
+        Assert.assertTrue(bfs.hasPathTo(1));
+        Assert.assertTrue(bfs.hasPathTo(2));
+        Assert.assertFalse(bfs.hasPathTo(3));
+        Assert.assertFalse(bfs.hasPathTo(4));
+        Assert.assertFalse(bfs.hasPathTo(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test5(){
+        Graph G = graph("tinyG.txt");
+        new BreadthFirstPaths(G, Collections.singletonList(0), new TraversalOptions().target(G.V()));
+    }
+
+    @Test
+    public void test6(){
+        // options are reused across searches, graphs of other sizes, and new targets
+        Graph tiny = graph("tinyG.txt");
+        Graph medium = graph("mediumG.txt");
+        List<Integer> sources = Collections.singletonList(0);
+        TraversalOptions options = new TraversalOptions().target(3);
+        Assert.assertEquals(3, new BreadthFirstPaths(tiny, sources, options).foundTarget());
+        Assert.assertEquals(3, new BreadthFirstPaths(tiny, sources, options).foundTarget());
+        BreadthFirstPaths full = new BreadthFirstPaths(medium, sources);
+        Assert.assertEquals(full.distTo(3), new BreadthFirstPaths(medium, sources, options).distTo(3));
+        options.target(1);
+        Assert.assertEquals(1, new BreadthFirstPaths(tiny, sources, options).foundTarget());
+    }
+}
@@ -0,0 +1,140 @@
+package tst;
+
+import graph.BreadthFirstPaths;
+import graph.BreadthFirstSearch;
+import graph.DepthFirstPathsNoRecursion;
+import graph.Graph;
+import graph.TraversalListener;
+import graph.TraversalMetrics;
+import graph.TraversalOptions;
+import graph.TraversalStatistics;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lib.In;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+public class TraversalStatisticsTest {
+
+    @Test
+    public void test1(){
+        // tinyG from 0: levels {0}, {1, 2, 5, 6}, {3, 4}, and 8 edges scanned twice
+        Graph G = new Graph(new In("tinyG.txt"));
+        TraversalStatistics statistics = new TraversalStatistics();
+        TraversalOptions options = new TraversalOptions().statistics(statistics);
+        new BreadthFirstPaths(G, Collections.singletonList(0), options);
+        new BreadthFirstSearch(G, 0, options);
+
+        TraversalMetrics metrics = statistics.snapshot();
+        Assert.assertEquals(2, metrics.traversals());
+        Assert.assertEquals(2 * 7, metrics.verticesVisited());
+        Assert.assertEquals(2 * 16, metrics.edgesInspected());
+        Assert.assertEquals(3, metrics.levels());
+        Assert.assertEquals(2 * 1, metrics.frontierSize(0));
+        Assert.assertEquals(2 * 4, metrics.frontierSize(1));
+        Assert.assertEquals(2 * 2, metrics.frontierSize(2));
+        Assert.assertTrue(metrics.peakDepth() >= 4);
+        Assert.assertTrue(metrics.bytesAllocated() >= -1);
+
+        statistics.reset();
+        Assert.assertEquals(0, statistics.snapshot().traversals());
+    }
+
+    @Test
+    public void test2() throws InterruptedException {
+        // traversals in several threads are all counted
+        Graph G = new Graph(new In("mediumG.txt"));
+        TraversalStatistics statistics = new TraversalStatistics();
+        TraversalOptions options = new TraversalOptions().statistics(statistics);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            int first = i;
+            threads[i] = new Thread(() -> {
+                for (int s = first; s < G.V(); s += threads.length)
+                    new DepthFirstPathsNoRecursion(G, s, options);
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        TraversalMetrics metrics = statistics.snapshot();
+        Assert.assertEquals(G.V(), metrics.traversals());
+        Assert.assertEquals((long) G.V() * G.V(), metrics.verticesVisited());
+        Assert.assertEquals(0, metrics.levels());
+    }
+
+    @Test
+    public void test3() throws IOException {
+        // recorded traversals are emitted as flight recorder events
+        Graph G = new Graph(new In("tinyG.txt"));
+        TraversalOptions options = new TraversalOptions().statistics(new TraversalStatistics());
+        Path file = Files.createTempFile("traversal", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("graph.Traversal");
+            recording.enable("graph.TraversalLevel");
+            recording.start();
+            new BreadthFirstPaths(G, Collections.singletonList(9), options);
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            int traversals = 0;
+            int levels = 0;
+            for (RecordedEvent event : events) {
+                String name = event.getEventType().getName();
+                if (name.equals("graph.Traversal")) {
+                    traversals++;
+                    Assert.assertEquals(4, event.getLong("verticesVisited"));
+                    Assert.assertEquals(2, event.getInt("levels"));
+                }
+                else if (name.equals("graph.TraversalLevel")) levels++;
+            }
+            Assert.assertEquals(1, traversals);
+            Assert.assertEquals(2, levels);
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void test4() throws InterruptedException {
+        // a search started by a listener of another one is recorded on its own
+        Graph G = new Graph(new In("tinyG.txt"));
+        TraversalStatistics statistics = new TraversalStatistics();
+        TraversalOptions nested = new TraversalOptions().statistics(statistics);
+        TraversalOptions options = new TraversalOptions().statistics(statistics).listener(new TraversalListener() {
+            @Override
+            public void discover(int v) {
+                if (v == 0) new BreadthFirstSearch(G, 9, nested);
+            }
+        });
+        new BreadthFirstPaths(G, Collections.singletonList(0), options);
+        TraversalMetrics metrics = statistics.snapshot();
+        Assert.assertEquals(2, metrics.traversals());
+        Assert.assertEquals(7 + 4, metrics.verticesVisited());
+        Assert.assertEquals(16 + 8, metrics.edgesInspected());
+        Assert.assertEquals(3, metrics.levels());
+        Assert.assertEquals(1 + 1, metrics.frontierSize(0));
+        Assert.assertEquals(4 + 3, metrics.frontierSize(1));
+        Assert.assertEquals(2, metrics.frontierSize(2));
+
+        // many short-lived threads are all counted, and the statistics reused
+        statistics.reset();
+        for (int i = 0; i < 200; i++) {
+            Thread thread = new Thread(() -> new BreadthFirstSearch(G, 0, nested));
+            thread.start();
+            thread.join();
+        }
+        metrics = statistics.snapshot();
+        Assert.assertEquals(200, metrics.traversals());
+        Assert.assertEquals(200 * 7, metrics.verticesVisited());
+        Assert.assertEquals(200 * 2, metrics.frontierSize(2));
+    }
+}